@@ -26,6 +26,21 @@ public interface BuildToolAdapter {
     
     File getTestSourceDirectory(File projectRoot);
     
+    /**
+     * Directory of the JUnit XML reports written by the test run.
+     */
+    File getTestResultsDirectory(File projectRoot);
+    
+    /**
+     * Asks the build tool for the classpath the project's tests compile against, including
+     * test-scoped dependencies such as JUnit and Mockito.
+     *
+     * @return the classpath entries, or an empty list when it cannot be resolved
+     */
+    default java.util.List<File> resolveTestClasspath(File projectRoot) {
+        return java.util.Collections.emptyList();
+    }
+    
     default boolean isMultiModule(File projectRoot) {
         return false;
     }
@@ -0,0 +1,44 @@
+package com.utagent.build;
+
+/**
+ * A compiler error in a form that can be mapped back to the source and sent to a model.
+ *
+ * @param unit    fully qualified name of the compilation unit the error belongs to, null if unknown
+ * @param line    1-based line number, or -1 when the error has no position
+ * @param symbol  the unresolved symbol for "cannot find symbol" errors, e.g. "method decrement()", else null
+ * @param message the compiler message on a single line
+ */
+public record CompilerDiagnostic(String unit, long line, String symbol, String message) {
+
+    /**
+     * Builds a diagnostic from a raw javac message. javac reports unresolved symbols as
+     * "cannot find symbol" followed by indented "symbol:" and "location:" lines.
+     */
+    public static CompilerDiagnostic of(String unit, long line, String rawMessage) {
+        String symbol = null;
+        StringBuilder message = new StringBuilder();
+        for (String part : String.valueOf(rawMessage).split("\\R")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (trimmed.startsWith("symbol:")) {
+                symbol = trimmed.substring("symbol:".length()).trim();
+            }
+            if (!message.isEmpty()) {
+                message.append("; ");
+            }
+            message.append(trimmed.replaceAll("\\s+", " "));
+        }
+        return new CompilerDiagnostic(unit, line, symbol, message.toString());
+    }
+
+    public boolean hasPosition() {
+        return line > 0;
+    }
+
+    @Override
+    public String toString() {
+        return "line " + line + ": " + message;
+    }
+}
@@ -1,11 +1,28 @@
 package com.utagent.build;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 public class GradleAdapter implements BuildToolAdapter {
 
+    private static final String CLASSPATH_TASK = "utagentTestClasspath";
+    private static final String CLASSPATH_INIT_SCRIPT = """
+        rootProject { p ->
+            p.plugins.withId('java') {
+                p.tasks.register('%s') {
+                    doLast {
+                        new File(p.property('utagentClasspathFile')).text = p.sourceSets.test.compileClasspath.asPath
+                    }
+                }
+            }
+        }
+        """.formatted(CLASSPATH_TASK);
+
     @Override
     public String name() {
         return "gradle";
@@ -62,6 +79,41 @@ public class GradleAdapter implements BuildToolAdapter {
         return new File(projectRoot, "src/test/java");
     }
 
+    @Override
+    public File getTestResultsDirectory(File projectRoot) {
+        return new File(projectRoot, "build/test-results/test");
+    }
+
+    /**
+     * Gradle has no built-in task that prints a classpath, so an init script registers one
+     * on the root project for the duration of the call.
+     */
+    @Override
+    public List<File> resolveTestClasspath(File projectRoot) {
+        Path buildDir = new File(projectRoot, "build").toPath();
+        Path initScript = buildDir.resolve("utagent-classpath.init.gradle");
+        Path outputFile = buildDir.resolve("utagent-test-classpath.txt");
+        try {
+            Files.createDirectories(buildDir);
+            Files.writeString(initScript, CLASSPATH_INIT_SCRIPT, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            return List.of();
+        }
+        try {
+            return TestClasspathResolver.resolve(projectRoot, List.of(
+                isWindows() ? "gradlew.bat" : "./gradlew", "--quiet",
+                "--init-script", initScript.toAbsolutePath().toString(),
+                CLASSPATH_TASK,
+                "-PutagentClasspathFile=" + outputFile.toAbsolutePath()), outputFile);
+        } finally {
+            try {
+                Files.deleteIfExists(initScript);
+            } catch (IOException ignored) {
+                // a leftover init script under build/ is harmless
+            }
+        }
+    }
+
     @Override
     public boolean isMultiModule(File projectRoot) {
         File settingsGradle = new File(projectRoot, "settings.gradle");
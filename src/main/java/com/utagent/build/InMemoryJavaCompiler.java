@@ -0,0 +1,209 @@
+package com.utagent.build;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.FileObject;
+import javax.tools.ForwardingJavaFileManager;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileManager;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.StandardLocation;
+import javax.tools.ToolProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Compiles generated test sources with the JDK compiler without touching the disk.
+ * Class files are kept in memory and discarded, only the diagnostics are returned.
+ * The standard file manager is created once and reused, so the classpath jars are
+ * opened and indexed only on the first compilation; compilations are serialized.
+ */
+public class InMemoryJavaCompiler {
+
+    private static final Logger logger = LoggerFactory.getLogger(InMemoryJavaCompiler.class);
+
+    private final JavaCompiler compiler;
+    private final List<File> classpath;
+    private StandardJavaFileManager standardManager;
+    private List<File> resolvedClasspath;
+
+    public InMemoryJavaCompiler(List<File> classpath) {
+        this.compiler = ToolProvider.getSystemJavaCompiler();
+        this.classpath = List.copyOf(classpath);
+    }
+
+    /**
+     * Creates a compiler for tests of the given project: its main and test class directories
+     * plus the test classpath reported by the build tool. When the build tool cannot report
+     * it, the classpath this agent runs with stands in, and tests that need the project's own
+     * test dependencies cannot be judged.
+     */
+    public static InMemoryJavaCompiler forProject(BuildToolAdapter adapter, File projectRoot) {
+        List<File> classpath = new ArrayList<>();
+        classpath.add(adapter.getClassesDirectory(projectRoot));
+        classpath.add(adapter.getTestClassesDirectory(projectRoot));
+        List<File> dependencies = adapter.resolveTestClasspath(projectRoot);
+        if (!dependencies.isEmpty()) {
+            logger.debug("Resolved {} test classpath entries for {}", dependencies.size(), projectRoot);
+            classpath.addAll(dependencies);
+            return new InMemoryJavaCompiler(classpath);
+        }
+        logger.info("Test classpath of {} could not be resolved, compiling against the agent's classpath",
+            projectRoot);
+        for (String entry : System.getProperty("java.class.path", "").split(File.pathSeparator)) {
+            if (!entry.isBlank()) {
+                classpath.add(new File(entry));
+            }
+        }
+        return new InMemoryJavaCompiler(classpath);
+    }
+
+    /**
+     * Whether a system compiler is present, i.e. the agent runs on a JDK rather than a JRE.
+     */
+    public boolean isAvailable() {
+        return compiler != null;
+    }
+
+    /**
+     * Compiles one compilation unit.
+     *
+     * @param fullyQualifiedName name of the public top-level class in the source
+     * @param source             the Java source
+     */
+    public CompilationResult compile(String fullyQualifiedName, String source) {
+        return compile(Map.of(fullyQualifiedName, source));
+    }
+
+    /**
+     * Compiles several compilation units together, e.g. a generated test with the class under test.
+     *
+     * @param sources Java sources keyed by the name of their public top-level class
+     */
+    public synchronized CompilationResult compile(Map<String, String> sources) {
+        if (compiler == null) {
+            return new CompilationResult(false, List.of("No system Java compiler available"));
+        }
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+
+        try {
+            JavaFileManager fileManager = new InMemoryFileManager(fileManager());
+            List<String> options = List.of("-proc:none", "-Xlint:none");
+            List<SourceFile> units = sources.entrySet().stream()
+                .map(e -> new SourceFile(e.getKey(), e.getValue()))
+                .toList();
+            JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics, options, null, units);
+            boolean success = Boolean.TRUE.equals(task.call());
+
+            List<Diagnostic<? extends JavaFileObject>> errors = diagnostics.getDiagnostics().stream()
+                .filter(d -> d.getKind() == Diagnostic.Kind.ERROR)
+                .collect(Collectors.toList());
+            return new CompilationResult(success,
+                errors.stream()
+                    .map(d -> "line " + d.getLineNumber() + ": " + d.getMessage(Locale.ROOT))
+                    .collect(Collectors.toList()),
+                errors.stream()
+                    .map(d -> CompilerDiagnostic.of(
+                        d.getSource() instanceof SourceFile source ? source.fullyQualifiedName : null,
+                        d.getLineNumber(), d.getMessage(Locale.ROOT)))
+                    .collect(Collectors.toList()));
+        } catch (IOException | RuntimeException e) {
+            logger.debug("In-memory compilation of {} failed: {}", sources.keySet(), e.getMessage());
+            return new CompilationResult(false, List.of(String.valueOf(e.getMessage())));
+        }
+    }
+
+    /**
+     * The shared file manager. Classpath entries that did not exist yet (e.g. class
+     * directories before the first build) are picked up once they appear.
+     */
+    private StandardJavaFileManager fileManager() throws IOException {
+        if (standardManager == null) {
+            standardManager = compiler.getStandardFileManager(null, Locale.ROOT, StandardCharsets.UTF_8);
+        }
+        List<File> existing = classpath.stream().filter(File::exists).collect(Collectors.toList());
+        if (!existing.equals(resolvedClasspath)) {
+            standardManager.setLocation(StandardLocation.CLASS_PATH, existing);
+            resolvedClasspath = existing;
+        }
+        return standardManager;
+    }
+
+    public List<File> getClasspath() {
+        return classpath;
+    }
+
+    /**
+     * @param errors      the error messages prefixed with their line number
+     * @param diagnostics the same errors with the compilation unit and unresolved symbol split out
+     */
+    public record CompilationResult(boolean success, List<String> errors, List<CompilerDiagnostic> diagnostics) {
+
+        public CompilationResult(boolean success, List<String> errors) {
+            this(success, errors, List.of());
+        }
+
+        /**
+         * The errors reported for one compilation unit.
+         */
+        public List<CompilerDiagnostic> diagnosticsFor(String fullyQualifiedName) {
+            return diagnostics.stream()
+                .filter(d -> fullyQualifiedName.equals(d.unit()))
+                .collect(Collectors.toList());
+        }
+    }
+
+    private static class SourceFile extends SimpleJavaFileObject {
+        private final String fullyQualifiedName;
+        private final String source;
+
+        SourceFile(String fullyQualifiedName, String source) {
+            super(URI.create("string:///" + fullyQualifiedName.replace('.', '/') + Kind.SOURCE.extension),
+                Kind.SOURCE);
+            this.fullyQualifiedName = fullyQualifiedName;
+            this.source = source;
+        }
+
+        @Override
+        public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+            return source;
+        }
+    }
+
+    private static class ClassFile extends SimpleJavaFileObject {
+        ClassFile(String className) {
+            super(URI.create("mem:///" + className.replace('.', '/') + Kind.CLASS.extension), Kind.CLASS);
+        }
+
+        @Override
+        public OutputStream openOutputStream() {
+            return new ByteArrayOutputStream();
+        }
+    }
+
+    private static class InMemoryFileManager extends ForwardingJavaFileManager<StandardJavaFileManager> {
+        InMemoryFileManager(StandardJavaFileManager fileManager) {
+            super(fileManager);
+        }
+
+        @Override
+        public JavaFileObject getJavaFileForOutput(Location location, String className,
+                                                   JavaFileObject.Kind kind, FileObject sibling) {
+            return new ClassFile(className);
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.utagent.build;
 
 import java.io.File;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -61,6 +62,20 @@ public class MavenAdapter implements BuildToolAdapter {
         return new File(projectRoot, "src/test/java");
     }
 
+    @Override
+    public File getTestResultsDirectory(File projectRoot) {
+        return new File(projectRoot, "target/surefire-reports");
+    }
+
+    @Override
+    public List<File> resolveTestClasspath(File projectRoot) {
+        Path outputFile = new File(projectRoot, "target/utagent-test-classpath.txt").toPath();
+        return TestClasspathResolver.resolve(projectRoot, List.of(
+            "mvn", "-q", "dependency:build-classpath",
+            "-Dmdep.includeScope=test",
+            "-Dmdep.outputFile=" + outputFile.toAbsolutePath()), outputFile);
+    }
+
     @Override
     public boolean isMultiModule(File projectRoot) {
         File pomXml = new File(projectRoot, "pom.xml");
@@ -0,0 +1,76 @@
+package com.utagent.build;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs a build tool command that writes the test classpath to a file and reads it back.
+ * Dependency resolution may download artifacts, so the command gets a generous timeout;
+ * any failure yields an empty classpath and the caller falls back to what it has.
+ */
+final class TestClasspathResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestClasspathResolver.class);
+
+    static final long TIMEOUT_MINUTES = 5;
+
+    private TestClasspathResolver() {
+    }
+
+    /**
+     * @param command    the command, with {@code outputFile} already in its arguments
+     * @param outputFile file the command writes the path-separator-joined classpath to
+     */
+    static List<File> resolve(File projectRoot, List<String> command, Path outputFile) {
+        try {
+            Files.deleteIfExists(outputFile);
+            ProcessBuilder pb = new ProcessBuilder(command);
+            pb.directory(projectRoot);
+            pb.redirectErrorStream(true);
+            pb.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+            Process process = pb.start();
+            if (!process.waitFor(TIMEOUT_MINUTES, TimeUnit.MINUTES)) {
+                process.destroyForcibly();
+                logger.warn("Resolving the test classpath of {} timed out", projectRoot);
+                return List.of();
+            }
+            if (process.exitValue() != 0 || !Files.isRegularFile(outputFile)) {
+                logger.warn("Resolving the test classpath of {} failed with exit code {}",
+                    projectRoot, process.exitValue());
+                return List.of();
+            }
+            return parse(Files.readString(outputFile, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            logger.warn("Could not resolve the test classpath of {}: {}", projectRoot, e.getMessage());
+            return List.of();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } finally {
+            try {
+                Files.deleteIfExists(outputFile);
+            } catch (IOException ignored) {
+                // a leftover temporary file does not affect the result
+            }
+        }
+    }
+
+    static List<File> parse(String classpath) {
+        List<File> entries = new ArrayList<>();
+        for (String entry : classpath.strip().split(File.pathSeparator)) {
+            if (!entry.isBlank()) {
+                entries.add(new File(entry.strip()));
+            }
+        }
+        return entries;
+    }
+}
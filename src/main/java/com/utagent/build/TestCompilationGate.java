@@ -0,0 +1,119 @@
+package com.utagent.build;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Compiles a generated test class in memory before the build runs it.
+ * The test is compiled together with the source of the class under test, so a stale or
+ * missing class file does not matter. When the class under test does not compile on its
+ * own the classpath is incomplete and the gate cannot judge the test; it then lets the
+ * build decide instead of blocking it. The same holds when an empty class importing only
+ * the test framework fails to compile, e.g. because JUnit is not on the classpath. Any
+ * other import the test cannot resolve is an error in the test and blocks the build.
+ */
+public class TestCompilationGate {
+
+    private final InMemoryJavaCompiler compiler;
+    private static final Pattern PACKAGE_LINE = Pattern.compile("^\\s*package\\s+[^;]+;", Pattern.MULTILINE);
+    private static final Pattern FRAMEWORK_IMPORT = Pattern.compile(
+        "^\\s*import\\s+(?:org\\.junit\\.jupiter\\.api|org\\.junit|org\\.testng\\.annotations)\\.Test\\s*;", Pattern.MULTILINE);
+    private static final String DEFAULT_FRAMEWORK_IMPORT = "import org.junit.jupiter.api.Test;";
+
+    private final Map<String, Boolean> sourceCompiles = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> frameworkCompiles = new ConcurrentHashMap<>();
+
+    public TestCompilationGate(InMemoryJavaCompiler compiler) {
+        this.compiler = compiler;
+    }
+
+    /**
+     * @param testClassName   fully qualified name of the test class
+     * @param testSource      the test source
+     * @param sourceClassName fully qualified name of the class under test, or null
+     * @param source          source of the class under test, or null to compile against the classpath only
+     */
+    public Verdict check(String testClassName, String testSource, String sourceClassName, String source) {
+        if (compiler == null || !compiler.isAvailable()) {
+            return Verdict.UNCHECKED;
+        }
+        Map<String, String> units = new LinkedHashMap<>();
+        units.put(testClassName, testSource);
+        boolean withSource = sourceClassName != null && source != null && !sourceClassName.equals(testClassName);
+        if (withSource) {
+            units.put(sourceClassName, source);
+        }
+
+        InMemoryJavaCompiler.CompilationResult result = compiler.compile(units);
+        if (result.success()) {
+            return Verdict.COMPILES;
+        }
+        if (withSource && !sourceCompiles(sourceClassName, source)) {
+            return Verdict.UNCHECKED;
+        }
+        if (!frameworkCompiles(testClassName, testSource, withSource ? sourceClassName : null, source)) {
+            return Verdict.UNCHECKED;
+        }
+        List<CompilerDiagnostic> testDiagnostics = result.diagnosticsFor(testClassName);
+        return new Verdict(true, false, testDiagnostics.isEmpty() ? result.diagnostics() : testDiagnostics);
+    }
+
+    private boolean sourceCompiles(String sourceClassName, String source) {
+        String key = sourceClassName + '\u0000' + source.hashCode() + '\u0000' + source.length();
+        return sourceCompiles.computeIfAbsent(key, k -> compiler.compile(sourceClassName, source).success());
+    }
+
+    /**
+     * Probes the classpath with an empty class in the test's package that imports only the
+     * test framework, compiled together with the class under test. The test's other imports
+     * are left out so that one it made up shows up as a diagnostic of the test instead.
+     */
+    private boolean frameworkCompiles(String testClassName, String testSource, String sourceClassName, String source) {
+        StringBuilder skeleton = new StringBuilder();
+        Matcher packageLine = PACKAGE_LINE.matcher(testSource);
+        if (packageLine.find()) {
+            skeleton.append(packageLine.group().strip()).append('\n');
+        }
+        Matcher frameworkImport = FRAMEWORK_IMPORT.matcher(testSource);
+        skeleton.append(frameworkImport.find() ? frameworkImport.group().strip() : DEFAULT_FRAMEWORK_IMPORT).append('\n');
+        String simpleName = testClassName.substring(testClassName.lastIndexOf('.') + 1);
+        skeleton.append("class ").append(simpleName).append(" {\n}\n");
+        String probe = skeleton.toString();
+        return frameworkCompiles.computeIfAbsent(probe, k -> {
+            Map<String, String> units = new LinkedHashMap<>();
+            units.put(testClassName, probe);
+            if (sourceClassName != null) {
+                units.put(sourceClassName, source);
+            }
+            return compiler.compile(units).success();
+        });
+    }
+
+    /**
+     * Outcome of the gate.
+     *
+     * @param checked     whether the test could be judged at all
+     * @param compiles    whether the test compiles; meaningful only when checked
+     * @param diagnostics compiler errors in the test, for repair prompts
+     */
+    public record Verdict(boolean checked, boolean compiles, List<CompilerDiagnostic> diagnostics) {
+
+        public static final Verdict UNCHECKED = new Verdict(false, false, List.of());
+        public static final Verdict COMPILES = new Verdict(true, true, List.of());
+
+        public Verdict {
+            diagnostics = diagnostics != null ? List.copyOf(diagnostics) : List.of();
+        }
+
+        /**
+         * Whether running the build is pointless because the test is known not to compile.
+         */
+        public boolean blocksBuild() {
+            return checked && !compiles;
+        }
+    }
+}
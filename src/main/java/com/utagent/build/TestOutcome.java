@@ -0,0 +1,26 @@
+package com.utagent.build;
+
+/**
+ * Result of one test method in a test run, as reported in the JUnit XML reports.
+ *
+ * @param className  fully qualified name of the test class (of the nested class for @Nested tests)
+ * @param methodName the test method name, or the display name when the report does not contain it
+ * @param status     outcome of the test
+ * @param message    failure message, null for passed and skipped tests
+ */
+public record TestOutcome(String className, String methodName, Status status, String message) {
+
+    public enum Status {
+        PASSED,
+        FAILED,
+        ERROR,
+        SKIPPED
+    }
+
+    /**
+     * Whether the test made the run fail, by a failed assertion or an unexpected exception.
+     */
+    public boolean failed() {
+        return status == Status.FAILED || status == Status.ERROR;
+    }
+}
@@ -0,0 +1,109 @@
+package com.utagent.build;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+import org.xml.sax.SAXException;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads per-method test outcomes from the JUnit XML reports written by Surefire and Gradle
+ * ({@code TEST-<class>.xml}, one file per test class and one per nested class).
+ */
+public class TestResultParser {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestResultParser.class);
+
+    // "shouldAdd", "shouldAdd()", "shouldAdd(int)[2]"; anything else is a display name
+    private static final Pattern METHOD_NAME = Pattern.compile("^([A-Za-z_$][\\w$]*)(?:\\(.*|\\[.*)?$");
+
+    /**
+     * Outcomes of the given test class and its nested classes. Missing or unreadable reports
+     * yield no outcomes.
+     */
+    public List<TestOutcome> parse(File resultsDirectory, String testClassName) {
+        List<TestOutcome> outcomes = new ArrayList<>();
+        for (File report : reportFiles(resultsDirectory, testClassName)) {
+            try {
+                outcomes.addAll(parse(report));
+            } catch (IOException | SAXException | ParserConfigurationException e) {
+                logger.debug("Could not read test report {}: {}", report, e.getMessage());
+            }
+        }
+        return outcomes;
+    }
+
+    public List<TestOutcome> parse(File xmlFile) throws IOException, SAXException, ParserConfigurationException {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(false);
+        factory.setValidating(false);
+        DocumentBuilder builder = factory.newDocumentBuilder();
+        Document document = builder.parse(xmlFile);
+
+        List<TestOutcome> outcomes = new ArrayList<>();
+        NodeList testCases = document.getElementsByTagName("testcase");
+        for (int i = 0; i < testCases.getLength(); i++) {
+            Element testCase = (Element) testCases.item(i);
+            TestOutcome.Status status = TestOutcome.Status.PASSED;
+            String message = null;
+            Element detail = firstChild(testCase, "failure");
+            if (detail != null) {
+                status = TestOutcome.Status.FAILED;
+            } else if ((detail = firstChild(testCase, "error")) != null) {
+                status = TestOutcome.Status.ERROR;
+            } else if (firstChild(testCase, "skipped") != null) {
+                status = TestOutcome.Status.SKIPPED;
+            }
+            if (detail != null) {
+                message = detail.hasAttribute("message") ? detail.getAttribute("message") : detail.getAttribute("type");
+            }
+            outcomes.add(new TestOutcome(testCase.getAttribute("classname"),
+                methodName(testCase.getAttribute("name")), status, message));
+        }
+        return outcomes;
+    }
+
+    /**
+     * Deletes the reports of the given test class so that a later parse cannot pick up
+     * results of an earlier run.
+     */
+    public void deleteResults(File resultsDirectory, String testClassName) {
+        for (File report : reportFiles(resultsDirectory, testClassName)) {
+            if (!report.delete()) {
+                logger.debug("Could not delete stale test report {}", report);
+            }
+        }
+    }
+
+    private static List<File> reportFiles(File resultsDirectory, String testClassName) {
+        if (resultsDirectory == null || !resultsDirectory.isDirectory()) {
+            return List.of();
+        }
+        String exact = "TEST-" + testClassName + ".xml";
+        String nestedPrefix = "TEST-" + testClassName + "$";
+        File[] reports = resultsDirectory.listFiles((dir, name) ->
+            name.equals(exact) || (name.startsWith(nestedPrefix) && name.endsWith(".xml")));
+        return reports != null ? List.of(reports) : List.of();
+    }
+
+    private static String methodName(String reportedName) {
+        Matcher matcher = METHOD_NAME.matcher(reportedName.trim());
+        return matcher.matches() ? matcher.group(1) : reportedName.trim();
+    }
+
+    private static Element firstChild(Element parent, String tagName) {
+        NodeList children = parent.getElementsByTagName(tagName);
+        return children.getLength() > 0 ? (Element) children.item(0) : null;
+    }
+}
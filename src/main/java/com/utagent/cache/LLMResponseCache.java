@@ -5,22 +5,20 @@ import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import com.utagent.config.CacheConfig;
 import com.utagent.llm.ChatRequest;
 import com.utagent.llm.ChatResponse;
+import com.utagent.llm.TokenUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.io.IOException;
-import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
-import java.util.HexFormat;
 import java.util.Optional;
 
 /**
  * LLM 响应缓存，用于缓存 LLM API 的响应结果。
- * 基于请求内容的哈希值进行缓存，避免重复调用 API。
+ * 以规范化的请求指纹为键，避免重复调用 API。带源码哈希的请求由内容寻址，
+ * 源码和提示模板不变时条目一直有效；其余条目按配置的时长过期。
  */
 public class LLMResponseCache {
 
@@ -76,7 +74,7 @@ public class LLMResponseCache {
             return Optional.empty();
         }
 
-        if (isExpired(cacheFile)) {
+        if (!RequestFingerprint.isContentAddressed(request) && isExpired(cacheFile)) {
             logger.debug("LLM cache expired for request hash: {}", requestHash);
             if (!cacheFile.delete()) {
                 logger.warn("Failed to delete expired cache file: {}", cacheFile.getAbsolutePath());
@@ -87,7 +85,7 @@ public class LLMResponseCache {
         try {
             CachedLLMResponse cachedResponse = objectMapper.readValue(cacheFile, CachedLLMResponse.class);
             logger.debug("LLM cache hit for request hash: {}", requestHash);
-            return Optional.of(cachedResponse.response());
+            return Optional.of(cachedResponse.toResponse());
         } catch (IOException e) {
             logger.warn("Failed to read LLM cache for request hash {}: {}", requestHash, e.getMessage());
             if (!cacheFile.delete()) {
@@ -119,7 +117,10 @@ public class LLMResponseCache {
             Files.createDirectories(cacheFile.getParentFile().toPath());
 
             CachedLLMResponse cachedResponse = new CachedLLMResponse(
-                response,
+                response.content(),
+                response.tokenUsage(),
+                response.model(),
+                response.finishReason(),
                 requestHash,
                 Instant.now().toEpochMilli()
             );
@@ -164,27 +165,7 @@ public class LLMResponseCache {
     }
 
     private String computeRequestHash(ChatRequest request) {
-        StringBuilder sb = new StringBuilder();
-        sb.append(request.model() != null ? request.model() : "default");
-        sb.append(request.temperature());
-        sb.append(request.maxTokens());
-
-        for (var message : request.messages()) {
-            sb.append(message.role());
-            sb.append(message.content());
-        }
-
-        return computeHash(sb.toString());
-    }
-
-    private String computeHash(String content) {
-        try {
-            MessageDigest digest = MessageDigest.getInstance("SHA-256");
-            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
-            return HexFormat.of().formatHex(hash);
-        } catch (NoSuchAlgorithmException e) {
-            return String.valueOf(content.hashCode());
-        }
+        return RequestFingerprint.of(request);
     }
 
     private File getCacheFile(String hash) {
@@ -275,13 +256,31 @@ public class LLMResponseCache {
     }
 
     /**
-     * 缓存的 LLM 响应记录
+     * 缓存的 LLM 响应记录。ChatResponse 没有 Jackson 可用的属性访问器和构造器，
+     * 因此按字段保存，读取时再重建
      */
     public record CachedLLMResponse(
-        ChatResponse response,
+        String content,
+        TokenUsage tokenUsage,
+        String model,
+        String finishReason,
         String requestHash,
         long cachedAt
-    ) {}
+    ) {
+        /**
+         * 命中缓存不产生新的 token 消耗：返回空用量并标记为缓存响应，原始用量只留在缓存文件中
+         */
+        public ChatResponse toResponse() {
+            return ChatResponse.builder()
+                .content(content)
+                .tokenUsage(TokenUsage.empty())
+                .model(model)
+                .finishReason(finishReason)
+                .success(true)
+                .cached(true)
+                .build();
+        }
+    }
 
     /**
      * 缓存统计信息
@@ -0,0 +1,102 @@
+package com.utagent.cache;
+
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.Message;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 规范化的请求指纹，作为 LLM 响应缓存的键。
+ * 提示文本先做空白和时间戳归一化，各字段之间使用显式分隔符，
+ * 并纳入提示模板版本、源码内容哈希和结构化输出的 schema，源码和模板不变时指纹保持不变。
+ */
+public final class RequestFingerprint {
+
+    /**
+     * 指纹格式版本，修改指纹的组成方式时递增，使旧条目自然失效
+     */
+    public static final String FORMAT_VERSION = "3";
+
+    private static final char FIELD_SEPARATOR = '\u001F';
+    private static final char RECORD_SEPARATOR = '\u001E';
+    private static final Pattern TIMESTAMP = Pattern.compile(
+        "\\b\\d{4}-\\d{2}-\\d{2}[T ]\\d{2}:\\d{2}(?::\\d{2}(?:\\.\\d+)?)?(?:Z|[+-]\\d{2}:?\\d{2})?\\b");
+    private static final Pattern HORIZONTAL_WHITESPACE = Pattern.compile("[ \\t\\x0B\\f]+");
+    private static final Pattern LINE_BREAKS = Pattern.compile(" ?\\n[\\n ]*");
+
+    private RequestFingerprint() {
+    }
+
+    /**
+     * 计算请求的规范指纹
+     */
+    public static String of(ChatRequest request) {
+        StringBuilder sb = new StringBuilder();
+        field(sb, "format", FORMAT_VERSION);
+        field(sb, "model", request.model() != null ? request.model() : "default");
+        field(sb, "temperature", String.format(Locale.ROOT, "%.3f", request.temperature()));
+        field(sb, "maxTokens", String.valueOf(request.maxTokens()));
+        field(sb, "template", request.templateVersion() != null ? request.templateVersion() : "");
+        field(sb, "source", request.sourceHash() != null ? request.sourceHash() : "");
+        field(sb, "schema", request.hasResponseSchema() ? sha256(request.responseSchema()) : "");
+        if (request.sampleIndex() > 0) {
+            // 首个样本与普通请求共用指纹，其余样本各自独立
+            field(sb, "sample", String.valueOf(request.sampleIndex()));
+        }
+        for (Message message : request.messages()) {
+            field(sb, message.role(), normalize(message.content()));
+        }
+        return sha256(sb.toString());
+    }
+
+    /**
+     * 请求是否带有源码哈希：这类条目由内容寻址，不需要按时间过期
+     */
+    public static boolean isContentAddressed(ChatRequest request) {
+        return request.sourceHash() != null && !request.sourceHash().isEmpty();
+    }
+
+    /**
+     * 归一化提示文本：统一换行，去掉行首行尾空白和空行，折叠连续空白，时间戳替换为占位符
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String normalized = text.replace("\r\n", "\n").replace('\r', '\n');
+        normalized = TIMESTAMP.matcher(normalized).replaceAll("<timestamp>");
+        normalized = HORIZONTAL_WHITESPACE.matcher(normalized).replaceAll(" ");
+        normalized = LINE_BREAKS.matcher(normalized).replaceAll("\n");
+        return normalized.strip();
+    }
+
+    /**
+     * 合并多个源码哈希，用于一次请求包含多个类的情况
+     */
+    public static String combine(List<String> hashes) {
+        if (hashes.stream().anyMatch(h -> h == null || h.isEmpty())) {
+            return null;
+        }
+        return sha256(String.join(String.valueOf(FIELD_SEPARATOR), hashes));
+    }
+
+    public static String sha256(String content) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(content.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash);
+        } catch (NoSuchAlgorithmException e) {
+            return String.valueOf(content.hashCode());
+        }
+    }
+
+    private static void field(StringBuilder sb, String name, String value) {
+        sb.append(name).append(FIELD_SEPARATOR).append(value).append(RECORD_SEPARATOR);
+    }
+}
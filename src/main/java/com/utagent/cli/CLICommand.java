@@ -4,15 +4,21 @@ import com.utagent.config.AgentConfig;
 import com.utagent.coverage.CoverageAnalyzer;
 import com.utagent.generator.TestGenerator;
 import com.utagent.llm.LLMConfig;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.LLMProviderFactory;
 import com.utagent.llm.LLMProviderType;
+import com.utagent.llm.ModelRoutingProvider;
 import com.utagent.model.ClassInfo;
 import com.utagent.model.CoverageReport;
 import com.utagent.monitoring.GenerationProgress;
 import com.utagent.monitoring.LLMCallMonitor;
 import com.utagent.monitoring.RealTimeDashboard;
+import com.utagent.optimizer.BudgetGovernor;
 import com.utagent.optimizer.IterativeOptimizer;
 import com.utagent.optimizer.OptimizationResult;
+import com.utagent.optimizer.StoppingPolicy;
 import com.utagent.optimizer.TestOptimizer;
+import com.utagent.optimizer.UncoveredTargetSelector;
 import com.utagent.parser.FrameworkDetector;
 import com.utagent.parser.FrameworkType;
 import com.utagent.parser.JavaCodeParser;
@@ -22,6 +28,7 @@ import picocli.CommandLine.Option;
 import picocli.CommandLine.Parameters;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -49,7 +56,7 @@ public class CLICommand implements Callable<Integer> {
     @Option(names = {"--api-url"}, description = "Custom API URL")
     private String apiUrl;
 
-    @Option(names = {"-p", "--provider"}, description = "LLM provider: openai, claude, ollama, deepseek (default: openai)")
+    @Option(names = {"-p", "--provider"}, description = "LLM provider: openai, claude, ollama, deepseek, replay (default: openai)")
     private String provider;
 
     @Option(names = {"--model"}, description = "LLM model to use")
@@ -73,7 +80,7 @@ public class CLICommand implements Callable<Integer> {
     @Option(names = {"--init"}, description = "Initialize configuration file")
     private boolean initConfig = false;
 
-    @Option(names = {"--stream"}, description = "Enable streaming output")
+    @Option(names = {"--stream"}, description = "Stream initial tests, compiling and measuring them as they arrive")
     private boolean stream = false;
 
     @Option(names = {"--config"}, description = "Path to configuration file")
@@ -88,6 +95,42 @@ public class CLICommand implements Callable<Integer> {
     @Option(names = {"--force", "-F"}, description = "Force full regeneration of tests (ignore existing tests)")
     private boolean force = false;
 
+    @Option(names = {"--fallback-provider"}, description = "Backup LLM provider for hedged requests and failover (e.g. ollama)")
+    private String fallbackProvider;
+
+    @Option(names = {"--fallback-model"}, description = "Model to use with the fallback provider")
+    private String fallbackModel;
+
+    @Option(names = {"--fast-provider"}, description = "Cheaper LLM provider for simple classes; complex or failing classes use --provider (e.g. ollama)")
+    private String fastProvider;
+
+    @Option(names = {"--fast-model"}, description = "Model to use with the fast provider")
+    private String fastModel;
+
+    @Option(names = {"--record"}, description = "Record every LLM exchange to this file for offline replay with --provider replay --api-url <file>")
+    private File recordFile;
+
+    @Option(names = {"--candidates"}, description = "Alternative test classes requested per class; complementary tests of all candidates are merged (default: 1)")
+    private int candidates = 1;
+
+    @Option(names = {"--repair-attempts"}, description = "Times the LLM is asked to fix test methods that do not compile before they are dropped (default: 2)")
+    private int repairAttempts = 2;
+
+    @Option(names = {"--plateau-iterations"}, description = "Stop iterating on a class after this many iterations without coverage gain; 0 disables early stopping (default: 2)")
+    private int plateauIterations = StoppingPolicy.DEFAULT_PLATEAU_ITERATIONS;
+
+    @Option(names = {"--target-tokens"}, description = "Token budget of the uncovered methods listed in each iteration prompt, chosen by missed lines and branches per token; 0 lists all (default: 1500)")
+    private int targetTokens = UncoveredTargetSelector.DEFAULT_TOKEN_BUDGET;
+
+    @Option(names = {"--resume"}, description = "Continue an interrupted directory run from its journal in .utagent/run-journal.jsonl: completed classes are skipped, classes in progress continue from their last compiling test file")
+    private boolean resume = false;
+
+    @Option(names = {"--token-budget"}, description = "Maximum LLM tokens for a directory run; leftover budget goes to the classes with the best coverage gain per token")
+    private long tokenBudget = 0;
+
+    @Option(names = {"--time-budget"}, description = "Maximum duration of a directory run in minutes")
+    private long timeBudgetMinutes = 0;
+
     private AgentConfig config;
     private ConfigManager configManager;
     private OutputFormatter outputFormatter;
@@ -171,13 +214,25 @@ public class CLICommand implements Callable<Integer> {
         boolean useIncremental = determineIncrementalMode();
         outputFormatter.printIncrementalMode(useIncremental);
 
-        IterativeOptimizer optimizer = (IterativeOptimizer) new IterativeOptimizer(configManager.getProjectRoot(), resolveApiKey())
+        IterativeOptimizer optimizer = (IterativeOptimizer) createOptimizer()
             .setTargetCoverage(config.getCoverage().getTargetOrDefault())
             .setMaxIterations(config.getCoverage().getMaxIterationsOrDefault())
             .setVerbose(config.getOutput().getVerboseOrDefault())
             .setIncrementalMode(useIncremental)
             .setProgressListener(outputFormatter::printProgress)
             .setCoverageListener(outputFormatter::printCoverage);
+        optimizer.setStreamingMode(stream);
+        optimizer.setCandidateCount(candidates);
+        optimizer.setRepairAttempts(repairAttempts);
+        optimizer.setStoppingPolicy(new StoppingPolicy(plateauIterations, StoppingPolicy.DEFAULT_MIN_GAIN, 0.0,
+            StoppingPolicy.DEFAULT_MIN_GAIN_PER_MINUTE));
+        optimizer.setTargetTokenBudget(targetTokens);
+        optimizer.setContextTokenBudget(config.getGeneration().getMaxContextTokensOrDefault());
+        optimizer.setResume(resume);
+        if (tokenBudget > 0 || timeBudgetMinutes > 0) {
+            optimizer.setBudgetGovernor(new BudgetGovernor(tokenBudget,
+                timeBudgetMinutes > 0 ? Duration.ofMinutes(timeBudgetMinutes) : null));
+        }
 
         if (enableDashboard) {
             dashboard = RealTimeDashboard.builder().build();
@@ -231,11 +286,44 @@ public class CLICommand implements Callable<Integer> {
             System.out.println("Successful: " + stats.successfulCalls());
             System.out.println("Failed: " + stats.failedCalls());
             System.out.println("Total tokens: " + stats.getFormattedTokens());
+            if (stats.totalCachedPromptTokens() > 0) {
+                System.out.println("Cached prompt tokens: " + stats.totalCachedPromptTokens()
+                    + String.format(" (%.0f%%)", stats.promptCacheHitRate() * 100));
+            }
             System.out.println("Average latency: " + String.format("%.0fms", stats.averageLatencyMs()));
             System.out.println("Estimated cost: $" + String.format("%.4f", stats.estimatedCost()));
         }
     }
 
+    private IterativeOptimizer createOptimizer() {
+        File projectRoot = configManager.getProjectRoot();
+        LLMConfig llmConfig = config.getLlm();
+        LLMProvider llmProvider;
+        if (recordFile != null || fastProvider != null || fallbackProvider != null) {
+            LLMConfig fastConfig = fastProvider == null ? null : LLMConfig.builder()
+                .provider(fastProvider)
+                .model(fastModel)
+                .caCertPath(llmConfig.caCertPath())
+                .build();
+            List<LLMConfig> backups = fallbackProvider == null ? List.of() : List.of(LLMConfig.builder()
+                .provider(fallbackProvider)
+                .model(fallbackModel)
+                .caCertPath(llmConfig.caCertPath())
+                .build());
+            llmProvider = LLMProviderFactory.createComposed(llmConfig.withApiKey(resolveApiKey()), backups,
+                config.getHedging(), fastConfig, ModelRoutingProvider.DEFAULT_COMPLEXITY_THRESHOLD,
+                recordFile != null ? recordFile.toPath() : null);
+        } else if (!LLMProviderType.fromId(llmConfig.provider()).isLive()) {
+            llmProvider = LLMProviderFactory.create(llmConfig);
+        } else {
+            return new IterativeOptimizer(projectRoot, resolveApiKey());
+        }
+
+        TestGenerator generator = new TestGenerator(null, llmConfig.provider(), null, null, llmProvider, null);
+        return new IterativeOptimizer(projectRoot, new JavaCodeParser(), generator,
+            new CoverageAnalyzer(projectRoot), null);
+    }
+
     private String resolveApiKey() {
         LLMConfig llmConfig = config.getLlm();
         LLMProviderType providerType = LLMProviderType.fromId(llmConfig.provider());
@@ -282,12 +370,14 @@ public class CLICommand implements Callable<Integer> {
         String apiKey = resolveApiKey();
         LLMConfig llmConfig = config.getLlm();
         
-        return new TestGenerator(
+        TestGenerator generator = new TestGenerator(
             apiKey,
             llmConfig.provider(),
             llmConfig.baseUrl(),
             llmConfig.getModelOrDefault()
         );
+        generator.setContextTokenBudget(config.getGeneration().getMaxContextTokensOrDefault());
+        return generator;
     }
 
     private int analyzeCoverage() {
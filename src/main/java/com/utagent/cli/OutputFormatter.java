@@ -4,9 +4,13 @@ import com.utagent.config.OutputConfig;
 import com.utagent.model.CoverageReport;
 import com.utagent.parser.FrameworkType;
 import com.utagent.optimizer.OptimizationResult;
+import com.utagent.optimizer.StopReason;
 
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
  * Output formatter for CLI tool. Handles all user-facing output formatting.
@@ -167,6 +171,13 @@ public class OutputFormatter {
             .average()
             .orElse(0.0);
         System.out.println("Average coverage improvement: " + String.format("%.1f%%", avgImprovement * 100));
+
+        Map<StopReason, Long> stopReasons = results.stream()
+            .filter(result -> result.getStopReason() != null)
+            .collect(Collectors.groupingBy(OptimizationResult::getStopReason,
+                () -> new EnumMap<>(StopReason.class), Collectors.counting()));
+        stopReasons.forEach((reason, count) ->
+            System.out.println("  " + reason.label() + ": " + count));
     }
 
     /**
@@ -17,11 +17,15 @@ public class AgentConfig {
     @JsonProperty("output")
     private OutputConfig output;
     
+    @JsonProperty("hedging")
+    private HedgingConfig hedging;
+    
     public AgentConfig() {
         this.llm = LLMConfig.defaults();
         this.coverage = CoverageConfig.defaults();
         this.generation = GenerationConfig.defaults();
         this.output = OutputConfig.defaults();
+        this.hedging = HedgingConfig.defaults();
     }
     
     public LLMConfig getLlm() {
@@ -40,6 +44,10 @@ public class AgentConfig {
         return output != null ? output : OutputConfig.defaults();
     }
     
+    public HedgingConfig getHedging() {
+        return hedging != null ? hedging : HedgingConfig.defaults();
+    }
+    
     public void setLlm(LLMConfig llm) {
         this.llm = llm;
     }
@@ -56,6 +64,10 @@ public class AgentConfig {
         this.output = output;
     }
     
+    public void setHedging(HedgingConfig hedging) {
+        this.hedging = hedging;
+    }
+    
     public AgentConfig merge(AgentConfig other) {
         if (other == null) return this;
         
@@ -65,6 +77,7 @@ public class AgentConfig {
         merged.coverage = mergeCoverageConfig(this.coverage, other.coverage);
         merged.generation = mergeGenerationConfig(this.generation, other.generation);
         merged.output = mergeOutputConfig(this.output, other.output);
+        merged.hedging = mergeHedgingConfig(this.hedging, other.hedging);
         
         return merged;
     }
@@ -107,6 +120,7 @@ public class AgentConfig {
             .includeParameterizedTests(primary.includeParameterizedTests() != null ? primary.includeParameterizedTests() : secondary.includeParameterizedTests())
             .testDataStrategy(primary.testDataStrategy() != null ? primary.testDataStrategy() : secondary.testDataStrategy())
             .verifyMocks(primary.verifyMocks() != null ? primary.verifyMocks() : secondary.verifyMocks())
+            .maxContextTokens(primary.maxContextTokens() != null ? primary.maxContextTokens() : secondary.maxContextTokens())
             .build();
     }
     
@@ -123,6 +137,22 @@ public class AgentConfig {
             .build();
     }
     
+    private HedgingConfig mergeHedgingConfig(HedgingConfig primary, HedgingConfig secondary) {
+        if (primary == null) return secondary;
+        if (secondary == null) return primary;
+        
+        return HedgingConfig.builder()
+            .enabled(primary.enabled() != null ? primary.enabled() : secondary.enabled())
+            .hedgeDelayPercentile(primary.hedgeDelayPercentile() != null ? primary.hedgeDelayPercentile() : secondary.hedgeDelayPercentile())
+            .initialHedgeDelayMs(primary.initialHedgeDelayMs() != null ? primary.initialHedgeDelayMs() : secondary.initialHedgeDelayMs())
+            .minHedgeDelayMs(primary.minHedgeDelayMs() != null ? primary.minHedgeDelayMs() : secondary.minHedgeDelayMs())
+            .latencyWindowSize(primary.latencyWindowSize() != null ? primary.latencyWindowSize() : secondary.latencyWindowSize())
+            .maxHedges(primary.maxHedges() != null ? primary.maxHedges() : secondary.maxHedges())
+            .failureThreshold(primary.failureThreshold() != null ? primary.failureThreshold() : secondary.failureThreshold())
+            .openDurationSeconds(primary.openDurationSeconds() != null ? primary.openDurationSeconds() : secondary.openDurationSeconds())
+            .build();
+    }
+    
     public static Builder builder() {
         return new Builder();
     }
@@ -132,6 +162,7 @@ public class AgentConfig {
         private CoverageConfig coverage;
         private GenerationConfig generation;
         private OutputConfig output;
+        private HedgingConfig hedging;
         
         public Builder llm(LLMConfig llm) {
             this.llm = llm;
@@ -153,12 +184,18 @@ public class AgentConfig {
             return this;
         }
         
+        public Builder hedging(HedgingConfig hedging) {
+            this.hedging = hedging;
+            return this;
+        }
+        
         public AgentConfig build() {
             AgentConfig config = new AgentConfig();
             if (llm != null) config.setLlm(llm);
             if (coverage != null) config.setCoverage(coverage);
             if (generation != null) config.setGeneration(generation);
             if (output != null) config.setOutput(output);
+            if (hedging != null) config.setHedging(hedging);
             return config;
         }
     }
@@ -158,6 +158,8 @@ public final class ConfigLoader {
               test-data-strategy: simple
               # Verify mock interactions
               verify-mocks: true
+              # Token budget for the class context (signatures and method bodies) of a prompt
+              max-context-tokens: 8000
             
             # Output Configuration
             output:
@@ -171,6 +173,18 @@ public final class ConfigLoader {
               color-output: true
               # Show progress bar
               show-progress: true
+            
+            # Hedged requests and failover, used with --fallback-provider
+            hedging:
+              # Send a backup request when the primary is slower than usual
+              enabled: true
+              # Latency percentile after which the backup request is sent
+              hedge-delay-percentile: 0.95
+              # Maximum backup requests per call
+              max-hedges: 1
+              # Consecutive failures before a provider is skipped for a while
+              failure-threshold: 5
+              open-duration-seconds: 60
             """;
     }
     
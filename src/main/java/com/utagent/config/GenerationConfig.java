@@ -1,20 +1,24 @@
 package com.utagent.config;
 
+import com.fasterxml.jackson.annotation.JsonAlias;
+
 public record GenerationConfig(
     String strategy,
-    Boolean includeNegativeTests,
-    Boolean includeEdgeCases,
-    Boolean includeParameterizedTests,
-    String testDataStrategy,
-    Boolean verifyMocks,
+    @JsonAlias("include-negative-tests") Boolean includeNegativeTests,
+    @JsonAlias("include-edge-cases") Boolean includeEdgeCases,
+    @JsonAlias("include-parameterized-tests") Boolean includeParameterizedTests,
+    @JsonAlias("test-data-strategy") String testDataStrategy,
+    @JsonAlias("verify-mocks") Boolean verifyMocks,
     Boolean incremental,
-    Boolean preserveExistingTests
+    @JsonAlias("preserve-existing-tests") Boolean preserveExistingTests,
+    @JsonAlias("max-context-tokens") Integer maxContextTokens
 ) {
     public static final String STRATEGY_AI = "ai";
     public static final String STRATEGY_TEMPLATE = "template";
     public static final String TEST_DATA_INSTANCIO = "instancio";
     public static final String TEST_DATA_BUILDER = "builder";
     public static final String TEST_DATA_SIMPLE = "simple";
+    public static final int DEFAULT_MAX_CONTEXT_TOKENS = 8000;
     
     public static GenerationConfig defaults() {
         return new GenerationConfig(
@@ -25,7 +29,8 @@ public record GenerationConfig(
             TEST_DATA_SIMPLE,
             true,
             true,
-            true
+            true,
+            DEFAULT_MAX_CONTEXT_TOKENS
         );
     }
     
@@ -61,6 +66,10 @@ public record GenerationConfig(
         return preserveExistingTests != null ? preserveExistingTests : true;
     }
     
+    public int getMaxContextTokensOrDefault() {
+        return maxContextTokens != null ? maxContextTokens : DEFAULT_MAX_CONTEXT_TOKENS;
+    }
+    
     public boolean isAIStrategy() {
         return STRATEGY_AI.equalsIgnoreCase(getStrategyOrDefault());
     }
@@ -78,6 +87,7 @@ public record GenerationConfig(
         private Boolean verifyMocks;
         private Boolean incremental;
         private Boolean preserveExistingTests;
+        private Integer maxContextTokens;
         
         public Builder strategy(String strategy) {
             this.strategy = strategy;
@@ -119,11 +129,16 @@ public record GenerationConfig(
             return this;
         }
         
+        public Builder maxContextTokens(Integer maxContextTokens) {
+            this.maxContextTokens = maxContextTokens;
+            return this;
+        }
+        
         public GenerationConfig build() {
             return new GenerationConfig(
                 strategy, includeNegativeTests, includeEdgeCases,
                 includeParameterizedTests, testDataStrategy, verifyMocks,
-                incremental, preserveExistingTests
+                incremental, preserveExistingTests, maxContextTokens
             );
         }
     }
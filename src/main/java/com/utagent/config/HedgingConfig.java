@@ -0,0 +1,132 @@
+package com.utagent.config;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+
+/**
+ * Configuration for hedged LLM requests and per-provider circuit breaking,
+ * loaded from the {@code hedging} section of the agent configuration.
+ */
+public record HedgingConfig(
+    Boolean enabled,
+    @JsonAlias("hedge-delay-percentile") Double hedgeDelayPercentile,
+    @JsonAlias("initial-hedge-delay-ms") Long initialHedgeDelayMs,
+    @JsonAlias("min-hedge-delay-ms") Long minHedgeDelayMs,
+    @JsonAlias("latency-window-size") Integer latencyWindowSize,
+    @JsonAlias("max-hedges") Integer maxHedges,
+    @JsonAlias("failure-threshold") Integer failureThreshold,
+    @JsonAlias("open-duration-seconds") Long openDurationSeconds
+) {
+    public static final boolean DEFAULT_ENABLED = true;
+    public static final double DEFAULT_HEDGE_DELAY_PERCENTILE = 0.95;
+    public static final long DEFAULT_INITIAL_HEDGE_DELAY_MS = 30_000;
+    public static final long DEFAULT_MIN_HEDGE_DELAY_MS = 1_000;
+    public static final int DEFAULT_LATENCY_WINDOW_SIZE = 100;
+    public static final int DEFAULT_MAX_HEDGES = 1;
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_DURATION_SECONDS = 60;
+
+    public static HedgingConfig defaults() {
+        return new HedgingConfig(
+            DEFAULT_ENABLED,
+            DEFAULT_HEDGE_DELAY_PERCENTILE,
+            DEFAULT_INITIAL_HEDGE_DELAY_MS,
+            DEFAULT_MIN_HEDGE_DELAY_MS,
+            DEFAULT_LATENCY_WINDOW_SIZE,
+            DEFAULT_MAX_HEDGES,
+            DEFAULT_FAILURE_THRESHOLD,
+            DEFAULT_OPEN_DURATION_SECONDS
+        );
+    }
+
+    public boolean getEnabledOrDefault() {
+        return enabled != null ? enabled : DEFAULT_ENABLED;
+    }
+
+    public double getHedgeDelayPercentileOrDefault() {
+        return hedgeDelayPercentile != null ? hedgeDelayPercentile : DEFAULT_HEDGE_DELAY_PERCENTILE;
+    }
+
+    public long getInitialHedgeDelayMsOrDefault() {
+        return initialHedgeDelayMs != null ? initialHedgeDelayMs : DEFAULT_INITIAL_HEDGE_DELAY_MS;
+    }
+
+    public long getMinHedgeDelayMsOrDefault() {
+        return minHedgeDelayMs != null ? minHedgeDelayMs : DEFAULT_MIN_HEDGE_DELAY_MS;
+    }
+
+    public int getLatencyWindowSizeOrDefault() {
+        return latencyWindowSize != null ? latencyWindowSize : DEFAULT_LATENCY_WINDOW_SIZE;
+    }
+
+    public int getMaxHedgesOrDefault() {
+        return maxHedges != null ? maxHedges : DEFAULT_MAX_HEDGES;
+    }
+
+    public int getFailureThresholdOrDefault() {
+        return failureThreshold != null ? failureThreshold : DEFAULT_FAILURE_THRESHOLD;
+    }
+
+    public long getOpenDurationSecondsOrDefault() {
+        return openDurationSeconds != null ? openDurationSeconds : DEFAULT_OPEN_DURATION_SECONDS;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public static class Builder {
+        private Boolean enabled = DEFAULT_ENABLED;
+        private Double hedgeDelayPercentile = DEFAULT_HEDGE_DELAY_PERCENTILE;
+        private Long initialHedgeDelayMs = DEFAULT_INITIAL_HEDGE_DELAY_MS;
+        private Long minHedgeDelayMs = DEFAULT_MIN_HEDGE_DELAY_MS;
+        private Integer latencyWindowSize = DEFAULT_LATENCY_WINDOW_SIZE;
+        private Integer maxHedges = DEFAULT_MAX_HEDGES;
+        private Integer failureThreshold = DEFAULT_FAILURE_THRESHOLD;
+        private Long openDurationSeconds = DEFAULT_OPEN_DURATION_SECONDS;
+
+        public Builder enabled(Boolean enabled) {
+            this.enabled = enabled;
+            return this;
+        }
+
+        public Builder hedgeDelayPercentile(Double hedgeDelayPercentile) {
+            this.hedgeDelayPercentile = hedgeDelayPercentile;
+            return this;
+        }
+
+        public Builder initialHedgeDelayMs(Long initialHedgeDelayMs) {
+            this.initialHedgeDelayMs = initialHedgeDelayMs;
+            return this;
+        }
+
+        public Builder minHedgeDelayMs(Long minHedgeDelayMs) {
+            this.minHedgeDelayMs = minHedgeDelayMs;
+            return this;
+        }
+
+        public Builder latencyWindowSize(Integer latencyWindowSize) {
+            this.latencyWindowSize = latencyWindowSize;
+            return this;
+        }
+
+        public Builder maxHedges(Integer maxHedges) {
+            this.maxHedges = maxHedges;
+            return this;
+        }
+
+        public Builder failureThreshold(Integer failureThreshold) {
+            this.failureThreshold = failureThreshold;
+            return this;
+        }
+
+        public Builder openDurationSeconds(Long openDurationSeconds) {
+            this.openDurationSeconds = openDurationSeconds;
+            return this;
+        }
+
+        public HedgingConfig build() {
+            return new HedgingConfig(enabled, hedgeDelayPercentile, initialHedgeDelayMs, minHedgeDelayMs,
+                latencyWindowSize, maxHedges, failureThreshold, openDurationSeconds);
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package com.utagent.generator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.utagent.cache.RequestFingerprint;
+import com.utagent.generator.llm.PromptBuilder;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.TokenEstimator;
+import com.utagent.model.ClassInfo;
+import com.utagent.parser.FrameworkType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 多类批量生成器：把多个小类打包进一次 LLM 请求，按分隔标记拆分响应，
+ * 校验每个测试类，只对失败的类单独重试
+ */
+public class BatchTestGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchTestGenerator.class);
+
+    public static final int DEFAULT_SMALL_CLASS_TOKENS = 800;
+    public static final int DEFAULT_BATCH_CONTEXT_TOKENS = 6000;
+    public static final int DEFAULT_BATCH_COMPLETION_TOKENS = 8192;
+    public static final int DEFAULT_MAX_CLASSES_PER_BATCH = 10;
+
+    private static final Pattern SECTION_PATTERN = Pattern.compile(
+        Pattern.quote(PromptBuilder.BATCH_BEGIN_MARKER) + "\\s+([\\w.$]+)\\s*===\\s*\\n(.*?)\\n\\s*"
+            + Pattern.quote(PromptBuilder.BATCH_END_MARKER) + "\\s+\\1\\s*===",
+        Pattern.DOTALL);
+
+    private final TestGenerator testGenerator;
+    private final TokenEstimator tokenEstimator;
+    private final JavaParser javaParser;
+    private final int smallClassTokens;
+    private final int batchContextTokens;
+    private final int batchCompletionTokens;
+    private final int maxClassesPerBatch;
+    private final AtomicInteger batchCalls = new AtomicInteger(0);
+    private final AtomicInteger batchedClasses = new AtomicInteger(0);
+    private final AtomicInteger individualRetries = new AtomicInteger(0);
+    private final Map<String, Long> batchTokens = new ConcurrentHashMap<>();
+
+    public BatchTestGenerator(TestGenerator testGenerator) {
+        this(testGenerator, DEFAULT_SMALL_CLASS_TOKENS, DEFAULT_BATCH_CONTEXT_TOKENS,
+             DEFAULT_BATCH_COMPLETION_TOKENS, DEFAULT_MAX_CLASSES_PER_BATCH);
+    }
+
+    public BatchTestGenerator(TestGenerator testGenerator,
+                              int smallClassTokens,
+                              int batchContextTokens,
+                              int batchCompletionTokens,
+                              int maxClassesPerBatch) {
+        this.testGenerator = testGenerator;
+        this.tokenEstimator = TokenEstimator.getInstance();
+        this.smallClassTokens = smallClassTokens;
+        this.batchContextTokens = batchContextTokens;
+        this.batchCompletionTokens = batchCompletionTokens;
+        this.maxClassesPerBatch = Math.max(1, maxClassesPerBatch);
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+    }
+
+    /**
+     * 判断类是否足够小，适合与其他类合并到一个请求中；只含数据的类由模板生成，不参与批量请求
+     */
+    public boolean isBatchable(ClassInfo classInfo) {
+        return !testGenerator.isTemplateOnly(classInfo) && contextTokens(classInfo) <= smallClassTokens;
+    }
+
+    /**
+     * 为所有类生成测试，小类按框架分组打包生成，其余类单独生成
+     *
+     * @return 以全限定类名为键、按输入顺序排列的测试代码
+     */
+    public Map<String, String> generate(List<ClassInfo> classes) {
+        Map<String, String> results = new LinkedHashMap<>();
+        if (!testGenerator.isAIEnabled()) {
+            classes.forEach(c -> results.put(c.fullyQualifiedName(), testGenerator.generateTestClass(c)));
+            return results;
+        }
+
+        classes.forEach(c -> results.put(c.fullyQualifiedName(), null));
+        results.putAll(generateBatched(classes));
+        for (ClassInfo classInfo : classes) {
+            if (results.get(classInfo.fullyQualifiedName()) == null) {
+                results.put(classInfo.fullyQualifiedName(), testGenerator.generateTestClass(classInfo));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 只发送批量请求，不单独重试：无法打包或批量输出无效的类不在结果中，
+     * 由调用方在各自的预算内按正常流程生成
+     *
+     * @return 以全限定类名为键的批量生成结果
+     */
+    public Map<String, String> generateBatched(List<ClassInfo> classes) {
+        Map<String, String> results = new LinkedHashMap<>();
+        if (!testGenerator.isAIEnabled()) {
+            return results;
+        }
+
+        Map<String, List<ClassInfo>> smallByFrameworks = new LinkedHashMap<>();
+        for (ClassInfo classInfo : classes) {
+            if (isBatchable(classInfo)) {
+                smallByFrameworks.computeIfAbsent(frameworkKey(classInfo), k -> new ArrayList<>()).add(classInfo);
+            }
+        }
+
+        for (List<ClassInfo> group : smallByFrameworks.values()) {
+            for (List<ClassInfo> batch : pack(group)) {
+                if (batch.size() == 1) {
+                    continue;
+                }
+                results.putAll(generateBatch(batch));
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return 该类在批量请求中分摊的 token，批量失败或输出无效时同样计入
+     */
+    public long getBatchTokens(String className) {
+        return batchTokens.getOrDefault(className, 0L);
+    }
+
+    /**
+     * 按上下文和输出 token 预算顺序装箱
+     */
+    List<List<ClassInfo>> pack(List<ClassInfo> classes) {
+        List<List<ClassInfo>> batches = new ArrayList<>();
+        List<ClassInfo> current = new ArrayList<>();
+        int contextTokens = 0;
+        int completionTokens = 0;
+
+        for (ClassInfo classInfo : classes) {
+            int context = contextTokens(classInfo);
+            int completion = testGenerator.estimateTestClassUsage(classInfo).completionTokens();
+            boolean full = current.size() >= maxClassesPerBatch
+                || contextTokens + context > batchContextTokens
+                || completionTokens + completion > batchCompletionTokens;
+            if (full && !current.isEmpty()) {
+                batches.add(current);
+                current = new ArrayList<>();
+                contextTokens = 0;
+                completionTokens = 0;
+            }
+            current.add(classInfo);
+            contextTokens += context;
+            completionTokens += completion;
+        }
+        if (!current.isEmpty()) {
+            batches.add(current);
+        }
+        return batches;
+    }
+
+    private Map<String, String> generateBatch(List<ClassInfo> batch) {
+        logger.info("Generating tests for {} classes in one batched request", batch.size());
+        PromptBuilder promptBuilder = testGenerator.getPromptBuilder();
+        Set<FrameworkType> frameworks = testGenerator.detectFrameworks(batch.get(0));
+
+        ChatRequest request = ChatRequest.builder()
+            .sourceHash(RequestFingerprint.combine(batch.stream().map(ClassInfo::sourceHash).toList()))
+            .templateVersion(PromptBuilder.TEMPLATE_VERSION)
+            .complexity(batch.stream().mapToInt(testGenerator.getComplexityScorer()::score).max().orElse(0))
+            .cacheableSystemPrompt(promptBuilder.buildSystemPrompt())
+            .cacheableUserMessage(promptBuilder.buildTestGenerationInstructions(frameworks, true, true, false))
+            .userMessage(promptBuilder.buildBatchContext(batch))
+            .maxTokens(batchCompletionTokens)
+            .build();
+
+        batchCalls.incrementAndGet();
+        ChatResponse response = testGenerator.executeRequest(request, "batch_test_generation");
+        if (response.tokenUsage() != null && !response.isCached()) {
+            long share = response.tokenUsage().totalTokens() / batch.size();
+            batch.forEach(c -> batchTokens.merge(c.fullyQualifiedName(), share, Long::sum));
+        }
+        Map<String, String> results = new LinkedHashMap<>();
+        if (!response.isSuccess()) {
+            logger.warn("Batched generation failed: {}, generating classes individually", response.errorMessage());
+            return results;
+        }
+
+        Map<String, String> sections = splitResponse(response.content());
+        for (ClassInfo classInfo : batch) {
+            String code = sections.get(classInfo.fullyQualifiedName());
+            if (code != null) {
+                code = testGenerator.extractCodeFromResponse(code);
+            }
+            if (isValidTestClass(classInfo, code)) {
+                results.put(classInfo.fullyQualifiedName(), code);
+                batchedClasses.incrementAndGet();
+            } else {
+                logger.info("Batched output for {} missing or invalid, generating individually",
+                    classInfo.className());
+                individualRetries.incrementAndGet();
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 按 BEGIN/END 标记拆分批量响应
+     */
+    Map<String, String> splitResponse(String content) {
+        Map<String, String> sections = new LinkedHashMap<>();
+        if (content == null) {
+            return sections;
+        }
+        Matcher matcher = SECTION_PATTERN.matcher(content);
+        while (matcher.find()) {
+            sections.putIfAbsent(matcher.group(1), matcher.group(2).trim());
+        }
+        return sections;
+    }
+
+    boolean isValidTestClass(ClassInfo classInfo, String code) {
+        if (code == null || code.isBlank() || !code.contains("@Test")) {
+            return false;
+        }
+        ParseResult<CompilationUnit> result = javaParser.parse(code);
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            return false;
+        }
+        String expectedName = classInfo.className() + "Test";
+        return result.getResult().get().findAll(ClassOrInterfaceDeclaration.class).stream()
+            .anyMatch(type -> type.getNameAsString().equals(expectedName));
+    }
+
+    private int contextTokens(ClassInfo classInfo) {
+        return tokenEstimator.estimate(testGenerator.getPromptBuilder().buildClassContext(classInfo));
+    }
+
+    private String frameworkKey(ClassInfo classInfo) {
+        return testGenerator.detectFrameworks(classInfo).stream()
+            .sorted()
+            .map(Enum::name)
+            .collect(Collectors.joining(","));
+    }
+
+    public int getBatchCalls() {
+        return batchCalls.get();
+    }
+
+    public int getBatchedClasses() {
+        return batchedClasses.get();
+    }
+
+    public int getIndividualRetries() {
+        return individualRetries.get();
+    }
+}
@@ -0,0 +1,337 @@
+package com.utagent.generator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.expr.MethodCallExpr;
+import com.github.javaparser.ast.expr.ObjectCreationExpr;
+import com.utagent.build.TestCompilationGate;
+import com.utagent.config.ParallelConfig;
+import com.utagent.generator.llm.ConversationSession;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.MethodInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * 多候选生成器：同一提示并发请求多份候选测试类，在内存中编译过滤，
+ * 按每个测试方法调用到的被测方法做归因，以覆盖面最大的候选为基础，
+ * 合并其他候选中覆盖了新被测方法的测试，最终只需一次构建测量合并后的结果。
+ * 只用于首轮生成，后续迭代仍是单个请求
+ */
+public class CandidateTestGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(CandidateTestGenerator.class);
+
+    public static final int DEFAULT_CANDIDATE_COUNT = 1;
+    public static final int MAX_CANDIDATE_COUNT = 8;
+
+    private static final Set<String> TEST_ANNOTATIONS = Set.of("Test", "ParameterizedTest", "RepeatedTest");
+    private static final Set<String> LIFECYCLE_ANNOTATIONS =
+        Set.of("BeforeEach", "BeforeAll", "AfterEach", "AfterAll", "Before", "After");
+    private static final String CONSTRUCTOR_TARGET = "<init>";
+
+    private final TestGenerator testGenerator;
+    private final ParallelConfig parallelConfig;
+    private final JavaParser javaParser;
+
+    public CandidateTestGenerator(TestGenerator testGenerator) {
+        this(testGenerator, ParallelConfig.defaults());
+    }
+
+    public CandidateTestGenerator(TestGenerator testGenerator, ParallelConfig parallelConfig) {
+        this.testGenerator = testGenerator;
+        this.parallelConfig = parallelConfig;
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+    }
+
+    /**
+     * 启用了 AI 且不是模板类时才值得请求多份候选
+     */
+    public boolean shouldGenerateCandidates(ClassInfo classInfo, int candidateCount) {
+        return candidateCount > 1 && testGenerator.isAIEnabled() && !testGenerator.isTemplateOnly(classInfo);
+    }
+
+    /**
+     * 生成并合并候选测试类；合并结果作为会话首轮的回复，全部候选失败时退回到单次生成
+     *
+     * @param gate   用于过滤编译不过的候选，为 null 或无法判断时不做编译检查
+     * @param source 被测类源码，与候选一起编译；为 null 时只按类路径编译
+     */
+    public String generate(ClassInfo classInfo, ConversationSession session, int candidateCount,
+                           TestCompilationGate gate, String source) {
+        int count = Math.min(Math.max(1, candidateCount), MAX_CANDIDATE_COUNT);
+        ChatRequest request = testGenerator.buildTestClassRequest(classInfo,
+            testGenerator.detectFrameworks(classInfo), testGenerator.isStructuredOutput());
+        logger.info("Generating {} candidate test classes for {}", count, classInfo.className());
+
+        List<String> candidates = requestCandidates(classInfo, request, count);
+        if (candidates.isEmpty()) {
+            logger.warn("All candidates failed for {}, generating a single test class", classInfo.className());
+            return testGenerator.generateTestClass(classInfo, session);
+        }
+
+        String merged = select(classInfo, candidates, gate, source);
+        if (session != null) {
+            session.recordInitialExchange(request.messages(), merged);
+        }
+        return merged;
+    }
+
+    private List<String> requestCandidates(ClassInfo classInfo, ChatRequest request, int count) {
+        List<Callable<ChatResponse>> samples = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ChatRequest sample = request.withSampleIndex(i);
+            samples.add(() -> testGenerator.executeRequest(sample, "candidate_test_generation"));
+        }
+        List<ChatResponse> responses = ParallelRequests.invokeAll("test-candidate",
+            Math.min(count, parallelConfig.getThreadPoolSizeOrDefault()), samples,
+            parallelConfig.getTimeoutSecondsOrDefault(),
+            e -> logger.warn("Candidate generation for {} failed: {}", classInfo.className(), e.getMessage()));
+
+        List<String> candidates = new ArrayList<>();
+        for (ChatResponse response : responses) {
+            if (!response.isSuccess()) {
+                logger.warn("Candidate for {} failed: {}", classInfo.className(), response.errorMessage());
+                continue;
+            }
+            String code = testGenerator.extractCodeFromResponse(response.content());
+            if (!code.isBlank()) {
+                candidates.add(code);
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * 从候选中选出基础测试类，再依次合并其他候选里覆盖了新被测方法且不重复的测试方法。
+     * 只合并类注解和初始化方法（@BeforeEach 等）与基础候选相同的候选，
+     * 否则合并进来的测试依赖的字段在基础类中没有初始化。
+     * 编译门禁能判断时，编译不过的候选被丢弃，合并后编译不过的方法被撤回
+     */
+    String select(ClassInfo classInfo, List<String> candidateCodes, TestCompilationGate gate, String source) {
+        Set<String> targetMethods = classInfo.methods().stream()
+            .filter(m -> !m.isPrivate())
+            .map(MethodInfo::name)
+            .collect(Collectors.toSet());
+
+        List<Candidate> candidates = new ArrayList<>();
+        for (int i = 0; i < candidateCodes.size(); i++) {
+            parse(i, candidateCodes.get(i), classInfo, targetMethods).ifPresent(candidates::add);
+        }
+        if (candidates.isEmpty()) {
+            return candidateCodes.get(0);
+        }
+
+        boolean compileGate = gate != null;
+        if (compileGate) {
+            List<Candidate> compiling = new ArrayList<>();
+            for (Candidate candidate : candidates) {
+                TestCompilationGate.Verdict verdict = check(gate, candidate.unit(), candidate.testClass(),
+                    classInfo, source);
+                if (!verdict.checked()) {
+                    // 类路径不完整或被测类本身编译不过，门禁无法判断，此时不按编译结果过滤
+                    logger.info("Candidates for {} cannot be compiled in memory, merging without compilation checks",
+                        classInfo.className());
+                    compileGate = false;
+                    break;
+                }
+                if (verdict.compiles()) {
+                    compiling.add(candidate);
+                }
+            }
+            if (compileGate && compiling.isEmpty()) {
+                logger.info("No candidate for {} compiles in memory, merging without compilation checks",
+                    classInfo.className());
+                compileGate = false;
+            } else if (compileGate) {
+                candidates = compiling;
+            }
+        }
+
+        candidates.sort(Comparator.comparingInt((Candidate c) -> c.coveredTargets().size())
+            .thenComparingInt(c -> c.testMethods().size())
+            .reversed());
+        Candidate base = candidates.get(0);
+        String baseSetup = setupSignature(base.testClass());
+        CompilationUnit merged = base.unit().clone();
+        Set<String> covered = new HashSet<>(base.coveredTargets());
+        Set<String> seenBodies = base.testMethods().stream()
+            .map(CandidateTestGenerator::normalizedBody)
+            .collect(Collectors.toCollection(HashSet::new));
+
+        int added = 0;
+        for (Candidate candidate : candidates.subList(1, candidates.size())) {
+            if (!setupSignature(candidate.testClass()).equals(baseSetup)) {
+                logger.debug("Skipping candidate {} for {}: its setup differs from the base candidate",
+                    candidate.index() + 1, classInfo.className());
+                continue;
+            }
+            for (MethodDeclaration method : candidate.testMethods()) {
+                Set<String> targets = targetsOf(method, classInfo, targetMethods);
+                if (covered.containsAll(targets) || !seenBodies.add(normalizedBody(method))) {
+                    continue;
+                }
+                CompilationUnit trial = merged.clone();
+                ClassOrInterfaceDeclaration trialClass = topLevelClass(trial).orElseThrow();
+                addMethod(trial, trialClass, candidate, method);
+                if (compileGate && !check(gate, trial, trialClass, classInfo, source).compiles()) {
+                    logger.debug("Dropping candidate test {} that does not compile after merging",
+                        method.getNameAsString());
+                    continue;
+                }
+                merged = trial;
+                covered.addAll(targets);
+                added++;
+            }
+        }
+
+        logger.info("Selected candidate {} of {} for {} and merged {} complementary tests from the others",
+            base.index() + 1, candidateCodes.size(), classInfo.className(), added);
+        return added == 0 ? candidateCodes.get(base.index()) : merged.toString();
+    }
+
+    private Optional<Candidate> parse(int index, String code, ClassInfo classInfo, Set<String> targetMethods) {
+        ParseResult<CompilationUnit> result = javaParser.parse(code);
+        if (!result.isSuccessful() || result.getResult().isEmpty()) {
+            logger.debug("Skipping unparseable candidate {}", index + 1);
+            return Optional.empty();
+        }
+        CompilationUnit unit = result.getResult().get();
+        Optional<ClassOrInterfaceDeclaration> testClass = topLevelClass(unit);
+        if (testClass.isEmpty()) {
+            return Optional.empty();
+        }
+        List<MethodDeclaration> testMethods = testClass.get().getMethods().stream()
+            .filter(CandidateTestGenerator::isTestMethod)
+            .collect(Collectors.toList());
+        Set<String> coveredTargets = new LinkedHashSet<>();
+        for (MethodDeclaration method : testMethods) {
+            coveredTargets.addAll(targetsOf(method, classInfo, targetMethods));
+        }
+        return Optional.of(new Candidate(index, unit, testClass.get(), testMethods, coveredTargets));
+    }
+
+    /**
+     * 测试方法调用到的被测类方法名，创建被测类实例记为构造函数
+     */
+    private static Set<String> targetsOf(MethodDeclaration method, ClassInfo classInfo, Set<String> targetMethods) {
+        Set<String> targets = new HashSet<>();
+        method.findAll(MethodCallExpr.class).stream()
+            .map(MethodCallExpr::getNameAsString)
+            .filter(targetMethods::contains)
+            .forEach(targets::add);
+        boolean constructs = method.findAll(ObjectCreationExpr.class).stream()
+            .anyMatch(e -> e.getType().getNameAsString().equals(classInfo.className()));
+        if (constructs) {
+            targets.add(CONSTRUCTOR_TARGET);
+        }
+        return targets;
+    }
+
+    private void addMethod(CompilationUnit unit, ClassOrInterfaceDeclaration target,
+                           Candidate source, MethodDeclaration method) {
+        for (ImportDeclaration importDeclaration : source.unit().getImports()) {
+            if (!unit.getImports().contains(importDeclaration)) {
+                unit.addImport(importDeclaration.clone());
+            }
+        }
+        for (BodyDeclaration<?> member : source.testClass().getMembers()) {
+            if (member instanceof FieldDeclaration field) {
+                boolean exists = field.getVariables().stream()
+                    .map(VariableDeclarator::getNameAsString)
+                    .anyMatch(name -> target.getFieldByName(name).isPresent());
+                if (!exists) {
+                    target.addMember(field.clone());
+                }
+            }
+        }
+        Set<String> called = method.findAll(MethodCallExpr.class).stream()
+            .filter(call -> call.getScope().isEmpty())
+            .map(MethodCallExpr::getNameAsString)
+            .collect(Collectors.toSet());
+        for (MethodDeclaration helper : source.testClass().getMethods()) {
+            if (called.contains(helper.getNameAsString()) && !isTestMethod(helper) && !isLifecycleMethod(helper)
+                    && target.getMethodsByName(helper.getNameAsString()).isEmpty()) {
+                target.addMember(helper.clone());
+            }
+        }
+        MethodDeclaration copy = method.clone();
+        String name = copy.getNameAsString();
+        while (!target.getMethodsByName(name).isEmpty()) {
+            name = name + "_" + (source.index() + 1);
+        }
+        copy.setName(name);
+        target.addMember(copy);
+    }
+
+    /**
+     * 与 {@link TestCompilationGate} 对生成测试的检查一致：带上被测类源码一起编译
+     */
+    private static TestCompilationGate.Verdict check(TestCompilationGate gate, CompilationUnit unit,
+                                                     ClassOrInterfaceDeclaration testClass,
+                                                     ClassInfo classInfo, String source) {
+        String name = unit.getPackageDeclaration()
+            .map(p -> p.getNameAsString() + "." + testClass.getNameAsString())
+            .orElse(testClass.getNameAsString());
+        return gate.check(name, unit.toString(), classInfo.fullyQualifiedName(), source);
+    }
+
+    /**
+     * 类注解和初始化、清理方法的归一化文本，相同时两个候选的测试方法可以互换
+     */
+    private static String setupSignature(ClassOrInterfaceDeclaration testClass) {
+        List<String> parts = new ArrayList<>();
+        testClass.getAnnotations().forEach(a -> parts.add(a.toString()));
+        testClass.getMethods().stream()
+            .filter(CandidateTestGenerator::isLifecycleMethod)
+            .map(m -> m.getAnnotations() + " " + normalizedBody(m))
+            .sorted()
+            .forEach(parts::add);
+        return String.join("\n", parts);
+    }
+
+    private static Optional<ClassOrInterfaceDeclaration> topLevelClass(CompilationUnit unit) {
+        return unit.findFirst(ClassOrInterfaceDeclaration.class, c -> !c.isNestedType());
+    }
+
+    private static boolean isTestMethod(MethodDeclaration method) {
+        return method.getAnnotations().stream().anyMatch(a -> TEST_ANNOTATIONS.contains(a.getNameAsString()));
+    }
+
+    private static boolean isLifecycleMethod(MethodDeclaration method) {
+        return method.getAnnotations().stream().anyMatch(a -> LIFECYCLE_ANNOTATIONS.contains(a.getNameAsString()));
+    }
+
+    private static String normalizedBody(MethodDeclaration method) {
+        return method.getBody().map(b -> b.toString().replaceAll("\\s+", " ")).orElse("");
+    }
+
+    private record Candidate(int index,
+                             CompilationUnit unit,
+                             ClassOrInterfaceDeclaration testClass,
+                             List<MethodDeclaration> testMethods,
+                             Set<String> coveredTargets) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.utagent.generator;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.MethodInfo;
+import com.utagent.parser.FrameworkDetector;
+import com.utagent.parser.FrameworkType;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * 类的测试生成难度评分，供模型路由决定使用便宜的快速模型还是大模型。
+ * 评分由三部分组成：非平凡方法数及其圈复杂度、需要框架上下文的框架类型、该类此前的失败记录。
+ * 每次失败都会加上 {@link #FAILURE_WEIGHT}，远超任何正常的路由阈值，失败过的类后续请求总会升级到大模型。
+ */
+public class ClassComplexityScorer {
+
+    public static final int FRAMEWORK_WEIGHT = 4;
+    public static final int FAILURE_WEIGHT = 100;
+
+    private static final Pattern ACCESSOR_NAME = Pattern.compile("(?:get|set|is)[A-Z]\\w*");
+    private static final Set<FrameworkType> PLAIN_FRAMEWORKS = Set.of(FrameworkType.NONE, FrameworkType.LOMBOK);
+
+    private final FrameworkDetector frameworkDetector;
+    private final Map<String, Integer> failures = new ConcurrentHashMap<>();
+
+    public ClassComplexityScorer() {
+        this(new FrameworkDetector());
+    }
+
+    public ClassComplexityScorer(FrameworkDetector frameworkDetector) {
+        this.frameworkDetector = frameworkDetector;
+    }
+
+    public int score(ClassInfo classInfo) {
+        return methodScore(classInfo) + frameworkScore(classInfo) + failureCount(classInfo) * FAILURE_WEIGHT;
+    }
+
+    /**
+     * 每个非平凡方法计 1 分，每个分支点再加 2 分；getter/setter 和抽象方法不计分
+     */
+    private int methodScore(ClassInfo classInfo) {
+        int score = 0;
+        for (MethodInfo method : classInfo.methods()) {
+            if (method.isAbstract() || isTrivialAccessor(method)) {
+                continue;
+            }
+            score += 1 + 2 * (method.cyclomaticComplexity() - 1);
+        }
+        return score;
+    }
+
+    private boolean isTrivialAccessor(MethodInfo method) {
+        return ACCESSOR_NAME.matcher(method.name()).matches()
+            && method.parameters().size() <= 1
+            && method.cyclomaticComplexity() == 1;
+    }
+
+    private int frameworkScore(ClassInfo classInfo) {
+        int count = 0;
+        for (FrameworkType framework : frameworkDetector.detectFrameworks(classInfo)) {
+            if (!PLAIN_FRAMEWORKS.contains(framework)) {
+                count++;
+            }
+        }
+        return count * FRAMEWORK_WEIGHT;
+    }
+
+    /**
+     * 记录一次失败：生成的测试无法编译或未达到覆盖率目标
+     */
+    public void recordFailure(ClassInfo classInfo) {
+        failures.merge(key(classInfo), 1, Integer::sum);
+    }
+
+    public int failureCount(ClassInfo classInfo) {
+        return failures.getOrDefault(key(classInfo), 0);
+    }
+
+    private static String key(ClassInfo classInfo) {
+        return classInfo.fullyQualifiedName() != null ? classInfo.fullyQualifiedName() : classInfo.className();
+    }
+}
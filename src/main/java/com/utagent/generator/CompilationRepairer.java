@@ -0,0 +1,277 @@
+package com.utagent.generator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.utagent.build.CompilerDiagnostic;
+import com.utagent.build.TestCompilationGate;
+import com.utagent.generator.llm.ConversationSession;
+import com.utagent.model.ClassInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 编译错误修复：测试类在内存中编译失败时，把编译错误按行号归到具体的测试方法，
+ * 只将失败的方法和对应的错误发给模型修复，修复结果替换回原方法后重新编译；
+ * 预算用完仍编译不过的方法被逐个删除，而不是放弃整个测试文件
+ */
+public class CompilationRepairer {
+
+    private static final Logger logger = LoggerFactory.getLogger(CompilationRepairer.class);
+
+    public static final int DEFAULT_MAX_ATTEMPTS = 2;
+
+    private static final Pattern IMPORT_LINE = Pattern.compile("(?m)^\\s*import\\s+[^;]+;\\s*$");
+    private static final String REPAIR_WRAPPER = "__Repair";
+
+    private final TestGenerator testGenerator;
+    private final JavaParser javaParser;
+
+    public CompilationRepairer(TestGenerator testGenerator) {
+        this.testGenerator = testGenerator;
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+    }
+
+    /**
+     * 检查测试类能否编译，不能则在预算内请求模型修复，最后删除仍无法编译的方法
+     *
+     * @param source      被测类源码，用于和测试一起编译，可为 null
+     * @param maxAttempts 最多请求模型修复的次数，0 表示只删除无法编译的方法
+     */
+    public Result repair(ClassInfo classInfo, ConversationSession session, String testCode, String source,
+                         TestCompilationGate gate, int maxAttempts) {
+        String testClassName = testClassName(classInfo);
+        TestCompilationGate.Verdict verdict = gate.check(testClassName, testCode, classInfo.fullyQualifiedName(), source);
+        String code = testCode;
+        int attempts = 0;
+
+        while (verdict.blocksBuild() && attempts < maxAttempts && testGenerator.isAIEnabled()) {
+            Optional<CompilationUnit> unit = parse(code);
+            if (unit.isEmpty()) {
+                break;
+            }
+            if (removeUnresolvedImports(unit.get(), verdict.diagnostics())) {
+                code = unit.get().toString();
+                verdict = gate.check(testClassName, code, classInfo.fullyQualifiedName(), source);
+                continue;
+            }
+            ClassOrInterfaceDeclaration testClass = topLevelClass(unit.get()).orElseThrow();
+            if (!isRepairable(testClass, verdict.diagnostics())) {
+                break;
+            }
+            Map<MethodDeclaration, List<CompilerDiagnostic>> failing = failingMethods(testClass, verdict.diagnostics());
+
+            attempts++;
+            String reply = testGenerator.repairCompilationErrors(classInfo, session,
+                methodSources(failing), relativeErrors(failing));
+            if (reply == null || reply.isBlank()) {
+                break;
+            }
+            code = applyRepair(unit.get(), testClass, failing, reply);
+            verdict = gate.check(testClassName, code, classInfo.fullyQualifiedName(), source);
+        }
+
+        List<String> dropped = new ArrayList<>();
+        while (verdict.blocksBuild()) {
+            Optional<CompilationUnit> unit = parse(code);
+            if (unit.isEmpty()) {
+                break;
+            }
+            if (removeUnresolvedImports(unit.get(), verdict.diagnostics())) {
+                code = unit.get().toString();
+                verdict = gate.check(testClassName, code, classInfo.fullyQualifiedName(), source);
+                continue;
+            }
+            ClassOrInterfaceDeclaration testClass = topLevelClass(unit.get()).orElseThrow();
+            Map<MethodDeclaration, List<CompilerDiagnostic>> failing = failingMethods(testClass, verdict.diagnostics());
+            if (failing.isEmpty()) {
+                break;
+            }
+            for (MethodDeclaration method : new ArrayList<>(failing.keySet())) {
+                dropped.add(method.getNameAsString());
+                method.remove();
+            }
+            code = unit.get().toString();
+            verdict = gate.check(testClassName, code, classInfo.fullyQualifiedName(), source);
+        }
+
+        if (attempts > 0 || !dropped.isEmpty()) {
+            logger.info("Compilation repair of {}: {} attempts, dropped {}, compiles: {}",
+                classInfo.className(), attempts, dropped, !verdict.blocksBuild());
+        }
+        return new Result(verdict.blocksBuild() ? testCode : code, verdict, attempts, dropped);
+    }
+
+    /**
+     * 把修复结果中的方法按名字替换失败的方法，回复中没有的失败方法视为无法修复而删除
+     */
+    private String applyRepair(CompilationUnit unit, ClassOrInterfaceDeclaration testClass,
+                               Map<MethodDeclaration, List<CompilerDiagnostic>> failing, String reply) {
+        List<ImportDeclaration> imports = new ArrayList<>();
+        List<MethodDeclaration> repaired = new ArrayList<>();
+        parseRepair(reply, imports, repaired);
+
+        for (ImportDeclaration importDeclaration : imports) {
+            if (!unit.getImports().contains(importDeclaration)) {
+                unit.addImport(importDeclaration);
+            }
+        }
+        for (MethodDeclaration method : new ArrayList<>(failing.keySet())) {
+            Optional<MethodDeclaration> replacement = repaired.stream()
+                .filter(m -> m.getNameAsString().equals(method.getNameAsString()))
+                .findFirst();
+            if (replacement.isPresent()) {
+                repaired.remove(replacement.get());
+                method.replace(replacement.get().clone());
+            } else {
+                method.remove();
+            }
+        }
+        return unit.toString();
+    }
+
+    private void parseRepair(String reply, List<ImportDeclaration> imports, List<MethodDeclaration> methods) {
+        // 模型有时会返回完整的测试类
+        Optional<CompilationUnit> whole = parse(reply);
+        if (whole.isPresent()) {
+            imports.addAll(whole.get().getImports());
+            methods.addAll(topLevelClass(whole.get()).orElseThrow().getMethods());
+            return;
+        }
+        Matcher matcher = IMPORT_LINE.matcher(reply);
+        while (matcher.find()) {
+            javaParser.parseImport(matcher.group().trim()).getResult().ifPresent(imports::add);
+        }
+        String body = IMPORT_LINE.matcher(reply).replaceAll("");
+        parse("class " + REPAIR_WRAPPER + " {\n" + body + "\n}")
+            .flatMap(CompilationRepairer::topLevelClass)
+            .ifPresent(type -> methods.addAll(type.getMethods()));
+    }
+
+    /**
+     * 删除报错的导入。编译门只在测试框架可用时才判定测试，此时找不到的导入是模型编造的，
+     * 删除后用到它的方法会报找不到符号，再作为方法体内的错误交给模型修复或删除
+     *
+     * @return 是否删除了导入
+     */
+    static boolean removeUnresolvedImports(CompilationUnit unit, List<CompilerDiagnostic> diagnostics) {
+        List<ImportDeclaration> unresolved = unit.getImports().stream()
+            .filter(i -> i.getRange().isPresent() && diagnostics.stream()
+                .anyMatch(d -> d.hasPosition()
+                    && i.getRange().get().begin.line <= d.line()
+                    && i.getRange().get().end.line >= d.line()))
+            .toList();
+        if (unresolved.isEmpty()) {
+            return false;
+        }
+        logger.debug("Removing unresolved imports: {}", unresolved.stream().map(ImportDeclaration::getNameAsString).toList());
+        unresolved.forEach(ImportDeclaration::remove);
+        return true;
+    }
+
+    /**
+     * 只有全部错误都在测试方法体内时才值得请求模型修复。错误在方法体之外（类结构、字段、方法签名），
+     * 只重写方法无法修复；报错的导入已在此之前删除
+     */
+    static boolean isRepairable(ClassOrInterfaceDeclaration testClass, List<CompilerDiagnostic> diagnostics) {
+        if (diagnostics.isEmpty()) {
+            return false;
+        }
+        for (CompilerDiagnostic diagnostic : diagnostics) {
+            if (!diagnostic.hasPosition()) {
+                return false;
+            }
+            boolean inBody = testClass.getMethods().stream()
+                .flatMap(m -> m.getBody().flatMap(b -> b.getRange()).stream())
+                .anyMatch(r -> r.begin.line <= diagnostic.line() && r.end.line >= diagnostic.line());
+            if (!inBody) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<MethodDeclaration, List<CompilerDiagnostic>> failingMethods(
+            ClassOrInterfaceDeclaration testClass, List<CompilerDiagnostic> diagnostics) {
+        Map<MethodDeclaration, List<CompilerDiagnostic>> failing = new LinkedHashMap<>();
+        for (CompilerDiagnostic diagnostic : diagnostics) {
+            if (!diagnostic.hasPosition()) {
+                continue;
+            }
+            testClass.getMethods().stream()
+                .filter(m -> m.getRange().isPresent()
+                    && m.getRange().get().begin.line <= diagnostic.line()
+                    && m.getRange().get().end.line >= diagnostic.line())
+                .findFirst()
+                .ifPresent(m -> failing.computeIfAbsent(m, k -> new ArrayList<>()).add(diagnostic));
+        }
+        return failing;
+    }
+
+    private static Map<String, String> methodSources(Map<MethodDeclaration, List<CompilerDiagnostic>> failing) {
+        Map<String, String> sources = new LinkedHashMap<>();
+        failing.keySet().forEach(m -> sources.putIfAbsent(m.getNameAsString(), m.toString()));
+        return sources;
+    }
+
+    /**
+     * 行号换算为相对方法首行，模型看到的只有方法本身
+     */
+    private static Map<String, List<String>> relativeErrors(Map<MethodDeclaration, List<CompilerDiagnostic>> failing) {
+        Map<String, List<String>> errors = new LinkedHashMap<>();
+        failing.forEach((method, diagnostics) -> {
+            int firstLine = method.getRange().orElseThrow().begin.line;
+            List<String> lines = errors.computeIfAbsent(method.getNameAsString(), k -> new ArrayList<>());
+            for (CompilerDiagnostic diagnostic : diagnostics) {
+                lines.add("line " + (diagnostic.line() - firstLine + 1) + ": " + diagnostic.message());
+            }
+        });
+        return errors;
+    }
+
+    private Optional<CompilationUnit> parse(String code) {
+        ParseResult<CompilationUnit> result = javaParser.parse(code);
+        if (!result.isSuccessful() || result.getResult().isEmpty()
+                || topLevelClass(result.getResult().get()).isEmpty()) {
+            return Optional.empty();
+        }
+        return result.getResult();
+    }
+
+    private static Optional<ClassOrInterfaceDeclaration> topLevelClass(CompilationUnit unit) {
+        return unit.findFirst(ClassOrInterfaceDeclaration.class, c -> !c.isNestedType());
+    }
+
+    static String testClassName(ClassInfo classInfo) {
+        return classInfo.packageName() != null && !classInfo.packageName().isEmpty()
+            ? classInfo.packageName() + "." + classInfo.className() + "Test"
+            : classInfo.className() + "Test";
+    }
+
+    /**
+     * @param testCode 修复后的测试类；仍无法编译时为原始代码
+     * @param verdict  最后一次编译检查的结果
+     * @param attempts 请求模型修复的次数
+     * @param dropped  因无法编译被删除的方法
+     */
+    public record Result(String testCode, TestCompilationGate.Verdict verdict, int attempts, List<String> dropped) {
+
+        public boolean compiles() {
+            return !verdict.blocksBuild();
+        }
+    }
+}
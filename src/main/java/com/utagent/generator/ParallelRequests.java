@@ -0,0 +1,59 @@
+package com.utagent.generator;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 分片和候选生成共用的并发请求：在守护线程池中同时发出一组请求，
+ * 所有请求共享同一个截止时间，最坏情况下只等待一次超时而不是每个请求各等一次
+ */
+final class ParallelRequests {
+
+    private ParallelRequests() {
+    }
+
+    /**
+     * @param threadPrefix   工作线程名前缀
+     * @param timeoutSeconds 整组请求的超时，到期仍未完成的请求被取消
+     * @param onFailure      单个请求抛出异常或被取消时的回调
+     * @return 按提交顺序排列的成功结果
+     */
+    static <T> List<T> invokeAll(String threadPrefix, int threads, List<Callable<T>> tasks, long timeoutSeconds,
+                                 Consumer<Exception> onFailure) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads), daemonThreads(threadPrefix));
+        List<T> results = new ArrayList<>();
+        try {
+            for (Future<T> future : executor.invokeAll(tasks, timeoutSeconds, TimeUnit.SECONDS)) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException | CancellationException e) {
+                    onFailure.accept(e);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger(0);
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,291 @@
+package com.utagent.generator;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import com.github.javaparser.ast.stmt.BlockStmt;
+import com.github.javaparser.ast.stmt.Statement;
+import com.utagent.config.ParallelConfig;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.FieldInfo;
+import com.utagent.model.MethodInfo;
+import com.utagent.parser.FrameworkType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 大类分片生成器：按字段使用关系把方法聚类成若干分组，每组单独请求并发生成，
+ * 再把各分组的测试类合并为一个，去重 import、字段和 @BeforeEach 初始化代码
+ */
+public class ShardedTestGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShardedTestGenerator.class);
+
+    public static final int DEFAULT_MAX_METHODS_PER_SHARD = 8;
+    public static final int DEFAULT_SHARD_THRESHOLD = 16;
+
+    private final TestGenerator testGenerator;
+    private final ParallelConfig parallelConfig;
+    private final int maxMethodsPerShard;
+    private final int shardThreshold;
+    private final JavaParser javaParser;
+
+    public ShardedTestGenerator(TestGenerator testGenerator) {
+        this(testGenerator, ParallelConfig.defaults(), DEFAULT_MAX_METHODS_PER_SHARD, DEFAULT_SHARD_THRESHOLD);
+    }
+
+    public ShardedTestGenerator(TestGenerator testGenerator,
+                                ParallelConfig parallelConfig,
+                                int maxMethodsPerShard,
+                                int shardThreshold) {
+        this.testGenerator = testGenerator;
+        this.parallelConfig = parallelConfig;
+        this.maxMethodsPerShard = Math.max(1, maxMethodsPerShard);
+        this.shardThreshold = shardThreshold;
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+    }
+
+    /**
+     * 可测试方法数量超过阈值且启用了 AI 时才分片
+     */
+    public boolean shouldShard(ClassInfo classInfo) {
+        return testGenerator.isAIEnabled() && !testGenerator.isTemplateOnly(classInfo)
+            && testableMethods(classInfo).size() > shardThreshold;
+    }
+
+    /**
+     * 分片并发生成测试类，全部分片失败时退回到整类生成
+     */
+    public String generate(ClassInfo classInfo) {
+        List<List<MethodInfo>> groups = groupMethods(classInfo);
+        logger.info("Generating tests for {} in {} parallel shards", classInfo.className(), groups.size());
+        Set<FrameworkType> frameworks = testGenerator.detectFrameworks(classInfo);
+
+        int threads = Math.min(groups.size(), parallelConfig.getThreadPoolSizeOrDefault());
+        List<Callable<String>> shards = new ArrayList<>();
+        for (List<MethodInfo> group : groups) {
+            shards.add(() -> generateShard(classInfo, group, frameworks));
+        }
+        List<String> shardResults = ParallelRequests.invokeAll("test-shard", threads, shards,
+                parallelConfig.getTimeoutSecondsOrDefault(),
+                e -> logger.warn("Shard generation for {} failed: {}", classInfo.className(), e.getMessage()))
+            .stream()
+            .filter(code -> code != null && !code.isBlank())
+            .collect(Collectors.toList());
+
+        String merged = merge(shardResults);
+        if (merged == null) {
+            logger.warn("All shards failed for {}, generating the class as a whole", classInfo.className());
+            return testGenerator.generateTestClass(classInfo);
+        }
+        return merged;
+    }
+
+    private String generateShard(ClassInfo classInfo, List<MethodInfo> group, Set<FrameworkType> frameworks) {
+        ChatRequest request = testGenerator.requestBuilder(classInfo)
+            .cacheableSystemPrompt(testGenerator.getPromptBuilder().buildSystemPrompt())
+            .userMessage(testGenerator.getPromptBuilder().buildMethodGroupPrompt(classInfo, group, frameworks))
+            .build();
+        ChatResponse response = testGenerator.executeRequest(request, "sharded_test_generation");
+        if (!response.isSuccess()) {
+            logger.warn("Shard {} of {} failed: {}", group.get(0).name(), classInfo.className(),
+                response.errorMessage());
+            return null;
+        }
+        return testGenerator.extractCodeFromResponse(response.content());
+    }
+
+    /**
+     * 按字段使用关系聚类：使用相同实例字段的方法放在同一组，
+     * 超过分组上限的簇按声明顺序拆分，小簇按顺序合并填满分组
+     */
+    List<List<MethodInfo>> groupMethods(ClassInfo classInfo) {
+        List<MethodInfo> methods = testableMethods(classInfo);
+        List<Pattern> fieldPatterns = classInfo.fields().stream()
+            .filter(f -> !(f.isStatic() && f.isFinal()))
+            .map(FieldInfo::name)
+            .map(name -> Pattern.compile("\\b" + Pattern.quote(name) + "\\b"))
+            .collect(Collectors.toList());
+
+        int[] parent = new int[methods.size()];
+        for (int i = 0; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        Map<Integer, Integer> firstUserOfField = new LinkedHashMap<>();
+        for (int m = 0; m < methods.size(); m++) {
+            String body = methods.get(m).body();
+            if (body == null) {
+                continue;
+            }
+            for (int f = 0; f < fieldPatterns.size(); f++) {
+                if (fieldPatterns.get(f).matcher(body).find()) {
+                    Integer first = firstUserOfField.putIfAbsent(f, m);
+                    if (first != null) {
+                        parent[find(parent, m)] = find(parent, first);
+                    }
+                }
+            }
+        }
+
+        Map<Integer, List<MethodInfo>> clusters = new LinkedHashMap<>();
+        for (int m = 0; m < methods.size(); m++) {
+            clusters.computeIfAbsent(find(parent, m), k -> new ArrayList<>()).add(methods.get(m));
+        }
+
+        List<List<MethodInfo>> chunks = new ArrayList<>();
+        for (List<MethodInfo> cluster : clusters.values()) {
+            for (int start = 0; start < cluster.size(); start += maxMethodsPerShard) {
+                chunks.add(new ArrayList<>(cluster.subList(start, Math.min(cluster.size(), start + maxMethodsPerShard))));
+            }
+        }
+        chunks.sort(Comparator.comparingInt((List<MethodInfo> c) -> c.size()).reversed());
+
+        List<List<MethodInfo>> groups = new ArrayList<>();
+        for (List<MethodInfo> chunk : chunks) {
+            Optional<List<MethodInfo>> fit = groups.stream()
+                .filter(g -> g.size() + chunk.size() <= maxMethodsPerShard)
+                .findFirst();
+            if (fit.isPresent()) {
+                fit.get().addAll(chunk);
+            } else {
+                groups.add(new ArrayList<>(chunk));
+            }
+        }
+        return groups;
+    }
+
+    private int find(int[] parent, int index) {
+        while (parent[index] != index) {
+            parent[index] = parent[parent[index]];
+            index = parent[index];
+        }
+        return index;
+    }
+
+    /**
+     * 合并各分片生成的测试类，返回 null 表示没有可用的分片
+     */
+    String merge(List<String> shardCodes) {
+        CompilationUnit merged = null;
+        ClassOrInterfaceDeclaration target = null;
+
+        for (String code : shardCodes) {
+            ParseResult<CompilationUnit> result = javaParser.parse(code);
+            if (!result.isSuccessful() || result.getResult().isEmpty()) {
+                logger.debug("Skipping unparseable shard output");
+                continue;
+            }
+            CompilationUnit unit = result.getResult().get();
+            Optional<ClassOrInterfaceDeclaration> type = unit.findFirst(ClassOrInterfaceDeclaration.class,
+                c -> !c.isNestedType());
+            if (type.isEmpty()) {
+                continue;
+            }
+            if (merged == null) {
+                merged = unit;
+                target = type.get();
+                continue;
+            }
+
+            for (ImportDeclaration importDeclaration : unit.getImports()) {
+                if (!merged.getImports().contains(importDeclaration)) {
+                    merged.addImport(importDeclaration.clone());
+                }
+            }
+            mergeMembers(target, type.get());
+        }
+
+        return merged != null ? merged.toString() : null;
+    }
+
+    private void mergeMembers(ClassOrInterfaceDeclaration target, ClassOrInterfaceDeclaration source) {
+        for (BodyDeclaration<?> member : source.getMembers()) {
+            if (member instanceof FieldDeclaration field) {
+                boolean exists = field.getVariables().stream()
+                    .map(VariableDeclarator::getNameAsString)
+                    .anyMatch(name -> target.getFieldByName(name).isPresent());
+                if (!exists) {
+                    target.addMember(field.clone());
+                }
+            } else if (member instanceof MethodDeclaration method) {
+                mergeMethod(target, method);
+            } else if (member instanceof ClassOrInterfaceDeclaration nested) {
+                boolean exists = target.getMembers().stream()
+                    .filter(ClassOrInterfaceDeclaration.class::isInstance)
+                    .map(m -> ((ClassOrInterfaceDeclaration) m).getNameAsString())
+                    .anyMatch(nested.getNameAsString()::equals);
+                if (!exists) {
+                    target.addMember(nested.clone());
+                }
+            }
+        }
+    }
+
+    private void mergeMethod(ClassOrInterfaceDeclaration target, MethodDeclaration method) {
+        if (method.isAnnotationPresent("BeforeEach")) {
+            Optional<MethodDeclaration> existingSetup = target.getMethods().stream()
+                .filter(m -> m.isAnnotationPresent("BeforeEach"))
+                .findFirst();
+            if (existingSetup.isEmpty()) {
+                target.addMember(method.clone());
+                return;
+            }
+            BlockStmt body = existingSetup.get().getBody().orElseGet(BlockStmt::new);
+            Set<String> present = body.getStatements().stream()
+                .map(Statement::toString)
+                .collect(Collectors.toCollection(HashSet::new));
+            method.getBody().ifPresent(source -> source.getStatements().forEach(statement -> {
+                if (present.add(statement.toString())) {
+                    body.addStatement(statement.clone());
+                }
+            }));
+            return;
+        }
+
+        boolean sameSignatureExists = target.getMethods().stream()
+            .anyMatch(m -> m.getSignature().equals(method.getSignature()));
+        if (!sameSignatureExists) {
+            target.addMember(method.clone());
+        } else if (method.isAnnotationPresent("Test") || method.isAnnotationPresent("ParameterizedTest")) {
+            MethodDeclaration renamed = method.clone();
+            String baseName = method.getNameAsString();
+            int suffix = 2;
+            while (!target.getMethodsBySignature(baseName + suffix,
+                    method.getParameters().stream().map(p -> p.getType().asString()).toArray(String[]::new))
+                .isEmpty()) {
+                suffix++;
+            }
+            renamed.setName(baseName + suffix);
+            target.addMember(renamed);
+        }
+    }
+
+    private List<MethodInfo> testableMethods(ClassInfo classInfo) {
+        return classInfo.methods().stream()
+            .filter(m -> !m.isPrivate() && !m.isAbstract())
+            .collect(Collectors.toList());
+    }
+}
@@ -1,8 +1,12 @@
 package com.utagent.generator;
 
+import com.utagent.generator.llm.ConversationSession;
 import com.utagent.generator.llm.PromptBuilder;
+import com.utagent.generator.llm.StreamingTestMethodExtractor;
+import com.utagent.generator.llm.StructuredTestClass;
 import com.utagent.generator.strategy.StrategyLoader;
 import com.utagent.generator.strategy.TestGenerationStrategy;
+import com.utagent.generator.strategy.TrivialClassTestStrategy;
 import com.utagent.llm.ChatRequest;
 import com.utagent.llm.ChatResponse;
 import com.utagent.llm.LLMConfig;
@@ -10,9 +14,11 @@ import com.utagent.llm.LLMProvider;
 import com.utagent.llm.LLMProviderFactory;
 import com.utagent.llm.LLMProviderType;
 import com.utagent.llm.Message;
+import com.utagent.llm.TokenEstimator;
 import com.utagent.llm.TokenUsage;
 import com.utagent.model.ClassInfo;
 import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
 import com.utagent.model.MethodInfo;
 import com.utagent.model.ParsedTestFile;
 import com.utagent.monitoring.LLMCallMonitor;
@@ -26,20 +32,38 @@ import java.util.EnumMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class TestGenerator {
 
     private static final Logger logger = LoggerFactory.getLogger(TestGenerator.class);
+    private static final int TEST_CLASS_OVERHEAD_TOKENS = 250;
+    private static final int TESTS_PER_METHOD = 2;
+    private static final int TOKENS_PER_TEST_METHOD = 120;
+    private static final long STREAM_TIMEOUT_MINUTES = 10;
 
     private final LLMProvider llmProvider;
     private final PromptBuilder promptBuilder;
     private final FrameworkDetector frameworkDetector;
+    private final ClassComplexityScorer complexityScorer;
+    private final TrivialityClassifier trivialityClassifier;
+    private final TrivialClassTestStrategy trivialClassStrategy = new TrivialClassTestStrategy();
     private final StrategyLoader strategyLoader;
     private final boolean useAI;
+    private volatile boolean structuredOutput;
+    private volatile CoverageReport baselineCoverage = new CoverageReport();
     private final AtomicReference<TokenUsage> totalTokenUsage = new AtomicReference<>(TokenUsage.empty());
+    private final Map<String, Long> classTokens = new ConcurrentHashMap<>();
 
     /**
      * 默认构造函数，使用模板生成（无AI）
@@ -78,7 +102,10 @@ public class TestGenerator {
         }
         this.promptBuilder = new PromptBuilder();
         this.frameworkDetector = new FrameworkDetector();
+        this.complexityScorer = new ClassComplexityScorer(frameworkDetector);
+        this.trivialityClassifier = new TrivialityClassifier(frameworkDetector);
         this.useAI = this.llmProvider != null && this.llmProvider.isAvailable();
+        this.structuredOutput = this.llmProvider != null && this.llmProvider.supportsStructuredOutput();
 
         // 使用 StrategyLoader 加载策略
         if (strategies != null && !strategies.isEmpty()) {
@@ -112,15 +139,66 @@ public class TestGenerator {
     }
 
     public String generateTestClass(ClassInfo classInfo) {
+        return generateTestClass(classInfo, null);
+    }
+
+    /**
+     * 生成测试类，AI 生成成功时把本轮请求和响应记录为会话历史，供后续迭代复用
+     */
+    public String generateTestClass(ClassInfo classInfo, ConversationSession session) {
+        if (isTemplateOnly(classInfo)) {
+            logger.info("{} only holds data, generating template tests without AI", classInfo.className());
+            return trivialClassStrategy.generateTestClass(classInfo);
+        }
+
         Set<FrameworkType> frameworks = frameworkDetector.detectFrameworks(classInfo);
         
         if (useAI && llmProvider != null) {
-            return generateWithAI(classInfo, frameworks);
+            return generateWithAI(classInfo, frameworks, session);
         } else {
             return generateWithStrategy(classInfo, frameworks);
         }
     }
 
+    /**
+     * 流式生成测试类：响应片段送入 extractor，每个完整的测试方法一到达就交给它的 listener；
+     * 调用方置位 cancelled 后停止接收剩余响应。Provider 不支持流式或未启用 AI 时，
+     * 整体生成后再逐个回放测试方法
+     */
+    public void generateTestClassStreaming(ClassInfo classInfo,
+                                           ConversationSession session,
+                                           StreamingTestMethodExtractor extractor,
+                                           AtomicBoolean cancelled) {
+        if (!useAI || llmProvider == null || !llmProvider.supportsStreaming() || isTemplateOnly(classInfo)) {
+            extractor.accept(generateTestClass(classInfo, session));
+            extractor.finish();
+            return;
+        }
+
+        logger.info("Streaming tests for {} using AI ({})", classInfo.className(), llmProvider.name());
+        Set<FrameworkType> frameworks = frameworkDetector.detectFrameworks(classInfo);
+        // 流式输出按 Java 源码逐个提取测试方法，保持文本格式
+        ChatRequest request = buildTestClassRequest(classInfo, frameworks, false);
+        ChatResponse response = executeStreamingRequest(request, "test_generation_stream", extractor, cancelled);
+
+        if (!response.isSuccess()) {
+            if (extractor.getTestMethods().isEmpty()) {
+                logger.warn("Streamed generation failed: {}, falling back to strategy-based generation",
+                    response.errorMessage());
+                extractor.reset();
+                extractor.accept(generateWithStrategy(classInfo, frameworks));
+            }
+            extractor.finish();
+            return;
+        }
+
+        extractor.finish();
+        if (session != null && !cancelled.get()) {
+            // 被取消的响应不完整，不作为会话历史
+            session.recordInitialExchange(request.messages(), response.content());
+        }
+    }
+
     public String generateAdditionalTests(ClassInfo classInfo, List<CoverageInfo> coverageInfo) {
         if (useAI && llmProvider != null) {
             return generateAdditionalTestsWithAI(classInfo, coverageInfo);
@@ -129,45 +207,52 @@ public class TestGenerator {
         }
     }
 
-    private String generateWithAI(ClassInfo classInfo, Set<FrameworkType> frameworks) {
+    private String generateWithAI(ClassInfo classInfo, Set<FrameworkType> frameworks,
+                                  ConversationSession session) {
         logger.info("Generating tests for {} using AI ({})", classInfo.className(), llmProvider.name());
         
-        String systemPrompt = promptBuilder.buildSystemPrompt();
-        String userPrompt = promptBuilder.buildTestGenerationPrompt(classInfo, frameworks);
-        
-        ChatRequest request = ChatRequest.builder()
-            .systemPrompt(systemPrompt)
-            .userMessage(userPrompt)
-            .build();
-        
-        LLMCallMonitor monitor = LLMCallMonitor.getInstance();
-        LLMCallMonitor.CallRecord callRecord = monitor.startCall(
-            llmProvider.name(),
-            llmProvider instanceof com.utagent.llm.provider.AbstractLLMProvider ? 
-                ((com.utagent.llm.provider.AbstractLLMProvider) llmProvider).getModel() : "unknown",
-            "test_generation"
-        );
-        
-        try {
-            ChatResponse response = llmProvider.chatWithRetry(request, 3);
-            
-            if (response.isSuccess()) {
-                updateTokenUsage(response.tokenUsage());
-                monitor.endCall(callRecord, response.tokenUsage(), 
-                    truncatePreview(response.content(), 100));
-                return extractCodeFromResponse(response.content());
-            } else {
-                monitor.failCall(callRecord, response.errorMessage());
-                logger.warn("AI generation failed: {}, falling back to strategy-based generation", 
-                    response.errorMessage());
-                return generateWithStrategy(classInfo, frameworks);
-            }
-        } catch (Exception e) {
-            monitor.failCall(callRecord, e.getMessage());
-            logger.warn("AI generation exception: {}, falling back to strategy-based generation", 
-                e.getMessage());
+        ChatRequest request = buildTestClassRequest(classInfo, frameworks, structuredOutput);
+        ChatResponse response = executeRequest(request, "test_generation");
+        if (!response.isSuccess()) {
+            logger.warn("AI generation failed: {}, falling back to strategy-based generation", 
+                response.errorMessage());
             return generateWithStrategy(classInfo, frameworks);
         }
+        if (session != null) {
+            session.recordInitialExchange(request.messages(), response.content());
+        }
+        return extractCodeFromResponse(response.content());
+    }
+
+    ChatRequest buildTestClassRequest(ClassInfo classInfo, Set<FrameworkType> frameworks,
+                                      boolean structured) {
+        // 稳定的指令前缀在前并打上缓存标记，类相关内容放在最后
+        String instructions = promptBuilder.buildTestGenerationInstructions(frameworks, true, true, false);
+        ChatRequest.Builder builder = requestBuilder(classInfo)
+            .cacheableSystemPrompt(promptBuilder.buildSystemPrompt());
+        if (structured) {
+            builder.cacheableUserMessage(instructions + promptBuilder.buildStructuredOutputInstructions())
+                .responseSchema(StructuredTestClass.SCHEMA);
+        } else {
+            builder.cacheableUserMessage(instructions);
+        }
+        return builder.userMessage(promptBuilder.buildClassContext(classInfo, baselineUncovered(classInfo))).build();
+    }
+
+    /**
+     * 在不调用模型的情况下估算首轮生成的 token 用量：提示词按本地分词器计数，
+     * 输出按可测试方法数量估算并受 maxTokens 限制
+     */
+    public TokenUsage estimateTestClassUsage(ClassInfo classInfo) {
+        ChatRequest request = buildTestClassRequest(classInfo, frameworkDetector.detectFrameworks(classInfo),
+            structuredOutput);
+        int promptTokens = TokenEstimator.getInstance().estimatePromptTokens(request);
+        long testableMethods = classInfo.methods().stream()
+            .filter(m -> !m.isPrivate() && !m.isAbstract())
+            .count();
+        int completionTokens = (int) Math.min(request.maxTokens(),
+            TEST_CLASS_OVERHEAD_TOKENS + testableMethods * TESTS_PER_METHOD * TOKENS_PER_TEST_METHOD);
+        return new TokenUsage(promptTokens, completionTokens, promptTokens + completionTokens);
     }
 
     private String generateWithStrategy(ClassInfo classInfo, Set<FrameworkType> frameworks) {
@@ -197,54 +282,134 @@ public class TestGenerator {
     private String generateAdditionalTestsWithAI(ClassInfo classInfo, List<CoverageInfo> coverageInfo) {
         logger.info("Generating additional tests for {} using AI", classInfo.className());
         
-        String systemPrompt = promptBuilder.buildSystemPrompt();
-        String userPrompt = promptBuilder.buildCoverageImprovementPrompt(classInfo, coverageInfo);
-        
-        ChatRequest request = ChatRequest.builder()
-            .systemPrompt(systemPrompt)
-            .userMessage(userPrompt)
+        ChatRequest.Builder builder = requestBuilder(classInfo)
+            .cacheableSystemPrompt(promptBuilder.buildSystemPrompt());
+        if (structuredOutput) {
+            builder.cacheableUserMessage(promptBuilder.buildCoverageImprovementInstructions()
+                    + promptBuilder.buildStructuredOutputInstructions())
+                .responseSchema(StructuredTestClass.SCHEMA);
+        } else {
+            builder.cacheableUserMessage(promptBuilder.buildCoverageImprovementInstructions());
+        }
+        ChatRequest request = builder
+            .userMessage(promptBuilder.buildUncoveredContext(classInfo, coverageInfo, false))
             .build();
         
+        ChatResponse response = executeRequest(request, "coverage_improvement");
+        if (!response.isSuccess()) {
+            logger.warn("AI generation failed: {}, falling back to strategy-based generation", 
+                response.errorMessage());
+            return generateAdditionalTestsWithStrategy(classInfo, coverageInfo);
+        }
+        return extractCodeFromResponse(response.content());
+    }
+
+    private String generateAdditionalTestsWithStrategy(ClassInfo classInfo, List<CoverageInfo> coverageInfo) {
+        Set<FrameworkType> frameworks = frameworkDetector.detectFrameworks(classInfo);
+        TestGenerationStrategy strategy = selectStrategy(frameworks);
+        return strategy.generateAdditionalTests(classInfo, coverageInfo);
+    }
+
+    /**
+     * 发送请求并记录监控和 token 用量，异常转换为错误响应
+     */
+    ChatResponse executeRequest(ChatRequest request, String promptType) {
         LLMCallMonitor monitor = LLMCallMonitor.getInstance();
-        LLMCallMonitor.CallRecord callRecord = monitor.startCall(
-            llmProvider.name(),
-            llmProvider instanceof com.utagent.llm.provider.AbstractLLMProvider ? 
-                ((com.utagent.llm.provider.AbstractLLMProvider) llmProvider).getModel() : "unknown",
-            "coverage_improvement"
-        );
+        LLMCallMonitor.CallRecord callRecord = startCall(monitor, request, promptType);
         
         try {
             ChatResponse response = llmProvider.chatWithRetry(request, 3);
-            
-            if (response.isSuccess()) {
-                updateTokenUsage(response.tokenUsage());
-                monitor.endCall(callRecord, response.tokenUsage(), 
-                    truncatePreview(response.content(), 100));
-                return extractCodeFromResponse(response.content());
-            } else {
-                monitor.failCall(callRecord, response.errorMessage());
-                logger.warn("AI generation failed: {}, falling back to strategy-based generation", 
-                    response.errorMessage());
-                return generateAdditionalTestsWithStrategy(classInfo, coverageInfo);
-            }
+            completeCall(monitor, callRecord, request, response);
+            return response;
         } catch (Exception e) {
             monitor.failCall(callRecord, e.getMessage());
-            logger.warn("AI generation exception: {}, falling back to strategy-based generation", 
-                e.getMessage());
-            return generateAdditionalTestsWithStrategy(classInfo, coverageInfo);
+            return ChatResponse.error(e.getMessage());
         }
     }
 
-    private String generateAdditionalTestsWithStrategy(ClassInfo classInfo, List<CoverageInfo> coverageInfo) {
-        Set<FrameworkType> frameworks = frameworkDetector.detectFrameworks(classInfo);
-        TestGenerationStrategy strategy = selectStrategy(frameworks);
-        return strategy.generateAdditionalTests(classInfo, coverageInfo);
+    /**
+     * {@link #executeRequest} 的流式版本：响应片段依次交给 chunkConsumer，调用方置位 cancelled 后停止接收；
+     * 超时或中断时返回错误响应
+     */
+    ChatResponse executeStreamingRequest(ChatRequest request, String promptType,
+                                         Consumer<String> chunkConsumer, AtomicBoolean cancelled) {
+        LLMCallMonitor monitor = LLMCallMonitor.getInstance();
+        LLMCallMonitor.CallRecord callRecord = startCall(monitor, request, promptType);
+
+        CompletableFuture<ChatResponse> completion = new CompletableFuture<>();
+        llmProvider.chatStream(request, chunk -> {
+            monitor.notifyStreamChunk(callRecord.getCallId(), chunk, false);
+            chunkConsumer.accept(chunk);
+        }, completion::complete, cancelled);
+
+        ChatResponse response;
+        try {
+            response = completion.get(STREAM_TIMEOUT_MINUTES, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response = ChatResponse.error("Streaming interrupted");
+        } catch (ExecutionException | TimeoutException e) {
+            cancelled.set(true);
+            response = ChatResponse.error("Streaming did not complete: " + e.getMessage());
+        }
+        monitor.notifyStreamChunk(callRecord.getCallId(), "", true);
+        completeCall(monitor, callRecord, request, response);
+        return response;
+    }
+
+    private LLMCallMonitor.CallRecord startCall(LLMCallMonitor monitor, ChatRequest request, String promptType) {
+        return monitor.startCall(
+            llmProvider.name(),
+            llmProvider instanceof com.utagent.llm.provider.AbstractLLMProvider ? 
+                ((com.utagent.llm.provider.AbstractLLMProvider) llmProvider).getModel() : "unknown",
+            promptType,
+            request
+        );
+    }
+
+    private void completeCall(LLMCallMonitor monitor, LLMCallMonitor.CallRecord callRecord,
+                              ChatRequest request, ChatResponse response) {
+        if (response.isSuccess() && response.isCached()) {
+            // 缓存命中没有消耗 token，不计入总量和类预算
+            monitor.endCachedCall(callRecord, truncatePreview(response.content(), 100));
+        } else if (response.isSuccess()) {
+            updateTokenUsage(request, response.tokenUsage());
+            monitor.endCall(callRecord, response.tokenUsage(), truncatePreview(response.content(), 100));
+        } else {
+            monitor.failCall(callRecord, response.errorMessage());
+        }
+    }
+
+    /**
+     * 针对某个类的请求构建器，带上源码哈希和提示模板版本，使响应缓存按内容寻址；
+     * 同时带上类的复杂度评分，供模型路由选择模型
+     */
+    ChatRequest.Builder requestBuilder(ClassInfo classInfo) {
+        return ChatRequest.builder()
+            .sourceHash(classInfo.sourceHash())
+            .templateVersion(PromptBuilder.TEMPLATE_VERSION)
+            .complexity(complexityScorer.score(classInfo));
+    }
+
+    PromptBuilder getPromptBuilder() {
+        return promptBuilder;
+    }
+
+    Set<FrameworkType> detectFrameworks(ClassInfo classInfo) {
+        return frameworkDetector.detectFrameworks(classInfo);
     }
 
-    private String extractCodeFromResponse(String response) {
+    /**
+     * 从响应中取出测试代码：结构化 JSON 响应直接按字段拼装测试类，否则从 markdown 代码块中提取
+     */
+    String extractCodeFromResponse(String response) {
         if (response == null || response.isEmpty()) {
             return "";
         }
+        Optional<StructuredTestClass> structured = StructuredTestClass.parse(response);
+        if (structured.isPresent()) {
+            return structured.get().toJavaSource();
+        }
         
         String code = response;
         
@@ -265,9 +430,16 @@ public class TestGenerator {
         return code;
     }
 
-    private void updateTokenUsage(TokenUsage usage) {
+    /**
+     * 累计总用量，同时按请求的源码哈希累计到对应的类。并行优化多个类时，
+     * 各类的配额按自己的用量计算，不受同时进行的其他类影响
+     */
+    private void updateTokenUsage(ChatRequest request, TokenUsage usage) {
         if (usage != null) {
             totalTokenUsage.updateAndGet(current -> current.add(usage));
+            if (request != null && request.sourceHash() != null) {
+                classTokens.merge(request.sourceHash(), (long) usage.totalTokens(), Long::sum);
+            }
         }
     }
     
@@ -277,10 +449,74 @@ public class TestGenerator {
         return text.substring(0, maxLength) + "...";
     }
 
+    /**
+     * 设置类上下文的 token 预算，超出预算的方法只保留签名或省略
+     */
+    public void setContextTokenBudget(int maxContextTokens) {
+        promptBuilder.setContextTokenBudget(maxContextTokens);
+    }
+
+    /**
+     * 运行开始前项目已有的覆盖率报告，首轮提示词的类上下文按其中未覆盖的行对方法排序；
+     * 没有报告时只按复杂度排序
+     */
+    public void setBaselineCoverage(CoverageReport baselineCoverage) {
+        this.baselineCoverage = baselineCoverage != null ? baselineCoverage : new CoverageReport();
+    }
+
+    /**
+     * @return 基线报告中该类还有未覆盖行或分支的方法
+     */
+    public List<CoverageInfo> baselineUncovered(ClassInfo classInfo) {
+        return baselineCoverage.classCoverages().stream()
+            .filter(info -> info.className().equals(classInfo.fullyQualifiedName())
+                || info.className().equals(classInfo.className()))
+            .filter(info -> info.methodName() != null && !info.methodName().isEmpty())
+            .filter(info -> info.lineMissed() > 0 || info.branchMissed() > 0)
+            .toList();
+    }
+
+    /**
+     * 是否向 provider 请求结构化 JSON 输出，默认在 provider 支持时开启；流式生成始终使用文本输出
+     */
+    public void setStructuredOutput(boolean structuredOutput) {
+        this.structuredOutput = structuredOutput && llmProvider != null && llmProvider.supportsStructuredOutput();
+    }
+
+    public boolean isStructuredOutput() {
+        return structuredOutput;
+    }
+
     public TokenUsage getTotalTokenUsage() {
         return totalTokenUsage.get();
     }
 
+    /**
+     * @return 到目前为止为该类的请求消耗的 token 总数，不含批量请求
+     */
+    public long getClassTokens(ClassInfo classInfo) {
+        String sourceHash = classInfo.sourceHash();
+        return sourceHash != null ? classTokens.getOrDefault(sourceHash, 0L) : 0L;
+    }
+
+    /**
+     * 类是否只包含数据和访问器（枚举、记录、DTO），这类类直接用模板生成测试，不调用 LLM
+     */
+    public boolean isTemplateOnly(ClassInfo classInfo) {
+        return trivialityClassifier.isTrivial(classInfo);
+    }
+
+    /**
+     * 记录某个类生成的测试未能编译或未达到覆盖率目标，该类后续请求的复杂度评分随之升高
+     */
+    public void recordGenerationFailure(ClassInfo classInfo) {
+        complexityScorer.recordFailure(classInfo);
+    }
+
+    public ClassComplexityScorer getComplexityScorer() {
+        return complexityScorer;
+    }
+
     public boolean isAIEnabled() {
         return useAI;
     }
@@ -292,6 +528,16 @@ public class TestGenerator {
     public String generateIncrementalTests(ClassInfo classInfo, 
                                            ParsedTestFile existingTests,
                                            List<CoverageInfo> uncoveredInfo) {
+        return generateIncrementalTests(classInfo, existingTests, uncoveredInfo, null);
+    }
+
+    /**
+     * 增量生成测试，AI 生成成功时把本轮请求和响应记录为会话历史
+     */
+    public String generateIncrementalTests(ClassInfo classInfo, 
+                                           ParsedTestFile existingTests,
+                                           List<CoverageInfo> uncoveredInfo,
+                                           ConversationSession session) {
         Set<FrameworkType> frameworks = frameworkDetector.detectFrameworks(classInfo);
         
         Set<String> testedMethods = existingTests != null ? 
@@ -309,7 +555,7 @@ public class TestGenerator {
         
         if (useAI && llmProvider != null) {
             return generateIncrementalWithAI(classInfo, frameworks, existingTests, 
-                                            untestedMethods, uncoveredInfo);
+                                            untestedMethods, uncoveredInfo, session);
         } else {
             return generateIncrementalWithStrategy(classInfo, frameworks, existingTests, 
                                                    untestedMethods, uncoveredInfo);
@@ -330,48 +576,28 @@ public class TestGenerator {
                                              Set<FrameworkType> frameworks,
                                              ParsedTestFile existingTests,
                                              List<MethodInfo> untestedMethods,
-                                             List<CoverageInfo> uncoveredInfo) {
+                                             List<CoverageInfo> uncoveredInfo,
+                                             ConversationSession session) {
         logger.info("Generating incremental tests for {} using AI", classInfo.className());
         
-        String systemPrompt = promptBuilder.buildSystemPrompt();
-        String userPrompt = promptBuilder.buildIncrementalTestPrompt(
-            classInfo, frameworks, existingTests, untestedMethods, uncoveredInfo);
-        
-        ChatRequest request = ChatRequest.builder()
-            .systemPrompt(systemPrompt)
-            .userMessage(userPrompt)
+        ChatRequest request = requestBuilder(classInfo)
+            .cacheableSystemPrompt(promptBuilder.buildSystemPrompt())
+            .cacheableUserMessage(promptBuilder.buildIncrementalTestInstructions())
+            .userMessage(promptBuilder.buildIncrementalTestContext(
+                classInfo, frameworks, existingTests, untestedMethods, uncoveredInfo))
             .build();
         
-        LLMCallMonitor monitor = LLMCallMonitor.getInstance();
-        LLMCallMonitor.CallRecord callRecord = monitor.startCall(
-            llmProvider.name(),
-            llmProvider instanceof com.utagent.llm.provider.AbstractLLMProvider ? 
-                ((com.utagent.llm.provider.AbstractLLMProvider) llmProvider).getModel() : "unknown",
-            "incremental_test_generation"
-        );
-        
-        try {
-            ChatResponse response = llmProvider.chatWithRetry(request, 3);
-            
-            if (response.isSuccess()) {
-                updateTokenUsage(response.tokenUsage());
-                monitor.endCall(callRecord, response.tokenUsage(), 
-                    truncatePreview(response.content(), 100));
-                return extractCodeFromResponse(response.content());
-            } else {
-                monitor.failCall(callRecord, response.errorMessage());
-                logger.warn("AI incremental generation failed: {}, falling back to strategy", 
-                    response.errorMessage());
-                return generateIncrementalWithStrategy(classInfo, frameworks, existingTests, 
-                                                       untestedMethods, uncoveredInfo);
-            }
-        } catch (Exception e) {
-            monitor.failCall(callRecord, e.getMessage());
-            logger.warn("AI incremental generation exception: {}, falling back to strategy", 
-                e.getMessage());
+        ChatResponse response = executeRequest(request, "incremental_test_generation");
+        if (!response.isSuccess()) {
+            logger.warn("AI incremental generation failed: {}, falling back to strategy", 
+                response.errorMessage());
             return generateIncrementalWithStrategy(classInfo, frameworks, existingTests, 
                                                    untestedMethods, uncoveredInfo);
         }
+        if (session != null) {
+            session.recordInitialExchange(request.messages(), response.content());
+        }
+        return extractCodeFromResponse(response.content());
     }
 
     private String generateIncrementalWithStrategy(ClassInfo classInfo,
@@ -423,40 +649,99 @@ public class TestGenerator {
         logger.info("Generating additional tests for {} avoiding duplicates using AI", 
                    classInfo.className());
         
-        String systemPrompt = promptBuilder.buildSystemPrompt();
-        String userPrompt = promptBuilder.buildIncrementalCoveragePrompt(
-            classInfo, coverageInfo, existingTestMethodNames);
-        
-        ChatRequest request = ChatRequest.builder()
-            .systemPrompt(systemPrompt)
-            .userMessage(userPrompt)
+        ChatRequest request = requestBuilder(classInfo)
+            .cacheableSystemPrompt(promptBuilder.buildSystemPrompt())
+            .cacheableUserMessage(promptBuilder.buildIncrementalCoverageInstructions())
+            .userMessage(promptBuilder.buildIncrementalCoverageContext(
+                classInfo, coverageInfo, existingTestMethodNames))
             .build();
         
-        LLMCallMonitor monitor = LLMCallMonitor.getInstance();
-        LLMCallMonitor.CallRecord callRecord = monitor.startCall(
-            llmProvider.name(),
-            llmProvider instanceof com.utagent.llm.provider.AbstractLLMProvider ? 
-                ((com.utagent.llm.provider.AbstractLLMProvider) llmProvider).getModel() : "unknown",
-            "coverage_improvement_incremental"
-        );
-        
-        try {
-            ChatResponse response = llmProvider.chatWithRetry(request, 3);
-            
-            if (response.isSuccess()) {
-                updateTokenUsage(response.tokenUsage());
-                monitor.endCall(callRecord, response.tokenUsage(), 
-                    truncatePreview(response.content(), 100));
-                return extractCodeFromResponse(response.content());
-            } else {
-                monitor.failCall(callRecord, response.errorMessage());
-                logger.warn("AI generation failed: {}", response.errorMessage());
-                return "";
-            }
-        } catch (Exception e) {
-            monitor.failCall(callRecord, e.getMessage());
-            logger.warn("AI generation exception: {}", e.getMessage());
+        ChatResponse response = executeRequest(request, "coverage_improvement_incremental");
+        if (!response.isSuccess()) {
+            logger.warn("AI generation failed: {}", response.errorMessage());
             return "";
         }
+        return extractCodeFromResponse(response.content());
+    }
+
+    /**
+     * 为会话创建新的多轮对话，每个被优化的类一个
+     */
+    public ConversationSession openSession(ClassInfo classInfo) {
+        return new ConversationSession(classInfo);
+    }
+
+    /**
+     * 在已有会话上继续生成补充测试：类上下文和首轮测试作为缓存的历史前缀，
+     * 本轮只发送覆盖率变化、未覆盖代码和已生成的测试方法名。
+     * 会话没有历史（首轮未走 AI 或失败）时退回到完整提示词。
+     */
+    public String generateFollowUpTests(ConversationSession session,
+                                        List<CoverageInfo> coverageInfo,
+                                        double currentCoverage,
+                                        Set<String> existingTestMethodNames) {
+        ClassInfo classInfo = session.getClassInfo();
+        double previousCoverage = session.updateCoverage(currentCoverage);
+        if (existingTestMethodNames != null) {
+            session.addGeneratedMethods(existingTestMethodNames);
+        }
+
+        if (!useAI || llmProvider == null) {
+            return generateAdditionalTestsWithStrategy(classInfo, coverageInfo);
+        }
+        if (!session.hasHistory()) {
+            return generateAdditionalTestsAvoidingDuplicatesWithAI(classInfo, coverageInfo,
+                session.getGeneratedMethodNames());
+        }
+
+        logger.info("Generating follow-up tests for {} in conversation (turn {})",
+            classInfo.className(), session.getFollowUpTurns() + 1);
+
+        ChatRequest request = session.followUpRequest(promptBuilder.buildCoverageDeltaPrompt(
+            previousCoverage, currentCoverage, coverageInfo, session.getGeneratedMethodNames()))
+            .withComplexity(complexityScorer.score(classInfo));
+
+        ChatResponse response = executeRequest(request, "coverage_improvement_followup");
+        if (!response.isSuccess()) {
+            logger.warn("AI follow-up generation failed: {}, falling back to strategy-based generation",
+                response.errorMessage());
+            return generateAdditionalTestsWithStrategy(classInfo, coverageInfo);
+        }
+        session.incrementFollowUpTurns();
+        return extractCodeFromResponse(response.content());
+    }
+
+    /**
+     * 请求模型修复编译不通过的测试方法：只发送失败的方法及其编译错误，
+     * 会话有历史时作为后续轮次发送（类上下文已在缓存前缀中），否则附带被测类的方法签名。
+     * 返回修复后的方法源码（可能以 import 语句开头），未启用 AI 或请求失败时返回 null
+     */
+    public String repairCompilationErrors(ClassInfo classInfo,
+                                          ConversationSession session,
+                                          Map<String, String> failingMethods,
+                                          Map<String, List<String>> errors) {
+        if (!useAI || llmProvider == null || failingMethods.isEmpty()) {
+            return null;
+        }
+        logger.info("Requesting compilation repair of {} test methods for {}",
+            failingMethods.size(), classInfo.className());
+
+        ChatRequest request;
+        if (session != null && session.hasHistory()) {
+            request = session.followUpRequest(promptBuilder.buildCompilationRepairPrompt(null, failingMethods, errors))
+                .withComplexity(complexityScorer.score(classInfo));
+        } else {
+            request = requestBuilder(classInfo)
+                .cacheableSystemPrompt(promptBuilder.buildSystemPrompt())
+                .userMessage(promptBuilder.buildCompilationRepairPrompt(classInfo, failingMethods, errors))
+                .build();
+        }
+
+        ChatResponse response = executeRequest(request, "compilation_repair");
+        if (!response.isSuccess()) {
+            logger.warn("AI compilation repair failed: {}", response.errorMessage());
+            return null;
+        }
+        return extractCodeFromResponse(response.content());
     }
 }
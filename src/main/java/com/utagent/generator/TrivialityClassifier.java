@@ -0,0 +1,91 @@
+package com.utagent.generator;
+
+import com.utagent.generator.strategy.TrivialClassTestStrategy;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.MethodInfo;
+import com.utagent.parser.FrameworkDetector;
+import com.utagent.parser.FrameworkType;
+
+import java.util.Set;
+
+/**
+ * 判断类是否简单到不需要 LLM：枚举、记录、Lombok @Data DTO 以及只有 getter/setter 的普通类。
+ * 这类类由模板直接生成确定性的测试，LLM 只用于包含真实逻辑的类。
+ * 需要框架上下文、含有抽象方法或静态方法、或没有无参构造函数可用的类不算简单类。
+ * 抽象类、子类（父类的构造和状态在本类源码中看不到）以及字段类型无法构造示例值的类同样交给常规流程，
+ * 否则模板生成的测试无法编译或断言没有意义。
+ */
+public class TrivialityClassifier {
+
+    private static final Set<FrameworkType> PLAIN_FRAMEWORKS = Set.of(FrameworkType.NONE, FrameworkType.LOMBOK);
+
+    private final FrameworkDetector frameworkDetector;
+
+    public TrivialityClassifier() {
+        this(new FrameworkDetector());
+    }
+
+    public TrivialityClassifier(FrameworkDetector frameworkDetector) {
+        this.frameworkDetector = frameworkDetector;
+    }
+
+    public boolean isTrivial(ClassInfo classInfo) {
+        if (classInfo.isInterface() || !usesOnlyPlainFrameworks(classInfo)) {
+            return false;
+        }
+        for (MethodInfo method : classInfo.methods()) {
+            if (!method.isPrivate() && !isTrivialMethod(method)) {
+                return false;
+            }
+        }
+        if (classInfo.isEnum()) {
+            return true;
+        }
+        if (!hasSampleValues(classInfo)) {
+            return false;
+        }
+        if (classInfo.isRecord()) {
+            return true;
+        }
+        if (classInfo.fields().isEmpty() && classInfo.methods().isEmpty()) {
+            // 没有任何成员的类不当作数据类，交给常规流程
+            return false;
+        }
+        // 模板通过无参构造函数创建实例，非静态 final 字段意味着只有带参构造函数
+        return isInstantiableWithoutArguments(classInfo)
+            && !frameworkDetector.hasValue(classInfo)
+            && classInfo.fields().stream().noneMatch(f -> !f.isStatic() && f.isFinal());
+    }
+
+    /**
+     * 方法体只读写字段的实例方法
+     */
+    public boolean isTrivialMethod(MethodInfo method) {
+        return !method.isStatic() && !method.isAbstract() && method.isAccessor();
+    }
+
+    /**
+     * 模板用 new X() 创建实例：不能是抽象类或子类，源码声明的构造函数中要有可见的无参构造函数，
+     * Lombok 的 @AllArgsConstructor 或 @Builder 在没有 @NoArgsConstructor 时会去掉默认构造函数
+     */
+    private boolean isInstantiableWithoutArguments(ClassInfo classInfo) {
+        if (classInfo.isAbstract() || classInfo.superClass() != null || !classInfo.hasNoArgConstructor()) {
+            return false;
+        }
+        boolean lombokConstructors = classInfo.hasAnnotation("AllArgsConstructor") || classInfo.hasAnnotation("Builder");
+        return !lombokConstructors || classInfo.hasAnnotation("NoArgsConstructor");
+    }
+
+    /**
+     * 每个实例字段（记录组件）都要有非空示例值，否则往返和相等断言用 null 比较 null，没有意义
+     */
+    private boolean hasSampleValues(ClassInfo classInfo) {
+        return classInfo.fields().stream()
+            .filter(f -> !f.isStatic())
+            .allMatch(f -> TrivialClassTestStrategy.sampleValue(f.type()) != null);
+    }
+
+    private boolean usesOnlyPlainFrameworks(ClassInfo classInfo) {
+        return PLAIN_FRAMEWORKS.containsAll(frameworkDetector.detectFrameworks(classInfo));
+    }
+}
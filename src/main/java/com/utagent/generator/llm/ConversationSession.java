@@ -0,0 +1,104 @@
+package com.utagent.generator.llm;
+
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.Message;
+import com.utagent.model.ClassInfo;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Per-class multi-turn conversation used across coverage improvement iterations.
+ * The first exchange (system prompt, class context and first-round tests) becomes fixed
+ * history; later iterations only append a short coverage delta message on top of it,
+ * so the history is sent as an unchanged, cacheable prefix.
+ */
+public class ConversationSession {
+
+    private final ClassInfo classInfo;
+    private final List<Message> history = new ArrayList<>();
+    private final Set<String> generatedMethodNames = new LinkedHashSet<>();
+    private double lastCoverage = -1;
+    private int followUpTurns;
+
+    public ConversationSession(ClassInfo classInfo) {
+        this.classInfo = classInfo;
+    }
+
+    /**
+     * Records the first-round request and the model's reply as the session history.
+     * Only the first call has an effect; the history is never rewritten afterwards.
+     */
+    public void recordInitialExchange(List<Message> requestMessages, String assistantReply) {
+        if (!history.isEmpty() || requestMessages == null || assistantReply == null || assistantReply.isBlank()) {
+            return;
+        }
+        history.addAll(requestMessages);
+        history.add(Message.assistant(assistantReply));
+    }
+
+    public boolean hasHistory() {
+        return !history.isEmpty();
+    }
+
+    /**
+     * Builds a follow-up request: the unchanged history (cache breakpoint on its last
+     * message) plus a single new user message.
+     */
+    public ChatRequest followUpRequest(String userMessage) {
+        ChatRequest.Builder builder = ChatRequest.builder()
+            .sourceHash(classInfo != null ? classInfo.sourceHash() : null)
+            .templateVersion(PromptBuilder.TEMPLATE_VERSION);
+        for (int i = 0; i < history.size(); i++) {
+            Message message = history.get(i);
+            if (i == history.size() - 1) {
+                builder.addCacheableMessage(message);
+            } else {
+                builder.addMessage(message);
+            }
+        }
+        return builder.userMessage(userMessage).build();
+    }
+
+    public void addGeneratedMethods(Iterable<String> methodNames) {
+        if (methodNames != null) {
+            methodNames.forEach(generatedMethodNames::add);
+        }
+    }
+
+    /**
+     * Updates the last observed coverage and returns the previous value, or -1 when unknown.
+     */
+    public double updateCoverage(double coverage) {
+        double previous = lastCoverage;
+        lastCoverage = coverage;
+        return previous;
+    }
+
+    public void incrementFollowUpTurns() {
+        followUpTurns++;
+    }
+
+    public ClassInfo getClassInfo() {
+        return classInfo;
+    }
+
+    public List<Message> getHistory() {
+        return Collections.unmodifiableList(history);
+    }
+
+    public Set<String> getGeneratedMethodNames() {
+        return Collections.unmodifiableSet(generatedMethodNames);
+    }
+
+    public double getLastCoverage() {
+        return lastCoverage;
+    }
+
+    public int getFollowUpTurns() {
+        return followUpTurns;
+    }
+}
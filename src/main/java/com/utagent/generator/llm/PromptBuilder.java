@@ -1,5 +1,7 @@
 package com.utagent.generator.llm;
 
+import com.utagent.config.GenerationConfig;
+import com.utagent.llm.TokenEstimator;
 import com.utagent.model.ClassInfo;
 import com.utagent.model.CoverageInfo;
 import com.utagent.model.MethodInfo;
@@ -7,79 +9,68 @@ import com.utagent.model.ParsedTestFile;
 import com.utagent.model.ParsedTestMethod;
 import com.utagent.parser.FrameworkType;
 
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
 public class PromptBuilder {
 
+    /**
+     * Version of the prompt templates below. Bump it whenever prompt wording changes so that
+     * cached responses produced by older templates are no longer reused.
+     */
+    public static final String TEMPLATE_VERSION = "5";
+
+    public static final String BATCH_BEGIN_MARKER = "=== BEGIN TEST";
+    public static final String BATCH_END_MARKER = "=== END TEST";
+
+    private static final int OMITTED_NOTE_RESERVE = 16;
+    private static final String METHOD_BODIES_HEADING = "\n## Method Bodies\n";
+
+    private final TokenEstimator tokenEstimator;
+    private int contextTokenBudget;
+
+    public PromptBuilder() {
+        this(GenerationConfig.DEFAULT_MAX_CONTEXT_TOKENS);
+    }
+
+    public PromptBuilder(int contextTokenBudget) {
+        this.tokenEstimator = TokenEstimator.getInstance();
+        this.contextTokenBudget = contextTokenBudget;
+    }
+
+    public int getContextTokenBudget() {
+        return contextTokenBudget;
+    }
+
+    public void setContextTokenBudget(int contextTokenBudget) {
+        this.contextTokenBudget = contextTokenBudget;
+    }
+
     public String buildTestGenerationPrompt(ClassInfo classInfo, Set<FrameworkType> frameworks) {
         return buildTestGenerationPrompt(classInfo, frameworks, true, true, false);
     }
     
     public String buildTestGenerationPrompt(ClassInfo classInfo, Set<FrameworkType> frameworks,
             boolean includeNegativeTests, boolean includeEdgeCases, boolean includeParameterizedTests) {
+        return buildTestGenerationInstructions(frameworks, includeNegativeTests, includeEdgeCases,
+            includeParameterizedTests) + buildClassContext(classInfo);
+    }
+
+    /**
+     * Builds the stable part of the test generation prompt. It depends only on the detected
+     * frameworks and generation flags, so it is byte-identical for every class of the same
+     * kind and can be served from the provider-side prompt cache.
+     */
+    public String buildTestGenerationInstructions(Set<FrameworkType> frameworks,
+            boolean includeNegativeTests, boolean includeEdgeCases, boolean includeParameterizedTests) {
         StringBuilder prompt = new StringBuilder();
         
-        prompt.append("Generate comprehensive JUnit 5 unit tests for the following Java class.\n\n");
-        
-        prompt.append("## Framework Context\n");
-        for (FrameworkType framework : frameworks) {
-            prompt.append("- ").append(framework.getDisplayName()).append("\n");
-        }
-        prompt.append("\n");
-        
-        prompt.append("## Class Information\n");
-        prompt.append("- Package: ").append(classInfo.packageName()).append("\n");
-        prompt.append("- Class Name: ").append(classInfo.className()).append("\n");
-        prompt.append("- Full Name: ").append(classInfo.fullyQualifiedName()).append("\n");
-        
-        if (classInfo.superClass() != null) {
-            prompt.append("- Extends: ").append(classInfo.superClass()).append("\n");
-        }
-        
-        if (!classInfo.interfaces().isEmpty()) {
-            prompt.append("- Implements: ").append(String.join(", ", classInfo.interfaces())).append("\n");
-        }
-        prompt.append("\n");
-        
-        prompt.append("## Annotations\n");
-        for (var annotation : classInfo.annotations()) {
-            prompt.append("- @").append(annotation.name());
-            if (!annotation.attributes().isEmpty()) {
-                prompt.append("(").append(annotation.attributes()).append(")");
-            }
-            prompt.append("\n");
-        }
-        prompt.append("\n");
-        
-        prompt.append("## Fields (Dependencies)\n");
-        for (var field : classInfo.fields()) {
-            prompt.append("- ").append(field.type()).append(" ").append(field.name());
-            if (field.isDependencyInjection()) {
-                prompt.append(" (injected)");
-            }
-            prompt.append("\n");
-        }
-        prompt.append("\n");
-        
-        prompt.append("## Methods to Test\n");
-        for (MethodInfo method : classInfo.methods()) {
-            if (!method.isPrivate() && !method.isAbstract()) {
-                prompt.append("- ").append(method.getSignature());
-                prompt.append(" : ").append(method.returnType());
-                if (!method.annotations().isEmpty()) {
-                    prompt.append(" ").append(method.annotations().stream()
-                        .map(a -> "@" + a.name())
-                        .collect(Collectors.joining(" ")));
-                }
-                if (!method.thrownExceptions().isEmpty()) {
-                    prompt.append(" throws ").append(String.join(", ", method.thrownExceptions()));
-                }
-                prompt.append("\n");
-            }
-        }
-        prompt.append("\n");
+        prompt.append("Generate comprehensive JUnit 5 unit tests for the Java class whose context follows these instructions.\n\n");
         
         prompt.append("## Test Requirements\n\n");
         
@@ -117,6 +108,175 @@ public class PromptBuilder {
             prompt.append("- Methods where the same logic applies to multiple inputs\n\n");
         }
         
+        appendFrameworkGuidance(prompt, frameworks);
+        
+        prompt.append("## Code Quality Requirements\n");
+        prompt.append("- Each test should be independent and not rely on other tests\n");
+        prompt.append("- Use @BeforeEach for common setup\n");
+        prompt.append("- Avoid code duplication - extract common test utilities if needed\n");
+        prompt.append("- Each test method should test ONE concept only\n");
+        prompt.append("- Use meaningful variable names in tests\n\n");
+        
+        prompt.append("## Output Format\n");
+        prompt.append("Generate only the Java test class code, no explanations.\n");
+        prompt.append("Name the test class after the class under test with a Test suffix.\n");
+        prompt.append("Include all necessary imports.\n\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the class-specific part of a prompt. Always placed after the stable instructions.
+     */
+    public String buildClassContext(ClassInfo classInfo) {
+        return buildClassContext(classInfo, List.of());
+    }
+
+    /**
+     * Builds the class-specific part of a prompt within the context token budget.
+     * Methods are ranked by uncovered lines and cyclomatic complexity; the top-ranked ones
+     * get their full bodies, the rest only signatures, and signatures that no longer fit
+     * are summarized in a single line.
+     */
+    public String buildClassContext(ClassInfo classInfo, List<CoverageInfo> uncoveredInfo) {
+        StringBuilder prompt = new StringBuilder();
+        int remaining = contextTokenBudget - OMITTED_NOTE_RESERVE;
+        
+        StringBuilder header = new StringBuilder();
+        header.append("## Class Information\n");
+        header.append("- Package: ").append(classInfo.packageName()).append("\n");
+        header.append("- Class Name: ").append(classInfo.className()).append("\n");
+        header.append("- Full Name: ").append(classInfo.fullyQualifiedName()).append("\n");
+        header.append("- Test Class Name: ").append(classInfo.className()).append("Test\n");
+        
+        if (classInfo.superClass() != null) {
+            header.append("- Extends: ").append(classInfo.superClass()).append("\n");
+        }
+        
+        if (!classInfo.interfaces().isEmpty()) {
+            header.append("- Implements: ").append(String.join(", ", classInfo.interfaces())).append("\n");
+        }
+        header.append("\n");
+        remaining = appendWithinBudget(prompt, header.toString(), remaining);
+        
+        remaining = appendWithinBudget(prompt, "## Annotations\n", remaining);
+        for (var annotation : classInfo.annotations()) {
+            StringBuilder line = new StringBuilder("- @").append(annotation.name());
+            if (!annotation.attributes().isEmpty()) {
+                line.append("(").append(annotation.attributes()).append(")");
+            }
+            remaining = appendWithinBudget(prompt, line.append("\n").toString(), remaining);
+        }
+        prompt.append("\n");
+        
+        remaining = appendWithinBudget(prompt, "## Fields (Dependencies)\n", remaining);
+        for (var field : classInfo.fields()) {
+            StringBuilder line = new StringBuilder("- ").append(field.type()).append(" ").append(field.name());
+            if (field.isDependencyInjection()) {
+                line.append(" (injected)");
+            }
+            remaining = appendWithinBudget(prompt, line.append("\n").toString(), remaining);
+        }
+        prompt.append("\n");
+        
+        List<MethodInfo> testable = classInfo.methods().stream()
+            .filter(m -> !m.isPrivate() && !m.isAbstract())
+            .collect(Collectors.toList());
+        List<MethodInfo> ranked = rankMethods(testable, uncoveredInfo);
+        
+        // select signatures by rank, render them in declaration order
+        remaining = appendWithinBudget(prompt, "## Methods to Test\n", remaining);
+        Set<MethodInfo> listed = new HashSet<>();
+        for (MethodInfo method : ranked) {
+            int cost = tokenEstimator.estimate(methodLine(method));
+            if (cost <= remaining) {
+                listed.add(method);
+                remaining -= cost;
+            }
+        }
+        for (MethodInfo method : testable) {
+            if (listed.contains(method)) {
+                prompt.append(methodLine(method));
+            }
+        }
+        int omitted = testable.size() - listed.size();
+        if (omitted > 0) {
+            prompt.append("- ... ").append(omitted).append(" more methods omitted\n");
+        }
+        
+        StringBuilder bodies = new StringBuilder();
+        for (MethodInfo method : ranked) {
+            if (!listed.contains(method) || method.body() == null || method.body().isBlank()) {
+                continue;
+            }
+            String section = "\n### " + method.getSignature() + "\n```java\n" + method.body() + "\n```\n";
+            int cost = tokenEstimator.estimate(section);
+            if (bodies.length() == 0) {
+                cost += tokenEstimator.estimate(METHOD_BODIES_HEADING);
+            }
+            if (cost <= remaining) {
+                if (bodies.length() == 0) {
+                    bodies.append(METHOD_BODIES_HEADING);
+                }
+                bodies.append(section);
+                remaining -= cost;
+            }
+        }
+        prompt.append(bodies);
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Orders methods by missed lines (and branches) first, then by cyclomatic complexity.
+     * Ties keep declaration order so the same class always renders the same prompt.
+     */
+    private List<MethodInfo> rankMethods(List<MethodInfo> methods, List<CoverageInfo> uncoveredInfo) {
+        Map<String, Integer> missedByMethod = new HashMap<>();
+        if (uncoveredInfo != null) {
+            for (CoverageInfo info : uncoveredInfo) {
+                if (info.methodName() != null) {
+                    missedByMethod.merge(info.methodName(), info.lineMissed() + info.branchMissed(), Integer::sum);
+                }
+            }
+        }
+        return methods.stream()
+            .sorted(Comparator.<MethodInfo>comparingInt(m -> missedByMethod.getOrDefault(m.name(), 0))
+                .thenComparingInt(MethodInfo::cyclomaticComplexity)
+                .reversed())
+            .collect(Collectors.toList());
+    }
+
+    private String methodLine(MethodInfo method) {
+        StringBuilder line = new StringBuilder("- ").append(method.getSignature());
+        line.append(" : ").append(method.returnType());
+        if (!method.annotations().isEmpty()) {
+            line.append(" ").append(method.annotations().stream()
+                .map(a -> "@" + a.name())
+                .collect(Collectors.joining(" ")));
+        }
+        if (!method.thrownExceptions().isEmpty()) {
+            line.append(" throws ").append(String.join(", ", method.thrownExceptions()));
+        }
+        return line.append("\n").toString();
+    }
+
+    private int appendWithinBudget(StringBuilder prompt, String text, int remaining) {
+        int cost = tokenEstimator.estimate(text);
+        if (cost > remaining) {
+            return remaining;
+        }
+        prompt.append(text);
+        return remaining - cost;
+    }
+
+    private void appendFrameworkGuidance(StringBuilder prompt, Set<FrameworkType> frameworks) {
+        prompt.append("## Framework Context\n");
+        for (FrameworkType framework : orderedFrameworks(frameworks)) {
+            prompt.append("- ").append(framework.getDisplayName()).append("\n");
+        }
+        prompt.append("\n");
+        
         if (frameworks.contains(FrameworkType.SPRING_BOOT)) {
             prompt.append("### Spring Boot Specific\n");
             prompt.append("7. Use @SpringBootTest or @WebMvcTest as appropriate\n");
@@ -132,38 +292,50 @@ public class PromptBuilder {
             prompt.append("9. Test CRUD operations separately\n");
             prompt.append("10. Use @Sql annotations for test data setup\n\n");
         }
-        
-        prompt.append("## Code Quality Requirements\n");
-        prompt.append("- Each test should be independent and not rely on other tests\n");
-        prompt.append("- Use @BeforeEach for common setup\n");
-        prompt.append("- Avoid code duplication - extract common test utilities if needed\n");
-        prompt.append("- Each test method should test ONE concept only\n");
-        prompt.append("- Use meaningful variable names in tests\n\n");
-        
-        prompt.append("## Output Format\n");
-        prompt.append("Generate only the Java test class code, no explanations.\n");
-        prompt.append("The test class should be named ").append(classInfo.className()).append("Test.\n");
-        prompt.append("Include all necessary imports.\n");
-        
-        return prompt.toString();
+    }
+
+    /**
+     * Frameworks in declaration order, so the same set always renders identically
+     * regardless of the iteration order of the set implementation.
+     */
+    private List<FrameworkType> orderedFrameworks(Set<FrameworkType> frameworks) {
+        return frameworks.stream().sorted().collect(Collectors.toList());
     }
 
     public String buildCoverageImprovementPrompt(ClassInfo classInfo, List<CoverageInfo> uncoveredInfo) {
+        return buildCoverageImprovementInstructions() + buildUncoveredContext(classInfo, uncoveredInfo, false);
+    }
+
+    /**
+     * Builds the output format section used when the reply is requested as structured JSON
+     * (see {@link StructuredTestClass#SCHEMA}). It replaces the free-form output format of
+     * the preceding instructions and is stable, so it belongs to the cacheable prefix.
+     */
+    public String buildStructuredOutputInstructions() {
+        return """
+            ## Structured Output
+            Ignore the output format above and reply with a single JSON object, no markdown and no prose:
+            - "packageName": package of the test class
+            - "imports": fully qualified imports, static imports prefixed with "static "
+            - "className": name of the test class
+            - "classAnnotations": annotations of the test class, e.g. "@ExtendWith(MockitoExtension.class)"
+            - "fields": field declarations including their annotations, e.g. "@Mock private UserRepository repository;"
+            - "setUp": statements of the @BeforeEach method, empty if none is needed
+            - "testMethods": one object per test with "name", "displayName", "annotations"
+              (omit for a plain @Test), "parameters" (only for parameterized tests) and "body"
+              (the statements inside the method, without the signature or braces)
+
+            """;
+    }
+
+    /**
+     * Builds the stable part of the coverage improvement prompt.
+     */
+    public String buildCoverageImprovementInstructions() {
         StringBuilder prompt = new StringBuilder();
         
         prompt.append("Generate additional JUnit 5 test cases to improve code coverage.\n\n");
         
-        prompt.append("## Class: ").append(classInfo.fullyQualifiedName()).append("\n\n");
-        
-        prompt.append("## Uncovered Code Areas\n");
-        for (CoverageInfo info : uncoveredInfo) {
-            prompt.append("- Method: ").append(info.methodName());
-            prompt.append(", Line: ").append(info.lineNumber());
-            prompt.append(", Coverage: ").append(String.format("%.1f%%", info.getLineCoverageRate() * 100));
-            prompt.append("\n");
-        }
-        prompt.append("\n");
-        
         prompt.append("## Requirements\n");
         prompt.append("1. Focus on the uncovered lines and branches\n");
         prompt.append("2. Generate test cases that exercise those specific paths\n");
@@ -175,7 +347,30 @@ public class PromptBuilder {
         
         prompt.append("## Output Format\n");
         prompt.append("Generate only the additional test methods, no class structure needed.\n");
-        prompt.append("Include necessary imports if new dependencies are required.\n");
+        prompt.append("Include necessary imports if new dependencies are required.\n\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the class-specific part of a coverage improvement prompt.
+     */
+    public String buildUncoveredContext(ClassInfo classInfo, List<CoverageInfo> uncoveredInfo,
+                                        boolean includeBranches) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("## Class: ").append(classInfo.fullyQualifiedName()).append("\n\n");
+        
+        prompt.append("## Uncovered Code Areas\n");
+        for (CoverageInfo info : uncoveredInfo) {
+            prompt.append("- Method: ").append(info.methodName());
+            prompt.append(", Line: ").append(info.lineNumber());
+            if (includeBranches) {
+                prompt.append(", Branch Missed: ").append(info.branchMissed());
+            }
+            prompt.append(", Coverage: ").append(String.format("%.1f%%", info.getLineCoverageRate() * 100));
+            prompt.append("\n");
+        }
         
         return prompt.toString();
     }
@@ -193,16 +388,7 @@ public class PromptBuilder {
             .collect(Collectors.joining(", "))).append("\n\n");
         
         prompt.append("## Method to Test\n");
-        prompt.append("- Signature: ").append(method.getSignature()).append("\n");
-        prompt.append("- Return Type: ").append(method.returnType()).append("\n");
-        prompt.append("- Annotations: ").append(method.annotations().stream()
-            .map(a -> "@" + a.name())
-            .collect(Collectors.joining(" "))).append("\n");
-        
-        if (!method.thrownExceptions().isEmpty()) {
-            prompt.append("- Throws: ").append(String.join(", ", method.thrownExceptions())).append("\n");
-        }
-        prompt.append("\n");
+        appendMethodDetails(prompt, method);
         
         prompt.append("## Requirements\n");
         prompt.append("1. Generate a single test method\n");
@@ -218,6 +404,62 @@ public class PromptBuilder {
         return prompt.toString();
     }
 
+    /**
+     * Builds a prompt for one shard of a large class: a complete test class that covers only
+     * the given methods. Shards are generated independently and merged afterwards.
+     */
+    public String buildMethodGroupPrompt(ClassInfo classInfo, List<MethodInfo> methods,
+                                         Set<FrameworkType> frameworks) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("Generate a JUnit 5 test class for a subset of the methods of the following Java class.\n\n");
+        
+        prompt.append("## Class Context\n");
+        prompt.append("- Class: ").append(classInfo.fullyQualifiedName()).append("\n");
+        prompt.append("- Test Class Name: ").append(classInfo.className()).append("Test\n");
+        prompt.append("- Dependencies: ").append(classInfo.fields().stream()
+            .filter(f -> f.isDependencyInjection())
+            .map(f -> f.type() + " " + f.name())
+            .collect(Collectors.joining(", "))).append("\n");
+        if (!frameworks.isEmpty()) {
+            prompt.append("- Frameworks: ").append(orderedFrameworks(frameworks).stream()
+                .map(FrameworkType::getDisplayName)
+                .collect(Collectors.joining(", "))).append("\n");
+        }
+        prompt.append("\n");
+        
+        for (MethodInfo method : methods) {
+            prompt.append("## Method to Test: ").append(method.name()).append("\n");
+            appendMethodDetails(prompt, method);
+        }
+        
+        prompt.append("## Requirements\n");
+        prompt.append("1. Test ONLY the methods listed above\n");
+        prompt.append("2. Use @Test and @DisplayName annotations\n");
+        prompt.append("3. Follow Given-When-Then structure\n");
+        prompt.append("4. Mock dependencies using Mockito and set up the class under test in @BeforeEach\n");
+        prompt.append("5. Cover success, failure and edge cases\n");
+        prompt.append("6. Prefix test method names with the name of the method under test\n\n");
+        
+        prompt.append("## Output Format\n");
+        prompt.append("Generate the complete test class with package, imports, fields and @BeforeEach setup.\n");
+        
+        return prompt.toString();
+    }
+
+    private void appendMethodDetails(StringBuilder prompt, MethodInfo method) {
+        prompt.append("- Signature: ").append(method.getSignature()).append("\n");
+        prompt.append("- Return Type: ").append(method.returnType()).append("\n");
+        prompt.append("- Annotations: ").append(method.annotations().stream()
+            .map(a -> "@" + a.name())
+            .collect(Collectors.joining(" "))).append("\n");
+        
+        if (!method.thrownExceptions().isEmpty()) {
+            prompt.append("- Throws: ").append(String.join(", ", method.thrownExceptions())).append("\n");
+        }
+        prompt.append("\n");
+    }
+
     public String buildSystemPrompt() {
         return """
             You are an expert Java developer specializing in writing high-quality unit tests.
@@ -262,11 +504,52 @@ public class PromptBuilder {
                                              ParsedTestFile existingTests,
                                              List<MethodInfo> untestedMethods,
                                              List<CoverageInfo> uncoveredInfo) {
+        return buildIncrementalTestInstructions()
+            + buildIncrementalTestContext(classInfo, frameworks, existingTests, untestedMethods, uncoveredInfo);
+    }
+
+    /**
+     * Builds the stable part of the incremental test prompt for a class that already has tests.
+     */
+    public String buildIncrementalTestInstructions() {
         StringBuilder prompt = new StringBuilder();
         
         prompt.append("Generate ADDITIONAL JUnit 5 test methods to supplement existing tests.\n");
         prompt.append("IMPORTANT: Do NOT regenerate tests that already exist.\n\n");
         
+        prompt.append("## Requirements\n");
+        prompt.append("1. Generate ONLY new test methods that don't already exist\n");
+        prompt.append("2. Focus on the untested methods and uncovered code areas\n");
+        prompt.append("3. Use @Test and @DisplayName annotations\n");
+        prompt.append("4. Follow Given-When-Then structure\n");
+        prompt.append("5. Mock dependencies using Mockito\n");
+        prompt.append("6. Include appropriate assertions\n");
+        prompt.append("7. Use descriptive test names following pattern: should[Behavior]when[Condition]\n\n");
+        
+        prompt.append("## Output Format\n");
+        prompt.append("Generate only the new test method code (no class structure needed).\n");
+        prompt.append("Include necessary imports if new dependencies are required.\n\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the class-specific part of the incremental test prompt: frameworks, existing
+     * test methods, untested methods and uncovered areas.
+     */
+    public String buildIncrementalTestContext(ClassInfo classInfo,
+                                              Set<FrameworkType> frameworks,
+                                              ParsedTestFile existingTests,
+                                              List<MethodInfo> untestedMethods,
+                                              List<CoverageInfo> uncoveredInfo) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("## Framework Context\n");
+        for (FrameworkType framework : orderedFrameworks(frameworks)) {
+            prompt.append("- ").append(framework.getDisplayName()).append("\n");
+        }
+        prompt.append("\n");
+        
         prompt.append("## Class: ").append(classInfo.fullyQualifiedName()).append("\n\n");
         
         if (existingTests != null && existingTests.getTestMethodCount() > 0) {
@@ -304,55 +587,41 @@ public class PromptBuilder {
             prompt.append("\n");
         }
         
-        prompt.append("## Requirements\n");
-        prompt.append("1. Generate ONLY new test methods that don't already exist\n");
-        prompt.append("2. Focus on the untested methods and uncovered code areas\n");
-        prompt.append("3. Use @Test and @DisplayName annotations\n");
-        prompt.append("4. Follow Given-When-Then structure\n");
-        prompt.append("5. Mock dependencies using Mockito\n");
-        prompt.append("6. Include appropriate assertions\n");
-        prompt.append("7. Use descriptive test names following pattern: should[Behavior]when[Condition]\n\n");
-        
-        prompt.append("## Framework Context\n");
-        for (FrameworkType framework : frameworks) {
-            prompt.append("- ").append(framework.getDisplayName()).append("\n");
-        }
-        prompt.append("\n");
-        
-        prompt.append("## Output Format\n");
-        prompt.append("Generate only the new test method code (no class structure needed).\n");
-        prompt.append("Include necessary imports if new dependencies are required.\n");
-        
         return prompt.toString();
     }
 
     public String buildIncrementalCoveragePrompt(ClassInfo classInfo,
                                                   List<CoverageInfo> uncoveredInfo,
                                                   Set<String> existingTestMethodNames) {
-        StringBuilder prompt = new StringBuilder();
-        
-        prompt.append("Generate additional JUnit 5 test cases to improve code coverage.\n");
-        prompt.append("IMPORTANT: Avoid duplicating existing test methods.\n\n");
-        
-        prompt.append("## Class: ").append(classInfo.fullyQualifiedName()).append("\n\n");
+        return buildIncrementalCoverageInstructions()
+            + buildIncrementalCoverageContext(classInfo, uncoveredInfo, existingTestMethodNames);
+    }
+
+    /**
+     * Builds the class-specific part of the duplicate-avoiding coverage improvement prompt.
+     */
+    public String buildIncrementalCoverageContext(ClassInfo classInfo,
+                                                  List<CoverageInfo> uncoveredInfo,
+                                                  Set<String> existingTestMethodNames) {
+        StringBuilder prompt = new StringBuilder(buildUncoveredContext(classInfo, uncoveredInfo, true));
         
         if (existingTestMethodNames != null && !existingTestMethodNames.isEmpty()) {
-            prompt.append("## Existing Test Methods (DO NOT DUPLICATE)\n");
-            for (String methodName : existingTestMethodNames) {
-                prompt.append("- ").append(methodName).append("\n");
-            }
-            prompt.append("\n");
+            prompt.append("\n## Existing Test Methods (DO NOT DUPLICATE)\n");
+            existingTestMethodNames.stream().sorted().forEach(methodName ->
+                prompt.append("- ").append(methodName).append("\n"));
         }
         
-        prompt.append("## Uncovered Code Areas\n");
-        for (CoverageInfo info : uncoveredInfo) {
-            prompt.append("- Method: ").append(info.methodName());
-            prompt.append(", Line: ").append(info.lineNumber());
-            prompt.append(", Branch Missed: ").append(info.branchMissed());
-            prompt.append(", Coverage: ").append(String.format("%.1f%%", info.getLineCoverageRate() * 100));
-            prompt.append("\n");
-        }
-        prompt.append("\n");
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the stable part of the duplicate-avoiding coverage improvement prompt.
+     */
+    public String buildIncrementalCoverageInstructions() {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("Generate additional JUnit 5 test cases to improve code coverage.\n");
+        prompt.append("IMPORTANT: Avoid duplicating existing test methods.\n\n");
         
         prompt.append("## Requirements\n");
         prompt.append("1. Focus ONLY on the uncovered lines and branches\n");
@@ -365,7 +634,117 @@ public class PromptBuilder {
         
         prompt.append("## Output Format\n");
         prompt.append("Generate only the additional test methods, no class structure needed.\n");
-        prompt.append("Include necessary imports if new dependencies are required.\n");
+        prompt.append("Include necessary imports if new dependencies are required.\n\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the follow-up message of a coverage improvement conversation. The class and
+     * the earlier tests are already in the conversation history, so only the coverage
+     * change, the remaining uncovered areas and the generated method names are sent.
+     */
+    public String buildCoverageDeltaPrompt(double previousCoverage,
+                                           double currentCoverage,
+                                           List<CoverageInfo> uncoveredInfo,
+                                           Set<String> generatedMethodNames) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("The tests so far were compiled and run. ");
+        if (previousCoverage >= 0) {
+            prompt.append(String.format("Line coverage changed from %.1f%% to %.1f%%.%n",
+                previousCoverage * 100, currentCoverage * 100));
+        } else {
+            prompt.append(String.format("Line coverage is now %.1f%%.%n", currentCoverage * 100));
+        }
+        prompt.append("Generate only NEW test methods for the code that is still uncovered.\n\n");
+        
+        prompt.append("## Still Uncovered\n");
+        if (uncoveredInfo != null) {
+            for (CoverageInfo info : uncoveredInfo) {
+                prompt.append("- ").append(info.methodName());
+                prompt.append(" (line ").append(info.lineNumber());
+                prompt.append(", missed lines ").append(info.lineMissed());
+                prompt.append(", missed branches ").append(info.branchMissed());
+                prompt.append(")\n");
+            }
+        }
+        
+        if (generatedMethodNames != null && !generatedMethodNames.isEmpty()) {
+            prompt.append("\n## Already Generated (DO NOT DUPLICATE)\n");
+            generatedMethodNames.stream().sorted().forEach(methodName ->
+                prompt.append("- ").append(methodName).append("\n"));
+        }
+        
+        prompt.append("\nReturn only the additional test methods, no class structure.\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds a compiler error repair request. Only the test methods that fail to compile are
+     * sent, each with its errors (line numbers relative to the method). The class under test
+     * is summarized by its signatures when it is not already in the conversation history.
+     *
+     * @param classInfo      class under test, or null when the conversation already contains it
+     * @param failingMethods source of each failing test method, keyed by method name
+     * @param errors         compiler errors of each failing method, keyed by method name
+     */
+    public String buildCompilationRepairPrompt(ClassInfo classInfo,
+                                               Map<String, String> failingMethods,
+                                               Map<String, List<String>> errors) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("The following test methods do not compile. Fix only these methods.\n\n");
+        
+        for (Map.Entry<String, String> method : failingMethods.entrySet()) {
+            prompt.append("## ").append(method.getKey()).append("\n");
+            for (String error : errors.getOrDefault(method.getKey(), List.of())) {
+                prompt.append("- ").append(error).append("\n");
+            }
+            prompt.append("```java\n").append(method.getValue()).append("\n```\n\n");
+        }
+        
+        if (classInfo != null) {
+            prompt.append("## Class Under Test: ").append(classInfo.fullyQualifiedName()).append("\n");
+            for (MethodInfo method : classInfo.methods()) {
+                if (!method.isPrivate()) {
+                    prompt.append("- ").append(method.getSignature()).append("\n");
+                }
+            }
+            prompt.append("\n");
+        }
+        
+        prompt.append("## Output Format\n");
+        prompt.append("Return the corrected methods with unchanged names in a single java code block, ");
+        prompt.append("no class structure. Put any import statements they need first. ");
+        prompt.append("Leave out a method if it cannot be fixed.\n");
+        
+        return prompt.toString();
+    }
+
+    /**
+     * Builds the class-specific part of a batched test generation prompt. Every class gets
+     * its own context section and the model is asked to wrap each generated test class in
+     * {@link #BATCH_BEGIN_MARKER} / {@link #BATCH_END_MARKER} lines so the response can be
+     * split back per class.
+     */
+    public String buildBatchContext(List<ClassInfo> classes) {
+        StringBuilder prompt = new StringBuilder();
+        
+        prompt.append("## Batch Output Format\n");
+        prompt.append("Generate one complete, separate test class for EACH of the ")
+            .append(classes.size()).append(" classes below.\n");
+        prompt.append("Wrap every test class exactly like this, with nothing else between the markers:\n");
+        prompt.append(BATCH_BEGIN_MARKER).append(" <fully qualified class name> ===\n");
+        prompt.append("<complete Java test file including package and imports>\n");
+        prompt.append(BATCH_END_MARKER).append(" <fully qualified class name> ===\n\n");
+        
+        for (int i = 0; i < classes.size(); i++) {
+            prompt.append("# Class ").append(i + 1).append(" of ").append(classes.size())
+                .append(": ").append(classes.get(i).fullyQualifiedName()).append("\n\n");
+            prompt.append(buildClassContext(classes.get(i))).append("\n");
+        }
         
         return prompt.toString();
     }
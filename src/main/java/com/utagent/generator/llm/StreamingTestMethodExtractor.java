@@ -0,0 +1,278 @@
+package com.utagent.generator.llm;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental parser for a streamed test class.
+ * Chunks are fed in as they arrive; every member of the top-level class is recognised as
+ * soon as its closing brace (or semicolon) has been received. Test methods are handed to
+ * the listener immediately, all other members (fields, setup methods, nested classes) are
+ * kept as support code so a complete method can be compiled on its own.
+ * Markdown fences and prose before the code are skipped.
+ */
+public class StreamingTestMethodExtractor implements Consumer<String> {
+
+    private static final Pattern TEST_ANNOTATION = Pattern.compile(
+        "@(?:[\\w.]+\\.)?(?:Test|ParameterizedTest|RepeatedTest)\\b");
+    private static final Pattern CLASS_DECLARATION = Pattern.compile("\\bclass\\s+(\\w+)");
+    private static final Pattern CODE_LINE = Pattern.compile(
+        "(?m)^[ \\t]*(?:package|import|public|final|abstract|class|@)");
+    private static final String CODE_FENCE = "```";
+
+    private enum LexState { CODE, LINE_COMMENT, BLOCK_COMMENT, STRING, CHAR, TEXT_BLOCK }
+
+    private final Consumer<String> testMethodListener;
+    private final StringBuilder buffer = new StringBuilder();
+    private final List<String> testMethods = new ArrayList<>();
+    private final List<String> supportMembers = new ArrayList<>();
+
+    private LexState state = LexState.CODE;
+    private int codeStart = -1;
+    private int scanPosition;
+    private int depth;
+    private int memberStart = -1;
+    private boolean memberIsInitializer;
+    private String preamble;
+    private String className;
+    private boolean classComplete;
+
+    public StreamingTestMethodExtractor(Consumer<String> testMethodListener) {
+        this.testMethodListener = testMethodListener;
+    }
+
+    @Override
+    public synchronized void accept(String chunk) {
+        if (chunk == null || chunk.isEmpty() || classComplete) {
+            return;
+        }
+        buffer.append(chunk);
+        if (codeStart < 0 && !locateCodeStart()) {
+            return;
+        }
+        scan(false);
+    }
+
+    /**
+     * Processes the characters held back for lookahead once the stream has ended.
+     */
+    public synchronized void finish() {
+        if (codeStart >= 0 || locateCodeStart()) {
+            scan(true);
+        }
+    }
+
+    /**
+     * Discards everything received so far, e.g. before replaying a fallback response.
+     * Methods already handed to the listener are not recalled.
+     */
+    public synchronized void reset() {
+        buffer.setLength(0);
+        testMethods.clear();
+        supportMembers.clear();
+        state = LexState.CODE;
+        codeStart = -1;
+        scanPosition = 0;
+        depth = 0;
+        memberStart = -1;
+        memberIsInitializer = false;
+        preamble = null;
+        className = null;
+        classComplete = false;
+    }
+
+    /**
+     * Finds where the Java source begins: after an opening code fence if there is one,
+     * otherwise at the first line that looks like Java.
+     */
+    private boolean locateCodeStart() {
+        int fence = buffer.indexOf(CODE_FENCE);
+        if (fence >= 0) {
+            int lineEnd = buffer.indexOf("\n", fence);
+            if (lineEnd < 0) {
+                return false;
+            }
+            codeStart = lineEnd + 1;
+        } else {
+            Matcher matcher = CODE_LINE.matcher(buffer);
+            if (!matcher.find()) {
+                return false;
+            }
+            codeStart = matcher.start();
+        }
+        scanPosition = codeStart;
+        return true;
+    }
+
+    private void scan(boolean flush) {
+        // a text block delimiter or comment opener may be split across chunks, so keep two chars of lookahead
+        int limit = flush ? buffer.length() : buffer.length() - 2;
+        while (scanPosition < limit && !classComplete) {
+            char c = buffer.charAt(scanPosition);
+            char next = charAt(scanPosition + 1);
+            switch (state) {
+                case LINE_COMMENT -> {
+                    if (c == '\n') {
+                        state = LexState.CODE;
+                    }
+                }
+                case BLOCK_COMMENT -> {
+                    if (c == '*' && next == '/') {
+                        state = LexState.CODE;
+                        scanPosition++;
+                    }
+                }
+                case STRING, CHAR -> {
+                    if (c == '\\') {
+                        scanPosition++;
+                    } else if ((state == LexState.STRING && c == '"') || (state == LexState.CHAR && c == '\'')) {
+                        state = LexState.CODE;
+                    }
+                }
+                case TEXT_BLOCK -> {
+                    if (c == '\\') {
+                        scanPosition++;
+                    } else if (c == '"' && next == '"' && charAt(scanPosition + 2) == '"') {
+                        state = LexState.CODE;
+                        scanPosition += 2;
+                    }
+                }
+                case CODE -> scanCode(c, next);
+            }
+            scanPosition++;
+        }
+    }
+
+    private char charAt(int index) {
+        return index < buffer.length() ? buffer.charAt(index) : '\0';
+    }
+
+    private void scanCode(char c, char next) {
+        if (c == '/' && next == '/') {
+            state = LexState.LINE_COMMENT;
+        } else if (c == '/' && next == '*') {
+            state = LexState.BLOCK_COMMENT;
+        } else if (c == '"') {
+            if (next == '"' && charAt(scanPosition + 2) == '"') {
+                state = LexState.TEXT_BLOCK;
+                scanPosition += 2;
+            } else {
+                state = LexState.STRING;
+            }
+        } else if (c == '\'') {
+            state = LexState.CHAR;
+        } else if (c == '{') {
+            openBrace();
+        } else if (c == '}') {
+            closeBrace();
+        } else if (c == ';' && depth == 1 && memberStart >= 0) {
+            endMember(scanPosition + 1);
+        }
+    }
+
+    private void openBrace() {
+        if (depth == 0) {
+            if (preamble == null) {
+                String header = buffer.substring(codeStart, scanPosition + 1);
+                Matcher matcher = CLASS_DECLARATION.matcher(header);
+                if (matcher.find()) {
+                    className = matcher.group(1);
+                }
+                preamble = header;
+                memberStart = scanPosition + 1;
+            }
+        } else if (depth == 1) {
+            memberIsInitializer = isInitializer(buffer.substring(memberStart, scanPosition));
+        }
+        depth++;
+    }
+
+    private void closeBrace() {
+        depth--;
+        if (depth == 1 && !memberIsInitializer) {
+            endMember(scanPosition + 1);
+        } else if (depth == 0 && preamble != null) {
+            classComplete = true;
+        }
+    }
+
+    /**
+     * A brace opened after a top-level '=' belongs to a field initializer (array or lambda),
+     * so the member only ends at the following semicolon.
+     */
+    private boolean isInitializer(String header) {
+        int parentheses = 0;
+        for (int i = 0; i < header.length(); i++) {
+            char c = header.charAt(i);
+            if (c == '(') {
+                parentheses++;
+            } else if (c == ')') {
+                parentheses--;
+            } else if (c == '=' && parentheses == 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void endMember(int end) {
+        String member = buffer.substring(memberStart, end).strip();
+        memberStart = end;
+        memberIsInitializer = false;
+        if (member.isEmpty() || member.equals(";")) {
+            return;
+        }
+        if (TEST_ANNOTATION.matcher(member).find()) {
+            testMethods.add(member);
+            testMethodListener.accept(member);
+        } else {
+            supportMembers.add(member);
+        }
+    }
+
+    /**
+     * Builds a compilable class containing the preamble, all support members received so far
+     * and only the given test method.
+     */
+    public String buildCompilationUnit(String testMethod) {
+        return buildTestClass(List.of(testMethod));
+    }
+
+    /**
+     * Builds the test class from the preamble, the support members and the given test methods,
+     * used when the stream was cancelled or some methods were rejected.
+     */
+    public synchronized String buildTestClass(List<String> testMethods) {
+        if (preamble == null) {
+            return null;
+        }
+        StringBuilder unit = new StringBuilder(preamble).append("\n");
+        for (String member : supportMembers) {
+            unit.append("\n    ").append(member).append("\n");
+        }
+        for (String method : testMethods) {
+            unit.append("\n    ").append(method).append("\n");
+        }
+        return unit.append("}\n").toString();
+    }
+
+    public synchronized List<String> getTestMethods() {
+        return Collections.unmodifiableList(new ArrayList<>(testMethods));
+    }
+
+    public synchronized List<String> getSupportMembers() {
+        return Collections.unmodifiableList(new ArrayList<>(supportMembers));
+    }
+
+    public synchronized String getClassName() {
+        return className;
+    }
+
+    public synchronized boolean isClassComplete() {
+        return classComplete;
+    }
+}
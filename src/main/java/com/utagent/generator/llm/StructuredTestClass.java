@@ -0,0 +1,297 @@
+package com.utagent.generator.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * A generated test class returned as structured JSON instead of free-form text.
+ * Each part of the class arrives in its own field, so the test file is assembled directly
+ * from the parts without scanning the reply for code fences, class headers or braces.
+ * Parsing uses the streaming Jackson parser and does not build an intermediate tree.
+ */
+public record StructuredTestClass(
+    String packageName,
+    List<String> imports,
+    String className,
+    List<String> classAnnotations,
+    List<String> fields,
+    String setUp,
+    List<TestMethod> testMethods
+) {
+
+    /**
+     * JSON schema of the reply, passed to providers that can enforce it.
+     */
+    public static final String SCHEMA = """
+        {
+          "type": "object",
+          "properties": {
+            "packageName": {"type": "string"},
+            "imports": {"type": "array", "items": {"type": "string"}},
+            "className": {"type": "string"},
+            "classAnnotations": {"type": "array", "items": {"type": "string"}},
+            "fields": {"type": "array", "items": {"type": "string"}},
+            "setUp": {"type": "string"},
+            "testMethods": {
+              "type": "array",
+              "items": {
+                "type": "object",
+                "properties": {
+                  "name": {"type": "string"},
+                  "displayName": {"type": "string"},
+                  "annotations": {"type": "array", "items": {"type": "string"}},
+                  "parameters": {"type": "string"},
+                  "body": {"type": "string"}
+                },
+                "required": ["name", "body"]
+              }
+            }
+          },
+          "required": ["className", "imports", "testMethods"]
+        }
+        """;
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Set<String> TEST_ANNOTATIONS =
+        Set.of("Test", "ParameterizedTest", "RepeatedTest", "TestFactory", "TestTemplate");
+
+    public StructuredTestClass {
+        imports = imports != null ? List.copyOf(imports) : List.of();
+        classAnnotations = classAnnotations != null ? List.copyOf(classAnnotations) : List.of();
+        fields = fields != null ? List.copyOf(fields) : List.of();
+        testMethods = testMethods != null ? List.copyOf(testMethods) : List.of();
+    }
+
+    /**
+     * One test method. Without explicit annotations the method is annotated with {@code @Test}.
+     */
+    public record TestMethod(String name, String displayName, List<String> annotations,
+                             String parameters, String body) {
+
+        public TestMethod {
+            annotations = annotations != null ? List.copyOf(annotations) : List.of();
+        }
+    }
+
+    /**
+     * Parses a structured reply. Returns empty when the reply is not a JSON object with a
+     * class name and at least one test method, so the caller can fall back to text extraction.
+     * A surrounding markdown fence is tolerated.
+     */
+    public static Optional<StructuredTestClass> parse(String reply) {
+        if (reply == null) {
+            return Optional.empty();
+        }
+        int start = reply.indexOf('{');
+        int end = reply.lastIndexOf('}');
+        if (start < 0 || end < start || !reply.substring(0, start).isBlank() && !reply.startsWith("```")) {
+            return Optional.empty();
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(reply.substring(start, end + 1))) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return Optional.empty();
+            }
+            StructuredTestClass parsed = readClass(parser);
+            if (parsed.className() == null || parsed.className().isBlank() || parsed.testMethods().isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(parsed);
+        } catch (IOException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static StructuredTestClass readClass(JsonParser parser) throws IOException {
+        String packageName = null;
+        List<String> imports = null;
+        String className = null;
+        List<String> classAnnotations = null;
+        List<String> fields = null;
+        String setUp = null;
+        List<TestMethod> testMethods = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "packageName" -> packageName = readString(parser);
+                case "imports" -> imports = readStrings(parser);
+                case "className" -> className = readString(parser);
+                case "classAnnotations" -> classAnnotations = readStrings(parser);
+                case "fields" -> fields = readStrings(parser);
+                case "setUp" -> setUp = readString(parser);
+                case "testMethods" -> testMethods = readMethods(parser);
+                default -> parser.skipChildren();
+            }
+        }
+        return new StructuredTestClass(packageName, imports, className, classAnnotations,
+            fields, setUp, testMethods);
+    }
+
+    private static List<TestMethod> readMethods(JsonParser parser) throws IOException {
+        List<TestMethod> methods = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return methods;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            if (parser.currentToken() != JsonToken.START_OBJECT) {
+                parser.skipChildren();
+                continue;
+            }
+            String name = null;
+            String displayName = null;
+            List<String> annotations = null;
+            String parameters = null;
+            String body = null;
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "name" -> name = readString(parser);
+                    case "displayName" -> displayName = readString(parser);
+                    case "annotations" -> annotations = readStrings(parser);
+                    case "parameters" -> parameters = readString(parser);
+                    case "body" -> body = readString(parser);
+                    default -> parser.skipChildren();
+                }
+            }
+            if (name != null && !name.isBlank() && body != null) {
+                methods.add(new TestMethod(name.strip(), displayName, annotations, parameters, body));
+            }
+        }
+        return methods;
+    }
+
+    private static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        List<String> values = new ArrayList<>();
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return values;
+        }
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            String value = readString(parser);
+            if (value != null && !value.isBlank()) {
+                values.add(value.strip());
+            }
+        }
+        return values;
+    }
+
+    public List<String> testMethodNames() {
+        return testMethods.stream().map(TestMethod::name).toList();
+    }
+
+    /**
+     * Assembles the complete test class source.
+     */
+    public String toJavaSource() {
+        StringBuilder sb = new StringBuilder();
+        if (packageName != null && !packageName.isBlank()) {
+            sb.append("package ").append(stripDeclaration(packageName, "package")).append(";\n\n");
+        }
+        for (String imp : imports) {
+            sb.append("import ").append(stripDeclaration(imp, "import")).append(";\n");
+        }
+        if (!imports.isEmpty()) {
+            sb.append("\n");
+        }
+        for (String annotation : classAnnotations) {
+            sb.append(annotation).append("\n");
+        }
+        sb.append("class ").append(className).append(" {\n");
+        for (String field : fields) {
+            sb.append("\n    ").append(field.endsWith(";") ? field : field + ";").append("\n");
+        }
+        if (setUp != null && !setUp.isBlank()) {
+            sb.append("\n    @BeforeEach\n    void setUp() throws Exception {\n");
+            appendIndented(sb, setUp);
+            sb.append("    }\n");
+        }
+        appendTestMethods(sb);
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    /**
+     * Assembles only the test methods, for merging into an existing test class.
+     */
+    public String toMethodsSource() {
+        StringBuilder sb = new StringBuilder();
+        appendTestMethods(sb);
+        return sb.toString().strip();
+    }
+
+    private void appendTestMethods(StringBuilder sb) {
+        for (TestMethod method : testMethods) {
+            sb.append("\n");
+            if (method.annotations().stream().noneMatch(StructuredTestClass::isTestAnnotation)) {
+                sb.append("    @Test\n");
+            }
+            for (String annotation : method.annotations()) {
+                sb.append("    ").append(annotation).append("\n");
+            }
+            if (method.displayName() != null && !method.displayName().isBlank()
+                    && method.annotations().stream().noneMatch(a -> a.startsWith("@DisplayName"))) {
+                sb.append("    @DisplayName(\"").append(escape(method.displayName())).append("\")\n");
+            }
+            sb.append("    void ").append(method.name()).append("(")
+                .append(method.parameters() != null ? method.parameters().strip() : "")
+                .append(") throws Exception {\n");
+            appendIndented(sb, method.body());
+            sb.append("    }\n");
+        }
+    }
+
+    /**
+     * Whether the annotation already makes the method a JUnit test, e.g. {@code @ParameterizedTest}
+     * or {@code @org.junit.jupiter.api.RepeatedTest(3)}.
+     */
+    private static boolean isTestAnnotation(String annotation) {
+        String name = annotation.strip();
+        if (name.startsWith("@")) {
+            name = name.substring(1);
+        }
+        int arguments = name.indexOf('(');
+        if (arguments >= 0) {
+            name = name.substring(0, arguments);
+        }
+        name = name.strip();
+        return TEST_ANNOTATIONS.contains(name.substring(name.lastIndexOf('.') + 1));
+    }
+
+    private static void appendIndented(StringBuilder sb, String body) {
+        for (String line : body.stripIndent().strip().split("\\R")) {
+            if (!line.isBlank()) {
+                sb.append("        ").append(line.stripTrailing());
+            }
+            sb.append("\n");
+        }
+    }
+
+    private static String stripDeclaration(String value, String keyword) {
+        String stripped = value.strip();
+        if (stripped.startsWith(keyword + " ")) {
+            stripped = stripped.substring(keyword.length() + 1).strip();
+        }
+        return stripped.endsWith(";") ? stripped.substring(0, stripped.length() - 1) : stripped;
+    }
+
+    private static String escape(String text) {
+        return text.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+}
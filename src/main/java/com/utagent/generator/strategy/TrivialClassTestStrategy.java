@@ -0,0 +1,259 @@
+package com.utagent.generator.strategy;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.FieldInfo;
+import com.utagent.model.MethodInfo;
+import com.utagent.parser.FrameworkType;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 简单类的确定性模板测试：枚举按名称往返解析，记录校验组件访问器和值相等，
+ * 普通类和 Lombok DTO 对每个字段做 setter/getter 往返。不调用 LLM，生成结果可以直接编译运行。
+ */
+public class TrivialClassTestStrategy implements TestGenerationStrategy {
+
+    @Override
+    public String generateTestClass(ClassInfo classInfo) {
+        StringBuilder sb = new StringBuilder();
+        if (classInfo.packageName() != null && !classInfo.packageName().isEmpty()) {
+            sb.append("package ").append(classInfo.packageName()).append(";\n\n");
+        }
+        sb.append(generateImports(classInfo)).append("\n");
+        sb.append("@DisplayName(\"").append(classInfo.className()).append(" Tests\")\n");
+        sb.append("class ").append(classInfo.className()).append("Test {\n");
+
+        List<String> methods;
+        if (classInfo.isEnum()) {
+            methods = generateEnumTests(classInfo);
+        } else if (classInfo.isRecord()) {
+            methods = generateRecordTests(classInfo);
+        } else {
+            methods = generateAccessorTests(classInfo);
+        }
+        for (String method : methods) {
+            sb.append("\n").append(method);
+        }
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private String generateImports(ClassInfo classInfo) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("import org.junit.jupiter.api.DisplayName;\n");
+        sb.append("import org.junit.jupiter.api.Test;\n");
+        for (String imp : classInfo.imports()) {
+            if (!imp.startsWith("static ") && !imp.startsWith("lombok.")) {
+                sb.append("import ").append(imp).append(";\n");
+            }
+        }
+        sb.append("\nimport static org.junit.jupiter.api.Assertions.*;\n");
+        return sb.toString();
+    }
+
+    private List<String> generateEnumTests(ClassInfo classInfo) {
+        String type = classInfo.className();
+        List<String> tests = new ArrayList<>();
+        tests.add(testMethod("Should resolve every constant by name", "shouldResolveConstantsByName",
+            "        assertTrue(" + type + ".values().length > 0);\n"
+            + "        for (" + type + " constant : " + type + ".values()) {\n"
+            + "            assertEquals(constant, " + type + ".valueOf(constant.name()));\n"
+            + "        }\n"));
+        for (MethodInfo method : publicAccessors(classInfo)) {
+            if (method.parameters().isEmpty()) {
+                tests.add(testMethod("Should expose " + method.name() + " for every constant",
+                    "should" + capitalize(method.name()) + "ForEveryConstant",
+                    "        for (" + type + " constant : " + type + ".values()) {\n"
+                    + "            assertDoesNotThrow(() -> constant." + method.name() + "());\n"
+                    + "        }\n"));
+            }
+        }
+        return tests;
+    }
+
+    private List<String> generateRecordTests(ClassInfo classInfo) {
+        String type = classInfo.className();
+        List<FieldInfo> components = instanceFields(classInfo);
+        String arguments = components.stream()
+            .map(c -> sampleValue(c.type()))
+            .collect(Collectors.joining(", "));
+
+        StringBuilder body = new StringBuilder();
+        for (FieldInfo component : components) {
+            body.append("        ").append(component.type()).append(" ").append(component.name())
+                .append(" = ").append(sampleValue(component.type())).append(";\n");
+        }
+        body.append("        ").append(type).append(" target = new ").append(type).append("(")
+            .append(components.stream().map(FieldInfo::name).collect(Collectors.joining(", "))).append(");\n\n");
+        for (FieldInfo component : components) {
+            body.append("        assertEquals(").append(component.name()).append(", target.")
+                .append(component.name()).append("());\n");
+        }
+
+        List<String> tests = new ArrayList<>();
+        tests.add(testMethod("Should expose record components", "shouldExposeComponents", body.toString()));
+        tests.add(testMethod("Should implement value equality", "shouldImplementValueEquality",
+            "        " + type + " first = new " + type + "(" + arguments + ");\n"
+            + "        " + type + " second = new " + type + "(" + arguments + ");\n\n"
+            + "        assertEquals(first, second);\n"
+            + "        assertEquals(first.hashCode(), second.hashCode());\n"
+            + "        assertEquals(first.toString(), second.toString());\n"));
+        return tests;
+    }
+
+    private List<String> generateAccessorTests(ClassInfo classInfo) {
+        String type = classInfo.className();
+        String creation = "        " + type + " target = new " + type + "();\n";
+        boolean lombokData = classInfo.hasAnnotation("Data");
+        Set<String> covered = new HashSet<>();
+        List<String> tests = new ArrayList<>();
+
+        for (FieldInfo field : instanceFields(classInfo)) {
+            String getter = ("boolean".equals(field.type()) ? "is" : "get") + capitalize(field.name());
+            String setter = "set" + capitalize(field.name());
+            boolean hasGetter = findMethod(classInfo, getter, 0).isPresent()
+                || lombokData || classInfo.hasAnnotation("Getter") || field.hasAnnotation("Getter");
+            boolean hasSetter = findMethod(classInfo, setter, 1).isPresent()
+                || (!field.isFinal() && (lombokData || classInfo.hasAnnotation("Setter") || field.hasAnnotation("Setter")));
+            if (!hasGetter || !hasSetter) {
+                continue;
+            }
+            covered.add(getter);
+            covered.add(setter);
+            tests.add(testMethod("Should round-trip " + field.name(), "shouldRoundTrip" + capitalize(field.name()),
+                creation
+                + "        " + field.type() + " value = " + sampleValue(field.type()) + ";\n\n"
+                + "        target." + setter + "(value);\n\n"
+                + "        assertEquals(value, target." + getter + "());\n"));
+        }
+
+        for (MethodInfo method : publicAccessors(classInfo)) {
+            if (covered.contains(method.name())) {
+                continue;
+            }
+            String call = method.parameters().isEmpty()
+                ? "target." + method.name() + "()"
+                : "target." + method.name() + "(" + argument(method.parameters().get(0).type()) + ")";
+            tests.add(testMethod("Should invoke " + method.name(), "shouldInvoke" + capitalize(method.name()),
+                creation + "\n        assertDoesNotThrow(() -> " + call + ");\n"));
+        }
+
+        if (tests.isEmpty()) {
+            tests.add(testMethod("Should create instance", "shouldCreateInstance",
+                creation + "\n        assertNotNull(target);\n"));
+        }
+        return tests;
+    }
+
+    private static String testMethod(String displayName, String name, String body) {
+        return "    @Test\n"
+            + "    @DisplayName(\"" + displayName + "\")\n"
+            + "    void " + name + "() {\n"
+            + body
+            + "    }\n";
+    }
+
+    private static List<FieldInfo> instanceFields(ClassInfo classInfo) {
+        return classInfo.fields().stream().filter(f -> !f.isStatic()).toList();
+    }
+
+    private static List<MethodInfo> publicAccessors(ClassInfo classInfo) {
+        return classInfo.methods().stream()
+            .filter(m -> !m.isPrivate() && !m.isStatic() && m.isAccessor())
+            .toList();
+    }
+
+    private static Optional<MethodInfo> findMethod(ClassInfo classInfo, String name, int parameterCount) {
+        return classInfo.methods().stream()
+            .filter(m -> m.name().equals(name) && m.parameters().size() == parameterCount && !m.isPrivate())
+            .findFirst();
+    }
+
+    /**
+     * 字面量取非默认值，避免 getter 返回未赋值的默认值也能通过断言；
+     * 常用的 JDK 引用类型使用全限定名构造非空值，集合为空集合。
+     * 无法构造示例值的类型返回 null，这类字段的类不由模板生成
+     */
+    public static String sampleValue(String type) {
+        return switch (rawType(type)) {
+            case "String", "CharSequence" -> "\"value\"";
+            case "int", "Integer" -> "42";
+            case "long", "Long" -> "42L";
+            case "short", "Short" -> "(short) 42";
+            case "byte", "Byte" -> "(byte) 42";
+            case "double", "Double" -> "4.2";
+            case "float", "Float" -> "4.2f";
+            case "char", "Character" -> "'x'";
+            case "boolean", "Boolean" -> "true";
+            case "BigDecimal" -> "java.math.BigDecimal.valueOf(42)";
+            case "BigInteger" -> "java.math.BigInteger.valueOf(42)";
+            case "LocalDate" -> "java.time.LocalDate.of(2024, 1, 2)";
+            case "LocalDateTime" -> "java.time.LocalDateTime.of(2024, 1, 2, 3, 4)";
+            case "Instant" -> "java.time.Instant.ofEpochSecond(42)";
+            case "Date" -> "new java.util.Date(42L)";
+            case "UUID" -> "java.util.UUID.fromString(\"00000000-0000-0000-0000-000000000042\")";
+            case "List", "Collection" -> "new java.util.ArrayList<>()";
+            case "Set" -> "new java.util.HashSet<>()";
+            case "Map" -> "new java.util.HashMap<>()";
+            default -> null;
+        };
+    }
+
+    /**
+     * 只调用不断言的方法参数，没有示例值时传 null
+     */
+    private static String argument(String type) {
+        String value = sampleValue(type);
+        return value != null ? value : "null";
+    }
+
+    /**
+     * 去掉包名和泛型参数；数组保留方括号，不匹配任何示例值
+     */
+    private static String rawType(String type) {
+        String raw = type.replaceAll("<.*>", "").trim();
+        return raw.substring(raw.lastIndexOf('.') + 1);
+    }
+
+    private static String capitalize(String str) {
+        if (str == null || str.isEmpty()) {
+            return str;
+        }
+        return Character.toUpperCase(str.charAt(0)) + str.substring(1);
+    }
+
+    @Override
+    public String generateTestMethod(ClassInfo classInfo, String methodName, List<String> uncoveredLines) {
+        return "";
+    }
+
+    @Override
+    public String generateAdditionalTests(ClassInfo classInfo, List<CoverageInfo> coverageInfo) {
+        return "";
+    }
+
+    @Override
+    public Set<FrameworkType> getSupportedFrameworks() {
+        return Set.of(FrameworkType.NONE, FrameworkType.LOMBOK);
+    }
+
+    @Override
+    public String getTestAnnotation() {
+        return "@Test";
+    }
+
+    @Override
+    public String[] getRequiredImports() {
+        return new String[] {
+            "org.junit.jupiter.api.Test",
+            "org.junit.jupiter.api.DisplayName",
+            "static org.junit.jupiter.api.Assertions.*"
+        };
+    }
+}
@@ -5,11 +5,13 @@ import com.utagent.metrics.MetricsManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 /**
  * 带缓存功能的 LLMProvider 装饰器。
  * 在调用底层 Provider 之前先检查缓存，响应后写入缓存。
+ * 流式请求未命中时把片段同时转发并暂存，流正常结束后写入缓存；命中时把缓存内容回放给片段消费者。
  */
 public class CachedLLMProvider implements LLMProvider {
 
@@ -17,14 +19,23 @@ public class CachedLLMProvider implements LLMProvider {
 
     private final LLMProvider delegate;
     private final LLMResponseCache cache;
+    private final boolean replayAsSingleChunk;
 
     public CachedLLMProvider(LLMProvider delegate) {
         this(delegate, new LLMResponseCache());
     }
 
     public CachedLLMProvider(LLMProvider delegate, LLMResponseCache cache) {
+        this(delegate, cache, false);
+    }
+
+    /**
+     * @param replayAsSingleChunk 命中缓存的流式请求是否一次性回放全部内容，否则按行回放
+     */
+    public CachedLLMProvider(LLMProvider delegate, LLMResponseCache cache, boolean replayAsSingleChunk) {
         this.delegate = delegate;
         this.cache = cache;
+        this.replayAsSingleChunk = replayAsSingleChunk;
     }
 
     @Override
@@ -69,8 +80,80 @@ public class CachedLLMProvider implements LLMProvider {
 
     @Override
     public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
-        // 流式响应不支持缓存，直接委托
-        delegate.chatStream(request, chunkConsumer, completeConsumer);
+        chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        MetricsManager metrics = MetricsManager.getInstance();
+
+        var cachedResponse = cache.get(request);
+        if (cachedResponse.isPresent()) {
+            logger.debug("Cache hit for streamed LLM request, replaying cached response");
+            metrics.incrementLlmCacheHits();
+            metrics.recordCacheHit();
+            replay(cachedResponse.get().content(), chunkConsumer, cancelled);
+            completeConsumer.accept(cachedResponse.get());
+            return;
+        }
+
+        logger.debug("Cache miss for streamed LLM request, calling provider: {}", delegate.name());
+        metrics.recordCacheMiss();
+
+        StringBuilder streamed = new StringBuilder();
+        delegate.chatStream(request, chunk -> {
+            streamed.append(chunk);
+            chunkConsumer.accept(chunk);
+        }, response -> {
+            metrics.incrementLlmCalls();
+            if (!response.isSuccess()) {
+                completeConsumer.accept(response);
+                return;
+            }
+            ChatResponse completed = completeStreamedResponse(request, response, streamed.toString());
+            // 被取消的流只有部分内容，不能作为该请求的结果缓存
+            if (!cancelled.get()) {
+                cache.put(request, completed);
+            }
+            completeConsumer.accept(completed);
+        }, cancelled);
+    }
+
+    private void replay(String content, Consumer<String> chunkConsumer, AtomicBoolean cancelled) {
+        if (content == null || content.isEmpty()) {
+            return;
+        }
+        if (replayAsSingleChunk) {
+            chunkConsumer.accept(content);
+            return;
+        }
+        int start = 0;
+        while (start < content.length() && !cancelled.get()) {
+            int lineEnd = content.indexOf('\n', start);
+            int end = lineEnd < 0 ? content.length() : lineEnd + 1;
+            chunkConsumer.accept(content.substring(start, end));
+            start = end;
+        }
+    }
+
+    /**
+     * 补全流式响应：内容以转发的片段为准，Provider 未给出用量时按本地估算填充
+     */
+    private ChatResponse completeStreamedResponse(ChatRequest request, ChatResponse response, String streamed) {
+        String content = response.content() != null && !response.content().isEmpty()
+            ? response.content() : streamed;
+        TokenUsage usage = response.tokenUsage();
+        if (usage == null || usage.totalTokens() == 0) {
+            usage = TokenEstimator.getInstance().estimateUsage(request, content);
+        }
+        return ChatResponse.builder()
+            .content(content)
+            .tokenUsage(usage)
+            .model(response.model())
+            .finishReason(response.finishReason())
+            .success(true)
+            .build();
     }
 
     @Override
@@ -78,6 +161,11 @@ public class CachedLLMProvider implements LLMProvider {
         return delegate.supportsStreaming();
     }
 
+    @Override
+    public boolean supportsStructuredOutput() {
+        return delegate.supportsStructuredOutput();
+    }
+
     @Override
     public boolean isAvailable() {
         return delegate.isAvailable();
@@ -1,7 +1,11 @@
 package com.utagent.llm;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
 
 public class ChatRequest {
     
@@ -10,13 +14,31 @@ public class ChatRequest {
     private final double temperature;
     private final int maxTokens;
     private final boolean stream;
+    private final Set<Integer> cacheBreakpoints;
+    private final String sourceHash;
+    private final String templateVersion;
+    private final Integer complexity;
+    private final String responseSchema;
+    private final int sampleIndex;
     
     private ChatRequest(Builder builder) {
         this.messages = List.copyOf(builder.messages);
+        Set<Integer> breakpoints = new TreeSet<>();
+        for (int i = 0; i < builder.messages.size(); i++) {
+            if (builder.cacheableMessages.contains(builder.messages.get(i))) {
+                breakpoints.add(i);
+            }
+        }
+        this.cacheBreakpoints = Collections.unmodifiableSet(breakpoints);
         this.model = builder.model;
         this.temperature = builder.temperature;
         this.maxTokens = builder.maxTokens;
         this.stream = builder.stream;
+        this.sourceHash = builder.sourceHash;
+        this.templateVersion = builder.templateVersion;
+        this.complexity = builder.complexity;
+        this.responseSchema = builder.responseSchema;
+        this.sampleIndex = builder.sampleIndex;
     }
     
     public List<Message> messages() {
@@ -38,19 +60,98 @@ public class ChatRequest {
     public boolean stream() {
         return stream;
     }
+
+    /**
+     * Content hash of the source the prompt was built from, or null when the request
+     * is not tied to a source file.
+     */
+    public String sourceHash() {
+        return sourceHash;
+    }
+
+    /**
+     * Version of the prompt templates that produced the request, or null if unknown.
+     */
+    public String templateVersion() {
+        return templateVersion;
+    }
+
+    /**
+     * Complexity score of the class the prompt was built for, used to route the request
+     * to a cheaper or a stronger model; null when unknown.
+     */
+    public Integer complexity() {
+        return complexity;
+    }
+
+    /**
+     * JSON schema the reply must conform to, or null for a free-form text reply. Providers
+     * with native structured output enforce it; the prompt still describes the format.
+     */
+    public String responseSchema() {
+        return responseSchema;
+    }
+
+    public boolean hasResponseSchema() {
+        return responseSchema != null && !responseSchema.isEmpty();
+    }
+
+    /**
+     * Index of this request among alternative samples of the same prompt. Samples other
+     * than the first are cached and recorded separately so they yield distinct replies.
+     */
+    public int sampleIndex() {
+        return sampleIndex;
+    }
+
+    /**
+     * Whether the message at the given index ends a cacheable prompt prefix. Providers with
+     * explicit prompt caching (Anthropic) place a cache marker there.
+     */
+    public boolean isCacheBreakpoint(int messageIndex) {
+        return cacheBreakpoints.contains(messageIndex);
+    }
+
+    public boolean hasCacheBreakpoints() {
+        return !cacheBreakpoints.isEmpty();
+    }
     
     public static Builder builder() {
         return new Builder();
     }
     
     public ChatRequest withStream(boolean stream) {
-        return new Builder()
+        return toBuilder().stream(stream).build();
+    }
+
+    public ChatRequest withModel(String model) {
+        return toBuilder().model(model).build();
+    }
+
+    public ChatRequest withComplexity(Integer complexity) {
+        return toBuilder().complexity(complexity).build();
+    }
+
+    public ChatRequest withSampleIndex(int sampleIndex) {
+        return toBuilder().sampleIndex(sampleIndex).build();
+    }
+
+    private Builder toBuilder() {
+        Builder builder = new Builder()
             .messages(messages)
             .model(model)
             .temperature(temperature)
             .maxTokens(maxTokens)
             .stream(stream)
-            .build();
+            .sourceHash(sourceHash)
+            .templateVersion(templateVersion)
+            .complexity(complexity)
+            .responseSchema(responseSchema)
+            .sampleIndex(sampleIndex);
+        for (int index : cacheBreakpoints) {
+            builder.cacheableMessages.add(builder.messages.get(index));
+        }
+        return builder;
     }
     
     public static class Builder {
@@ -59,6 +160,12 @@ public class ChatRequest {
         private double temperature = 0.7;
         private int maxTokens = 4096;
         private boolean stream = false;
+        private String sourceHash;
+        private String templateVersion;
+        private Integer complexity;
+        private String responseSchema;
+        private int sampleIndex;
+        private final Set<Message> cacheableMessages = Collections.newSetFromMap(new IdentityHashMap<>());
         
         public Builder messages(List<Message> messages) {
             this.messages = new ArrayList<>(messages);
@@ -69,6 +176,15 @@ public class ChatRequest {
             this.messages.add(message);
             return this;
         }
+
+        /**
+         * Adds a message that ends a cacheable prompt prefix.
+         */
+        public Builder addCacheableMessage(Message message) {
+            this.messages.add(message);
+            this.cacheableMessages.add(message);
+            return this;
+        }
         
         public Builder systemPrompt(String content) {
             this.messages.add(0, Message.system(content));
@@ -79,6 +195,27 @@ public class ChatRequest {
             this.messages.add(Message.user(content));
             return this;
         }
+
+        /**
+         * Adds a system prompt that ends a cacheable prompt prefix.
+         */
+        public Builder cacheableSystemPrompt(String content) {
+            Message message = Message.system(content);
+            this.messages.add(0, message);
+            this.cacheableMessages.add(message);
+            return this;
+        }
+
+        /**
+         * Adds a user message that ends a cacheable prompt prefix. Everything before
+         * and including this message must be byte-identical across requests to hit the cache.
+         */
+        public Builder cacheableUserMessage(String content) {
+            Message message = Message.user(content);
+            this.messages.add(message);
+            this.cacheableMessages.add(message);
+            return this;
+        }
         
         public Builder model(String model) {
             this.model = model;
@@ -100,6 +237,31 @@ public class ChatRequest {
             return this;
         }
         
+        public Builder sourceHash(String sourceHash) {
+            this.sourceHash = sourceHash;
+            return this;
+        }
+        
+        public Builder templateVersion(String templateVersion) {
+            this.templateVersion = templateVersion;
+            return this;
+        }
+        
+        public Builder complexity(Integer complexity) {
+            this.complexity = complexity;
+            return this;
+        }
+        
+        public Builder responseSchema(String responseSchema) {
+            this.responseSchema = responseSchema;
+            return this;
+        }
+        
+        public Builder sampleIndex(int sampleIndex) {
+            this.sampleIndex = sampleIndex;
+            return this;
+        }
+        
         public ChatRequest build() {
             return new ChatRequest(this);
         }
@@ -8,6 +8,7 @@ public class ChatResponse {
     private final String finishReason;
     private final boolean success;
     private final String errorMessage;
+    private final boolean cached;
     
     private ChatResponse(Builder builder) {
         this.content = builder.content;
@@ -16,6 +17,7 @@ public class ChatResponse {
         this.finishReason = builder.finishReason;
         this.success = builder.success;
         this.errorMessage = builder.errorMessage;
+        this.cached = builder.cached;
     }
     
     public String content() {
@@ -42,6 +44,14 @@ public class ChatResponse {
         return errorMessage;
     }
     
+    /**
+     * Whether this response was served from the response cache rather than
+     * produced by a provider call. Cached responses carry no token usage.
+     */
+    public boolean isCached() {
+        return cached;
+    }
+    
     public static Builder builder() {
         return new Builder();
     }
@@ -69,6 +79,7 @@ public class ChatResponse {
         private String finishReason;
         private boolean success = true;
         private String errorMessage;
+        private boolean cached;
         
         public Builder content(String content) {
             this.content = content;
@@ -100,6 +111,11 @@ public class ChatResponse {
             return this;
         }
         
+        public Builder cached(boolean cached) {
+            this.cached = cached;
+            return this;
+        }
+        
         public ChatResponse build() {
             return new ChatResponse(this);
         }
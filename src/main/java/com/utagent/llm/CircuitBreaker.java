@@ -0,0 +1,100 @@
+package com.utagent.llm;
+
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * 单个 Provider 的熔断器。
+ * 连续失败达到阈值后打开，冷却期结束后允许一次试探调用（半开），
+ * 试探成功则关闭，失败则重新打开。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final String name;
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAtMillis;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, Clock.systemUTC());
+    }
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration, Clock clock) {
+        this.name = name;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    /**
+     * 判断当前是否允许发起调用。半开状态下只放行一个试探请求。
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (clock.millis() - openedAtMillis >= openDuration.toMillis()) {
+                    state = State.HALF_OPEN;
+                    probeInFlight = true;
+                    return true;
+                }
+                return false;
+            case HALF_OPEN:
+            default:
+                if (!probeInFlight) {
+                    probeInFlight = true;
+                    return true;
+                }
+                return false;
+        }
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        probeInFlight = false;
+        state = State.CLOSED;
+    }
+
+    public synchronized void recordFailure() {
+        probeInFlight = false;
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAtMillis = clock.millis();
+        }
+    }
+
+    /**
+     * 调用被取消（例如对冲请求输掉竞争）时释放试探名额，不计入成功或失败。
+     */
+    public synchronized void recordCancelled() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && clock.millis() - openedAtMillis >= openDuration.toMillis()) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized int getConsecutiveFailures() {
+        return consecutiveFailures;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
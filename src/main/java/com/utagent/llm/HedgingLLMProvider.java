@@ -0,0 +1,343 @@
+package com.utagent.llm;
+
+import com.utagent.config.HedgingConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * 带对冲请求和故障转移的组合 LLMProvider。
+ * 主 Provider 在最近延迟的指定分位数内未返回时，向同一个或备用 Provider 发送对冲请求，
+ * 采用第一个成功的响应并取消其余请求；每个 Provider 独立熔断。
+ */
+public class HedgingLLMProvider implements LLMProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(HedgingLLMProvider.class);
+    private static final int MIN_LATENCY_SAMPLES = 10;
+
+    private final List<LLMProvider> providers;
+    private final Map<LLMProvider, CircuitBreaker> circuitBreakers = new IdentityHashMap<>();
+    private final HedgingConfig config;
+    private final ExecutorService executorService;
+    private final Deque<Long> recentLatencies = new ArrayDeque<>();
+    private final AtomicReference<TokenUsage> lastTokenUsage = new AtomicReference<>(TokenUsage.empty());
+    private final AtomicInteger hedgesSent = new AtomicInteger(0);
+    private final AtomicInteger hedgesWon = new AtomicInteger(0);
+
+    public HedgingLLMProvider(LLMProvider primary, LLMProvider... backups) {
+        this(prepend(primary, backups), HedgingConfig.defaults());
+    }
+
+    public HedgingLLMProvider(List<LLMProvider> providers, HedgingConfig config) {
+        if (providers == null || providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one provider is required");
+        }
+        this.providers = List.copyOf(providers);
+        this.config = config;
+        for (LLMProvider provider : this.providers) {
+            circuitBreakers.computeIfAbsent(provider, p -> new CircuitBreaker(
+                p.name(),
+                config.getFailureThresholdOrDefault(),
+                Duration.ofSeconds(config.getOpenDurationSecondsOrDefault())));
+        }
+        this.executorService = Executors.newCachedThreadPool(new java.util.concurrent.ThreadFactory() {
+            private final AtomicInteger counter = new AtomicInteger(0);
+
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "llm-hedge-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * 关闭对冲时不发送并行请求，只在失败时依次转移到备用 Provider
+     */
+    private int maxHedges() {
+        return config.getEnabledOrDefault() ? config.getMaxHedgesOrDefault() : 0;
+    }
+
+    private static List<LLMProvider> prepend(LLMProvider primary, LLMProvider... backups) {
+        List<LLMProvider> all = new ArrayList<>();
+        all.add(primary);
+        all.addAll(Arrays.asList(backups));
+        return all;
+    }
+
+    @Override
+    public String name() {
+        return "Hedged(" + providers.stream().map(LLMProvider::name).collect(Collectors.joining(", ")) + ")";
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        CompletionService<Attempt> completionService = new ExecutorCompletionService<>(executorService);
+        Map<Future<Attempt>, LLMProvider> inFlight = new IdentityHashMap<>();
+        int maxAttempts = Math.max(providers.size(), 1 + maxHedges());
+        int nextIndex = 0;
+        int attempts = 0;
+        int hedges = 0;
+        String lastError = null;
+
+        try {
+            while (true) {
+                if (inFlight.isEmpty()) {
+                    if (attempts >= maxAttempts) {
+                        break;
+                    }
+                    int launched = launchNext(completionService, inFlight, request, nextIndex, false);
+                    if (launched < 0) {
+                        break;
+                    }
+                    nextIndex = launched + 1;
+                    attempts++;
+                }
+
+                boolean canHedge = hedges < maxHedges() && attempts < maxAttempts;
+                Future<Attempt> done = canHedge
+                    ? completionService.poll(currentHedgeDelayMs(), TimeUnit.MILLISECONDS)
+                    : completionService.take();
+
+                if (done == null) {
+                    int launched = launchNext(completionService, inFlight, request, nextIndex, true);
+                    if (launched >= 0) {
+                        nextIndex = launched + 1;
+                        attempts++;
+                        hedges++;
+                        hedgesSent.incrementAndGet();
+                        logger.debug("Primary request slow, sent hedge request #{} to {}",
+                            hedges, providers.get(launched).name());
+                    } else {
+                        hedges = maxHedges();
+                    }
+                    continue;
+                }
+
+                Attempt attempt = getAttempt(done, inFlight.remove(done));
+                CircuitBreaker breaker = circuitBreakers.get(attempt.provider());
+                if (attempt.response().isSuccess()) {
+                    breaker.recordSuccess();
+                    recordLatency(attempt.latencyMs());
+                    lastTokenUsage.set(attempt.response().tokenUsage());
+                    if (attempt.hedge()) {
+                        hedgesWon.incrementAndGet();
+                    }
+                    return attempt.response();
+                }
+
+                breaker.recordFailure();
+                lastError = attempt.provider().name() + ": " + attempt.response().errorMessage();
+                logger.warn("LLM provider {} failed, failing over: {}", attempt.provider().name(),
+                    attempt.response().errorMessage());
+
+                if (attempts < maxAttempts) {
+                    int launched = launchNext(completionService, inFlight, request, nextIndex, false);
+                    if (launched >= 0) {
+                        nextIndex = launched + 1;
+                        attempts++;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ChatResponse.error("Hedged request interrupted");
+        } finally {
+            cancelAll(inFlight);
+        }
+
+        if (lastError == null) {
+            return ChatResponse.error("No LLM provider available: all circuits are open");
+        }
+        return ChatResponse.error("All LLM providers failed, last error: " + lastError);
+    }
+
+    /**
+     * 从 startIndex 开始循环查找熔断器允许调用的 Provider 并提交请求。
+     *
+     * @return 提交的 Provider 下标，没有可用 Provider 时返回 -1
+     */
+    private int launchNext(CompletionService<Attempt> completionService,
+                           Map<Future<Attempt>, LLMProvider> inFlight,
+                           ChatRequest request,
+                           int startIndex,
+                           boolean hedge) {
+        for (int offset = 0; offset < providers.size(); offset++) {
+            int index = (startIndex + offset) % providers.size();
+            LLMProvider provider = providers.get(index);
+            if (!circuitBreakers.get(provider).tryAcquire()) {
+                continue;
+            }
+            Future<Attempt> future = completionService.submit(() -> {
+                long start = System.nanoTime();
+                ChatResponse response;
+                try {
+                    response = provider.chat(request);
+                } catch (Exception e) {
+                    response = ChatResponse.error(e.getMessage());
+                }
+                long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                return new Attempt(provider, response, latencyMs, hedge);
+            });
+            inFlight.put(future, provider);
+            return index;
+        }
+        return -1;
+    }
+
+    private Attempt getAttempt(Future<Attempt> future, LLMProvider provider) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            return new Attempt(provider, ChatResponse.error(String.valueOf(e.getCause())), 0, false);
+        }
+    }
+
+    private void cancelAll(Map<Future<Attempt>, LLMProvider> inFlight) {
+        for (Map.Entry<Future<Attempt>, LLMProvider> entry : inFlight.entrySet()) {
+            entry.getKey().cancel(true);
+            circuitBreakers.get(entry.getValue()).recordCancelled();
+        }
+        inFlight.clear();
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+        // 流式响应无法合并多个数据源，只做故障转移，不做对冲
+        streamFrom(0, request, chunkConsumer, completeConsumer, new AtomicBoolean(false), null);
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        streamFrom(0, request, chunkConsumer, completeConsumer, cancelled, null);
+    }
+
+    private void streamFrom(int startIndex, ChatRequest request, Consumer<String> chunkConsumer,
+                            Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled, String lastError) {
+        for (int index = startIndex; index < providers.size(); index++) {
+            LLMProvider provider = providers.get(index);
+            CircuitBreaker breaker = circuitBreakers.get(provider);
+            if (!provider.supportsStreaming() || !breaker.tryAcquire()) {
+                continue;
+            }
+            int nextIndex = index + 1;
+            AtomicBoolean chunkSeen = new AtomicBoolean(false);
+            provider.chatStream(request, chunk -> {
+                chunkSeen.set(true);
+                chunkConsumer.accept(chunk);
+            }, response -> {
+                if (response.isSuccess()) {
+                    breaker.recordSuccess();
+                    lastTokenUsage.set(response.tokenUsage());
+                    completeConsumer.accept(response);
+                    return;
+                }
+                breaker.recordFailure();
+                if (chunkSeen.get()) {
+                    completeConsumer.accept(response);
+                } else {
+                    streamFrom(nextIndex, request, chunkConsumer, completeConsumer, cancelled,
+                        provider.name() + ": " + response.errorMessage());
+                }
+            }, cancelled);
+            return;
+        }
+        completeConsumer.accept(ChatResponse.error(lastError != null
+            ? "All LLM providers failed, last error: " + lastError
+            : "No streaming LLM provider available"));
+    }
+
+    long currentHedgeDelayMs() {
+        long[] samples;
+        synchronized (recentLatencies) {
+            if (recentLatencies.size() < MIN_LATENCY_SAMPLES) {
+                return config.getInitialHedgeDelayMsOrDefault();
+            }
+            samples = recentLatencies.stream().mapToLong(Long::longValue).toArray();
+        }
+        Arrays.sort(samples);
+        int index = (int) Math.ceil(config.getHedgeDelayPercentileOrDefault() * samples.length) - 1;
+        long percentile = samples[Math.min(samples.length - 1, Math.max(0, index))];
+        return Math.max(config.getMinHedgeDelayMsOrDefault(), percentile);
+    }
+
+    private void recordLatency(long latencyMs) {
+        synchronized (recentLatencies) {
+            recentLatencies.addLast(latencyMs);
+            while (recentLatencies.size() > config.getLatencyWindowSizeOrDefault()) {
+                recentLatencies.removeFirst();
+            }
+        }
+    }
+
+    @Override
+    public TokenUsage getLastTokenUsage() {
+        return lastTokenUsage.get();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return providers.stream().anyMatch(LLMProvider::supportsStreaming);
+    }
+
+    /**
+     * 任意一个 provider 都可能胜出，只有全部支持时才请求结构化输出
+     */
+    @Override
+    public boolean supportsStructuredOutput() {
+        return providers.stream().allMatch(LLMProvider::supportsStructuredOutput);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return providers.stream().anyMatch(LLMProvider::isAvailable);
+    }
+
+    public CircuitBreaker.State getCircuitState(LLMProvider provider) {
+        CircuitBreaker breaker = circuitBreakers.get(provider);
+        return breaker != null ? breaker.getState() : null;
+    }
+
+    public int getHedgesSent() {
+        return hedgesSent.get();
+    }
+
+    public int getHedgesWon() {
+        return hedgesWon.get();
+    }
+
+    public List<LLMProvider> getProviders() {
+        return providers;
+    }
+
+    /**
+     * Shutdown the hedge executor service.
+     */
+    public void shutdown() {
+        executorService.shutdownNow();
+    }
+
+    private record Attempt(LLMProvider provider, ChatResponse response, long latencyMs, boolean hedge) {}
+}
@@ -1,5 +1,6 @@
 package com.utagent.llm;
 
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 
 public interface LLMProvider {
@@ -10,9 +11,31 @@ public interface LLMProvider {
     
     void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer);
     
+    /**
+     * Streams a response that the caller may stop early by setting {@code cancelled}.
+     * A cancelled stream completes successfully with the content received so far.
+     * Providers that cannot abort a stream keep reading but stop forwarding chunks.
+     */
+    default void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                            Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        chatStream(request, chunk -> {
+            if (!cancelled.get()) {
+                chunkConsumer.accept(chunk);
+            }
+        }, completeConsumer);
+    }
+    
     TokenUsage getLastTokenUsage();
     
     boolean supportsStreaming();
+
+    /**
+     * Whether the provider can constrain replies to the request's response schema
+     * (JSON schema, JSON mode or a forced tool call).
+     */
+    default boolean supportsStructuredOutput() {
+        return false;
+    }
     
     default boolean isAvailable() {
         return true;
@@ -1,5 +1,6 @@
 package com.utagent.llm;
 
+import com.utagent.config.HedgingConfig;
 import com.utagent.llm.provider.ClaudeProvider;
 import com.utagent.llm.provider.DeepSeekProvider;
 import com.utagent.llm.provider.OllamaProvider;
@@ -9,7 +10,10 @@ import com.utagent.util.SensitiveDataMasker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.ServiceLoader;
 import java.util.Set;
@@ -43,21 +47,79 @@ public final class LLMProviderFactory {
     }
 
     public static LLMProvider create(LLMProviderType type, String apiKey, String baseUrl, String model, String caCertPath) {
+        if (!type.isLive()) {
+            // 回放本身就是离线的，再加缓存会让基准测试跳过录制的延迟
+            return createUncached(type, apiKey, baseUrl, model, caCertPath);
+        }
+        // 默认启用缓存
+        return new CachedLLMProvider(createUncached(type, apiKey, baseUrl, model, caCertPath));
+    }
+
+    private static LLMProvider createUncached(LLMProviderType type, String apiKey, String baseUrl, String model, String caCertPath) {
         logger.debug("Creating LLM provider: {} with baseUrl={}, model={}, caCertPath={}",
             type,
             SensitiveDataMasker.maskForLogging(baseUrl),
             model,
             caCertPath != null ? "configured" : "not configured");
 
-        LLMProvider provider = switch (type) {
+        return switch (type) {
             case OPENAI -> new OpenAIProvider(apiKey, baseUrl, model, caCertPath);
             case CLAUDE -> new ClaudeProvider(apiKey, baseUrl, model, caCertPath);
             case OLLAMA -> new OllamaProvider(baseUrl, model, caCertPath);
             case DEEPSEEK -> new DeepSeekProvider(apiKey, baseUrl, model, caCertPath);
+            case REPLAY -> new ReplayLLMProvider(Path.of(baseUrl != null ? baseUrl : type.getDefaultBaseUrl()));
         };
+    }
 
-        // 默认启用缓存
-        return new CachedLLMProvider(provider);
+    /**
+     * 组合各个 Provider 装饰：有备用 Provider 时主档位带对冲和故障转移（缓存位于对冲层之外，命中缓存时不会发出任何请求），
+     * 有快速档位时按复杂度路由（两个档位各自带缓存，请求在进入缓存前已改写为所选模型），
+     * 设置了录制文件时在最外层录制每次交换，录制时不经过缓存，保证每个请求都真实发出并记录实际耗时。
+     *
+     * @param backups     主档位的备用 Provider，为空时不对冲
+     * @param fast        快速档位，为 null 时不路由
+     * @param captureFile 录制文件，为 null 时不录制
+     */
+    public static LLMProvider createComposed(LLMConfig primary, List<LLMConfig> backups, HedgingConfig hedgingConfig,
+                                             LLMConfig fast, int complexityThreshold, Path captureFile) {
+        boolean recording = captureFile != null;
+        LLMProvider strong;
+        if (backups == null || backups.isEmpty()) {
+            strong = createUncached(primary);
+        } else {
+            List<LLMProvider> providers = new ArrayList<>();
+            providers.add(createUncached(primary));
+            for (LLMConfig backup : backups) {
+                providers.add(createUncached(backup));
+            }
+            logger.info("Creating hedged LLM provider with {} provider(s)", providers.size());
+            strong = new HedgingLLMProvider(providers, hedgingConfig != null ? hedgingConfig : HedgingConfig.defaults());
+        }
+        if (!recording) {
+            strong = new CachedLLMProvider(strong);
+        }
+
+        LLMProvider provider = strong;
+        if (fast != null) {
+            logger.info("Routing requests below complexity {} to {} ({})",
+                complexityThreshold, fast.provider(), fast.model() != null ? fast.model() : "default model");
+            LLMProvider fastProvider = createUncached(fast);
+            provider = new ModelRoutingProvider(
+                recording ? fastProvider : new CachedLLMProvider(fastProvider), fast.model(),
+                strong, primary.model(), complexityThreshold);
+        }
+
+        if (recording) {
+            logger.info("Recording LLM exchanges to {}", captureFile);
+            provider = new RecordingLLMProvider(provider, captureFile);
+        }
+        return provider;
+    }
+
+    private static LLMProvider createUncached(LLMConfig config) {
+        LLMProviderType type = LLMProviderType.fromId(config.provider());
+        String apiKey = ApiKeyResolver.resolve(config.apiKey(), type);
+        return createUncached(type, apiKey, config.baseUrl(), config.model(), config.caCertPath());
     }
     
     public static LLMProvider create(LLMConfig config) {
@@ -72,6 +134,7 @@ public final class LLMProviderFactory {
     
     public static Set<String> getAvailableProviders() {
         return java.util.Arrays.stream(LLMProviderType.values())
+            .filter(LLMProviderType::isLive)
             .map(LLMProviderType::getId)
             .collect(Collectors.toSet());
     }
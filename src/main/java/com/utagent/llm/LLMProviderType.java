@@ -4,16 +4,26 @@ public enum LLMProviderType {
     OPENAI("openai", "OpenAI", "https://api.openai.com/v1"),
     CLAUDE("claude", "Anthropic Claude", "https://api.anthropic.com/v1"),
     OLLAMA("ollama", "Ollama (Local)", "http://localhost:11434/api"),
-    DEEPSEEK("deepseek", "DeepSeek", "https://api.deepseek.com/v1");
+    DEEPSEEK("deepseek", "DeepSeek", "https://api.deepseek.com/v1"),
+    /**
+     * Serves responses from a capture file written in record mode; the base URL is the file path.
+     */
+    REPLAY("replay", "Record/Replay (Offline)", ".utagent/llm-recording.jsonl", false);
     
     private final String id;
     private final String displayName;
     private final String defaultBaseUrl;
+    private final boolean live;
     
     LLMProviderType(String id, String displayName, String defaultBaseUrl) {
+        this(id, displayName, defaultBaseUrl, true);
+    }
+    
+    LLMProviderType(String id, String displayName, String defaultBaseUrl, boolean live) {
         this.id = id;
         this.displayName = displayName;
         this.defaultBaseUrl = defaultBaseUrl;
+        this.live = live;
     }
     
     public String getId() {
@@ -28,6 +38,13 @@ public enum LLMProviderType {
         return defaultBaseUrl;
     }
     
+    /**
+     * Whether requests reach a real model, as opposed to being answered from a recording.
+     */
+    public boolean isLive() {
+        return live;
+    }
+    
     public static LLMProviderType fromId(String id) {
         for (LLMProviderType type : values()) {
             if (type.id.equalsIgnoreCase(id)) {
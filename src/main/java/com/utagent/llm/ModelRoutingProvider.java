@@ -0,0 +1,153 @@
+package com.utagent.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 按复杂度路由的 LLMProvider。
+ * 请求的复杂度评分（见 {@link ChatRequest#complexity()}）低于阈值时发往便宜的快速模型，否则发往大模型；
+ * 没有评分的请求一律使用大模型。快速模型调用失败时立即改用大模型重试。
+ * 生成的测试无法编译或未达覆盖率目标时，调用方记录失败使评分升高，该类后续请求自然升级到大模型。
+ * 请求在转发前改写为所选档位的模型名，位于下层的缓存因此按模型区分响应。
+ */
+public class ModelRoutingProvider implements LLMProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelRoutingProvider.class);
+
+    public static final int DEFAULT_COMPLEXITY_THRESHOLD = 12;
+
+    private final LLMProvider fastProvider;
+    private final String fastModel;
+    private final LLMProvider strongProvider;
+    private final String strongModel;
+    private final int complexityThreshold;
+    private final AtomicReference<TokenUsage> lastTokenUsage = new AtomicReference<>(TokenUsage.empty());
+    private final AtomicInteger fastRequests = new AtomicInteger();
+    private final AtomicInteger strongRequests = new AtomicInteger();
+    private final AtomicInteger escalations = new AtomicInteger();
+
+    /**
+     * @param fastModel   快速档位的模型名，为 null 时使用该 Provider 自身的默认模型
+     * @param strongModel 大模型档位的模型名，为 null 时使用该 Provider 自身的默认模型
+     */
+    public ModelRoutingProvider(LLMProvider fastProvider, String fastModel,
+                                LLMProvider strongProvider, String strongModel,
+                                int complexityThreshold) {
+        this.fastProvider = fastProvider;
+        this.fastModel = fastModel;
+        this.strongProvider = strongProvider;
+        this.strongModel = strongModel;
+        this.complexityThreshold = complexityThreshold;
+    }
+
+    @Override
+    public String name() {
+        return "Routing(" + fastProvider.name() + " -> " + strongProvider.name() + ")";
+    }
+
+    /**
+     * 请求是否走快速模型
+     */
+    public boolean routesToFastModel(ChatRequest request) {
+        return request.complexity() != null && request.complexity() < complexityThreshold;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        if (routesToFastModel(request)) {
+            fastRequests.incrementAndGet();
+            ChatResponse response = fastProvider.chat(request.withModel(fastModel));
+            if (response.isSuccess()) {
+                lastTokenUsage.set(response.tokenUsage());
+                return response;
+            }
+            escalations.incrementAndGet();
+            logger.info("Fast model failed ({}), escalating to {}", response.errorMessage(), strongProvider.name());
+        }
+        strongRequests.incrementAndGet();
+        ChatResponse response = strongProvider.chat(request.withModel(strongModel));
+        lastTokenUsage.set(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+        chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        if (!routesToFastModel(request)) {
+            streamFromStrong(request, chunkConsumer, completeConsumer, cancelled);
+            return;
+        }
+        fastRequests.incrementAndGet();
+        AtomicBoolean forwarded = new AtomicBoolean(false);
+        fastProvider.chatStream(request.withModel(fastModel), chunk -> {
+            forwarded.set(true);
+            chunkConsumer.accept(chunk);
+        }, response -> {
+            // 已经转发过片段的流无法重来，只有在没有任何输出时才升级
+            if (response.isSuccess() || forwarded.get() || cancelled.get()) {
+                lastTokenUsage.set(response.tokenUsage());
+                completeConsumer.accept(response);
+                return;
+            }
+            escalations.incrementAndGet();
+            logger.info("Fast model stream failed ({}), escalating to {}",
+                response.errorMessage(), strongProvider.name());
+            streamFromStrong(request, chunkConsumer, completeConsumer, cancelled);
+        }, cancelled);
+    }
+
+    private void streamFromStrong(ChatRequest request, Consumer<String> chunkConsumer,
+                                  Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        strongRequests.incrementAndGet();
+        strongProvider.chatStream(request.withModel(strongModel), chunkConsumer, response -> {
+            lastTokenUsage.set(response.tokenUsage());
+            completeConsumer.accept(response);
+        }, cancelled);
+    }
+
+    public int getFastRequestCount() {
+        return fastRequests.get();
+    }
+
+    public int getStrongRequestCount() {
+        return strongRequests.get();
+    }
+
+    public int getEscalationCount() {
+        return escalations.get();
+    }
+
+    public int getComplexityThreshold() {
+        return complexityThreshold;
+    }
+
+    @Override
+    public TokenUsage getLastTokenUsage() {
+        return lastTokenUsage.get();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return fastProvider.supportsStreaming() && strongProvider.supportsStreaming();
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return fastProvider.supportsStructuredOutput() && strongProvider.supportsStructuredOutput();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return strongProvider.isAvailable();
+    }
+}
@@ -0,0 +1,58 @@
+package com.utagent.llm;
+
+import com.utagent.cache.RequestFingerprint;
+
+/**
+ * 录制文件中的一次请求/响应交换，每行一条 JSON。
+ * 请求只保存规范指纹，回放时按指纹匹配；同时记录总耗时和首个片段的延迟，用于还原真实的响应时间。
+ *
+ * @param fingerprint      请求的规范指纹，见 {@link RequestFingerprint#of(ChatRequest)}
+ * @param firstChunkMillis 流式请求收到首个片段的耗时，非流式请求为 -1
+ * @param structured       请求是否要求结构化 JSON 输出，旧的录制文件缺省为 false
+ */
+public record RecordedExchange(
+    String fingerprint,
+    String model,
+    boolean success,
+    String content,
+    String errorMessage,
+    TokenUsage tokenUsage,
+    String finishReason,
+    long latencyMillis,
+    long firstChunkMillis,
+    long recordedAt,
+    boolean structured
+) {
+
+    public static RecordedExchange of(ChatRequest request, ChatResponse response,
+                                      long latencyMillis, long firstChunkMillis) {
+        return new RecordedExchange(
+            RequestFingerprint.of(request),
+            response.model() != null ? response.model() : request.model(),
+            response.isSuccess(),
+            response.content(),
+            response.errorMessage(),
+            response.tokenUsage() != null ? response.tokenUsage() : TokenUsage.empty(),
+            response.finishReason(),
+            latencyMillis,
+            firstChunkMillis,
+            System.currentTimeMillis(),
+            request.hasResponseSchema()
+        );
+    }
+
+    public boolean streamed() {
+        return firstChunkMillis >= 0;
+    }
+
+    public ChatResponse toResponse() {
+        return ChatResponse.builder()
+            .content(content != null ? content : "")
+            .tokenUsage(tokenUsage != null ? tokenUsage : TokenUsage.empty())
+            .model(model)
+            .finishReason(finishReason)
+            .success(success)
+            .errorMessage(errorMessage)
+            .build();
+    }
+}
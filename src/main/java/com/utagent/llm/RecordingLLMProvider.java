@@ -0,0 +1,128 @@
+package com.utagent.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 录制模式的 LLMProvider 装饰器。
+ * 请求照常转发给真实 Provider，每次交换连同耗时追加写入录制文件，
+ * 之后可由 {@link ReplayLLMProvider} 离线回放。被取消的流只有部分内容，不会写入。
+ */
+public class RecordingLLMProvider implements LLMProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(RecordingLLMProvider.class);
+
+    private final LLMProvider delegate;
+    private final Path captureFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AtomicInteger recordedCount = new AtomicInteger();
+
+    public RecordingLLMProvider(LLMProvider delegate, Path captureFile) {
+        this.delegate = delegate;
+        this.captureFile = captureFile;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name() + "(Recording)";
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        long start = System.nanoTime();
+        ChatResponse response = delegate.chat(request);
+        record(RecordedExchange.of(request, response, elapsedMillis(start), -1));
+        return response;
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+        chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        long start = System.nanoTime();
+        AtomicLong firstChunkMillis = new AtomicLong(-1);
+        StringBuilder streamed = new StringBuilder();
+        delegate.chatStream(request, chunk -> {
+            firstChunkMillis.compareAndSet(-1, elapsedMillis(start));
+            streamed.append(chunk);
+            chunkConsumer.accept(chunk);
+        }, response -> {
+            if (!cancelled.get()) {
+                ChatResponse complete = response;
+                if (response.isSuccess() && (response.content() == null || response.content().isEmpty())) {
+                    complete = ChatResponse.builder()
+                        .content(streamed.toString())
+                        .tokenUsage(response.tokenUsage())
+                        .model(response.model())
+                        .finishReason(response.finishReason())
+                        .build();
+                }
+                long latency = elapsedMillis(start);
+                record(RecordedExchange.of(request, complete, latency,
+                    firstChunkMillis.get() >= 0 ? firstChunkMillis.get() : latency));
+            }
+            completeConsumer.accept(response);
+        }, cancelled);
+    }
+
+    private synchronized void record(RecordedExchange exchange) {
+        try {
+            if (captureFile.getParent() != null) {
+                Files.createDirectories(captureFile.getParent());
+            }
+            String line = objectMapper.writeValueAsString(exchange) + System.lineSeparator();
+            Files.writeString(captureFile, line, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            recordedCount.incrementAndGet();
+        } catch (IOException e) {
+            logger.warn("Failed to record LLM exchange to {}: {}", captureFile, e.getMessage());
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    public Path getCaptureFile() {
+        return captureFile;
+    }
+
+    public int getRecordedCount() {
+        return recordedCount.get();
+    }
+
+    @Override
+    public TokenUsage getLastTokenUsage() {
+        return delegate.getLastTokenUsage();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return delegate.supportsStreaming();
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return delegate.supportsStructuredOutput();
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return delegate.isAvailable();
+    }
+}
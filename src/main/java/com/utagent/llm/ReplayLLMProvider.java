@@ -0,0 +1,229 @@
+package com.utagent.llm;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utagent.cache.RequestFingerprint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+/**
+ * 回放录制文件的离线 LLMProvider，用于无网络环境下的确定性端到端测试和性能基准。
+ * 请求按规范指纹匹配录制的响应，同一指纹录制了多次时按录制顺序依次返回，用完后重复最后一条。
+ * 每次回放按录制时的耗时乘以延迟系数等待，流式请求还会还原首个片段的延迟；系数为 0 时立即返回。
+ * 没有匹配录制的请求返回失败响应，不会访问网络。
+ */
+public class ReplayLLMProvider implements LLMProvider {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplayLLMProvider.class);
+
+    public static final double DEFAULT_LATENCY_SCALE = 1.0;
+
+    private final Path captureFile;
+    private final double latencyScale;
+    private final Map<String, List<RecordedExchange>> exchanges;
+    private final Map<String, AtomicInteger> cursors = new ConcurrentHashMap<>();
+    private final AtomicReference<TokenUsage> lastTokenUsage = new AtomicReference<>(TokenUsage.empty());
+    private final AtomicInteger replayedCount = new AtomicInteger();
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    public ReplayLLMProvider(Path captureFile) {
+        this(captureFile, DEFAULT_LATENCY_SCALE);
+    }
+
+    /**
+     * @param latencyScale 录制耗时的缩放系数，1.0 还原真实延迟，0 不等待
+     */
+    public ReplayLLMProvider(Path captureFile, double latencyScale) {
+        this.captureFile = captureFile;
+        this.latencyScale = Math.max(0.0, latencyScale);
+        this.exchanges = load(captureFile);
+    }
+
+    private static Map<String, List<RecordedExchange>> load(Path captureFile) {
+        Map<String, List<RecordedExchange>> loaded = new HashMap<>();
+        if (!Files.isRegularFile(captureFile)) {
+            logger.warn("LLM capture file not found: {}", captureFile);
+            return loaded;
+        }
+        ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        try {
+            int lineNumber = 0;
+            for (String line : Files.readAllLines(captureFile, StandardCharsets.UTF_8)) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    RecordedExchange exchange = objectMapper.readValue(line, RecordedExchange.class);
+                    loaded.computeIfAbsent(exchange.fingerprint(), k -> new ArrayList<>()).add(exchange);
+                } catch (IOException e) {
+                    logger.warn("Skipping malformed exchange at {}:{}: {}", captureFile, lineNumber, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read LLM capture file {}: {}", captureFile, e.getMessage());
+        }
+        logger.info("Loaded {} recorded request(s) from {}", loaded.size(), captureFile);
+        return loaded;
+    }
+
+    @Override
+    public String name() {
+        return "Replay";
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest request) {
+        RecordedExchange exchange = next(request);
+        if (exchange == null) {
+            return missingRecording(request);
+        }
+        pause(exchange.latencyMillis());
+        ChatResponse response = exchange.toResponse();
+        lastTokenUsage.set(response.tokenUsage());
+        return response;
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+        chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+        RecordedExchange exchange = next(request);
+        if (exchange == null) {
+            completeConsumer.accept(missingRecording(request));
+            return;
+        }
+        ChatResponse response = exchange.toResponse();
+        if (!response.isSuccess()) {
+            pause(exchange.latencyMillis());
+            completeConsumer.accept(response);
+            return;
+        }
+
+        List<String> chunks = splitLines(response.content());
+        long firstChunkMillis = exchange.streamed() ? exchange.firstChunkMillis() : exchange.latencyMillis();
+        long perChunkMillis = chunks.size() > 1
+            ? Math.max(0, exchange.latencyMillis() - firstChunkMillis) / (chunks.size() - 1)
+            : 0;
+
+        StringBuilder streamed = new StringBuilder();
+        for (int i = 0; i < chunks.size() && !cancelled.get(); i++) {
+            pause(i == 0 ? firstChunkMillis : perChunkMillis);
+            if (cancelled.get()) {
+                break;
+            }
+            streamed.append(chunks.get(i));
+            chunkConsumer.accept(chunks.get(i));
+        }
+        lastTokenUsage.set(response.tokenUsage());
+        if (cancelled.get()) {
+            response = ChatResponse.builder()
+                .content(streamed.toString())
+                .tokenUsage(response.tokenUsage())
+                .model(response.model())
+                .finishReason("cancelled")
+                .build();
+        }
+        completeConsumer.accept(response);
+    }
+
+    private RecordedExchange next(ChatRequest request) {
+        String fingerprint = RequestFingerprint.of(request);
+        List<RecordedExchange> recorded = exchanges.get(fingerprint);
+        if (recorded == null || recorded.isEmpty()) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        int index = cursors.computeIfAbsent(fingerprint, k -> new AtomicInteger()).getAndIncrement();
+        replayedCount.incrementAndGet();
+        return recorded.get(Math.min(index, recorded.size() - 1));
+    }
+
+    private ChatResponse missingRecording(ChatRequest request) {
+        String fingerprint = RequestFingerprint.of(request);
+        logger.debug("No recorded response for request {}", fingerprint);
+        return ChatResponse.error("No recorded response for request " + fingerprint.substring(0, 12)
+            + " in " + captureFile);
+    }
+
+    private static List<String> splitLines(String content) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        while (start < content.length()) {
+            int lineEnd = content.indexOf('\n', start);
+            int end = lineEnd < 0 ? content.length() : lineEnd + 1;
+            lines.add(content.substring(start, end));
+            start = end;
+        }
+        return lines;
+    }
+
+    private void pause(long recordedMillis) {
+        long millis = Math.round(recordedMillis * latencyScale);
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 录制文件中不同请求指纹的数量
+     */
+    public int getRecordedRequestCount() {
+        return exchanges.size();
+    }
+
+    public int getReplayedCount() {
+        return replayedCount.get();
+    }
+
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    @Override
+    public TokenUsage getLastTokenUsage() {
+        return lastTokenUsage.get();
+    }
+
+    @Override
+    public boolean supportsStreaming() {
+        return true;
+    }
+
+    /**
+     * 录制时请求过结构化输出才以同样的方式构造请求，否则指纹无法匹配
+     */
+    @Override
+    public boolean supportsStructuredOutput() {
+        return exchanges.values().stream().flatMap(List::stream).anyMatch(RecordedExchange::structured);
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return !exchanges.isEmpty();
+    }
+}
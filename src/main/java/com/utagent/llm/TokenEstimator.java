@@ -0,0 +1,154 @@
+package com.utagent.llm;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Local token count estimator that needs no network access.
+ * Text is pre-split with the same pattern BPE tokenizers use; words found in the bundled
+ * vocabulary count as one token, other words are split at camelCase boundaries and
+ * counted in chunks of about four characters. The result is close to, and usually
+ * slightly above, the provider's count, which is what budgeting needs.
+ */
+public class TokenEstimator {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenEstimator.class);
+    private static final String VOCAB_RESOURCE = "/tokenizer/vocab.txt";
+    private static final Pattern PRE_TOKENIZER = Pattern.compile(
+        "'(?i:[sdmt]|ll|ve|re)|[^\\r\\n\\p{L}\\p{N}]?\\p{L}+|\\p{N}{1,3}| ?[^\\s\\p{L}\\p{N}]+[\\r\\n]*|\\s*[\\r\\n]+|\\s+");
+    private static final Pattern CAMEL_CASE = Pattern.compile("(?<=\\p{Ll})(?=\\p{Lu})|(?<=\\p{Lu})(?=\\p{Lu}\\p{Ll})");
+    private static final int CHARS_PER_TOKEN = 4;
+    private static final int MESSAGE_OVERHEAD_TOKENS = 4;
+
+    private static volatile TokenEstimator instance;
+
+    private final Set<String> vocabulary;
+
+    public TokenEstimator(Set<String> vocabulary) {
+        this.vocabulary = Set.copyOf(vocabulary);
+    }
+
+    public static TokenEstimator getInstance() {
+        if (instance == null) {
+            synchronized (TokenEstimator.class) {
+                if (instance == null) {
+                    instance = new TokenEstimator(loadVocabulary());
+                }
+            }
+        }
+        return instance;
+    }
+
+    private static Set<String> loadVocabulary() {
+        Set<String> words = new HashSet<>();
+        try (InputStream in = TokenEstimator.class.getResourceAsStream(VOCAB_RESOURCE)) {
+            if (in == null) {
+                logger.warn("Tokenizer vocabulary {} not found, using character-based estimates", VOCAB_RESOURCE);
+                return words;
+            }
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String word = line.trim();
+                    if (!word.isEmpty() && !word.startsWith("#")) {
+                        words.add(word);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to load tokenizer vocabulary: {}", e.getMessage());
+        }
+        return words;
+    }
+
+    /**
+     * Estimates the number of tokens in the given text.
+     */
+    public int estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        int tokens = 0;
+        Matcher matcher = PRE_TOKENIZER.matcher(text);
+        while (matcher.find()) {
+            tokens += estimatePiece(matcher.group());
+        }
+        return tokens;
+    }
+
+    /**
+     * Estimates the prompt tokens of a message list, including per-message framing.
+     */
+    public int estimate(List<Message> messages) {
+        if (messages == null) {
+            return 0;
+        }
+        int tokens = 0;
+        for (Message message : messages) {
+            tokens += MESSAGE_OVERHEAD_TOKENS + estimate(message.content());
+        }
+        return tokens;
+    }
+
+    /**
+     * Estimates the prompt tokens a request will consume before it is sent.
+     */
+    public int estimatePromptTokens(ChatRequest request) {
+        return request != null ? estimate(request.messages()) : 0;
+    }
+
+    /**
+     * Estimates usage for a completed exchange whose provider did not report token counts,
+     * e.g. a streamed response.
+     */
+    public TokenUsage estimateUsage(ChatRequest request, String completion) {
+        int promptTokens = estimatePromptTokens(request);
+        int completionTokens = estimate(completion);
+        return new TokenUsage(promptTokens, completionTokens, promptTokens + completionTokens);
+    }
+
+    private int estimatePiece(String piece) {
+        String word = stripLeadingNonLetter(piece);
+        if (word.isEmpty()) {
+            // whitespace runs are usually one token, punctuation about two characters per token
+            String trimmed = piece.strip();
+            return trimmed.isEmpty() ? 1 : Math.max(1, (trimmed.length() + 1) / 2);
+        }
+        if (!Character.isLetter(word.charAt(0))) {
+            return 1;
+        }
+        int tokens = 0;
+        for (String part : CAMEL_CASE.split(word)) {
+            tokens += estimateWord(part);
+        }
+        return tokens;
+    }
+
+    private int estimateWord(String word) {
+        if (word.length() <= CHARS_PER_TOKEN
+            || vocabulary.contains(word)
+            || vocabulary.contains(word.toLowerCase())) {
+            return 1;
+        }
+        return (word.length() + CHARS_PER_TOKEN - 1) / CHARS_PER_TOKEN;
+    }
+
+    private String stripLeadingNonLetter(String piece) {
+        int start = 0;
+        while (start < piece.length() && !Character.isLetterOrDigit(piece.charAt(start))) {
+            start++;
+        }
+        return piece.substring(start);
+    }
+}
@@ -3,22 +3,45 @@ package com.utagent.llm;
 public record TokenUsage(
     int promptTokens,
     int completionTokens,
-    int totalTokens
+    int totalTokens,
+    int cachedPromptTokens
 ) {
+    public TokenUsage(int promptTokens, int completionTokens, int totalTokens) {
+        this(promptTokens, completionTokens, totalTokens, 0);
+    }
+
     public static TokenUsage empty() {
-        return new TokenUsage(0, 0, 0);
+        return new TokenUsage(0, 0, 0, 0);
     }
     
     public TokenUsage add(TokenUsage other) {
         return new TokenUsage(
             this.promptTokens + other.promptTokens,
             this.completionTokens + other.completionTokens,
-            this.totalTokens + other.totalTokens
+            this.totalTokens + other.totalTokens,
+            this.cachedPromptTokens + other.cachedPromptTokens
         );
     }
+
+    /**
+     * Prompt tokens that were not served from the provider-side prompt cache.
+     */
+    public int uncachedPromptTokens() {
+        return Math.max(0, promptTokens - cachedPromptTokens);
+    }
+
+    public double cacheHitRate() {
+        return promptTokens > 0 ? (double) cachedPromptTokens / promptTokens : 0.0;
+    }
     
     public double estimatedCost(double promptPrice, double completionPrice) {
         return (promptTokens * promptPrice / 1000.0) + 
                (completionTokens * completionPrice / 1000.0);
     }
+
+    public double estimatedCost(double promptPrice, double cachedPromptPrice, double completionPrice) {
+        return (uncachedPromptTokens() * promptPrice / 1000.0) +
+               (cachedPromptTokens * cachedPromptPrice / 1000.0) +
+               (completionTokens * completionPrice / 1000.0);
+    }
 }
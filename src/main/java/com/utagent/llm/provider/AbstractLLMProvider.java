@@ -4,7 +4,9 @@ import com.utagent.llm.ChatRequest;
 import com.utagent.llm.ChatResponse;
 import com.utagent.llm.LLMProvider;
 import com.utagent.llm.SslUtils;
+import com.utagent.llm.TokenEstimator;
 import com.utagent.llm.TokenUsage;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
@@ -21,6 +23,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
@@ -78,6 +81,31 @@ public abstract class AbstractLLMProvider implements LLMProvider {
         return true;
     }
 
+    /**
+     * Providers that can enforce the request's response schema override this and
+     * translate the schema in {@link #buildRequestBody(ChatRequest)}.
+     */
+    @Override
+    public boolean supportsStructuredOutput() {
+        return false;
+    }
+
+    /**
+     * The request's response schema as a JSON tree, or null when the request has none
+     * or the schema is not valid JSON.
+     */
+    protected JsonNode responseSchemaNode(ChatRequest request) {
+        if (!request.hasResponseSchema()) {
+            return null;
+        }
+        try {
+            return objectMapper.readTree(request.responseSchema());
+        } catch (IOException e) {
+            logger.warn("Ignoring invalid response schema: {}", e.getMessage());
+            return null;
+        }
+    }
+
     protected abstract String getChatEndpoint();
     
     protected abstract ObjectNode buildRequestBody(ChatRequest request);
@@ -86,6 +114,15 @@ public abstract class AbstractLLMProvider implements LLMProvider {
     
     protected abstract String extractStreamContent(String data);
     
+    /**
+     * Folds usage reported inside a stream event into the usage seen so far.
+     * Providers that report no usage while streaming keep the default, and the
+     * exchange is then counted locally when the stream closes.
+     */
+    protected TokenUsage extractStreamUsage(String data, TokenUsage reported) {
+        return reported;
+    }
+    
     protected Request.Builder createRequestBuilder() {
         return new Request.Builder()
             .addHeader("Content-Type", "application/json");
@@ -100,6 +137,19 @@ public abstract class AbstractLLMProvider implements LLMProvider {
 
     @Override
     public ChatResponse chat(ChatRequest request) {
+        return chat(request, true);
+    }
+
+    /**
+     * Called when the endpoint rejects a request with a 4xx status. Providers that send
+     * optional request features can stop sending them and return the request to retry
+     * once; the default returns null and the error is reported as is.
+     */
+    protected ChatRequest retryAfterClientError(ChatRequest request, int code, String errorBody) {
+        return null;
+    }
+
+    private ChatResponse chat(ChatRequest request, boolean retryOnClientError) {
         try {
             ObjectNode requestBody = buildRequestBody(request);
             String jsonBody = objectMapper.writeValueAsString(requestBody);
@@ -113,6 +163,12 @@ public abstract class AbstractLLMProvider implements LLMProvider {
             try (Response response = httpClient.newCall(requestBuilder.build()).execute()) {
                 if (!response.isSuccessful()) {
                     String errorBody = response.body() != null ? response.body().string() : "No error body";
+                    ChatRequest retry = retryOnClientError && response.code() >= 400 && response.code() < 500
+                        ? retryAfterClientError(request, response.code(), errorBody)
+                        : null;
+                    if (retry != null) {
+                        return chat(retry, false);
+                    }
                     logger.error("LLM API request failed: {} - {}", response.code(), errorBody);
                     return ChatResponse.error("API request failed: " + response.code() + " - " + errorBody);
                 }
@@ -133,6 +189,12 @@ public abstract class AbstractLLMProvider implements LLMProvider {
 
     @Override
     public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+        chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+    }
+
+    @Override
+    public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                           Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
         try {
             ChatRequest streamRequest = request.withStream(true);
             ObjectNode requestBody = buildRequestBody(streamRequest);
@@ -146,14 +208,26 @@ public abstract class AbstractLLMProvider implements LLMProvider {
             addAuthHeaders(requestBuilder);
 
             StringBuilder fullContent = new StringBuilder();
+            AtomicBoolean completed = new AtomicBoolean(false);
+            AtomicReference<TokenUsage> reportedUsage = new AtomicReference<>(TokenUsage.empty());
             
             EventSource.Factory factory = EventSources.createFactory(httpClient);
             EventSourceListener listener = new EventSourceListener() {
                 @Override
                 public void onEvent(EventSource eventSource, String id, String type, String data) {
+                    if (completed.get()) {
+                        return;
+                    }
+                    if (cancelled.get()) {
+                        // the caller has what it needs, stop paying for the rest of the completion
+                        eventSource.cancel();
+                        complete();
+                        return;
+                    }
                     if ("[DONE]".equals(data) || data.isEmpty()) {
                         return;
                     }
+                    reportedUsage.set(extractStreamUsage(data, reportedUsage.get()));
                     
                     String content = extractStreamContent(data);
                     if (content != null && !content.isEmpty()) {
@@ -164,20 +238,40 @@ public abstract class AbstractLLMProvider implements LLMProvider {
                 
                 @Override
                 public void onClosed(EventSource eventSource) {
-                    ChatResponse response = ChatResponse.builder()
-                        .content(fullContent.toString())
-                        .success(true)
-                        .tokenUsage(TokenUsage.empty())
-                        .build();
-                    completeConsumer.accept(response);
+                    complete();
                 }
                 
                 @Override
                 public void onFailure(EventSource eventSource, Throwable t, Response response) {
+                    if (cancelled.get()) {
+                        complete();
+                        return;
+                    }
+                    if (!completed.compareAndSet(false, true)) {
+                        return;
+                    }
                     String errorMsg = t != null ? t.getMessage() : "Unknown streaming error";
                     logger.error("Streaming error", t);
                     completeConsumer.accept(ChatResponse.error(errorMsg));
                 }
+
+                private void complete() {
+                    if (!completed.compareAndSet(false, true)) {
+                        return;
+                    }
+                    // a cancelled or usage-less stream has no final usage event, so count the exchange locally
+                    TokenUsage usage = reportedUsage.get();
+                    if (usage.totalTokens() == 0 || cancelled.get()) {
+                        usage = TokenEstimator.getInstance().estimateUsage(streamRequest, fullContent.toString());
+                    }
+                    lastTokenUsage.set(usage);
+                    ChatResponse response = ChatResponse.builder()
+                        .content(fullContent.toString())
+                        .success(true)
+                        .tokenUsage(usage)
+                        .build();
+                    completeConsumer.accept(response);
+                }
             };
             
             factory.newEventSource(requestBuilder.build(), listener);
@@ -15,7 +15,8 @@ public class ClaudeProvider extends AbstractLLMProvider {
     private static final String DEFAULT_BASE_URL = "https://api.anthropic.com/v1";
     private static final String DEFAULT_MODEL = "claude-3-sonnet-20240229";
     private static final String CHAT_ENDPOINT = "/messages";
-    private static final String API_VERSION = "2024-01-01";
+    private static final String API_VERSION = "2023-06-01";
+    private static final String RESPONSE_TOOL_NAME = "emit_test_class";
 
     public ClaudeProvider(String apiKey) {
         this(apiKey, DEFAULT_BASE_URL, DEFAULT_MODEL);
@@ -60,29 +61,57 @@ public class ClaudeProvider extends AbstractLLMProvider {
             requestBody.put("temperature", request.temperature());
         }
         
-        String systemContent = null;
+        ArrayNode systemBlocks = objectMapper.createArrayNode();
         ArrayNode messagesArray = objectMapper.createArrayNode();
+        ObjectNode previousMsgNode = null;
+        String previousRole = null;
         
-        for (var msg : request.messages()) {
+        for (int i = 0; i < request.messages().size(); i++) {
+            var msg = request.messages().get(i);
+            boolean cacheBreakpoint = request.isCacheBreakpoint(i);
             if ("system".equals(msg.role())) {
-                systemContent = msg.content();
+                addTextBlock(systemBlocks, msg.content(), cacheBreakpoint);
             } else {
-                ObjectNode msgNode = messagesArray.addObject();
-                msgNode.put("role", msg.role());
-                ObjectNode contentNode = msgNode.putArray("content").addObject();
-                contentNode.put("type", "text");
-                contentNode.put("text", msg.content());
+                // 连续的同角色消息合并为同一条消息的多个内容块，便于在稳定前缀末尾放置缓存标记
+                if (previousMsgNode == null || !msg.role().equals(previousRole)) {
+                    previousMsgNode = messagesArray.addObject();
+                    previousMsgNode.put("role", msg.role());
+                    previousMsgNode.putArray("content");
+                    previousRole = msg.role();
+                }
+                addTextBlock((ArrayNode) previousMsgNode.get("content"), msg.content(), cacheBreakpoint);
             }
         }
         
-        if (systemContent != null) {
-            requestBody.put("system", systemContent);
+        if (!systemBlocks.isEmpty()) {
+            requestBody.set("system", systemBlocks);
         }
         requestBody.set("messages", messagesArray);
         
+        JsonNode schema = responseSchemaNode(request);
+        if (schema != null) {
+            // 没有原生 JSON 模式，强制调用一个以 schema 为输入的工具，工具参数即结构化结果
+            ObjectNode tool = requestBody.putArray("tools").addObject();
+            tool.put("name", RESPONSE_TOOL_NAME);
+            tool.put("description", "Return the generated test class in structured form");
+            tool.set("input_schema", schema);
+            ObjectNode toolChoice = requestBody.putObject("tool_choice");
+            toolChoice.put("type", "tool");
+            toolChoice.put("name", RESPONSE_TOOL_NAME);
+        }
+        
         return requestBody;
     }
 
+    private void addTextBlock(ArrayNode blocks, String text, boolean cacheBreakpoint) {
+        ObjectNode contentNode = blocks.addObject();
+        contentNode.put("type", "text");
+        contentNode.put("text", text);
+        if (cacheBreakpoint) {
+            contentNode.putObject("cache_control").put("type", "ephemeral");
+        }
+    }
+
     @Override
     protected ChatResponse parseResponse(String responseBody) throws IOException {
         JsonNode responseJson = objectMapper.readTree(responseBody);
@@ -97,18 +126,16 @@ public class ClaudeProvider extends AbstractLLMProvider {
         JsonNode contentArray = responseJson.path("content");
         if (contentArray.isArray()) {
             for (JsonNode node : contentArray) {
-                if ("text".equals(node.path("type").asText())) {
+                String blockType = node.path("type").asText();
+                if ("text".equals(blockType)) {
                     content.append(node.path("text").asText());
+                } else if ("tool_use".equals(blockType) && RESPONSE_TOOL_NAME.equals(node.path("name").asText())) {
+                    content.append(objectMapper.writeValueAsString(node.path("input")));
                 }
             }
         }
         
-        JsonNode usageNode = responseJson.path("usage");
-        TokenUsage tokenUsage = new TokenUsage(
-            usageNode.path("input_tokens").asInt(0),
-            usageNode.path("output_tokens").asInt(0),
-            usageNode.path("input_tokens").asInt(0) + usageNode.path("output_tokens").asInt(0)
-        );
+        TokenUsage tokenUsage = parseUsage(responseJson.path("usage"));
         lastTokenUsage.set(tokenUsage);
         
         String model = responseJson.path("model").asText();
@@ -123,6 +150,18 @@ public class ClaudeProvider extends AbstractLLMProvider {
             .build();
     }
 
+    /**
+     * Anthropic 的 input_tokens 不包含缓存读写的 token，这里统一折算为总的 prompt token 数。
+     */
+    private TokenUsage parseUsage(JsonNode usageNode) {
+        int uncachedInput = usageNode.path("input_tokens").asInt(0);
+        int cacheWrite = usageNode.path("cache_creation_input_tokens").asInt(0);
+        int cacheRead = usageNode.path("cache_read_input_tokens").asInt(0);
+        int output = usageNode.path("output_tokens").asInt(0);
+        int promptTokens = uncachedInput + cacheWrite + cacheRead;
+        return new TokenUsage(promptTokens, output, promptTokens + output, cacheRead);
+    }
+
     @Override
     protected String extractStreamContent(String data) {
         try {
@@ -130,7 +169,11 @@ public class ClaudeProvider extends AbstractLLMProvider {
             String type = jsonNode.path("type").asText();
             
             if ("content_block_delta".equals(type)) {
-                return jsonNode.path("delta").path("text").asText("");
+                JsonNode delta = jsonNode.path("delta");
+                if ("input_json_delta".equals(delta.path("type").asText())) {
+                    return delta.path("partial_json").asText("");
+                }
+                return delta.path("text").asText("");
             }
             return "";
         } catch (Exception e) {
@@ -138,6 +181,33 @@ public class ClaudeProvider extends AbstractLLMProvider {
         }
     }
 
+    /**
+     * message_start 携带输入 token，message_delta 携带累计的输出 token
+     */
+    @Override
+    protected TokenUsage extractStreamUsage(String data, TokenUsage reported) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(data);
+            String type = jsonNode.path("type").asText();
+            if ("message_start".equals(type)) {
+                return parseUsage(jsonNode.path("message").path("usage"));
+            }
+            if ("message_delta".equals(type) && jsonNode.path("usage").has("output_tokens")) {
+                int output = jsonNode.path("usage").path("output_tokens").asInt(0);
+                return new TokenUsage(reported.promptTokens(), output,
+                    reported.promptTokens() + output, reported.cachedPromptTokens());
+            }
+            return reported;
+        } catch (Exception e) {
+            return reported;
+        }
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return true;
+    }
+
     @Override
     public boolean isAvailable() {
         return apiKey != null && !apiKey.isEmpty();
@@ -46,6 +46,14 @@ public class DeepSeekProvider extends AbstractLLMProvider {
         requestBody.put("temperature", request.temperature());
         requestBody.put("max_tokens", request.maxTokens());
         requestBody.put("stream", request.stream());
+        if (request.stream()) {
+            // ask for a final chunk carrying the usage of the streamed exchange
+            requestBody.putObject("stream_options").put("include_usage", true);
+        }
+        if (request.hasResponseSchema()) {
+            // JSON mode only: the schema itself is described in the prompt
+            requestBody.putObject("response_format").put("type", "json_object");
+        }
         
         requestBody.set("messages", buildMessagesArray(request));
         
@@ -66,7 +74,8 @@ public class DeepSeekProvider extends AbstractLLMProvider {
         TokenUsage tokenUsage = new TokenUsage(
             usageNode.path("prompt_tokens").asInt(0),
             usageNode.path("completion_tokens").asInt(0),
-            usageNode.path("total_tokens").asInt(0)
+            usageNode.path("total_tokens").asInt(0),
+            usageNode.path("prompt_cache_hit_tokens").asInt(0)
         );
         lastTokenUsage.set(tokenUsage);
         
@@ -96,6 +105,29 @@ public class DeepSeekProvider extends AbstractLLMProvider {
         }
     }
 
+    @Override
+    protected TokenUsage extractStreamUsage(String data, TokenUsage reported) {
+        try {
+            JsonNode usageNode = objectMapper.readTree(data).path("usage");
+            if (!usageNode.isObject()) {
+                return reported;
+            }
+            return new TokenUsage(
+                usageNode.path("prompt_tokens").asInt(0),
+                usageNode.path("completion_tokens").asInt(0),
+                usageNode.path("total_tokens").asInt(0),
+                usageNode.path("prompt_cache_hit_tokens").asInt(0)
+            );
+        } catch (Exception e) {
+            return reported;
+        }
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return true;
+    }
+
     @Override
     public boolean isAvailable() {
         return apiKey != null && !apiKey.isEmpty();
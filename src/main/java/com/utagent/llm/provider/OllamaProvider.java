@@ -54,6 +54,10 @@ public class OllamaProvider extends AbstractLLMProvider {
         ObjectNode optionsNode = requestBody.putObject("options");
         optionsNode.put("temperature", request.temperature());
         optionsNode.put("num_predict", request.maxTokens());
+        JsonNode schema = responseSchemaNode(request);
+        if (schema != null) {
+            requestBody.set("format", schema);
+        }
         
         requestBody.set("messages", buildMessagesArray(request));
         
@@ -103,6 +107,26 @@ public class OllamaProvider extends AbstractLLMProvider {
         }
     }
 
+    @Override
+    protected TokenUsage extractStreamUsage(String data, TokenUsage reported) {
+        try {
+            JsonNode jsonNode = objectMapper.readTree(data);
+            if (!jsonNode.path("done").asBoolean(false)) {
+                return reported;
+            }
+            int promptTokens = jsonNode.path("prompt_eval_count").asInt(0);
+            int completionTokens = jsonNode.path("eval_count").asInt(0);
+            return new TokenUsage(promptTokens, completionTokens, promptTokens + completionTokens);
+        } catch (Exception e) {
+            return reported;
+        }
+    }
+
+    @Override
+    public boolean supportsStructuredOutput() {
+        return true;
+    }
+
     @Override
     public boolean isAvailable() {
         return true;
@@ -7,12 +7,22 @@ import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class OpenAIProvider extends AbstractLLMProvider {
 
     private static final String DEFAULT_BASE_URL = "https://api.openai.com/v1";
     private static final String DEFAULT_MODEL = "gpt-4";
     private static final String CHAT_ENDPOINT = "/chat/completions";
+    private static final String RESPONSE_SCHEMA_NAME = "test_class";
+    /**
+     * Model families that accept {@code response_format: json_schema}. Older models such as
+     * gpt-4 and gpt-3.5-turbo reject it, as do many OpenAI-compatible endpoints.
+     */
+    private static final List<String> JSON_SCHEMA_MODEL_PREFIXES = List.of("gpt-4o", "gpt-4.1", "gpt-5", "o3", "o4");
+
+    private final AtomicBoolean schemaRejected = new AtomicBoolean(false);
 
     public OpenAIProvider(String apiKey) {
         this(apiKey, DEFAULT_BASE_URL, DEFAULT_MODEL);
@@ -46,6 +56,18 @@ public class OpenAIProvider extends AbstractLLMProvider {
         requestBody.put("temperature", request.temperature());
         requestBody.put("max_tokens", request.maxTokens());
         requestBody.put("stream", request.stream());
+        if (request.stream()) {
+            // ask for a final chunk carrying the usage of the streamed exchange
+            requestBody.putObject("stream_options").put("include_usage", true);
+        }
+        JsonNode schema = supportsStructuredOutput() ? responseSchemaNode(request) : null;
+        if (schema != null) {
+            ObjectNode responseFormat = requestBody.putObject("response_format");
+            responseFormat.put("type", "json_schema");
+            ObjectNode jsonSchema = responseFormat.putObject("json_schema");
+            jsonSchema.put("name", RESPONSE_SCHEMA_NAME);
+            jsonSchema.set("schema", schema);
+        }
         
         requestBody.set("messages", buildMessagesArray(request));
         
@@ -66,7 +88,8 @@ public class OpenAIProvider extends AbstractLLMProvider {
         TokenUsage tokenUsage = new TokenUsage(
             usageNode.path("prompt_tokens").asInt(0),
             usageNode.path("completion_tokens").asInt(0),
-            usageNode.path("total_tokens").asInt(0)
+            usageNode.path("total_tokens").asInt(0),
+            usageNode.path("prompt_tokens_details").path("cached_tokens").asInt(0)
         );
         lastTokenUsage.set(tokenUsage);
         
@@ -96,6 +119,51 @@ public class OpenAIProvider extends AbstractLLMProvider {
         }
     }
 
+    @Override
+    protected TokenUsage extractStreamUsage(String data, TokenUsage reported) {
+        try {
+            JsonNode usageNode = objectMapper.readTree(data).path("usage");
+            if (!usageNode.isObject()) {
+                return reported;
+            }
+            return new TokenUsage(
+                usageNode.path("prompt_tokens").asInt(0),
+                usageNode.path("completion_tokens").asInt(0),
+                usageNode.path("total_tokens").asInt(0),
+                usageNode.path("prompt_tokens_details").path("cached_tokens").asInt(0)
+            );
+        } catch (Exception e) {
+            return reported;
+        }
+    }
+
+    /**
+     * Structured output is used only for model families known to accept a JSON schema,
+     * and is turned off for the rest of the run once the endpoint rejects one.
+     */
+    @Override
+    public boolean supportsStructuredOutput() {
+        return !schemaRejected.get() && supportsJsonSchema(defaultModel);
+    }
+
+    static boolean supportsJsonSchema(String model) {
+        if (model == null) {
+            return false;
+        }
+        String name = model.toLowerCase();
+        return JSON_SCHEMA_MODEL_PREFIXES.stream().anyMatch(name::startsWith);
+    }
+
+    @Override
+    protected ChatRequest retryAfterClientError(ChatRequest request, int code, String errorBody) {
+        if (!request.hasResponseSchema() || !supportsStructuredOutput()) {
+            return null;
+        }
+        logger.warn("Endpoint rejected the response schema ({}), retrying without structured output", code);
+        schemaRejected.set(true);
+        return request;
+    }
+
     @Override
     public boolean isAvailable() {
         return apiKey != null && !apiKey.isEmpty();
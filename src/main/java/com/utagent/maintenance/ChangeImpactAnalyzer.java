@@ -1,5 +1,6 @@
 package com.utagent.maintenance;
 
+import com.utagent.parser.TestIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +21,7 @@ public class ChangeImpactAnalyzer {
     private static final Logger logger = LoggerFactory.getLogger(ChangeImpactAnalyzer.class);
 
     private final File projectRoot;
+    private TestIndex testIndex;
     private static final Pattern METHOD_PATTERN = Pattern.compile(
         "(public|private|protected)\\s+\\w+\\s+(\\w+)\\s*\\([^)]*\\)"
     );
@@ -119,39 +121,18 @@ public class ChangeImpactAnalyzer {
     private Set<String> findAffectedTests(File sourceFile, Set<String> changedMethods) {
         Set<String> affectedTests = new HashSet<>();
 
-        String className = sourceFile.getName().replace(".java", "");
-        File testDir = new File(projectRoot, "src/test/java");
-        File testFile = findTestFile(testDir, className + "Test.java");
-
-        if (testFile != null && testFile.exists()) {
-            affectedTests.add(className + "Test");
+        for (TestIndex.Entry test : getTestIndex().testsFor(sourceFile)) {
+            affectedTests.add(test.className());
         }
 
         return affectedTests;
     }
 
-    private File findTestFile(File dir, String testFileName) {
-        if (!dir.exists() || !dir.isDirectory()) {
-            return null;
-        }
-
-        File[] files = dir.listFiles();
-        if (files == null) {
-            return null;
-        }
-
-        for (File file : files) {
-            if (file.isDirectory()) {
-                File found = findTestFile(file, testFileName);
-                if (found != null) {
-                    return found;
-                }
-            } else if (file.getName().equals(testFileName)) {
-                return file;
-            }
+    private synchronized TestIndex getTestIndex() {
+        if (testIndex == null) {
+            testIndex = TestIndex.forProject(projectRoot, new File(projectRoot, "src/test/java")).refresh();
         }
-
-        return null;
+        return testIndex;
     }
 
     private boolean detectSignatureChange(String oldContent, String newContent) {
@@ -21,6 +21,22 @@ public record ClassInfo(
     boolean isRecord,
     Map<String, Object> metadata
 ) {
+    /**
+     * Metadata key of the content hash of the parsed source.
+     */
+    public static final String SOURCE_HASH = "sourceHash";
+
+    /**
+     * Metadata key set to true when the class is declared abstract.
+     */
+    public static final String ABSTRACT = "abstract";
+
+    /**
+     * Metadata key set to false when the class declares constructors but none of them
+     * is a non-private constructor without parameters.
+     */
+    public static final String NO_ARG_CONSTRUCTOR = "noArgConstructor";
+
     public ClassInfo(String packageName, String className, String fullyQualifiedName) {
         this(packageName, className, fullyQualifiedName, 
              new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
@@ -79,6 +95,29 @@ public record ClassInfo(
         return Collections.unmodifiableList(interfaces);
     }
 
+    /**
+     * Returns the content hash of the source this class was parsed from, or null if unknown.
+     */
+    public String sourceHash() {
+        Object hash = metadata != null ? metadata.get(SOURCE_HASH) : null;
+        return hash != null ? hash.toString() : null;
+    }
+
+    /**
+     * Returns true if the class is declared abstract.
+     */
+    public boolean isAbstract() {
+        return metadata != null && Boolean.TRUE.equals(metadata.get(ABSTRACT));
+    }
+
+    /**
+     * Returns true if the source declares no constructor or a visible no-argument one.
+     * Constructors generated by annotation processors are not taken into account.
+     */
+    public boolean hasNoArgConstructor() {
+        return metadata == null || !Boolean.FALSE.equals(metadata.get(NO_ARG_CONSTRUCTOR));
+    }
+
     /**
      * Returns an unmodifiable map of metadata.
      */
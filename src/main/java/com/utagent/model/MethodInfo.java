@@ -3,6 +3,8 @@ package com.utagent.model;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 public record MethodInfo(
     String name,
@@ -37,6 +39,42 @@ public record MethodInfo(
         return sb.toString();
     }
 
+    private static final Pattern DECISION_POINT =
+        Pattern.compile("\\b(?:if|for|while|case|catch)\\b|&&|\\|\\||\\s\\?\\s");
+
+    /**
+     * Approximate cyclomatic complexity: one plus the number of decision points in the body.
+     */
+    public int cyclomaticComplexity() {
+        if (body == null || body.isEmpty()) {
+            return 1;
+        }
+        int complexity = 1;
+        Matcher matcher = DECISION_POINT.matcher(body);
+        while (matcher.find()) {
+            complexity++;
+        }
+        return complexity;
+    }
+
+    private static final Pattern GETTER_BODY =
+        Pattern.compile("\\{\\s*return\\s+(?:this\\.)?\\w+\\s*;\\s*}");
+    private static final Pattern SETTER_BODY =
+        Pattern.compile("\\{\\s*(?:this\\.)?\\w+\\s*=\\s*\\w+\\s*;\\s*(?:return\\s+this\\s*;\\s*)?}");
+
+    /**
+     * Whether the body only returns a field (getter) or assigns its single parameter to a field (setter).
+     */
+    public boolean isAccessor() {
+        if (body == null) {
+            return false;
+        }
+        if (parameters.isEmpty()) {
+            return GETTER_BODY.matcher(body).matches();
+        }
+        return parameters.size() == 1 && SETTER_BODY.matcher(body).matches();
+    }
+
     public boolean hasAnnotation(String annotationName) {
         return annotations.stream()
             .anyMatch(a -> a.name().equals(annotationName) || 
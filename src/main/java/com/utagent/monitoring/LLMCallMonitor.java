@@ -1,5 +1,7 @@
 package com.utagent.monitoring;
 
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.TokenEstimator;
 import com.utagent.llm.TokenUsage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,6 +28,7 @@ public class LLMCallMonitor {
     private final AtomicLong totalPromptTokens = new AtomicLong(0);
     private final AtomicLong totalCompletionTokens = new AtomicLong(0);
     private final AtomicLong totalTokens = new AtomicLong(0);
+    private final AtomicLong totalCachedPromptTokens = new AtomicLong(0);
     
     private final List<Consumer<CallRecord>> callListeners = new ArrayList<>();
     private final List<Consumer<StreamingChunk>> streamListeners = new ArrayList<>();
@@ -63,12 +66,21 @@ public class LLMCallMonitor {
     }
 
     public CallRecord startCall(String provider, String model, String promptType) {
+        return startCall(provider, model, promptType, null);
+    }
+
+    /**
+     * Starts a call and records the locally estimated prompt tokens of the request, which
+     * are used when the provider does not report usage.
+     */
+    public CallRecord startCall(String provider, String model, String promptType, ChatRequest request) {
         CallRecord record = new CallRecord(
             totalCalls.incrementAndGet(),
             provider,
             model,
             promptType,
-            Instant.now()
+            Instant.now(),
+            TokenEstimator.getInstance().estimatePromptTokens(request)
         );
         currentCall = record;
         logger.debug("LLM call #{} started: {} - {}", record.callId, provider, promptType);
@@ -78,6 +90,22 @@ public class LLMCallMonitor {
     public void endCall(CallRecord record, TokenUsage tokenUsage, String responsePreview) {
         if (record == null) return;
         
+        if ((tokenUsage == null || tokenUsage.totalTokens() == 0) && record.estimatedPromptTokens > 0) {
+            tokenUsage = new TokenUsage(record.estimatedPromptTokens, 0, record.estimatedPromptTokens);
+        }
+        finishCall(record, tokenUsage, responsePreview);
+    }
+
+    /**
+     * Ends a call that was answered from the response cache. No tokens were spent, so the
+     * estimated prompt tokens are not substituted for the missing usage.
+     */
+    public void endCachedCall(CallRecord record, String responsePreview) {
+        if (record == null) return;
+        finishCall(record, TokenUsage.empty(), responsePreview);
+    }
+
+    private void finishCall(CallRecord record, TokenUsage tokenUsage, String responsePreview) {
         record.complete(tokenUsage, responsePreview);
         successfulCalls.incrementAndGet();
         totalLatencyMs.addAndGet(record.getLatencyMs());
@@ -86,6 +114,7 @@ public class LLMCallMonitor {
             totalPromptTokens.addAndGet(tokenUsage.promptTokens());
             totalCompletionTokens.addAndGet(tokenUsage.completionTokens());
             totalTokens.addAndGet(tokenUsage.totalTokens());
+            totalCachedPromptTokens.addAndGet(tokenUsage.cachedPromptTokens());
         }
         
         synchronized (callHistory) {
@@ -178,6 +207,15 @@ public class LLMCallMonitor {
         return totalTokens.get();
     }
 
+    public long getTotalCachedPromptTokens() {
+        return totalCachedPromptTokens.get();
+    }
+
+    public double getPromptCacheHitRate() {
+        long prompt = totalPromptTokens.get();
+        return prompt > 0 ? (double) totalCachedPromptTokens.get() / prompt : 0;
+    }
+
     public double getEstimatedCost(double promptPricePer1k, double completionPricePer1k) {
         return (totalPromptTokens.get() * promptPricePer1k / 1000.0) +
                (totalCompletionTokens.get() * completionPricePer1k / 1000.0);
@@ -207,7 +245,8 @@ public class LLMCallMonitor {
             totalPromptTokens.get(),
             totalCompletionTokens.get(),
             totalTokens.get(),
-            getEstimatedCostDefault()
+            getEstimatedCostDefault(),
+            totalCachedPromptTokens.get()
         );
     }
 
@@ -222,6 +261,7 @@ public class LLMCallMonitor {
         totalPromptTokens.set(0);
         totalCompletionTokens.set(0);
         totalTokens.set(0);
+        totalCachedPromptTokens.set(0);
         currentCall = null;
     }
 
@@ -231,18 +271,21 @@ public class LLMCallMonitor {
         private final String model;
         private final String promptType;
         private final Instant startTime;
+        private final int estimatedPromptTokens;
         private Instant endTime;
         private TokenUsage tokenUsage;
         private String responsePreview;
         private String errorMessage;
         private boolean success;
 
-        private CallRecord(int callId, String provider, String model, String promptType, Instant startTime) {
+        private CallRecord(int callId, String provider, String model, String promptType, Instant startTime,
+                           int estimatedPromptTokens) {
             this.callId = callId;
             this.provider = provider;
             this.model = model;
             this.promptType = promptType;
             this.startTime = startTime;
+            this.estimatedPromptTokens = estimatedPromptTokens;
             this.success = false;
         }
 
@@ -296,6 +339,10 @@ public class LLMCallMonitor {
             return tokenUsage;
         }
 
+        public int getEstimatedPromptTokens() {
+            return estimatedPromptTokens;
+        }
+
         public String getResponsePreview() {
             return responsePreview;
         }
@@ -325,8 +372,13 @@ public class LLMCallMonitor {
         long totalPromptTokens,
         long totalCompletionTokens,
         long totalTokens,
-        double estimatedCost
+        double estimatedCost,
+        long totalCachedPromptTokens
     ) {
+        public double promptCacheHitRate() {
+            return totalPromptTokens > 0 ? (double) totalCachedPromptTokens / totalPromptTokens : 0;
+        }
+
         public String getFormattedLatency() {
             if (totalLatencyMs < 1000) {
                 return totalLatencyMs + "ms";
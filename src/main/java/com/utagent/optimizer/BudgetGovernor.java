@@ -0,0 +1,253 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * 目录运行的全局预算调度：限制整个运行的 token 总量和耗时。
+ * 开始时按各类预估的 token 用量分配初始配额，并留出一部分预算；
+ * 第一轮结束后把剩余预算按预期的每 token 覆盖率收益从高到低重新分配给未达标的类，
+ * 预算耗尽时停止处理并报告剩余情况。token 按生成器的累计用量统计，并行运行时也是全局准确的
+ */
+public class BudgetGovernor {
+
+    static final double INITIAL_ALLOCATION_SHARE = 0.8;
+    static final int REINVEST_ITERATIONS = 2;
+    static final int PRIOR_LINES_PER_ITERATION = 10;
+    private static final long DEFAULT_ITERATION_TOKENS = 2_000;
+
+    private final long tokenBudget;
+    private final Duration timeBudget;
+    private final Map<String, Long> quotas = new ConcurrentHashMap<>();
+    private final Map<String, Long> estimates = new ConcurrentHashMap<>();
+    private final Map<String, Long> charged = new ConcurrentHashMap<>();
+    private final AtomicInteger skippedClasses = new AtomicInteger();
+    private final AtomicInteger reinvestedClasses = new AtomicInteger();
+
+    private LongSupplier tokenCounter = () -> 0L;
+    private long tokenBaseline;
+    private long startNanos = System.nanoTime();
+
+    /**
+     * @param tokenBudget 整个运行最多消耗的 token，0 表示不限制
+     * @param timeBudget  整个运行最长耗时，null 表示不限制
+     */
+    public BudgetGovernor(long tokenBudget, Duration timeBudget) {
+        this.tokenBudget = Math.max(0, tokenBudget);
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * 绑定 token 计数器并开始计时，此后消耗的 token 计入预算
+     */
+    public synchronized void start(LongSupplier tokenCounter) {
+        this.tokenCounter = tokenCounter;
+        this.tokenBaseline = tokenCounter.getAsLong();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * 按预估用量的比例分配初始配额，预估为 0 的类（模板生成）不占配额
+     *
+     * @param estimatedTokens 每个源文件首轮加后续迭代的预估 token
+     */
+    public void allocate(Map<File, Long> estimatedTokens) {
+        long total = estimatedTokens.values().stream().mapToLong(Long::longValue).sum();
+        estimatedTokens.forEach((file, estimate) -> {
+            estimates.put(key(file), estimate);
+            if (tokenBudget > 0 && total > 0) {
+                long share = (long) (tokenBudget * INITIAL_ALLOCATION_SHARE * estimate / total);
+                quotas.put(key(file), Math.min(estimate, share));
+            }
+        });
+    }
+
+    public long tokensSpent() {
+        return tokenCounter.getAsLong() - tokenBaseline;
+    }
+
+    public long tokensRemaining() {
+        return tokenBudget > 0 ? Math.max(0, tokenBudget - tokensSpent()) : Long.MAX_VALUE;
+    }
+
+    public Duration elapsed() {
+        return Duration.ofNanos(System.nanoTime() - startNanos);
+    }
+
+    public boolean isExhausted() {
+        return tokenBudget > 0 && tokensSpent() >= tokenBudget
+            || timeBudget != null && elapsed().compareTo(timeBudget) >= 0;
+    }
+
+    /**
+     * 类开始前判断是否还有预算，没有时记为跳过
+     */
+    public boolean admit(File sourceFile) {
+        if (isExhausted()) {
+            skippedClasses.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 把在类自身流程之外为它消耗的 token（例如批量预生成中分摊的部分）计入该类的配额
+     */
+    public void charge(File sourceFile, long tokens) {
+        if (tokens > 0) {
+            charged.merge(key(sourceFile), tokens, Long::sum);
+        }
+    }
+
+    public long chargedTokens(File sourceFile) {
+        return charged.getOrDefault(key(sourceFile), 0L);
+    }
+
+    /**
+     * 因预算耗尽而未处理的类的结果
+     */
+    public OptimizationResult skipped(File sourceFile) {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(sourceFile);
+        result.setSuccess(false);
+        result.setStopReason(StopReason.BUDGET_EXHAUSTED);
+        result.setErrorMessage("Run budget exhausted before the class was processed");
+        return result;
+    }
+
+    /**
+     * 下一轮迭代前检查：全局预算耗尽或该类已用完配额时返回停止原因
+     *
+     * @param classTokensSpent 该类到目前为止消耗的 token
+     */
+    public StopReason checkIteration(File sourceFile, long classTokensSpent) {
+        if (isExhausted()) {
+            return StopReason.BUDGET_EXHAUSTED;
+        }
+        Long quota = quotas.get(key(sourceFile));
+        long spent = classTokensSpent + chargedTokens(sourceFile);
+        return quota != null && spent >= quota ? StopReason.QUOTA_EXHAUSTED : null;
+    }
+
+    /**
+     * 选出值得追加预算的类并按预期收益排序：只包括未达标且因配额用完而停止的类，
+     * 停滞、不可达或无未覆盖代码的类再投入也没有收益
+     */
+    public List<OptimizationResult> reinvestmentCandidates(List<OptimizationResult> results) {
+        List<OptimizationResult> candidates = new ArrayList<>();
+        for (OptimizationResult result : results) {
+            if (!result.isSuccess() && result.getStopReason() == StopReason.QUOTA_EXHAUSTED
+                    && result.getSourceFile() != null) {
+                candidates.add(result);
+            }
+        }
+        candidates.sort(Comparator.comparingDouble(this::expectedLinesPerToken).reversed());
+        return candidates;
+    }
+
+    /**
+     * 为追加一轮优化授予配额：几轮迭代的预估用量，不超过剩余预算
+     *
+     * @return 是否授予成功，剩余预算不足时为 false
+     */
+    public boolean grant(OptimizationResult result) {
+        long remaining = tokensRemaining();
+        if (isExhausted() || remaining <= 0) {
+            return false;
+        }
+        long grant = Math.min(remaining, REINVEST_ITERATIONS * iterationTokens(result));
+        // 配额按该类在追加运行中的消耗计算
+        quotas.put(key(result.getSourceFile()), grant);
+        charged.remove(key(result.getSourceFile()));
+        reinvestedClasses.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * 预期每 token 覆盖的行数：有迭代记录时用最近一轮实际的覆盖行数和 token，
+     * 否则按未覆盖行数和类的预估用量估算
+     */
+    double expectedLinesPerToken(OptimizationResult result) {
+        CoverageInfo classCoverage = classCoverage(result.getFinalCoverage(), result);
+        int lineCount = classCoverage != null ? classCoverage.lineCount() : 0;
+        int uncoveredLines = classCoverage != null ? classCoverage.lineMissed() : 0;
+        if (uncoveredLines == 0) {
+            return 0.0;
+        }
+
+        List<IterationStats> stats = result.getIterationStats();
+        for (int i = stats.size() - 1; i >= 0; i--) {
+            IterationStats last = stats.get(i);
+            if (last.tokens() > 0) {
+                return Math.max(0.0, last.coverageDelta()) * lineCount / last.tokens();
+            }
+        }
+        return (double) Math.min(uncoveredLines, PRIOR_LINES_PER_ITERATION) / iterationTokens(result);
+    }
+
+    private long iterationTokens(OptimizationResult result) {
+        long iterationTokens = (long) result.getIterationStats().stream()
+            .mapToLong(IterationStats::tokens)
+            .filter(tokens -> tokens > 0)
+            .average()
+            .orElse(0);
+        if (iterationTokens > 0) {
+            return iterationTokens;
+        }
+        long estimate = estimates.getOrDefault(key(result.getSourceFile()), 0L);
+        return estimate > 0 ? estimate : DEFAULT_ITERATION_TOKENS;
+    }
+
+    private static CoverageInfo classCoverage(CoverageReport report, OptimizationResult result) {
+        if (report == null || result.getClassInfo() == null) {
+            return null;
+        }
+        String fqn = result.getClassInfo().fullyQualifiedName();
+        String simpleName = result.getClassInfo().className();
+        return report.classCoverages().stream()
+            .filter(info -> info.methodName() != null && info.methodName().isEmpty())
+            .filter(info -> info.className().equals(fqn) || info.className().equals(simpleName))
+            .findFirst()
+            .orElse(null);
+    }
+
+    public int getSkippedClasses() {
+        return skippedClasses.get();
+    }
+
+    public int getReinvestedClasses() {
+        return reinvestedClasses.get();
+    }
+
+    public String getSummary() {
+        StringBuilder sb = new StringBuilder("Budget: ");
+        sb.append(tokensSpent()).append(" tokens");
+        if (tokenBudget > 0) {
+            sb.append(" of ").append(tokenBudget).append(" (").append(tokensRemaining()).append(" left)");
+        }
+        Duration elapsed = elapsed();
+        sb.append(String.format(", %dm %ds", elapsed.toMinutes(), elapsed.toSecondsPart()));
+        if (timeBudget != null) {
+            Duration left = timeBudget.minus(elapsed);
+            sb.append(String.format(" of %dm (%dm left)", timeBudget.toMinutes(),
+                left.isNegative() ? 0 : left.toMinutes()));
+        }
+        sb.append(", ").append(reinvestedClasses.get()).append(" classes given extra budget");
+        sb.append(", ").append(skippedClasses.get()).append(" classes skipped");
+        return sb.toString();
+    }
+
+    private static String key(File file) {
+        return file.getAbsolutePath();
+    }
+}
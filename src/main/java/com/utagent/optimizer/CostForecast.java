@@ -0,0 +1,33 @@
+package com.utagent.optimizer;
+
+import java.time.Duration;
+
+/**
+ * Up-front estimate of the LLM usage, cost and wall-clock time of optimizing a set of classes,
+ * computed with the local token estimator before any request is sent.
+ */
+public record CostForecast(
+    int classCount,
+    int llmCalls,
+    long promptTokens,
+    long completionTokens,
+    double estimatedCost,
+    Duration estimatedDuration
+) {
+    public static CostForecast empty() {
+        return new CostForecast(0, 0, 0, 0, 0.0, Duration.ZERO);
+    }
+
+    public long totalTokens() {
+        return promptTokens + completionTokens;
+    }
+
+    public String getSummary() {
+        long minutes = estimatedDuration.toMinutes();
+        long seconds = estimatedDuration.toSecondsPart();
+        return String.format("Forecast: %d classes, ~%d LLM calls, ~%d tokens (%d prompt / %d completion), "
+                + "~$%.4f, ~%dm %ds",
+            classCount, llmCalls, totalTokens(), promptTokens, completionTokens,
+            estimatedCost, minutes, seconds);
+    }
+}
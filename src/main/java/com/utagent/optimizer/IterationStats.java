@@ -0,0 +1,20 @@
+package com.utagent.optimizer;
+
+import java.time.Duration;
+
+/**
+ * Coverage and cost of one optimization iteration. Iterations whose tests were discarded
+ * before a coverage run keep the previous coverage and a zero delta.
+ *
+ * @param lineCoverage  line coverage of the class after the iteration
+ * @param coverageDelta change of the line coverage caused by the iteration
+ * @param tokens        LLM tokens spent in the iteration
+ */
+public record IterationStats(
+    int iteration,
+    double lineCoverage,
+    double coverageDelta,
+    long tokens,
+    Duration duration
+) {
+}
@@ -2,11 +2,20 @@ package com.utagent.optimizer;
 
 import com.utagent.build.BuildToolAdapter;
 import com.utagent.build.BuildToolDetector;
+import com.utagent.build.InMemoryJavaCompiler;
+import com.utagent.build.TestCompilationGate;
+import com.utagent.build.TestResultParser;
 import com.utagent.coverage.CoverageAnalyzer;
 import com.utagent.exception.GenerationException;
 import com.utagent.exception.ParseException;
 import com.utagent.exception.UTAgentException;
+import com.utagent.generator.BatchTestGenerator;
+import com.utagent.generator.CandidateTestGenerator;
+import com.utagent.generator.CompilationRepairer;
+import com.utagent.generator.ShardedTestGenerator;
 import com.utagent.generator.TestGenerator;
+import com.utagent.generator.llm.ConversationSession;
+import com.utagent.generator.llm.StreamingTestMethodExtractor;
 import com.utagent.llm.TokenUsage;
 import com.utagent.model.ClassInfo;
 import com.utagent.model.CoverageInfo;
@@ -18,6 +27,7 @@ import com.utagent.monitoring.GenerationProgress;
 import com.utagent.monitoring.LLMCallMonitor;
 import com.utagent.parser.JavaCodeParser;
 import com.utagent.parser.TestFileParser;
+import com.utagent.parser.TestIndex;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,17 +36,34 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
 
 public class IterativeOptimizer implements TestOptimizer {
 
     private static final Logger logger = LoggerFactory.getLogger(IterativeOptimizer.class);
+    private static final int EXPECTED_FOLLOW_UP_ITERATIONS = 2;
+    private static final int FOLLOW_UP_DELTA_TOKENS = 300;
+    private static final int FOLLOW_UP_COMPLETION_DIVISOR = 3;
+    private static final double DEFAULT_PROMPT_PRICE_PER_1K = 0.01;
+    private static final double DEFAULT_COMPLETION_PRICE_PER_1K = 0.03;
+    private static final long DEFAULT_CALL_OVERHEAD_MS = 2_000;
+    private static final long DEFAULT_COMPLETION_TOKENS_PER_SECOND = 40;
+    private static final long DEFAULT_TEST_RUN_MS = 30_000;
+    private static final int STREAMED_TESTS_PER_COVERAGE_RUN = 3;
 
     private final JavaCodeParser codeParser;
     private final TestGenerator testGenerator;
@@ -56,6 +83,26 @@ public class IterativeOptimizer implements TestOptimizer {
     private GenerationProgress generationProgress;
     private boolean incrementalMode = true;
     private final TestFileParser testFileParser;
+    private final BatchTestGenerator batchTestGenerator;
+    private final ShardedTestGenerator shardedTestGenerator;
+    private final CandidateTestGenerator candidateTestGenerator;
+    private final Map<String, String> pregeneratedTests = new ConcurrentHashMap<>();
+    private boolean streamingMode = false;
+    private int candidateCount = CandidateTestGenerator.DEFAULT_CANDIDATE_COUNT;
+    private final CompilationRepairer compilationRepairer;
+    private final TestResultParser testResultParser = new TestResultParser();
+    private final TestQuarantine testQuarantine = new TestQuarantine();
+    private final Map<String, File> measuredTestFiles = new ConcurrentHashMap<>();
+    private int repairAttempts = CompilationRepairer.DEFAULT_MAX_ATTEMPTS;
+    private InMemoryJavaCompiler inMemoryCompiler;
+    private TestCompilationGate compilationGate;
+    private TestIndex testIndex;
+    private StoppingPolicy stoppingPolicy = new StoppingPolicy();
+    private BudgetGovernor budgetGovernor;
+    private int targetTokenBudget = UncoveredTargetSelector.DEFAULT_TOKEN_BUDGET;
+    private RunJournal runJournal;
+    private final AtomicBoolean baselineCoverageLoaded = new AtomicBoolean(false);
+    private boolean resume;
 
     /**
      * 全依赖注入构造函数，便于测试和灵活配置
@@ -76,6 +123,10 @@ public class IterativeOptimizer implements TestOptimizer {
         this.currentIteration.set(0);
         this.verbose = true;
         this.testFileParser = new TestFileParser();
+        this.batchTestGenerator = new BatchTestGenerator(testGenerator);
+        this.shardedTestGenerator = new ShardedTestGenerator(testGenerator);
+        this.candidateTestGenerator = new CandidateTestGenerator(testGenerator);
+        this.compilationRepairer = new CompilationRepairer(testGenerator);
 
         logger.info("Detected build tool: {}", this.buildToolAdapter.name());
     }
@@ -141,6 +192,107 @@ public class IterativeOptimizer implements TestOptimizer {
         return this;
     }
     
+    /**
+     * 启用后初始测试以流式方式生成，测试方法边到达边编译、边测量覆盖率
+     */
+    public IterativeOptimizer setStreamingMode(boolean streamingMode) {
+        this.streamingMode = streamingMode;
+        return this;
+    }
+
+    /**
+     * 首轮生成时请求的候选测试类数量，大于 1 时合并各候选中互补的测试，减少后续迭代次数
+     */
+    public IterativeOptimizer setCandidateCount(int candidateCount) {
+        this.candidateCount = Math.max(1, candidateCount);
+        return this;
+    }
+
+    public int getCandidateCount() {
+        return candidateCount;
+    }
+
+    public IterativeOptimizer setRepairAttempts(int repairAttempts) {
+        this.repairAttempts = Math.max(0, repairAttempts);
+        return this;
+    }
+
+    public int getRepairAttempts() {
+        return repairAttempts;
+    }
+
+    /**
+     * 覆盖率停滞、收益递减或剩余代码不可达时提前结束迭代的策略
+     */
+    public IterativeOptimizer setStoppingPolicy(StoppingPolicy stoppingPolicy) {
+        this.stoppingPolicy = stoppingPolicy != null ? stoppingPolicy : StoppingPolicy.disabled();
+        return this;
+    }
+
+    public StoppingPolicy getStoppingPolicy() {
+        return stoppingPolicy;
+    }
+
+    /**
+     * 目录运行的全局 token 和时间预算，为 null 时不限制
+     */
+    public IterativeOptimizer setBudgetGovernor(BudgetGovernor budgetGovernor) {
+        this.budgetGovernor = budgetGovernor;
+        return this;
+    }
+
+    public BudgetGovernor getBudgetGovernor() {
+        return budgetGovernor;
+    }
+
+    /**
+     * 提示词中类上下文的 token 预算，超出预算的方法只保留签名或省略
+     */
+    public IterativeOptimizer setContextTokenBudget(int maxContextTokens) {
+        testGenerator.setContextTokenBudget(maxContextTokens);
+        return this;
+    }
+
+    /**
+     * 每轮迭代提示词中未覆盖代码目标的 token 预算，0 表示发送全部未覆盖的方法
+     */
+    public IterativeOptimizer setTargetTokenBudget(int targetTokenBudget) {
+        this.targetTokenBudget = Math.max(0, targetTokenBudget);
+        return this;
+    }
+
+    public int getTargetTokenBudget() {
+        return targetTokenBudget;
+    }
+
+    /**
+     * 目录运行时从项目下的运行日志继续：跳过已完成的类，进行中的类从最后一次通过构建的测试文件继续
+     */
+    public IterativeOptimizer setResume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+
+    public boolean isResume() {
+        return resume;
+    }
+
+    /**
+     * 目录运行的日志，默认写到项目下的 {@link RunJournal#DEFAULT_JOURNAL_FILE}
+     */
+    public IterativeOptimizer setRunJournal(RunJournal runJournal) {
+        this.runJournal = runJournal;
+        return this;
+    }
+
+    public RunJournal getRunJournal() {
+        return runJournal;
+    }
+
+    public boolean isStreamingMode() {
+        return streamingMode;
+    }
+
     public boolean isIncrementalMode() {
         return incrementalMode;
     }
@@ -154,6 +306,7 @@ public class IterativeOptimizer implements TestOptimizer {
     }
 
     public OptimizationResult optimize(File sourceFile, File existingTestFile) {
+        loadBaselineCoverage();
         if (incrementalMode && existingTestFile == null) {
             existingTestFile = findExistingTestFile(sourceFile);
         }
@@ -165,14 +318,32 @@ public class IterativeOptimizer implements TestOptimizer {
         return optimizeFull(sourceFile);
     }
 
+    /**
+     * 在本次运行的第一次构建之前读取项目已有的覆盖率报告，作为首轮提示词中方法排序的依据
+     */
+    private void loadBaselineCoverage() {
+        if (baselineCoverageLoaded.compareAndSet(false, true)) {
+            testGenerator.setBaselineCoverage(readCoverage());
+        }
+    }
+
     private File findExistingTestFile(File sourceFile) {
-        File testSourceDir = buildToolAdapter.getTestSourceDirectory(projectRoot);
-        if (testSourceDir == null) {
-            testSourceDir = new File(projectRoot, "src/test/java");
+        return getTestIndex().findTestFile(sourceFile).filter(File::exists).orElse(null);
+    }
+
+    /**
+     * 源类到测试类的索引，整个运行期间只遍历一次测试目录，并按修改时间增量持久化到项目下
+     */
+    private synchronized TestIndex getTestIndex() {
+        if (testIndex == null) {
+            testIndex = TestIndex.forProject(projectRoot, getTestSourceDirectory());
         }
-        
-        Optional<File> existingTest = testFileParser.findExistingTestFile(sourceFile, testSourceDir);
-        return existingTest.orElse(null);
+        return testIndex;
+    }
+
+    private File getTestSourceDirectory() {
+        File testSourceDir = buildToolAdapter.getTestSourceDirectory(projectRoot);
+        return testSourceDir != null ? testSourceDir : new File(projectRoot, "src/test/java");
     }
 
     public OptimizationResult optimizeIncremental(File sourceFile, File existingTestFile) {
@@ -206,6 +377,8 @@ public class IterativeOptimizer implements TestOptimizer {
         
         ClassInfo classInfo = parsedClass.get();
         result.setClassInfo(classInfo);
+        long classTokensStart = testGenerator.getClassTokens(classInfo);
+        journal(journal -> journal.parsed(sourceFile));
         
         Optional<ParsedTestFile> parsedTestOpt = testFileParser.parse(existingTestFile);
         if (parsedTestOpt.isEmpty()) {
@@ -219,44 +392,80 @@ public class IterativeOptimizer implements TestOptimizer {
         logger.info("Found {} existing test methods in {}", 
                    existingTests.getTestMethodCount(), existingTestFile.getName());
         
+        TestFileModel testModel;
+        try {
+            testModel = TestFileModel.load(existingTestFile);
+        } catch (IOException e) {
+            logger.warn("Failed to read existing test file, falling back to full generation");
+            return optimizeFull(sourceFile);
+        }
+        String sourceText = readSource(sourceFile);
+        
         generationProgress.setPhase(GenerationPhase.TEST_GENERATION, "Generating incremental tests");
         notifyProgressUpdate();
         
-        String additionalTests = testGenerator.generateIncrementalTests(classInfo, existingTests, List.of());
+        // 每个类一个多轮会话：首轮请求和生成的测试作为历史，后续迭代只发送覆盖率变化
+        ConversationSession session = testGenerator.openSession(classInfo);
+        String additionalTests = testGenerator.generateIncrementalTests(
+            classInfo, existingTests, testGenerator.baselineUncovered(classInfo), session);
         
         TokenUsage tokenUsage = testGenerator.getTotalTokenUsage();
         generationProgress.addTokenUsage(tokenUsage);
         generationProgress.incrementLlmCalls();
         
-        File testFile;
+        File testFile = existingTestFile;
         if (additionalTests != null && !additionalTests.trim().isEmpty()) {
             generationProgress.setPhase(GenerationPhase.WRITING_TEST, "Merging test file");
             notifyProgressUpdate();
             
-            testFile = mergeTestFile(existingTestFile, additionalTests);
-            result.setAddedTestMethods(extractMethodNames(additionalTests));
+            result.setAddedTestMethods(testModel.merge(additionalTests));
             notifyProgress("Merged additional tests into existing test file");
         } else {
-            testFile = existingTestFile;
             notifyProgress("No additional tests needed - existing tests are sufficient");
         }
         
         result.setGeneratedTestFile(testFile);
         
-        generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
-        notifyProgressUpdate();
-        
-        CoverageReport currentCoverage = runTestsAndGetCoverage();
-        result.addCoverageReport(currentIteration.get(), currentCoverage);
+        CoverageReport currentCoverage;
+        if (checkCompilation(classInfo, session, sourceText, testModel).blocksBuild()) {
+            currentCoverage = new CoverageReport();
+        } else {
+            generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
+            notifyProgressUpdate();
+            
+            currentCoverage = runTestsAndGetCoverage(classInfo, testModel);
+        }
+        result.addCoverageReport(0, currentCoverage);
+        journalProgress(sourceFile, 0, classInfo, currentCoverage, testModel);
         
         generationProgress.setCoverage(currentCoverage);
         generationProgress.setPhase(GenerationPhase.COVERAGE_ANALYSIS, "Analyzing coverage");
         notifyProgressUpdate();
         
         notifyCoverage(currentCoverage);
+        if (!meetsTarget(currentCoverage)) {
+            // 首轮测试未能编译或未达目标，该类后续请求由模型路由升级到大模型
+            testGenerator.recordGenerationFailure(classInfo);
+        }
         
-        while (!meetsTarget(currentCoverage) && currentIteration.get() < maxIterations) {
-            int iteration = currentIteration.incrementAndGet();
+        UncoveredTargetSelector targetSelector = new UncoveredTargetSelector(
+            targetTokenBudget, UncoveredTargetSelector.DEFAULT_MAX_FAILURES);
+        // 迭代次数按类计数，优化器在多个类之间（包括并行和追加预算时）共用
+        int iterations = 0;
+        currentIteration.set(0);
+        while (!meetsTarget(currentCoverage) && iterations < maxIterations) {
+            Optional<StopReason> stop = stoppingPolicy.evaluate(result, currentCoverage, classInfo,
+                targetCoverage, maxIterations - iterations)
+                .or(() -> checkBudget(sourceFile, classInfo, classTokensStart));
+            if (stop.isPresent()) {
+                result.setStopReason(stop.get());
+                notifyProgress("Stopping early: " + stop.get().label());
+                break;
+            }
+            int iteration = ++iterations;
+            currentIteration.set(iteration);
+            long iterationStart = System.nanoTime();
+            long tokensBefore = testGenerator.getClassTokens(classInfo);
             generationProgress.setIteration(iteration);
             generationProgress.setPhase(GenerationPhase.OPTIMIZATION, 
                 "Optimization iteration " + iteration,
@@ -266,34 +475,45 @@ public class IterativeOptimizer implements TestOptimizer {
             notifyProgress("Iteration " + iteration + ": Current coverage " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
             
-            List<CoverageInfo> uncoveredInfo = getUncoveredInfo(currentCoverage, classInfo);
+            List<CoverageInfo> uncoveredInfo = targetSelector.select(currentCoverage, classInfo);
             
             if (uncoveredInfo.isEmpty()) {
-                notifyProgress("No more uncovered code to improve");
+                StopReason reason = UncoveredTargetSelector.uncoveredTargets(currentCoverage, classInfo).isEmpty()
+                    ? StopReason.NO_UNCOVERED_CODE : StopReason.TARGETS_EXHAUSTED;
+                result.setStopReason(reason);
+                notifyProgress(reason.label());
                 break;
             }
             
             generationProgress.setPhase(GenerationPhase.LLM_CALL, "Generating additional tests");
             notifyProgressUpdate();
             
-            Set<String> existingMethodNames = getExistingTestMethodNames(testFile);
-            String moreTests = testGenerator.generateAdditionalTestsAvoidingDuplicates(
-                classInfo, uncoveredInfo, existingMethodNames);
+            Set<String> existingMethodNames = testModel.testMethodNames();
+            String moreTests = testGenerator.generateFollowUpTests(
+                session, uncoveredInfo, currentCoverage.overallLineCoverage(), existingMethodNames);
             
             tokenUsage = testGenerator.getTotalTokenUsage();
             generationProgress.addTokenUsage(tokenUsage);
             generationProgress.incrementLlmCalls();
             
-            if (moreTests != null && !moreTests.isEmpty()) {
-                appendTestsToFile(testFile, moreTests);
-                notifyProgress("Added additional tests for uncovered code");
+            if (appendCompilingTests(classInfo, session, sourceText, testModel, moreTests).isEmpty()) {
+                recordIteration(result, iteration, classInfo, currentCoverage, currentCoverage,
+                    tokensBefore, iterationStart);
+                targetSelector.recordOutcome(uncoveredInfo, currentCoverage, classInfo);
+                continue;
             }
+            notifyProgress("Added additional tests for uncovered code");
             
             generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
             notifyProgressUpdate();
             
-            currentCoverage = runTestsAndGetCoverage();
-            result.addCoverageReport(currentIteration.get(), currentCoverage);
+            CoverageReport previousCoverage = currentCoverage;
+            currentCoverage = runTestsAndGetCoverage(classInfo, testModel);
+            result.addCoverageReport(iteration, currentCoverage);
+            recordIteration(result, iteration, classInfo, previousCoverage, currentCoverage,
+                tokensBefore, iterationStart);
+            targetSelector.recordOutcome(uncoveredInfo, currentCoverage, classInfo);
+            journalProgress(sourceFile, iteration, classInfo, currentCoverage, testModel);
             
             generationProgress.setCoverage(currentCoverage);
             generationProgress.setPhase(GenerationPhase.COVERAGE_ANALYSIS, "Analyzing coverage");
@@ -302,17 +522,24 @@ public class IterativeOptimizer implements TestOptimizer {
             notifyCoverage(currentCoverage);
         }
         
+        flushTestModel(classInfo, testModel);
+        getTestIndex().update(testModel.getFile());
         result.setFinalCoverage(currentCoverage);
         result.setSuccess(meetsTarget(currentCoverage));
-        result.setIterations(currentIteration.get());
+        result.setIterations(iterations);
+        if (result.isSuccess()) {
+            result.setStopReason(StopReason.TARGET_REACHED);
+        } else if (result.getStopReason() == null) {
+            result.setStopReason(StopReason.MAX_ITERATIONS);
+        }
         
         if (result.isSuccess()) {
             generationProgress.setPhase(GenerationPhase.COMPLETED, "Target coverage achieved");
             notifyProgress("Target coverage achieved: " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
         } else {
-            generationProgress.setPhase(GenerationPhase.COMPLETED, "Max iterations reached");
-            notifyProgress("Max iterations reached. Final coverage: " + 
+            generationProgress.setPhase(GenerationPhase.COMPLETED, result.getStopReason().label());
+            notifyProgress(result.getStopReason().label() + ". Final coverage: " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
         }
         
@@ -351,10 +578,30 @@ public class IterativeOptimizer implements TestOptimizer {
         
         ClassInfo classInfo = parsedClass.get();
         result.setClassInfo(classInfo);
+        long classTokensStart = testGenerator.getClassTokens(classInfo);
+        journal(journal -> journal.parsed(sourceFile));
         generationProgress.setPhase(GenerationPhase.TEST_GENERATION, "Generating initial tests");
         notifyProgressUpdate();
         
-        String testCode = testGenerator.generateTestClass(classInfo);
+        ConversationSession session = testGenerator.openSession(classInfo);
+        String sourceText = readSource(sourceFile);
+        String testCode = pregeneratedTests.remove(classInfo.fullyQualifiedName());
+        if (testCode == null && shardedTestGenerator.shouldShard(classInfo)) {
+            testCode = shardedTestGenerator.generate(classInfo);
+        }
+        CoverageReport streamedCoverage = null;
+        if (testCode == null && candidateTestGenerator.shouldGenerateCandidates(classInfo, candidateCount)) {
+            testCode = candidateTestGenerator.generate(classInfo, session, candidateCount, getCompilationGate(),
+                sourceText);
+        }
+        if (testCode == null && streamingMode) {
+            StreamingOutcome outcome = generateInitialTestsStreaming(classInfo, session);
+            testCode = outcome.testCode();
+            streamedCoverage = outcome.coverage();
+        }
+        if (testCode == null) {
+            testCode = testGenerator.generateTestClass(classInfo, session);
+        }
         
         TokenUsage tokenUsage = testGenerator.getTotalTokenUsage();
         generationProgress.addTokenUsage(tokenUsage);
@@ -363,29 +610,57 @@ public class IterativeOptimizer implements TestOptimizer {
         generationProgress.setPhase(GenerationPhase.WRITING_TEST, "Writing test file");
         notifyProgressUpdate();
         
-        File testFile = writeTestFile(classInfo, testCode);
+        TestFileModel testModel = TestFileModel.create(determineTestPath(classInfo).toFile(), testCode);
+        File testFile = testModel.getFile();
         result.setGeneratedTestFile(testFile);
         
-        int methodCount = countTestMethods(testCode);
+        int methodCount = testModel.testMethodNames().size();
         generationProgress.incrementTestMethods(methodCount);
         generationProgress.incrementTestClasses();
         
         notifyProgress("Generated initial test file: " + testFile.getName());
         
-        generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
-        notifyProgressUpdate();
-        
-        CoverageReport currentCoverage = runTestsAndGetCoverage();
-        result.addCoverageReport(currentIteration.get(), currentCoverage);
+        CoverageReport currentCoverage = streamedCoverage;
+        if (currentCoverage == null && checkCompilation(classInfo, session, sourceText, testModel).blocksBuild()) {
+            currentCoverage = new CoverageReport();
+        }
+        if (currentCoverage == null) {
+            generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
+            notifyProgressUpdate();
+            
+            currentCoverage = runTestsAndGetCoverage(classInfo, testModel);
+        }
+        result.addCoverageReport(0, currentCoverage);
+        journalProgress(sourceFile, 0, classInfo, currentCoverage, testModel);
         
         generationProgress.setCoverage(currentCoverage);
         generationProgress.setPhase(GenerationPhase.COVERAGE_ANALYSIS, "Analyzing coverage");
         notifyProgressUpdate();
         
         notifyCoverage(currentCoverage);
+        if (!meetsTarget(currentCoverage)) {
+            // 首轮测试未能编译或未达目标，该类后续请求由模型路由升级到大模型
+            testGenerator.recordGenerationFailure(classInfo);
+        }
         
-        while (!meetsTarget(currentCoverage) && currentIteration.get() < maxIterations) {
-            int iteration = currentIteration.incrementAndGet();
+        UncoveredTargetSelector targetSelector = new UncoveredTargetSelector(
+            targetTokenBudget, UncoveredTargetSelector.DEFAULT_MAX_FAILURES);
+        // 迭代次数按类计数，优化器在多个类之间（包括并行和追加预算时）共用
+        int iterations = 0;
+        currentIteration.set(0);
+        while (!meetsTarget(currentCoverage) && iterations < maxIterations) {
+            Optional<StopReason> stop = stoppingPolicy.evaluate(result, currentCoverage, classInfo,
+                targetCoverage, maxIterations - iterations)
+                .or(() -> checkBudget(sourceFile, classInfo, classTokensStart));
+            if (stop.isPresent()) {
+                result.setStopReason(stop.get());
+                notifyProgress("Stopping early: " + stop.get().label());
+                break;
+            }
+            int iteration = ++iterations;
+            currentIteration.set(iteration);
+            long iterationStart = System.nanoTime();
+            long tokensBefore = testGenerator.getClassTokens(classInfo);
             generationProgress.setIteration(iteration);
             generationProgress.setPhase(GenerationPhase.OPTIMIZATION, 
                 "Optimization iteration " + iteration,
@@ -395,34 +670,47 @@ public class IterativeOptimizer implements TestOptimizer {
             notifyProgress("Iteration " + iteration + ": Current coverage " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
             
-            List<CoverageInfo> uncoveredInfo = getUncoveredInfo(currentCoverage, classInfo);
+            List<CoverageInfo> uncoveredInfo = targetSelector.select(currentCoverage, classInfo);
             
             if (uncoveredInfo.isEmpty()) {
-                notifyProgress("No more uncovered code to improve");
+                StopReason reason = UncoveredTargetSelector.uncoveredTargets(currentCoverage, classInfo).isEmpty()
+                    ? StopReason.NO_UNCOVERED_CODE : StopReason.TARGETS_EXHAUSTED;
+                result.setStopReason(reason);
+                notifyProgress(reason.label());
                 break;
             }
             
             generationProgress.setPhase(GenerationPhase.LLM_CALL, "Generating additional tests");
             notifyProgressUpdate();
             
-            String additionalTests = testGenerator.generateAdditionalTests(classInfo, uncoveredInfo);
+            String additionalTests = testGenerator.generateFollowUpTests(
+                session, uncoveredInfo, currentCoverage.overallLineCoverage(),
+                testModel.testMethodNames());
             
             tokenUsage = testGenerator.getTotalTokenUsage();
             generationProgress.addTokenUsage(tokenUsage);
             generationProgress.incrementLlmCalls();
             
-            if (additionalTests != null && !additionalTests.isEmpty()) {
-                appendTestsToFile(testFile, additionalTests);
-                int additionalMethodCount = countTestMethods(additionalTests);
-                generationProgress.incrementTestMethods(additionalMethodCount);
-                notifyProgress("Added additional tests for uncovered code");
+            List<String> addedMethods = appendCompilingTests(classInfo, session, sourceText, testModel, additionalTests);
+            if (addedMethods.isEmpty()) {
+                recordIteration(result, iteration, classInfo, currentCoverage, currentCoverage,
+                    tokensBefore, iterationStart);
+                targetSelector.recordOutcome(uncoveredInfo, currentCoverage, classInfo);
+                continue;
             }
+            generationProgress.incrementTestMethods(addedMethods.size());
+            notifyProgress("Added additional tests for uncovered code");
             
             generationProgress.setPhase(GenerationPhase.RUNNING_TESTS, "Running tests");
             notifyProgressUpdate();
             
-            currentCoverage = runTestsAndGetCoverage();
-            result.addCoverageReport(currentIteration.get(), currentCoverage);
+            CoverageReport previousCoverage = currentCoverage;
+            currentCoverage = runTestsAndGetCoverage(classInfo, testModel);
+            result.addCoverageReport(iteration, currentCoverage);
+            recordIteration(result, iteration, classInfo, previousCoverage, currentCoverage,
+                tokensBefore, iterationStart);
+            targetSelector.recordOutcome(uncoveredInfo, currentCoverage, classInfo);
+            journalProgress(sourceFile, iteration, classInfo, currentCoverage, testModel);
             
             generationProgress.setCoverage(currentCoverage);
             generationProgress.setPhase(GenerationPhase.COVERAGE_ANALYSIS, "Analyzing coverage");
@@ -431,17 +719,24 @@ public class IterativeOptimizer implements TestOptimizer {
             notifyCoverage(currentCoverage);
         }
         
+        flushTestModel(classInfo, testModel);
+        getTestIndex().update(testModel.getFile());
         result.setFinalCoverage(currentCoverage);
         result.setSuccess(meetsTarget(currentCoverage));
-        result.setIterations(currentIteration.get());
+        result.setIterations(iterations);
+        if (result.isSuccess()) {
+            result.setStopReason(StopReason.TARGET_REACHED);
+        } else if (result.getStopReason() == null) {
+            result.setStopReason(StopReason.MAX_ITERATIONS);
+        }
         
         if (result.isSuccess()) {
             generationProgress.setPhase(GenerationPhase.COMPLETED, "Target coverage achieved");
             notifyProgress("Target coverage achieved: " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
         } else {
-            generationProgress.setPhase(GenerationPhase.COMPLETED, "Max iterations reached");
-            notifyProgress("Max iterations reached. Final coverage: " + 
+            generationProgress.setPhase(GenerationPhase.COMPLETED, result.getStopReason().label());
+            notifyProgress(result.getStopReason().label() + ". Final coverage: " + 
                 String.format("%.1f%%", currentCoverage.overallLineCoverage() * 100));
         }
         
@@ -455,6 +750,33 @@ public class IterativeOptimizer implements TestOptimizer {
         
         List<File> javaFiles = findJavaFiles(sourceDirectory);
         notifyProgress("Found " + javaFiles.size() + " Java files to process");
+        getTestIndex().refresh();
+        loadBaselineCoverage();
+        
+        if (runJournal == null) {
+            runJournal = RunJournal.forProject(projectRoot);
+        }
+        runJournal.begin(resume);
+        Map<File, OptimizationResult> completed = new HashMap<>();
+        if (resume) {
+            for (File javaFile : javaFiles) {
+                runJournal.completedResult(javaFile).ifPresent(result -> {
+                    codeParser.parseFile(javaFile).ifPresent(result::setClassInfo);
+                    completed.put(javaFile, result);
+                });
+            }
+            notifyProgress("Resuming run: " + completed.size() + " of " + javaFiles.size()
+                + " classes already processed");
+        }
+        List<File> pendingFiles = javaFiles.stream()
+            .filter(javaFile -> !completed.containsKey(javaFile))
+            .toList();
+        
+        CostForecast forecast = planBudget(pendingFiles);
+        
+        if (testGenerator.isAIEnabled()) {
+            pregenerateSmallClasses(pendingFiles);
+        }
         
         generationProgress = new GenerationProgress(
             sourceDirectory.getAbsolutePath(),
@@ -467,6 +789,15 @@ public class IterativeOptimizer implements TestOptimizer {
         int fileIndex = 0;
         for (File javaFile : javaFiles) {
             fileIndex++;
+            OptimizationResult previous = completed.get(javaFile);
+            if (previous != null) {
+                results.add(previous);
+                continue;
+            }
+            if (budgetGovernor != null && !budgetGovernor.admit(javaFile)) {
+                results.add(budgetGovernor.skipped(javaFile));
+                continue;
+            }
             try {
                 generationProgress.setPhase(GenerationPhase.PARSING, 
                     "Processing file " + fileIndex + "/" + javaFiles.size(),
@@ -474,16 +805,361 @@ public class IterativeOptimizer implements TestOptimizer {
                 generationProgress.setFilesProcessed(fileIndex);
                 notifyProgressUpdate();
                 
-                OptimizationResult result = optimize(javaFile);
+                OptimizationResult result = optimizeJournaled(javaFile);
                 results.add(result);
             } catch (Exception e) {
                 logger.error("Error optimizing file: {}", javaFile.getAbsolutePath(), e);
+                runJournal.failed(javaFile);
             }
         }
+        results = reinvestBudget(results);
+        getTestIndex().save();
         
         return results;
     }
 
+    /**
+     * 优化一个类并记录完成状态。resume 时上次运行中未完成的类从最后一次通过构建的测试文件继续
+     */
+    private OptimizationResult optimizeJournaled(File javaFile) {
+        Optional<File> lastGoodTestFile = resume ? runJournal.lastGoodTestFile(javaFile) : Optional.empty();
+        OptimizationResult result;
+        if (lastGoodTestFile.isPresent()) {
+            notifyProgress("Resuming " + javaFile.getName() + " from " + lastGoodTestFile.get().getName());
+            result = optimizeIncremental(javaFile, lastGoodTestFile.get());
+        } else {
+            result = optimize(javaFile);
+        }
+        runJournal.finished(result);
+        return result;
+    }
+
+    /**
+     * 把没有现有测试的小类打包批量生成首轮测试，optimizeFull 直接使用结果而不再单独请求。
+     * 批量请求的 token 分摊计入各类的配额；批量输出缺失或无效的类不在这里重试，
+     * 轮到该类时经过预算准入后按正常流程生成
+     */
+    private void pregenerateSmallClasses(List<File> javaFiles) {
+        if (budgetGovernor != null && budgetGovernor.isExhausted()) {
+            return;
+        }
+        List<ClassInfo> smallClasses = new ArrayList<>();
+        Map<String, File> sourceFiles = new HashMap<>();
+        for (File javaFile : javaFiles) {
+            if (incrementalMode && findExistingTestFile(javaFile) != null) {
+                continue;
+            }
+            codeParser.parseFile(javaFile)
+                .filter(batchTestGenerator::isBatchable)
+                .ifPresent(classInfo -> {
+                    smallClasses.add(classInfo);
+                    sourceFiles.put(classInfo.fullyQualifiedName(), javaFile);
+                });
+        }
+        if (smallClasses.size() < 2) {
+            return;
+        }
+        
+        notifyProgress("Generating initial tests for " + smallClasses.size() + " small classes in batches");
+        batchTestGenerator.generateBatched(smallClasses).forEach((className, testCode) -> {
+            if (testCode != null && !testCode.isBlank()) {
+                pregeneratedTests.put(className, testCode);
+            }
+        });
+        if (budgetGovernor != null) {
+            sourceFiles.forEach((className, javaFile) ->
+                budgetGovernor.charge(javaFile, batchTestGenerator.getBatchTokens(className)));
+        }
+    }
+
+    /**
+     * 在开始优化目录之前估算 LLM 调用次数、token 用量、费用和耗时
+     */
+    public CostForecast forecastDirectory(File sourceDirectory) {
+        return forecast(findJavaFiles(sourceDirectory), null);
+    }
+
+    /**
+     * 输出成本预估；设置了预算时开始计量，并按每个类的预估用量分配初始配额
+     */
+    public CostForecast planBudget(List<File> javaFiles) {
+        if (budgetGovernor != null) {
+            budgetGovernor.start(() -> testGenerator.getTotalTokenUsage().totalTokens());
+        }
+        Map<File, Long> estimates = new HashMap<>();
+        CostForecast forecast = forecast(javaFiles, estimates);
+        logger.info(forecast.getSummary());
+        notifyProgress(forecast.getSummary());
+        if (budgetGovernor != null) {
+            budgetGovernor.allocate(estimates);
+        }
+        return forecast;
+    }
+
+    /**
+     * 第一轮结束后把剩余预算投入预期收益最高、因配额用完而停止的类，
+     * 在已有测试文件上继续增量优化，直到预算耗尽
+     *
+     * @return 结果列表，追加运行的类替换为新的结果
+     */
+    public List<OptimizationResult> reinvestBudget(List<OptimizationResult> results) {
+        if (budgetGovernor == null) {
+            return results;
+        }
+        List<OptimizationResult> updated = new ArrayList<>(results);
+        for (OptimizationResult candidate : budgetGovernor.reinvestmentCandidates(results)) {
+            if (!budgetGovernor.grant(candidate)) {
+                break;
+            }
+            notifyProgress("Reinvesting remaining budget in " + candidate.getSourceFile().getName());
+            try {
+                OptimizationResult reinvested = resume(candidate);
+                updated.set(updated.indexOf(candidate), reinvested);
+                journal(journal -> journal.finished(reinvested));
+            } catch (Exception e) {
+                logger.error("Error optimizing file: {}", candidate.getSourceFile().getAbsolutePath(), e);
+            }
+        }
+        notifyProgress(budgetGovernor.getSummary());
+        return updated;
+    }
+
+    /**
+     * 在上一次优化留下的测试文件上继续迭代，不重新生成首轮测试；没有测试文件时重新优化
+     */
+    private OptimizationResult resume(OptimizationResult previous) {
+        File testFile = previous.getGeneratedTestFile();
+        if (testFile != null && testFile.isFile()) {
+            return optimizeIncremental(previous.getSourceFile(), testFile);
+        }
+        return optimize(previous.getSourceFile());
+    }
+
+    private Optional<StopReason> checkBudget(File sourceFile, ClassInfo classInfo, long classTokensStart) {
+        if (budgetGovernor == null) {
+            return Optional.empty();
+        }
+        long classTokens = testGenerator.getClassTokens(classInfo) - classTokensStart;
+        return Optional.ofNullable(budgetGovernor.checkIteration(sourceFile, classTokens));
+    }
+
+    /**
+     * @param classEstimates 非空时记录每个类预估的 token 总量
+     */
+    private CostForecast forecast(List<File> javaFiles, Map<File, Long> classEstimates) {
+        int followUps = Math.min(maxIterations, EXPECTED_FOLLOW_UP_ITERATIONS);
+        int classCount = 0;
+        int llmCalls = 0;
+        long promptTokens = 0;
+        long completionTokens = 0;
+        
+        for (File javaFile : javaFiles) {
+            Optional<ClassInfo> parsed;
+            try {
+                parsed = codeParser.parseFile(javaFile);
+            } catch (Exception e) {
+                logger.debug("Skipping {} in forecast: {}", javaFile.getName(), e.getMessage());
+                continue;
+            }
+            if (parsed.isEmpty()) {
+                continue;
+            }
+            classCount++;
+            if (!testGenerator.isAIEnabled()) {
+                continue;
+            }
+            
+            TokenUsage firstRound = testGenerator.estimateTestClassUsage(parsed.get());
+            // 后续迭代把首轮对话作为历史重新发送，再加上一小段覆盖率增量
+            long followUpPrompt = firstRound.promptTokens() + firstRound.completionTokens() + FOLLOW_UP_DELTA_TOKENS;
+            long classPrompt = firstRound.promptTokens() + followUps * followUpPrompt;
+            long classCompletion = firstRound.completionTokens()
+                + (long) followUps * firstRound.completionTokens() / FOLLOW_UP_COMPLETION_DIVISOR;
+            promptTokens += classPrompt;
+            completionTokens += classCompletion;
+            if (classEstimates != null) {
+                classEstimates.put(javaFile, classPrompt + classCompletion);
+            }
+            llmCalls += 1 + followUps;
+        }
+        
+        double cost = (promptTokens * DEFAULT_PROMPT_PRICE_PER_1K
+            + completionTokens * DEFAULT_COMPLETION_PRICE_PER_1K) / 1000.0;
+        
+        double observedLatencyMs = LLMCallMonitor.getInstance().getAverageLatencyMs();
+        long llmTimeMs = observedLatencyMs > 0
+            ? (long) (llmCalls * observedLatencyMs)
+            : DEFAULT_CALL_OVERHEAD_MS * llmCalls + completionTokens * 1000 / DEFAULT_COMPLETION_TOKENS_PER_SECOND;
+        long buildTimeMs = (long) classCount * (1 + followUps) * DEFAULT_TEST_RUN_MS;
+        
+        return new CostForecast(classCount, llmCalls, promptTokens, completionTokens, cost,
+            Duration.ofMillis(llmTimeMs + buildTimeMs));
+    }
+
+    /**
+     * 流式生成初始测试：每个测试方法到达后先在内存中编译，通过的方法进入执行队列；
+     * 后台线程每累积若干方法就写入测试文件并测量覆盖率，达到目标后取消剩余的流
+     */
+    private StreamingOutcome generateInitialTestsStreaming(ClassInfo classInfo, ConversationSession session) {
+        InMemoryJavaCompiler compiler = getInMemoryCompiler();
+        AtomicBoolean cancelled = new AtomicBoolean(false);
+        List<String> accepted = new ArrayList<>();
+        AtomicReference<Boolean> validating = new AtomicReference<>();
+        AtomicReference<String> measuredCode = new AtomicReference<>();
+        AtomicReference<CoverageReport> measuredCoverage = new AtomicReference<>();
+        AtomicInteger pendingForRun = new AtomicInteger(0);
+        AtomicReference<StreamingTestMethodExtractor> extractorRef = new AtomicReference<>();
+        String testClassName = testClassName(classInfo);
+
+        ExecutorService testQueue = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "streamed-test-validator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        StreamingTestMethodExtractor extractor = new StreamingTestMethodExtractor(method -> testQueue.submit(() -> {
+            if (cancelled.get()) {
+                return;
+            }
+            StreamingTestMethodExtractor source = extractorRef.get();
+            if (validating.get() == null) {
+                // 骨架本身编译不过说明类路径不完整，此时无法逐个校验，全部接受
+                boolean usable = compiler.isAvailable()
+                    && compiler.compile(testClassName, source.buildTestClass(List.of())).success();
+                validating.set(usable);
+                if (!usable) {
+                    logger.info("Streamed tests for {} are not compiled in memory: test classpath unavailable",
+                        classInfo.className());
+                }
+            }
+            if (validating.get()) {
+                InMemoryJavaCompiler.CompilationResult compiled =
+                    compiler.compile(testClassName, source.buildCompilationUnit(method));
+                if (!compiled.success()) {
+                    logger.debug("Dropping streamed test that does not compile: {}", compiled.errors());
+                    return;
+                }
+            }
+            accepted.add(method);
+            if (pendingForRun.incrementAndGet() < STREAMED_TESTS_PER_COVERAGE_RUN) {
+                return;
+            }
+            pendingForRun.set(0);
+            String partialCode = source.buildTestClass(accepted);
+            File partialFile = writeTestFile(classInfo, partialCode);
+            CoverageReport coverage = runTestsAndGetCoverage(classInfo, partialFile, null);
+            measuredCode.set(partialCode);
+            measuredCoverage.set(coverage);
+            notifyProgress(String.format("Streamed %d tests, coverage %.1f%%",
+                accepted.size(), coverage.overallLineCoverage() * 100));
+            if (meetsTarget(coverage)) {
+                logger.info("Target coverage reached for {} while streaming, cancelling the rest of the response",
+                    classInfo.className());
+                cancelled.set(true);
+            }
+        }));
+        extractorRef.set(extractor);
+
+        testGenerator.generateTestClassStreaming(classInfo, session, extractor, cancelled);
+
+        testQueue.shutdown();
+        try {
+            if (!testQueue.awaitTermination(1, TimeUnit.HOURS)) {
+                testQueue.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            testQueue.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+
+        if (extractor.getTestMethods().isEmpty()) {
+            return new StreamingOutcome(null, null);
+        }
+        String testCode = extractor.buildTestClass(accepted);
+        CoverageReport coverage = testCode.equals(measuredCode.get()) ? measuredCoverage.get() : null;
+        return new StreamingOutcome(testCode, coverage);
+    }
+
+    private synchronized InMemoryJavaCompiler getInMemoryCompiler() {
+        if (inMemoryCompiler == null) {
+            inMemoryCompiler = InMemoryJavaCompiler.forProject(buildToolAdapter, projectRoot);
+        }
+        return inMemoryCompiler;
+    }
+
+    private synchronized TestCompilationGate getCompilationGate() {
+        if (compilationGate == null) {
+            compilationGate = new TestCompilationGate(getInMemoryCompiler());
+        }
+        return compilationGate;
+    }
+
+    /**
+     * 在运行构建前于内存中编译测试文件（连同被测类源码），编译不通过的测试不值得跑一次完整构建；
+     * 编译失败时先按编译错误请求模型修复失败的方法，仍不通过的方法被删除，修复结果更新到测试文件模型
+     */
+    private TestCompilationGate.Verdict checkCompilation(ClassInfo classInfo, ConversationSession session,
+                                                         String sourceText, TestFileModel testModel) {
+        String testSource = testModel.source();
+        CompilationRepairer.Result repaired = compilationRepairer.repair(
+            classInfo, session, testSource, sourceText, getCompilationGate(), repairAttempts);
+        for (int i = 0; i < repaired.attempts(); i++) {
+            generationProgress.incrementLlmCalls();
+        }
+        TestCompilationGate.Verdict verdict = repaired.verdict();
+        if (verdict.blocksBuild()) {
+            logger.warn("Generated tests for {} do not compile: {}", classInfo.className(), verdict.diagnostics());
+            notifyProgress("Generated tests do not compile (" + verdict.diagnostics().size()
+                + " errors), skipping test run");
+        } else if (!repaired.testCode().equals(testSource)) {
+            testModel.replace(repaired.testCode());
+            notifyProgress("Repaired compilation errors in generated tests"
+                + (repaired.dropped().isEmpty() ? "" : ", dropped " + repaired.dropped()));
+        }
+        return verdict;
+    }
+
+    /**
+     * 在测试文件模型上合并补充测试并做内存编译检查（含修复），仍编译失败则回滚，本轮不再运行构建
+     *
+     * @return 新加入的测试方法名，被回滚或没有新方法时为空
+     */
+    private List<String> appendCompilingTests(ClassInfo classInfo, ConversationSession session, String sourceText,
+                                              TestFileModel testModel, String tests) {
+        String snapshot = testModel.snapshot();
+        List<String> added = testModel.merge(tests);
+        if (added.isEmpty()) {
+            return added;
+        }
+        if (!checkCompilation(classInfo, session, sourceText, testModel).blocksBuild()) {
+            Set<String> remaining = testModel.testMethodNames();
+            return added.stream().filter(remaining::contains).toList();
+        }
+        testModel.restore(snapshot);
+        notifyProgress("Discarded additional tests that do not compile");
+        return List.of();
+    }
+
+    private String readSource(File sourceFile) {
+        try {
+            return sourceFile != null && sourceFile.isFile() ? Files.readString(sourceFile.toPath()) : null;
+        } catch (IOException e) {
+            logger.debug("Could not read source for compilation check: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void flushTestModel(ClassInfo classInfo, TestFileModel testModel) {
+        try {
+            testModel.flush();
+        } catch (IOException e) {
+            throw new GenerationException("Failed to write test file for class: " + classInfo.className(), e);
+        }
+    }
+
+    private record StreamingOutcome(String testCode, CoverageReport coverage) {
+    }
+
     private File writeTestFile(ClassInfo classInfo, String testCode) {
         try {
             Path testPath = determineTestPath(classInfo);
@@ -506,32 +1182,86 @@ public class IterativeOptimizer implements TestOptimizer {
         String packagePath = classInfo.packageName().replace('.', File.separatorChar);
         String testClassName = classInfo.className() + "Test.java";
         
-        File testSourceDir = buildToolAdapter.getTestSourceDirectory(projectRoot);
-        if (testSourceDir == null) {
-            testSourceDir = new File(projectRoot, "src/test/java");
-        }
-        
-        return testSourceDir.toPath()
+        return getTestSourceDirectory().toPath()
             .resolve(packagePath)
             .resolve(testClassName);
     }
 
-    private void appendTestsToFile(File testFile, String additionalTests) {
-        try {
-            String existingContent = Files.readString(testFile.toPath());
-            
-            int lastBraceIndex = existingContent.lastIndexOf('}');
-            if (lastBraceIndex > 0) {
-                String newContent = existingContent.substring(0, lastBraceIndex) + 
-                    "\n" + additionalTests + "\n}\n";
-                Files.writeString(testFile.toPath(), newContent);
+    /**
+     * 运行测试并测量覆盖率。构建因测试失败而失败时，从测试报告中找出本次运行生成的所有测试类中失败的方法，
+     * 用 @Disabled 隔离后在同一轮内重新测量，避免整轮迭代只得到一个失败的构建。
+     * 构建前已删除旧的覆盖率文件，构建失败时读到的报告也只可能来自本次构建，没有报告时返回空报告
+     */
+    private CoverageReport runTestsAndGetCoverage(ClassInfo classInfo, TestFileModel testModel) {
+        flushTestModel(classInfo, testModel);
+        return runTestsAndGetCoverage(classInfo, testModel.getFile(), testModel);
+    }
+    
+    /**
+     * @param testModel 测试文件的内存模型，隔离失败测试修改文件后需要重新读取；没有时为 null
+     */
+    private CoverageReport runTestsAndGetCoverage(ClassInfo classInfo, File testFile, TestFileModel testModel) {
+        if (testFile != null) {
+            measuredTestFiles.put(testClassName(classInfo), testFile);
+        }
+        File resultsDirectory = buildToolAdapter.getTestResultsDirectory(projectRoot);
+        deleteTestResults(resultsDirectory);
+        deleteCoverageArtifacts();
+        
+        if (runCoverageBuild() != 0) {
+            List<String> quarantined = quarantineFailingTests(resultsDirectory);
+            if (!quarantined.isEmpty()) {
+                notifyProgress("Quarantined failing tests " + quarantined + ", re-measuring coverage");
+                reloadTestModel(testModel);
+                deleteTestResults(resultsDirectory);
+                deleteCoverageArtifacts();
+                runCoverageBuild();
             }
-        } catch (IOException e) {
-            logger.error("Error appending tests to file", e);
         }
+        return readCoverage();
     }
-
-    private CoverageReport runTestsAndGetCoverage() {
+    
+    /**
+     * 隔离所有已测量过的测试类中失败的方法。其他类的测试失败同样会让构建失败，只隔离当前类不够
+     *
+     * @return 被隔离的方法，形如 测试类名.方法名
+     */
+    private List<String> quarantineFailingTests(File resultsDirectory) {
+        List<String> quarantined = new ArrayList<>();
+        measuredTestFiles.forEach((testClassName, file) -> {
+            String simpleName = testClassName.substring(testClassName.lastIndexOf('.') + 1);
+            testQuarantine.quarantine(file, testResultParser.parse(resultsDirectory, testClassName))
+                .forEach(method -> quarantined.add(simpleName + "." + method));
+        });
+        return quarantined;
+    }
+    
+    private void deleteTestResults(File resultsDirectory) {
+        measuredTestFiles.keySet().forEach(testClassName -> testResultParser.deleteResults(resultsDirectory, testClassName));
+    }
+    
+    /**
+     * 删除上一次构建的覆盖率报告和执行数据，构建失败时不会误读到旧的覆盖率
+     */
+    private void deleteCoverageArtifacts() {
+        for (File file : new File[] {
+                buildToolAdapter.getCoverageReportFile(projectRoot),
+                buildToolAdapter.getCoverageExecFile(projectRoot)}) {
+            if (file == null) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(file.toPath());
+            } catch (IOException e) {
+                logger.warn("Failed to delete stale coverage file {}: {}", file, e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * @return 构建进程的退出码，无法运行时为 -1
+     */
+    private int runCoverageBuild() {
         try {
             String command = buildToolAdapter.getCoverageCommand();
             String[] commandParts = parseCommand(command);
@@ -547,31 +1277,51 @@ public class IterativeOptimizer implements TestOptimizer {
                 if (exitCode != 0) {
                     logger.warn("Tests failed with exit code: {}", exitCode);
                 }
+                return exitCode;
             } finally {
                 closeProcessStreams(process);
             }
-            
-            File coverageReport = buildToolAdapter.getCoverageReportFile(projectRoot);
-            if (coverageReport != null && coverageReport.exists()) {
-                return coverageAnalyzer.analyzeFromJacocoXml(coverageReport);
-            }
-            
-            File execFile = buildToolAdapter.getCoverageExecFile(projectRoot);
-            if (execFile != null && execFile.exists()) {
-                return coverageAnalyzer.analyzeCoverage(execFile);
-            }
-            
-            return new CoverageReport();
         } catch (IOException e) {
             logger.error("IO error running tests", e);
-            return new CoverageReport();
+            return -1;
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             logger.error("Test execution interrupted", e);
-            return new CoverageReport();
+            return -1;
+        }
+    }
+    
+    private CoverageReport readCoverage() {
+        File coverageReport = buildToolAdapter.getCoverageReportFile(projectRoot);
+        if (coverageReport != null && coverageReport.exists()) {
+            return coverageAnalyzer.analyzeFromJacocoXml(coverageReport);
+        }
+        
+        File execFile = buildToolAdapter.getCoverageExecFile(projectRoot);
+        if (execFile != null && execFile.exists()) {
+            return coverageAnalyzer.analyzeCoverage(execFile);
+        }
+        
+        return new CoverageReport();
+    }
+    
+    private void reloadTestModel(TestFileModel testModel) {
+        if (testModel == null) {
+            return;
+        }
+        try {
+            testModel.reload();
+        } catch (IOException e) {
+            logger.error("Error reloading quarantined test file", e);
         }
     }
     
+    private static String testClassName(ClassInfo classInfo) {
+        return classInfo.packageName() != null && !classInfo.packageName().isEmpty()
+            ? classInfo.packageName() + "." + classInfo.className() + "Test"
+            : classInfo.className() + "Test";
+    }
+    
     private void closeProcessStreams(Process process) {
         try {
             if (process.getInputStream() != null) {
@@ -604,19 +1354,26 @@ public class IterativeOptimizer implements TestOptimizer {
         return command.split("\\s+");
     }
 
-    private List<CoverageInfo> getUncoveredInfo(CoverageReport report, ClassInfo classInfo) {
-        List<CoverageInfo> uncoveredInfo = new ArrayList<>();
-        
-        for (CoverageInfo info : report.classCoverages()) {
-            if (info.className().equals(classInfo.fullyQualifiedName()) ||
-                info.className().equals(classInfo.className())) {
-                if (info.getLineCoverageRate() < 1.0) {
-                    uncoveredInfo.add(info);
-                }
-            }
+    private void recordIteration(OptimizationResult result, int iteration, ClassInfo classInfo,
+                                 CoverageReport before, CoverageReport after, long tokensBefore, long startNanos) {
+        double coverage = StoppingPolicy.lineCoverage(after, classInfo);
+        result.addIterationStats(new IterationStats(
+            iteration,
+            coverage,
+            coverage - StoppingPolicy.lineCoverage(before, classInfo),
+            testGenerator.getClassTokens(classInfo) - tokensBefore,
+            Duration.ofNanos(System.nanoTime() - startNanos)));
+    }
+
+    private void journal(Consumer<RunJournal> entry) {
+        if (runJournal != null) {
+            entry.accept(runJournal);
         }
-        
-        return uncoveredInfo;
+    }
+
+    private void journalProgress(File sourceFile, int iteration, ClassInfo classInfo, CoverageReport coverage,
+                                 TestFileModel testModel) {
+        journal(journal -> journal.progress(sourceFile, iteration, classInfo, coverage, testModel.getFile()));
     }
 
     private boolean meetsTarget(CoverageReport report) {
@@ -687,93 +1444,4 @@ public class IterativeOptimizer implements TestOptimizer {
     public String getBuildToolName() {
         return buildToolAdapter.name();
     }
-
-    private File mergeTestFile(File existingTestFile, String additionalTests) {
-        try {
-            String existingContent = Files.readString(existingTestFile.toPath());
-            
-            String additionalMethods = extractMethodBodies(additionalTests);
-            
-            int lastBraceIndex = existingContent.lastIndexOf('}');
-            if (lastBraceIndex > 0) {
-                String newContent = existingContent.substring(0, lastBraceIndex) + 
-                    "\n" + additionalMethods + "\n}\n";
-                Files.writeString(existingTestFile.toPath(), newContent);
-            }
-            
-            return existingTestFile;
-        } catch (IOException e) {
-            logger.error("Error merging test file", e);
-            return existingTestFile;
-        }
-    }
-
-    private String extractMethodBodies(String testCode) {
-        if (testCode == null || testCode.trim().isEmpty()) {
-            return "";
-        }
-
-        if (testCode.contains("public class") || testCode.contains("class ")) {
-            java.util.regex.Pattern classPattern = java.util.regex.Pattern.compile("class\\s+\\w+\\s*\\{");
-            java.util.regex.Matcher classMatcher = classPattern.matcher(testCode);
-            
-            if (classMatcher.find()) {
-                int classStart = classMatcher.end();
-                int depth = 1;
-                int i = classStart;
-                while (i < testCode.length() && depth > 0) {
-                    char c = testCode.charAt(i);
-                    if (c == '{') depth++;
-                    else if (c == '}') depth--;
-                    i++;
-                }
-                return testCode.substring(classStart, i - 1).trim();
-            }
-        }
-
-        return testCode.trim();
-    }
-
-    private Set<String> getExistingTestMethodNames(File testFile) {
-        Set<String> methodNames = new HashSet<>();
-        
-        try {
-            String content = Files.readString(testFile.toPath());
-            java.util.regex.Pattern methodPattern = java.util.regex.Pattern.compile(
-                "(?:@Test|@ParameterizedTest)[^}]*?void\\s+(\\w+)\\s*\\(",
-                java.util.regex.Pattern.DOTALL
-            );
-            
-            java.util.regex.Matcher matcher = methodPattern.matcher(content);
-            while (matcher.find()) {
-                methodNames.add(matcher.group(1));
-            }
-        } catch (IOException e) {
-            logger.debug("Failed to read test file for method names: {}", e.getMessage());
-        }
-        
-        return methodNames;
-    }
-
-    private List<String> extractMethodNames(String testCode) {
-        List<String> methodNames = new ArrayList<>();
-        java.util.regex.Pattern methodPattern = java.util.regex.Pattern.compile(
-            "(?:@Test|@ParameterizedTest)[^}]*?void\\s+(\\w+)\\s*\\(",
-            java.util.regex.Pattern.DOTALL
-        );
-        
-        java.util.regex.Matcher matcher = methodPattern.matcher(testCode);
-        while (matcher.find()) {
-            methodNames.add(matcher.group(1));
-        }
-        
-        return methodNames;
-    }
-    
-    private int countTestMethods(String testCode) {
-        if (testCode == null || testCode.isEmpty()) {
-            return 0;
-        }
-        return extractMethodNames(testCode).size();
-    }
 }
@@ -25,6 +25,8 @@ public class OptimizationResult {
     private List<String> generatedTestMethods = new ArrayList<>();
     private List<String> addedTestMethods = new ArrayList<>();
     private boolean incremental;
+    private List<IterationStats> iterationStats = new ArrayList<>();
+    private StopReason stopReason;
 
     public File getSourceFile() {
         return sourceFile;
@@ -134,6 +136,26 @@ public class OptimizationResult {
         this.incremental = incremental;
     }
 
+    public List<IterationStats> getIterationStats() {
+        return iterationStats;
+    }
+
+    public void addIterationStats(IterationStats stats) {
+        this.iterationStats.add(stats);
+    }
+
+    public long getIterationTokens() {
+        return iterationStats.stream().mapToLong(IterationStats::tokens).sum();
+    }
+
+    public StopReason getStopReason() {
+        return stopReason;
+    }
+
+    public void setStopReason(StopReason stopReason) {
+        this.stopReason = stopReason;
+    }
+
     public int getExistingTestMethodCount() {
         return parsedTestFile != null ? parsedTestFile.getTestMethodCount() : 0;
     }
@@ -177,6 +199,9 @@ public class OptimizationResult {
         sb.append("Generated Test: ").append(generatedTestFile != null ? generatedTestFile.getName() : "N/A").append("%n");
         sb.append("Success: ").append(success ? "Yes" : "No").append("%n");
         sb.append("Iterations: ").append(iterations).append("%n");
+        if (stopReason != null) {
+            sb.append("Stopped: ").append(stopReason.label()).append("%n");
+        }
         
         if (finalCoverage != null) {
             sb.append("Final Coverage:%n");
@@ -88,11 +88,20 @@ public class ParallelBatchOptimizer implements TestOptimizer {
         logger.info("Starting parallel optimization for {} files using {} threads", totalFiles, config.getThreadPoolSizeOrDefault());
         notifyProgress("Starting parallel optimization for " + totalFiles + " files");
 
+        IterativeOptimizer budgeted = budgetedDelegate();
+        BudgetGovernor budgetGovernor = budgeted != null ? budgeted.getBudgetGovernor() : null;
+        if (budgeted != null) {
+            budgeted.planBudget(javaFiles);
+        }
+
         List<Future<OptimizationResult>> futures = new ArrayList<>();
         AtomicInteger completedCount = new AtomicInteger(0);
 
         for (File javaFile : javaFiles) {
             Future<OptimizationResult> future = executorService.submit(() -> {
+                if (budgetGovernor != null && !budgetGovernor.admit(javaFile)) {
+                    return budgetGovernor.skipped(javaFile);
+                }
                 try {
                     OptimizationResult result = optimize(javaFile);
                     int completed = completedCount.incrementAndGet();
@@ -133,6 +142,10 @@ public class ParallelBatchOptimizer implements TestOptimizer {
             }
         }
 
+        if (budgeted != null) {
+            results = budgeted.reinvestBudget(results);
+        }
+
         logger.info("Parallel optimization completed. Success: {}/{}",
             results.stream().filter(OptimizationResult::isSuccess).count(), totalFiles);
 
@@ -191,6 +204,14 @@ public class ParallelBatchOptimizer implements TestOptimizer {
         return delegate.getBuildToolName();
     }
 
+    /**
+     * The delegate when it enforces a run budget, shared by all worker threads; null when unlimited.
+     */
+    private IterativeOptimizer budgetedDelegate() {
+        return delegate instanceof IterativeOptimizer iterative && iterative.getBudgetGovernor() != null
+            ? iterative : null;
+    }
+
     /**
      * Shutdown the executor service gracefully.
      */
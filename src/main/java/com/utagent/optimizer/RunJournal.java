@@ -0,0 +1,332 @@
+package com.utagent.optimizer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.utagent.cache.RequestFingerprint;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * 目录运行的预写日志：每个类的状态变化（解析、首轮生成、第 N 轮迭代、完成或失败）
+ * 以一行 JSON 追加到项目下的日志文件，每行写入后同步到磁盘。
+ * 运行中断后以 resume 方式重新开始时，已完成的类直接从日志还原结果，
+ * 进行中的类从最后一次通过构建的测试文件继续，不再重复已经完成的 LLM 调用。
+ * 之后的迭代会改写同一个测试文件，因此每次通过构建时把文件内容另存一份快照，恢复时写回
+ */
+public class RunJournal {
+
+    private static final Logger logger = LoggerFactory.getLogger(RunJournal.class);
+
+    public static final String DEFAULT_JOURNAL_FILE = ".utagent/run-journal.jsonl";
+    private static final String SNAPSHOT_DIRECTORY = "snapshots";
+
+    public enum State {
+        PARSED,
+        GENERATED,
+        ITERATION,
+        DONE,
+        FAILED
+    }
+
+    /**
+     * 日志中的一行
+     *
+     * @param testFile 该状态下通过构建的测试文件，没有时为 null
+     * @param outcome  类处理完成（DONE）时的结果，其他状态为 null
+     * @param snapshot 通过构建时测试文件内容的快照，没有时为 null
+     */
+    public record Entry(String sourceFile, State state, int iteration, double lineCoverage,
+                        String testFile, long timestamp, Outcome outcome, String snapshot) {
+    }
+
+    /**
+     * 还原 {@link OptimizationResult} 所需的结果字段。覆盖率报告只保留该类自己的条目，
+     * 日志大小不随项目中的类数增长
+     */
+    public record Outcome(boolean success, int iterations, StopReason stopReason, String errorMessage,
+                          boolean incremental, String generatedTestFile, String existingTestFile,
+                          List<String> addedTestMethods, CoverageReport initialCoverage,
+                          CoverageReport finalCoverage, List<Iteration> iterationStats) {
+    }
+
+    public record Iteration(int iteration, double lineCoverage, double coverageDelta, long tokens, long millis) {
+    }
+
+    private final Path journalFile;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+        .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private final Map<String, Entry> latest = new HashMap<>();
+    private final Map<String, Entry> lastGoodEntries = new HashMap<>();
+
+    public RunJournal(Path journalFile) {
+        this.journalFile = journalFile;
+    }
+
+    public static RunJournal forProject(File projectRoot) {
+        return new RunJournal(projectRoot.toPath().resolve(DEFAULT_JOURNAL_FILE));
+    }
+
+    public Path getJournalFile() {
+        return journalFile;
+    }
+
+    /**
+     * 开始一次目录运行。resume 时读取已有日志并在其后继续追加；
+     * 否则清空日志，开始新的运行
+     */
+    public synchronized void begin(boolean resume) {
+        latest.clear();
+        lastGoodEntries.clear();
+        if (resume) {
+            load();
+            return;
+        }
+        try {
+            Files.deleteIfExists(journalFile);
+            Path snapshots = snapshotDirectory();
+            if (Files.isDirectory(snapshots)) {
+                try (Stream<Path> files = Files.list(snapshots)) {
+                    for (Path file : files.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to reset run journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    public void parsed(File sourceFile) {
+        append(new Entry(key(sourceFile), State.PARSED, 0, 0.0, null, System.currentTimeMillis(), null, null));
+    }
+
+    /**
+     * 记录一次覆盖率测量。覆盖率报告为空表示测试没能编译或构建失败，此时不记录测试文件，
+     * 恢复时仍使用上一次通过构建的测试文件；通过构建时保存测试文件内容的快照
+     *
+     * @param iteration 0 表示首轮生成
+     */
+    public void progress(File sourceFile, int iteration, ClassInfo classInfo, CoverageReport coverage,
+                         File testFile) {
+        boolean built = !coverage.classCoverages().isEmpty() && testFile != null;
+        append(new Entry(key(sourceFile), iteration == 0 ? State.GENERATED : State.ITERATION, iteration,
+            StoppingPolicy.lineCoverage(coverage, classInfo),
+            built ? testFile.getAbsolutePath() : null,
+            System.currentTimeMillis(), null,
+            built ? snapshot(sourceFile, testFile) : null));
+    }
+
+    public void finished(OptimizationResult result) {
+        Outcome outcome = toOutcome(result);
+        CoverageReport coverage = outcome.finalCoverage();
+        append(new Entry(key(result.getSourceFile()), State.DONE, result.getIterations(),
+            coverage != null ? StoppingPolicy.lineCoverage(coverage, result.getClassInfo()) : 0.0,
+            outcome.generatedTestFile(), System.currentTimeMillis(), outcome, null));
+    }
+
+    /**
+     * 处理过程中抛出异常的类没有结果，resume 时会从最后一次通过构建的测试文件重试
+     */
+    public void failed(File sourceFile) {
+        append(new Entry(key(sourceFile), State.FAILED, 0, 0.0, null, System.currentTimeMillis(), null, null));
+    }
+
+    /**
+     * @return 上次运行中已经处理完的类的结果，类信息需由调用方重新解析
+     */
+    public synchronized Optional<OptimizationResult> completedResult(File sourceFile) {
+        Entry entry = latest.get(key(sourceFile));
+        if (entry == null || entry.state() != State.DONE || entry.outcome() == null) {
+            return Optional.empty();
+        }
+        return Optional.of(toResult(sourceFile, entry.outcome()));
+    }
+
+    /**
+     * 把上次运行中未完成的类最后一次通过构建的测试内容从快照写回测试文件
+     *
+     * @return 写回后的测试文件
+     */
+    public synchronized Optional<File> lastGoodTestFile(File sourceFile) {
+        Entry entry = latest.get(key(sourceFile));
+        if (entry == null || entry.state() == State.DONE) {
+            return Optional.empty();
+        }
+        Entry lastGood = lastGoodEntries.get(key(sourceFile));
+        if (lastGood == null) {
+            return Optional.empty();
+        }
+        File testFile = new File(lastGood.testFile());
+        if (lastGood.snapshot() != null && Files.isRegularFile(Path.of(lastGood.snapshot()))) {
+            try {
+                Files.createDirectories(testFile.toPath().getParent());
+                Files.copy(Path.of(lastGood.snapshot()), testFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException e) {
+                logger.warn("Failed to restore test file {} from snapshot: {}", testFile, e.getMessage());
+                return Optional.empty();
+            }
+        }
+        return Optional.of(testFile).filter(File::isFile);
+    }
+
+    public synchronized int completedCount() {
+        return (int) latest.values().stream().filter(e -> e.state() == State.DONE).count();
+    }
+
+    private synchronized void append(Entry entry) {
+        remember(entry);
+        try {
+            Files.createDirectories(journalFile.getParent());
+            Files.writeString(journalFile, objectMapper.writeValueAsString(entry) + "\n", StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.DSYNC);
+        } catch (IOException e) {
+            logger.warn("Failed to append to run journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    private void remember(Entry entry) {
+        latest.put(entry.sourceFile(), entry);
+        if (entry.testFile() != null && entry.state() != State.DONE) {
+            lastGoodEntries.put(entry.sourceFile(), entry);
+        }
+    }
+
+    /**
+     * 把测试文件当前的内容写到该类的快照，先写临时文件再替换，进程中断时不会留下不完整的快照
+     *
+     * @return 快照路径，写入失败时为 null
+     */
+    private String snapshot(File sourceFile, File testFile) {
+        Path snapshot = snapshotDirectory().resolve(
+            RequestFingerprint.sha256(key(sourceFile)).substring(0, 16) + "-" + testFile.getName());
+        try {
+            Files.createDirectories(snapshot.getParent());
+            Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+            Files.copy(testFile.toPath(), temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return snapshot.toAbsolutePath().toString();
+        } catch (IOException e) {
+            logger.warn("Failed to snapshot test file {}: {}", testFile, e.getMessage());
+            return null;
+        }
+    }
+
+    private Path snapshotDirectory() {
+        return journalFile.toAbsolutePath().getParent().resolve(SNAPSHOT_DIRECTORY);
+    }
+
+    /**
+     * 逐行读取日志，进程在写入中途被终止时最后一行可能不完整，跳过无法解析的行
+     */
+    private void load() {
+        if (!Files.isRegularFile(journalFile)) {
+            return;
+        }
+        try {
+            int skipped = 0;
+            for (String line : Files.readAllLines(journalFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    remember(objectMapper.readValue(line, Entry.class));
+                } catch (JsonProcessingException e) {
+                    skipped++;
+                }
+            }
+            if (skipped > 0) {
+                logger.warn("Skipped {} unreadable lines of run journal {}", skipped, journalFile);
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to read run journal {}: {}", journalFile, e.getMessage());
+        }
+    }
+
+    private static Outcome toOutcome(OptimizationResult result) {
+        ClassInfo classInfo = result.getClassInfo();
+        return new Outcome(
+            result.isSuccess(),
+            result.getIterations(),
+            result.getStopReason(),
+            result.getErrorMessage(),
+            result.isIncremental(),
+            path(result.getGeneratedTestFile()),
+            path(result.getExistingTestFile()),
+            List.copyOf(result.getAddedTestMethods()),
+            trim(result.getCoverageHistory().get(0), classInfo),
+            trim(result.getFinalCoverage(), classInfo),
+            result.getIterationStats().stream()
+                .map(s -> new Iteration(s.iteration(), s.lineCoverage(), s.coverageDelta(), s.tokens(),
+                    s.duration().toMillis()))
+                .toList());
+    }
+
+    private static OptimizationResult toResult(File sourceFile, Outcome outcome) {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(sourceFile);
+        result.setSuccess(outcome.success());
+        result.setIterations(outcome.iterations());
+        result.setStopReason(outcome.stopReason());
+        result.setErrorMessage(outcome.errorMessage());
+        result.setIncremental(outcome.incremental());
+        result.setGeneratedTestFile(file(outcome.generatedTestFile()));
+        result.setExistingTestFile(file(outcome.existingTestFile()));
+        result.setAddedTestMethods(outcome.addedTestMethods());
+        if (outcome.initialCoverage() != null) {
+            result.addCoverageReport(0, outcome.initialCoverage());
+        }
+        result.setFinalCoverage(outcome.finalCoverage());
+        if (outcome.iterationStats() != null) {
+            for (Iteration i : outcome.iterationStats()) {
+                result.addIterationStats(new IterationStats(i.iteration(), i.lineCoverage(), i.coverageDelta(),
+                    i.tokens(), Duration.ofMillis(i.millis())));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 只保留该类的覆盖率条目，整体覆盖率和未覆盖行号不变
+     */
+    private static CoverageReport trim(CoverageReport report, ClassInfo classInfo) {
+        if (report == null) {
+            return null;
+        }
+        List<CoverageInfo> classEntries = classInfo == null ? List.of() : report.classCoverages().stream()
+            .filter(info -> info.className().equals(classInfo.fullyQualifiedName())
+                || info.className().equals(classInfo.className()))
+            .toList();
+        return new CoverageReport(report.overallLineCoverage(), report.overallBranchCoverage(),
+            report.overallInstructionCoverage(), classEntries, List.copyOf(report.uncoveredLines()));
+    }
+
+    private static String path(File file) {
+        return file != null ? file.getAbsolutePath() : null;
+    }
+
+    private static File file(String path) {
+        return path != null ? new File(path) : null;
+    }
+
+    private static String key(File file) {
+        return file.getAbsolutePath();
+    }
+}
@@ -0,0 +1,24 @@
+package com.utagent.optimizer;
+
+/**
+ * Why the optimization loop of a class ended.
+ */
+public enum StopReason {
+    TARGET_REACHED("Target coverage achieved"),
+    MAX_ITERATIONS("Max iterations reached"),
+    NO_UNCOVERED_CODE("No more uncovered code to improve"),
+    PLATEAU("Coverage plateaued"),
+    DIMINISHING_RETURNS("Further iterations predicted to add too little coverage"),
+    UNREACHABLE_CODE("Remaining uncovered code is unreachable from tests"),
+    TARGETS_EXHAUSTED("Remaining uncovered code failed to improve repeatedly"),
+    QUOTA_EXHAUSTED("Token quota of the class used up"),
+    BUDGET_EXHAUSTED("Run budget exhausted");
+
+    private final String label;
+
+    StopReason(String label) {
+        this.label = label;
+    }
+
+    public String label() { return label; }
+}
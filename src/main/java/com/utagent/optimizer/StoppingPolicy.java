@@ -0,0 +1,192 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import com.utagent.model.MethodInfo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * 迭代提前停止策略：根据 {@link OptimizationResult} 中记录的每轮覆盖率增量、token 和耗时，
+ * 在覆盖率停滞、预测的剩余收益过低或剩余未覆盖代码无法从测试触达时结束迭代，
+ * 避免在难以提升的类上把剩余迭代全部消耗在 LLM 调用和构建上
+ */
+public class StoppingPolicy {
+
+    public static final int DEFAULT_PLATEAU_ITERATIONS = 2;
+    public static final double DEFAULT_MIN_GAIN = 0.005;
+    /** 一轮迭代（LLM 调用加一次构建）每分钟至少应带来的行覆盖率增量 */
+    public static final double DEFAULT_MIN_GAIN_PER_MINUTE = 0.001;
+
+    private final int plateauIterations;
+    private final double minGain;
+    private final double minGainPerThousandTokens;
+    private final double minGainPerMinute;
+
+    public StoppingPolicy() {
+        this(DEFAULT_PLATEAU_ITERATIONS, DEFAULT_MIN_GAIN, 0.0, DEFAULT_MIN_GAIN_PER_MINUTE);
+    }
+
+    public StoppingPolicy(int plateauIterations, double minGain, double minGainPerThousandTokens) {
+        this(plateauIterations, minGain, minGainPerThousandTokens, 0.0);
+    }
+
+    /**
+     * @param plateauIterations        连续多少轮增量低于 minGain 视为停滞，0 表示关闭提前停止
+     * @param minGain                  一轮迭代值得进行的最小行覆盖率增量
+     * @param minGainPerThousandTokens 每千 token 至少应带来的覆盖率增量，0 表示不按 token 成本判断
+     * @param minGainPerMinute         每分钟迭代耗时至少应带来的覆盖率增量，0 表示不按耗时判断
+     */
+    public StoppingPolicy(int plateauIterations, double minGain, double minGainPerThousandTokens,
+                          double minGainPerMinute) {
+        this.plateauIterations = Math.max(0, plateauIterations);
+        this.minGain = Math.max(0.0, minGain);
+        this.minGainPerThousandTokens = Math.max(0.0, minGainPerThousandTokens);
+        this.minGainPerMinute = Math.max(0.0, minGainPerMinute);
+    }
+
+    public static StoppingPolicy disabled() {
+        return new StoppingPolicy(0, 0.0, 0.0, 0.0);
+    }
+
+    public boolean isEnabled() {
+        return plateauIterations > 0;
+    }
+
+    public int getPlateauIterations() {
+        return plateauIterations;
+    }
+
+    /**
+     * 在下一轮迭代发送 LLM 请求之前判断是否应停止
+     *
+     * @param remainingIterations 不提前停止时还能进行的迭代次数
+     * @return 停止原因，继续迭代时为空
+     */
+    public Optional<StopReason> evaluate(OptimizationResult result, CoverageReport current, ClassInfo classInfo,
+                                         double targetCoverage, int remainingIterations) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        if (classInfo != null && isRemainingCodeUnreachable(current, classInfo)) {
+            return Optional.of(StopReason.UNREACHABLE_CODE);
+        }
+
+        List<IterationStats> stats = result.getIterationStats();
+        if (stats.size() >= plateauIterations && stats.subList(stats.size() - plateauIterations, stats.size())
+                .stream().allMatch(s -> s.coverageDelta() < minGain)) {
+            return Optional.of(StopReason.PLATEAU);
+        }
+
+        if (stats.size() >= 2) {
+            IterationStats last = stats.get(stats.size() - 1);
+            IterationStats previous = stats.get(stats.size() - 2);
+            double gap = targetCoverage - lineCoverage(current, classInfo);
+            if (isDiminishing(previous.coverageDelta(), last.coverageDelta(), gap, remainingIterations)
+                    || isTooExpensive(previous.coverageDelta(), last)) {
+                return Optional.of(StopReason.DIMINISHING_RETURNS);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 把最近两轮的增量按几何级数外推：下一轮预测增量低于 minGain，
+     * 且剩余迭代的预测总增量也补不上与目标的差距时，认为继续迭代收益递减
+     */
+    private boolean isDiminishing(double previousDelta, double lastDelta, double gap, int remainingIterations) {
+        if (previousDelta <= 0 || lastDelta < 0 || lastDelta >= previousDelta) {
+            return false;
+        }
+        double ratio = lastDelta / previousDelta;
+        double predictedNext = lastDelta * ratio;
+        double predictedTotal = ratio >= 1.0
+            ? predictedNext * remainingIterations
+            : predictedNext * (1 - Math.pow(ratio, remainingIterations)) / (1 - ratio);
+        return predictedNext < minGain && predictedTotal < gap;
+    }
+
+    /**
+     * 按上一轮的 token 和耗时估算下一轮的成本，预测增量相对任一成本低于阈值时认为不值得继续
+     */
+    private boolean isTooExpensive(double previousDelta, IterationStats last) {
+        double ratio = previousDelta > 0 ? Math.min(1.0, Math.max(0.0, last.coverageDelta() / previousDelta)) : 1.0;
+        double predictedNext = Math.max(0.0, last.coverageDelta()) * ratio;
+        if (minGainPerThousandTokens > 0 && last.tokens() > 0
+                && predictedNext / (last.tokens() / 1000.0) < minGainPerThousandTokens) {
+            return true;
+        }
+        long millis = last.duration() != null ? last.duration().toMillis() : 0;
+        return minGainPerMinute > 0 && millis > 0 && predictedNext / (millis / 60_000.0) < minGainPerMinute;
+    }
+
+    /**
+     * 剩余未覆盖的方法全部是没有调用者的私有方法（死代码），再生成测试也无法覆盖。
+     * 有调用者的私有方法可能通过调用方尚未覆盖的分支或尚未构造的输入触达，不视为不可达
+     */
+    boolean isRemainingCodeUnreachable(CoverageReport report, ClassInfo classInfo) {
+        List<CoverageInfo> classEntries = classEntries(report, classInfo);
+        List<CoverageInfo> uncoveredMethods = classEntries.stream()
+            .filter(info -> !info.methodName().isEmpty() && info.lineMissed() > 0)
+            .toList();
+        if (uncoveredMethods.isEmpty()) {
+            return false;
+        }
+
+        for (CoverageInfo uncovered : uncoveredMethods) {
+            String name = sourceMethodName(uncovered.methodName());
+            List<MethodInfo> declared = classInfo.methods().stream()
+                .filter(m -> m.name().equals(name))
+                .toList();
+            if (declared.isEmpty() || declared.stream().anyMatch(m -> !m.isPrivate())) {
+                return false;
+            }
+
+            String quoted = Pattern.quote(name);
+            Pattern call = Pattern.compile("\\b" + quoted + "\\s*\\(|::\\s*" + quoted + "\\b");
+            boolean called = classInfo.methods().stream()
+                .anyMatch(caller -> !caller.name().equals(name) && caller.body() != null
+                    && call.matcher(caller.body()).find());
+            if (called) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return 该类自身的行覆盖率，报告中没有类级条目时退回到整体行覆盖率
+     */
+    public static double lineCoverage(CoverageReport report, ClassInfo classInfo) {
+        if (classInfo != null) {
+            for (CoverageInfo info : classEntries(report, classInfo)) {
+                if (info.methodName().isEmpty()) {
+                    return info.getLineCoverageRate();
+                }
+            }
+        }
+        return report.overallLineCoverage();
+    }
+
+    private static List<CoverageInfo> classEntries(CoverageReport report, ClassInfo classInfo) {
+        return report.classCoverages().stream()
+            .filter(info -> info.className().equals(classInfo.fullyQualifiedName())
+                || info.className().equals(classInfo.className()))
+            .filter(info -> info.methodName() != null)
+            .toList();
+    }
+
+    /**
+     * lambda 编译成 lambda$method$0，归属到声明它的方法
+     */
+    private static String sourceMethodName(String methodName) {
+        if (methodName.startsWith("lambda$")) {
+            int end = methodName.indexOf('$', 7);
+            return end > 7 ? methodName.substring(7, end) : methodName;
+        }
+        return methodName;
+    }
+}
@@ -0,0 +1,358 @@
+package com.utagent.optimizer;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.Position;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.ImportDeclaration;
+import com.github.javaparser.ast.body.BodyDeclaration;
+import com.github.javaparser.ast.body.ClassOrInterfaceDeclaration;
+import com.github.javaparser.ast.body.FieldDeclaration;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.body.VariableDeclarator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 测试文件的内存模型：每个被优化的类在一次优化过程中只读取一次测试文件，
+ * 补充的测试按语法树去重（导入、字段、方法）后插入到类的末尾，方法名直接从语法树读取；
+ * 只有在需要运行构建或优化结束时才把内容写回磁盘。
+ * 新成员以标准格式输出并按文件原有缩进插入，已有内容保持原样；
+ * 文件无法解析时退回到文本拼接，保证生成的内容不会丢失
+ */
+public class TestFileModel {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestFileModel.class);
+
+    private static final Set<String> TEST_ANNOTATIONS =
+        Set.of("Test", "ParameterizedTest", "RepeatedTest", "TestFactory", "TestTemplate");
+    private static final Pattern IMPORT_LINE = Pattern.compile("(?m)^\\s*import\\s+[^;]+;\\s*$");
+    private static final Pattern TEST_METHOD = Pattern.compile(
+        "(?:@Test|@ParameterizedTest)[^}]*?void\\s+(\\w+)\\s*\\(", Pattern.DOTALL);
+    private static final String FRAGMENT_WRAPPER = "__Fragment";
+    private static final String DEFAULT_INDENT = "    ";
+
+    private final File file;
+    private final JavaParser javaParser;
+    private CompilationUnit unit;
+    private String source;
+    private boolean dirty;
+
+    private TestFileModel(File file, String source, boolean dirty) {
+        this.file = file;
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+        setSource(source);
+        this.dirty = dirty;
+    }
+
+    /**
+     * 读取已有的测试文件
+     */
+    public static TestFileModel load(File file) throws IOException {
+        return new TestFileModel(file, Files.readString(file.toPath()), false);
+    }
+
+    /**
+     * 以生成的代码创建模型，首次 {@link #flush()} 时写入文件
+     */
+    public static TestFileModel create(File file, String source) {
+        return new TestFileModel(file, source, true);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public String source() {
+        return source;
+    }
+
+    public boolean isParsed() {
+        return unit != null;
+    }
+
+    /**
+     * 用新的完整内容替换模型（如编译修复后的代码）
+     */
+    public void replace(String newSource) {
+        if (!newSource.equals(source)) {
+            setSource(newSource);
+            dirty = true;
+        }
+    }
+
+    /**
+     * 所有测试方法名（含嵌套类）
+     */
+    public Set<String> testMethodNames() {
+        Set<String> names = new LinkedHashSet<>();
+        if (unit == null) {
+            Matcher matcher = TEST_METHOD.matcher(source);
+            while (matcher.find()) {
+                names.add(matcher.group(1));
+            }
+            return names;
+        }
+        unit.findAll(MethodDeclaration.class).stream()
+            .filter(TestFileModel::isTestMethod)
+            .forEach(m -> names.add(m.getNameAsString()));
+        return names;
+    }
+
+    /**
+     * 合并补充的测试：可以是完整的测试类，也可以是只含方法（前面可带 import）的片段。
+     * 已有的导入和字段跳过，方法体相同的方法跳过，同名不同体的测试方法改名后加入
+     *
+     * @return 新加入的测试方法名
+     */
+    public List<String> merge(String additionalTests) {
+        if (additionalTests == null || additionalTests.isBlank()) {
+            return List.of();
+        }
+        Optional<ClassOrInterfaceDeclaration> target = unit != null ? topLevelClass(unit) : Optional.empty();
+        List<ImportDeclaration> imports = new ArrayList<>();
+        Optional<ClassOrInterfaceDeclaration> fragment = parseFragment(additionalTests, imports);
+        if (target.isEmpty() || target.get().getEnd().isEmpty() || fragment.isEmpty()) {
+            return mergeText(additionalTests);
+        }
+
+        ClassOrInterfaceDeclaration testClass = target.get();
+        List<String> newImports = new ArrayList<>();
+        for (ImportDeclaration importDeclaration : imports) {
+            String line = importDeclaration.toString().trim();
+            if (!unit.getImports().contains(importDeclaration) && !newImports.contains(line)) {
+                newImports.add(line);
+            }
+        }
+
+        Set<String> methodNames = new HashSet<>();
+        testClass.getMethods().forEach(m -> methodNames.add(m.getNameAsString()));
+        Set<String> bodies = new HashSet<>();
+        testClass.getMethods().forEach(m -> bodies.add(m.getNameAsString() + normalizedBody(m)));
+
+        List<String> members = new ArrayList<>();
+        List<String> added = new ArrayList<>();
+        for (BodyDeclaration<?> member : fragment.get().getMembers()) {
+            if (member instanceof MethodDeclaration method) {
+                boolean test = isTestMethod(method);
+                if (!bodies.add(method.getNameAsString() + normalizedBody(method))
+                        || (!test && methodNames.contains(method.getNameAsString()))) {
+                    // 相同的方法或同名的辅助方法（如 setUp）保留已有的
+                    continue;
+                }
+                MethodDeclaration copy = method.clone();
+                String name = copy.getNameAsString();
+                for (int suffix = 2; methodNames.contains(name); suffix++) {
+                    name = copy.getNameAsString() + "_" + suffix;
+                }
+                copy.setName(name);
+                methodNames.add(name);
+                members.add(copy.toString());
+                if (test) {
+                    added.add(name);
+                }
+            } else if (member instanceof FieldDeclaration field) {
+                boolean exists = field.getVariables().stream()
+                    .map(VariableDeclarator::getNameAsString)
+                    .anyMatch(name -> testClass.getFieldByName(name).isPresent());
+                if (!exists) {
+                    members.add(field.toString());
+                }
+            } else if (member instanceof ClassOrInterfaceDeclaration nested
+                    && testClass.getMembers().stream().noneMatch(m -> m instanceof ClassOrInterfaceDeclaration c
+                        && c.getNameAsString().equals(nested.getNameAsString()))) {
+                members.add(nested.toString());
+                nested.findAll(MethodDeclaration.class).stream()
+                    .filter(TestFileModel::isTestMethod)
+                    .forEach(m -> added.add(m.getNameAsString()));
+            }
+        }
+        if (members.isEmpty()) {
+            return List.of();
+        }
+
+        // 先插入类末尾的成员，再插入文件前部的导入，前面的偏移量不受影响
+        StringBuilder text = new StringBuilder(source);
+        insertMembers(text, testClass, members);
+        insertImports(text, newImports);
+        setSource(text.toString());
+        dirty = true;
+        return added;
+    }
+
+    private void insertMembers(StringBuilder text, ClassOrInterfaceDeclaration testClass, List<String> members) {
+        String indent = memberIndent(testClass);
+        StringBuilder rendered = new StringBuilder();
+        for (String member : members) {
+            rendered.append('\n');
+            for (String line : member.split("\\R", -1)) {
+                rendered.append(line.isEmpty() ? "" : indent + line).append('\n');
+            }
+        }
+
+        int braceOffset = offsetOf(text, testClass.getEnd().orElseThrow());
+        int lineStart = text.lastIndexOf("\n", braceOffset - 1) + 1;
+        if (text.substring(lineStart, braceOffset).isBlank()) {
+            text.insert(lineStart, rendered);
+        } else {
+            text.insert(braceOffset, rendered);
+        }
+    }
+
+    private void insertImports(StringBuilder text, List<String> imports) {
+        if (imports.isEmpty()) {
+            return;
+        }
+        String lines = String.join("\n", imports) + "\n";
+        Optional<Position> anchor = !unit.getImports().isEmpty()
+            ? unit.getImports().get(unit.getImports().size() - 1).getEnd()
+            : unit.getPackageDeclaration().flatMap(p -> p.getEnd());
+        if (anchor.isEmpty()) {
+            text.insert(0, lines + "\n");
+            return;
+        }
+        int lineEnd = text.indexOf("\n", offsetOf(text, anchor.get()));
+        if (lineEnd < 0) {
+            text.append('\n').append(lines);
+        } else if (unit.getImports().isEmpty()) {
+            text.insert(lineEnd + 1, "\n" + lines);
+        } else {
+            text.insert(lineEnd + 1, lines);
+        }
+    }
+
+    /**
+     * 类成员的缩进取自已有的第一个成员，没有成员时用四个空格
+     */
+    private String memberIndent(ClassOrInterfaceDeclaration testClass) {
+        return testClass.getMembers().stream()
+            .findFirst()
+            .flatMap(m -> m.getBegin())
+            .map(begin -> {
+                int offset = offsetOf(source, begin);
+                int lineStart = source.lastIndexOf('\n', offset - 1) + 1;
+                String prefix = source.substring(lineStart, offset);
+                return prefix.isBlank() ? prefix : DEFAULT_INDENT;
+            })
+            .orElse(DEFAULT_INDENT);
+    }
+
+    /**
+     * JavaParser 的行列号从 1 开始，列按字符计
+     */
+    private static int offsetOf(CharSequence text, Position position) {
+        int offset = 0;
+        for (int line = 1; line < position.line; line++) {
+            while (offset < text.length() && text.charAt(offset) != '\n') {
+                offset++;
+            }
+            offset++;
+        }
+        return Math.min(offset + position.column - 1, text.length());
+    }
+
+    /**
+     * 无法在语法树上合并时按原有方式拼接到最后一个右括号之前
+     */
+    private List<String> mergeText(String additionalTests) {
+        int lastBraceIndex = source.lastIndexOf('}');
+        if (lastBraceIndex <= 0) {
+            return List.of();
+        }
+        Set<String> before = testMethodNames();
+        setSource(source.substring(0, lastBraceIndex) + "\n" + additionalTests + "\n}\n");
+        dirty = true;
+        List<String> added = new ArrayList<>(testMethodNames());
+        added.removeAll(before);
+        return added;
+    }
+
+    private Optional<ClassOrInterfaceDeclaration> parseFragment(String code, List<ImportDeclaration> imports) {
+        Optional<CompilationUnit> whole = parse(code);
+        if (whole.isPresent() && topLevelClass(whole.get()).isPresent()) {
+            imports.addAll(whole.get().getImports());
+            return topLevelClass(whole.get());
+        }
+        Matcher matcher = IMPORT_LINE.matcher(code);
+        while (matcher.find()) {
+            javaParser.parseImport(matcher.group().trim()).getResult().ifPresent(imports::add);
+        }
+        String body = IMPORT_LINE.matcher(code).replaceAll("");
+        return parse("class " + FRAGMENT_WRAPPER + " {\n" + body + "\n}").flatMap(TestFileModel::topLevelClass);
+    }
+
+    /**
+     * 返回当前内容的快照，用于合并后编译失败时回滚
+     */
+    public String snapshot() {
+        return source;
+    }
+
+    public void restore(String snapshot) {
+        replace(snapshot);
+    }
+
+    /**
+     * 内容有变化时写入文件
+     */
+    public void flush() throws IOException {
+        if (!dirty) {
+            return;
+        }
+        if (file.getParentFile() != null) {
+            Files.createDirectories(file.getParentFile().toPath());
+        }
+        Files.writeString(file.toPath(), source, StandardCharsets.UTF_8);
+        dirty = false;
+        logger.info("Generated test file: {}", file.getAbsolutePath());
+    }
+
+    /**
+     * 文件被其他组件修改后（如隔离失败测试）重新读取
+     */
+    public void reload() throws IOException {
+        setSource(Files.readString(file.toPath()));
+        dirty = false;
+    }
+
+    private void setSource(String newSource) {
+        this.source = newSource;
+        this.unit = parse(newSource).filter(u -> topLevelClass(u).isPresent()).orElse(null);
+        if (unit == null) {
+            logger.debug("Test file {} is not parseable, merging as text", file.getName());
+        }
+    }
+
+    private Optional<CompilationUnit> parse(String code) {
+        ParseResult<CompilationUnit> result = javaParser.parse(code);
+        return result.isSuccessful() ? result.getResult() : Optional.empty();
+    }
+
+    private static Optional<ClassOrInterfaceDeclaration> topLevelClass(CompilationUnit unit) {
+        return unit.findFirst(ClassOrInterfaceDeclaration.class, c -> !c.isNestedType());
+    }
+
+    private static boolean isTestMethod(MethodDeclaration method) {
+        return method.getAnnotations().stream().anyMatch(a -> TEST_ANNOTATIONS.contains(a.getNameAsString()));
+    }
+
+    private static String normalizedBody(MethodDeclaration method) {
+        return method.getBody().map(b -> b.toString().replaceAll("\\s+", " ")).orElse("");
+    }
+}
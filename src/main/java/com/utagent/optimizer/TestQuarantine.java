@@ -0,0 +1,121 @@
+package com.utagent.optimizer;
+
+import com.github.javaparser.JavaParser;
+import com.github.javaparser.ParseResult;
+import com.github.javaparser.ParserConfiguration;
+import com.github.javaparser.ast.CompilationUnit;
+import com.github.javaparser.ast.body.MethodDeclaration;
+import com.github.javaparser.ast.expr.StringLiteralExpr;
+import com.github.javaparser.printer.lexicalpreservation.LexicalPreservingPrinter;
+import com.github.javaparser.utils.StringEscapeUtils;
+import com.utagent.build.TestOutcome;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 隔离失败的测试：给测试运行中失败的方法加上 @Disabled 并注明失败原因，
+ * 使构建恢复为通过状态，覆盖率可以由其余通过的测试重新测量；
+ * 测试文件的其余部分保持原有格式
+ */
+public class TestQuarantine {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestQuarantine.class);
+
+    public static final String REASON_PREFIX = "Quarantined: ";
+    private static final String DISABLED = "Disabled";
+    private static final String DISABLED_IMPORT = "org.junit.jupiter.api.Disabled";
+    private static final String DISPLAY_NAME = "DisplayName";
+    private static final int MAX_REASON_LENGTH = 120;
+
+    private final JavaParser javaParser;
+
+    public TestQuarantine() {
+        ParserConfiguration config = new ParserConfiguration();
+        config.setLanguageLevel(ParserConfiguration.LanguageLevel.JAVA_17);
+        this.javaParser = new JavaParser(config);
+    }
+
+    /**
+     * 禁用测试文件中失败的方法
+     *
+     * @return 被禁用的方法名，文件无法解析或没有匹配的方法时为空
+     */
+    public List<String> quarantine(File testFile, List<TestOutcome> outcomes) {
+        List<TestOutcome> failed = outcomes.stream().filter(TestOutcome::failed).toList();
+        if (failed.isEmpty() || testFile == null || !testFile.isFile()) {
+            return List.of();
+        }
+        try {
+            ParseResult<CompilationUnit> result = javaParser.parse(testFile.toPath());
+            if (!result.isSuccessful() || result.getResult().isEmpty()) {
+                return List.of();
+            }
+            CompilationUnit unit = result.getResult().get();
+            LexicalPreservingPrinter.setup(unit);
+
+            List<String> quarantined = new ArrayList<>();
+            for (TestOutcome outcome : failed) {
+                findMethod(unit, outcome.methodName())
+                    .filter(method -> method.getAnnotationByName(DISABLED).isEmpty())
+                    .ifPresent(method -> {
+                        method.addSingleMemberAnnotation(DISABLED, new StringLiteralExpr(reason(outcome)));
+                        quarantined.add(method.getNameAsString());
+                    });
+            }
+            if (quarantined.isEmpty()) {
+                return List.of();
+            }
+            unit.addImport(DISABLED_IMPORT);
+            Files.writeString(testFile.toPath(), print(unit), StandardCharsets.UTF_8);
+            logger.info("Quarantined failing tests in {}: {}", testFile.getName(), quarantined);
+            return quarantined;
+        } catch (IOException e) {
+            logger.warn("Could not quarantine failing tests in {}: {}", testFile, e.getMessage());
+            return List.of();
+        }
+    }
+
+    /**
+     * 报告中的名字可能是方法名，也可能是 @DisplayName 的值
+     */
+    private static Optional<MethodDeclaration> findMethod(CompilationUnit unit, String reportedName) {
+        Optional<MethodDeclaration> byName = unit.findFirst(MethodDeclaration.class,
+            m -> m.getNameAsString().equals(reportedName));
+        if (byName.isPresent()) {
+            return byName;
+        }
+        return unit.findFirst(MethodDeclaration.class, m -> m.getAnnotationByName(DISPLAY_NAME)
+            .filter(a -> a.isSingleMemberAnnotationExpr())
+            .map(a -> a.asSingleMemberAnnotationExpr().getMemberValue())
+            .filter(v -> v.isStringLiteralExpr() && v.asStringLiteralExpr().asString().equals(reportedName))
+            .isPresent());
+    }
+
+    private static String reason(TestOutcome outcome) {
+        String message = outcome.message() != null && !outcome.message().isBlank()
+            ? outcome.message().strip().lines().findFirst().orElse("")
+            : outcome.status().name().toLowerCase();
+        if (message.length() > MAX_REASON_LENGTH) {
+            message = message.substring(0, MAX_REASON_LENGTH) + "...";
+        }
+        return StringEscapeUtils.escapeJava(REASON_PREFIX + message);
+    }
+
+    private static String print(CompilationUnit unit) {
+        try {
+            return LexicalPreservingPrinter.print(unit);
+        } catch (RuntimeException e) {
+            // 个别语法结构无法保留原格式时退回到标准格式输出
+            logger.debug("Falling back to pretty printing: {}", e.getMessage());
+            return unit.toString();
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.utagent.optimizer;
+
+import com.utagent.llm.TokenEstimator;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import com.utagent.model.MethodInfo;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每轮迭代的未覆盖代码选择：按未覆盖的行数和分支数相对其 token 成本排序，
+ * 在每轮的 token 预算内按 0/1 背包选出收益最大的一组方法放进提示词；
+ * 连续多轮被选中却没有任何提升的方法不再选择。
+ * 每个被优化的类使用一个实例，失败次数在该类的各轮迭代之间累计
+ */
+public class UncoveredTargetSelector {
+
+    public static final int DEFAULT_TOKEN_BUDGET = 1_500;
+    public static final int DEFAULT_MAX_FAILURES = 2;
+    /** 方法体的 token 上限：再长的方法一轮也只会为其中一部分路径生成测试 */
+    static final int MAX_BODY_TOKENS = 600;
+    /** 背包容量的粒度，避免预算较大时动态规划表过大 */
+    private static final int TOKEN_UNIT = 10;
+
+    private final int tokenBudget;
+    private final int maxFailures;
+    private final TokenEstimator tokenEstimator;
+    private final Map<String, Integer> failures = new HashMap<>();
+
+    public UncoveredTargetSelector() {
+        this(DEFAULT_TOKEN_BUDGET, DEFAULT_MAX_FAILURES);
+    }
+
+    /**
+     * @param tokenBudget 每轮选中目标的 token 预算，0 表示不限制
+     * @param maxFailures 连续多少轮没有提升后排除该目标，0 表示从不排除
+     */
+    public UncoveredTargetSelector(int tokenBudget, int maxFailures) {
+        this(tokenBudget, maxFailures, TokenEstimator.getInstance());
+    }
+
+    UncoveredTargetSelector(int tokenBudget, int maxFailures, TokenEstimator tokenEstimator) {
+        this.tokenBudget = Math.max(0, tokenBudget);
+        this.maxFailures = Math.max(0, maxFailures);
+        this.tokenEstimator = tokenEstimator;
+    }
+
+    /**
+     * 该类所有还有未覆盖行或分支的目标。报告中有方法级条目时只返回方法级条目，
+     * 与其重复的类级汇总条目被去掉；只有类级条目时返回类级条目
+     */
+    public static List<CoverageInfo> uncoveredTargets(CoverageReport report, ClassInfo classInfo) {
+        List<CoverageInfo> methods = new ArrayList<>();
+        List<CoverageInfo> classLevel = new ArrayList<>();
+        for (CoverageInfo info : report.classCoverages()) {
+            if (!belongsTo(info, classInfo)) {
+                continue;
+            }
+            if (info.lineMissed() == 0 && info.branchMissed() == 0) {
+                continue;
+            }
+            if (info.methodName() == null || info.methodName().isEmpty()) {
+                classLevel.add(info);
+            } else {
+                methods.add(info);
+            }
+        }
+        return methods.isEmpty() ? classLevel : methods;
+    }
+
+    /**
+     * 选出本轮放进提示词的目标，按源码行号排序以便提示词稳定
+     *
+     * @return 选中的目标；仍有未覆盖代码但全部已被排除时为空
+     */
+    public List<CoverageInfo> select(CoverageReport report, ClassInfo classInfo) {
+        List<Candidate> candidates = new ArrayList<>();
+        for (CoverageInfo info : uncoveredTargets(report, classInfo)) {
+            if (!isExcluded(info)) {
+                candidates.add(new Candidate(info, value(info), cost(info, classInfo)));
+            }
+        }
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        List<Candidate> chosen = tokenBudget > 0 ? knapsack(candidates) : candidates;
+        return chosen.stream()
+            .map(Candidate::info)
+            .sorted(Comparator.comparingInt(CoverageInfo::lineNumber)
+                .thenComparing(CoverageInfo::methodName))
+            .toList();
+    }
+
+    /**
+     * 本轮结束后记录选中目标的结果：未覆盖的行和分支减少的目标清零失败次数，
+     * 没有减少（包括本轮测试未能编译）的目标失败次数加一。
+     * 报告中没有该类的条目时（覆盖率构建失败）不记录
+     */
+    public void recordOutcome(List<CoverageInfo> selected, CoverageReport after, ClassInfo classInfo) {
+        if (after.classCoverages().stream().noneMatch(info -> belongsTo(info, classInfo))) {
+            return;
+        }
+        Map<String, CoverageInfo> remaining = new HashMap<>();
+        for (CoverageInfo info : uncoveredTargets(after, classInfo)) {
+            remaining.put(key(info), info);
+        }
+        for (CoverageInfo target : selected) {
+            CoverageInfo now = remaining.get(key(target));
+            if (now == null || value(now) < value(target)) {
+                failures.remove(key(target));
+            } else {
+                failures.merge(key(target), 1, Integer::sum);
+            }
+        }
+    }
+
+    public boolean isExcluded(CoverageInfo info) {
+        return maxFailures > 0 && failures.getOrDefault(key(info), 0) >= maxFailures;
+    }
+
+    /**
+     * 0/1 背包：在预算内使选中目标的未覆盖行和分支总数最大。
+     * 没有任何目标放得进预算时退回到单位 token 收益最高的一个，保证每轮都有目标
+     */
+    private List<Candidate> knapsack(List<Candidate> candidates) {
+        int capacity = tokenBudget / TOKEN_UNIT;
+        int n = candidates.size();
+        int[][] best = new int[n + 1][capacity + 1];
+        for (int i = 1; i <= n; i++) {
+            Candidate candidate = candidates.get(i - 1);
+            int weight = units(candidate.tokens());
+            for (int c = 0; c <= capacity; c++) {
+                best[i][c] = best[i - 1][c];
+                if (weight <= c) {
+                    best[i][c] = Math.max(best[i][c], best[i - 1][c - weight] + candidate.value());
+                }
+            }
+        }
+
+        List<Candidate> chosen = new ArrayList<>();
+        int c = capacity;
+        for (int i = n; i > 0; i--) {
+            if (best[i][c] != best[i - 1][c]) {
+                Candidate candidate = candidates.get(i - 1);
+                chosen.add(candidate);
+                c -= units(candidate.tokens());
+            }
+        }
+        if (chosen.isEmpty()) {
+            candidates.stream()
+                .max(Comparator.comparingDouble(Candidate::valuePerToken))
+                .ifPresent(chosen::add);
+        }
+        return chosen;
+    }
+
+    private static boolean belongsTo(CoverageInfo info, ClassInfo classInfo) {
+        return info.className().equals(classInfo.fullyQualifiedName())
+            || info.className().equals(classInfo.className());
+    }
+
+    private static int units(int tokens) {
+        return Math.max(1, (tokens + TOKEN_UNIT - 1) / TOKEN_UNIT);
+    }
+
+    private static int value(CoverageInfo info) {
+        return info.lineMissed() + info.branchMissed();
+    }
+
+    /**
+     * 目标的 token 成本：提示词中的条目加上被测方法的源码。
+     * 方法越长，模型为它构造输入和断言所需的上下文和回复也越长
+     */
+    int cost(CoverageInfo info, ClassInfo classInfo) {
+        int tokens = tokenEstimator.estimate(String.format("- %s (line %d, missed lines %d, missed branches %d)%n",
+            info.methodName(), info.lineNumber(), info.lineMissed(), info.branchMissed()));
+        MethodInfo method = findMethod(info, classInfo);
+        if (method != null && method.body() != null) {
+            tokens += Math.min(MAX_BODY_TOKENS, tokenEstimator.estimate(method.body()));
+        }
+        return Math.max(1, tokens);
+    }
+
+    /**
+     * 按名称找到对应的方法，重载时取声明位置最接近覆盖条目行号的一个
+     */
+    private static MethodInfo findMethod(CoverageInfo info, ClassInfo classInfo) {
+        if (info.methodName() == null || info.methodName().isEmpty() || classInfo.methods() == null) {
+            return null;
+        }
+        return classInfo.methods().stream()
+            .filter(m -> m.name().equals(info.methodName()))
+            .min(Comparator.comparingInt(m -> Math.abs(m.lineNumber() - info.lineNumber())))
+            .orElse(null);
+    }
+
+    private static String key(CoverageInfo info) {
+        return info.methodName() + "#" + info.lineNumber();
+    }
+
+    private record Candidate(CoverageInfo info, int value, int tokens) {
+        double valuePerToken() {
+            return (double) value / tokens;
+        }
+    }
+}
@@ -234,6 +234,10 @@ public class FrameworkDetector {
         return classInfo.hasAnnotation("Data");
     }
 
+    public boolean hasValue(ClassInfo classInfo) {
+        return classInfo.hasAnnotation("Value");
+    }
+
     public boolean hasDependencyInjection(ClassInfo classInfo) {
         for (FieldInfo field : classInfo.fields()) {
             if (field.isDependencyInjection()) {
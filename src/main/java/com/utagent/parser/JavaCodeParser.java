@@ -19,6 +19,7 @@ import com.github.javaparser.resolution.SymbolResolver;
 import com.github.javaparser.symbolsolver.JavaSymbolSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.CombinedTypeSolver;
 import com.github.javaparser.symbolsolver.resolution.typesolvers.ReflectionTypeSolver;
+import com.utagent.cache.RequestFingerprint;
 import com.utagent.model.AnnotationInfo;
 import com.utagent.model.ClassInfo;
 import com.utagent.model.FieldInfo;
@@ -28,7 +29,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -69,12 +73,14 @@ public class JavaCodeParser {
 
     public Optional<ClassInfo> parseFile(File file) {
         try {
-            ParseResult<CompilationUnit> result = javaParser.parse(file);
-            if (result.isSuccessful() && result.getResult().isPresent()) {
-                return parseCompilationUnit(result.getResult().get());
-            }
-        } catch (FileNotFoundException e) {
+            // Decode like JavaParser does when given a file: malformed bytes in non-UTF-8
+            // sources (GBK, Latin-1) are replaced instead of failing the whole parse.
+            Charset encoding = javaParser.getParserConfiguration().getCharacterEncoding();
+            return parseCode(new String(Files.readAllBytes(file.toPath()), encoding));
+        } catch (NoSuchFileException e) {
             logger.error("File not found: {}", file.getAbsolutePath(), e);
+        } catch (IOException e) {
+            logger.error("Failed to read file: {}", file.getAbsolutePath(), e);
         }
         return Optional.empty();
     }
@@ -82,7 +88,7 @@ public class JavaCodeParser {
     public Optional<ClassInfo> parseCode(String code) {
         ParseResult<CompilationUnit> result = javaParser.parse(code);
         if (result.isSuccessful() && result.getResult().isPresent()) {
-            return parseCompilationUnit(result.getResult().get());
+            return parseCompilationUnit(result.getResult().get(), code);
         }
         return Optional.empty();
     }
@@ -106,7 +112,10 @@ public class JavaCodeParser {
         return classes;
     }
 
-    private Optional<ClassInfo> parseCompilationUnit(CompilationUnit cu) {
+    private Optional<ClassInfo> parseCompilationUnit(CompilationUnit cu, String source) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put(ClassInfo.SOURCE_HASH, hashSource(source));
+
         String packageName = cu.getPackageDeclaration()
             .map(pd -> pd.getNameAsString())
             .orElse("");
@@ -116,23 +125,24 @@ public class JavaCodeParser {
 
         Optional<ClassOrInterfaceDeclaration> classDecl = cu.findFirst(ClassOrInterfaceDeclaration.class);
         if (classDecl.isPresent()) {
-            return Optional.of(buildClassInfo(classDecl.get(), packageName, imports));
+            return Optional.of(buildClassInfo(classDecl.get(), packageName, imports, metadata));
         }
 
         Optional<EnumDeclaration> enumDecl = cu.findFirst(EnumDeclaration.class);
         if (enumDecl.isPresent()) {
-            return Optional.of(buildEnumInfo(enumDecl.get(), packageName, imports));
+            return Optional.of(buildEnumInfo(enumDecl.get(), packageName, imports, metadata));
         }
 
         Optional<RecordDeclaration> recordDecl = cu.findFirst(RecordDeclaration.class);
         if (recordDecl.isPresent()) {
-            return Optional.of(buildRecordInfo(recordDecl.get(), packageName, imports));
+            return Optional.of(buildRecordInfo(recordDecl.get(), packageName, imports, metadata));
         }
 
         return Optional.empty();
     }
 
-    private ClassInfo buildClassInfo(ClassOrInterfaceDeclaration decl, String packageName, List<String> imports) {
+    private ClassInfo buildClassInfo(ClassOrInterfaceDeclaration decl, String packageName, List<String> imports,
+                                     Map<String, Object> metadata) {
         String className = decl.getNameAsString();
         String fullName = packageName.isEmpty() ? className : packageName + "." + className;
 
@@ -152,6 +162,10 @@ public class JavaCodeParser {
         List<String> interfaces = new ArrayList<>();
         decl.getImplementedTypes().forEach(i -> interfaces.add(i.getNameAsString()));
 
+        metadata.put(ClassInfo.ABSTRACT, decl.isAbstract());
+        metadata.put(ClassInfo.NO_ARG_CONSTRUCTOR, decl.getConstructors().isEmpty()
+            || decl.getConstructors().stream().anyMatch(c -> c.getParameters().isEmpty() && !c.isPrivate()));
+
         return new ClassInfo(
             packageName,
             className,
@@ -165,11 +179,12 @@ public class JavaCodeParser {
             decl.isInterface(),
             false,
             false,
-            new HashMap<>()
+            metadata
         );
     }
 
-    private ClassInfo buildEnumInfo(EnumDeclaration decl, String packageName, List<String> imports) {
+    private ClassInfo buildEnumInfo(EnumDeclaration decl, String packageName, List<String> imports,
+                                    Map<String, Object> metadata) {
         String className = decl.getNameAsString();
         String fullName = packageName.isEmpty() ? className : packageName + "." + className;
 
@@ -192,11 +207,12 @@ public class JavaCodeParser {
             false,
             true,
             false,
-            new HashMap<>()
+            metadata
         );
     }
 
-    private ClassInfo buildRecordInfo(RecordDeclaration decl, String packageName, List<String> imports) {
+    private ClassInfo buildRecordInfo(RecordDeclaration decl, String packageName, List<String> imports,
+                                      Map<String, Object> metadata) {
         String className = decl.getNameAsString();
         String fullName = packageName.isEmpty() ? className : packageName + "." + className;
 
@@ -206,9 +222,11 @@ public class JavaCodeParser {
         List<AnnotationInfo> annotations = new ArrayList<>();
         decl.getAnnotations().forEach(a -> annotations.add(buildAnnotationInfo(a)));
 
-        List<ParameterInfo> recordComponents = new ArrayList<>();
-        decl.getParameters().forEach(p -> 
-            recordComponents.add(new ParameterInfo(p.getNameAsString(), p.getTypeAsString()))
+        // record components are the private final fields of the record
+        List<FieldInfo> recordComponents = new ArrayList<>();
+        decl.getParameters().forEach(p ->
+            recordComponents.add(new FieldInfo(p.getNameAsString(), p.getTypeAsString(), new ArrayList<>(),
+                false, true, true, false, false))
         );
 
         return new ClassInfo(
@@ -216,7 +234,7 @@ public class JavaCodeParser {
             className,
             fullName,
             methods,
-            new ArrayList<>(),
+            recordComponents,
             annotations,
             imports,
             "Record",
@@ -224,10 +242,19 @@ public class JavaCodeParser {
             false,
             false,
             true,
-            new HashMap<>()
+            metadata
         );
     }
 
+    /**
+     * Hash of the source with line endings and trailing whitespace normalized,
+     * so formatting-only saves do not change it.
+     */
+    private String hashSource(String source) {
+        String normalized = source.replace("\r\n", "\n").replaceAll("[ \t]+\n", "\n").strip();
+        return RequestFingerprint.sha256(normalized);
+    }
+
     private MethodInfo buildMethodInfo(MethodDeclaration method) {
         String name = method.getNameAsString();
         String returnType = method.getType().asString();
@@ -17,25 +17,24 @@ import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+/**
+ * Reads existing test files: package, imports, class annotations, test and setup
+ * methods and hints about which production methods they exercise. The content is
+ * scanned once by {@link TestFileScanner}, so the cost grows linearly with the file.
+ */
 public class TestFileParser {
 
     private static final Logger logger = LoggerFactory.getLogger(TestFileParser.class);
 
     private static final Pattern PACKAGE_PATTERN = Pattern.compile("package\\s+([\\w.]+)\\s*;");
-    private static final Pattern CLASS_PATTERN = Pattern.compile("(?:public\\s+)?(?:abstract\\s+)?(?:final\\s+)?class\\s+(\\w+Test)");
-    private static final Pattern IMPORT_PATTERN = Pattern.compile("import\\s+(?:static\\s+)?([\\w.]+(?:\\.\\*)?)\\s*;");
-    private static final Pattern METHOD_PATTERN = Pattern.compile(
-        "((?:@\\w+(?:\\([^)]*\\))?\\s*)*)" +
-        "(?:public\\s+|private\\s+|protected\\s+)?" +
-        "(?:static\\s+)?" +
-        "(?:final\\s+)?" +
-        "void\\s+(\\w+)\\s*\\([^)]*\\)\\s*(?:throws\\s+[\\w.,\\s]+)?\\s*\\{"
+    private static final List<Pattern> DISPLAY_NAME_HINTS = List.of(
+        Pattern.compile("should (\\w+)", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("test (\\w+)", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("when (\\w+)", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("(\\w+) should", Pattern.CASE_INSENSITIVE),
+        Pattern.compile("(\\w+) when", Pattern.CASE_INSENSITIVE)
     );
-    private static final Pattern ANNOTATION_PATTERN = Pattern.compile("@(\\w+)(?:\\([^)]*\\))?");
-    private static final Pattern TEST_ANNOTATION_PATTERN = Pattern.compile("@Test(?:\\([^)]*\\))?");
-    private static final Pattern DISPLAY_NAME_PATTERN = Pattern.compile("@DisplayName\\(?:\\s*\"([^\"]+)\"\\s*\\)");
-    private static final Pattern SETUP_METHOD_PATTERN = Pattern.compile("@(BeforeEach|Before|BeforeClass)");
-    
+
     public Optional<ParsedTestFile> parse(File testFile) {
         if (testFile == null || !testFile.exists()) {
             return Optional.empty();
@@ -52,24 +51,19 @@ public class TestFileParser {
 
     public ParsedTestFile parseContent(String content) {
         ParsedTestFile.Builder builder = ParsedTestFile.builder();
+        TestFileScanner.Result scan = TestFileScanner.scan(content);
 
-        String packageName = extractPackage(content);
-        builder.packageName(packageName);
-
-        String className = extractClassName(content);
-        builder.className(className);
+        builder.packageName(scan.packageName());
+        builder.className(scan.className());
 
-        if (packageName != null && className != null) {
-            builder.fullyQualifiedName(packageName + "." + className);
+        if (!scan.packageName().isEmpty() && !scan.className().isEmpty()) {
+            builder.fullyQualifiedName(scan.packageName() + "." + scan.className());
         }
 
-        List<String> imports = extractImports(content);
-        builder.imports(imports);
-
-        List<String> classAnnotations = extractClassAnnotations(content);
-        builder.classAnnotations(classAnnotations);
+        builder.imports(scan.imports());
+        builder.classAnnotations(scan.classAnnotations());
 
-        List<ParsedTestMethod> testMethods = extractTestMethods(content);
+        List<ParsedTestMethod> testMethods = extractTestMethods(scan.methods());
         builder.testMethods(testMethods);
 
         Set<String> testedMethods = extractTestedMethods(testMethods);
@@ -77,108 +71,18 @@ public class TestFileParser {
 
         builder.classBody(content);
 
-        logger.debug("Parsed test file: {} with {} test methods", className, testMethods.size());
+        logger.debug("Parsed test file: {} with {} test methods", scan.className(), testMethods.size());
 
         return builder.build();
     }
 
-    private String extractPackage(String content) {
-        Matcher matcher = PACKAGE_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return "";
-    }
-
-    private String extractClassName(String content) {
-        Matcher matcher = CLASS_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.group(1);
-        }
-        return "";
-    }
-
-    private List<String> extractImports(String content) {
-        List<String> imports = new ArrayList<>();
-        Matcher matcher = IMPORT_PATTERN.matcher(content);
-        while (matcher.find()) {
-            imports.add(matcher.group(1));
-        }
-        return imports;
-    }
-
-    private List<String> extractClassAnnotations(String content) {
-        List<String> annotations = new ArrayList<>();
-        
-        int classIndex = findClassDeclarationIndex(content);
-        if (classIndex == -1) {
-            return annotations;
-        }
-
-        String beforeClass = content.substring(0, classIndex);
-        Matcher matcher = ANNOTATION_PATTERN.matcher(beforeClass);
-        
-        int lastImportEnd = findLastImportEnd(content);
-        String annotationArea = beforeClass.substring(lastImportEnd);
-        
-        Matcher annotationMatcher = ANNOTATION_PATTERN.matcher(annotationArea);
-        while (annotationMatcher.find()) {
-            String fullMatch = annotationMatcher.group();
-            int start = annotationMatcher.start();
-            int end = findAnnotationEnd(annotationArea, start);
-            annotations.add(annotationArea.substring(start, end).trim());
-        }
-
-        return annotations;
-    }
-
-    private int findClassDeclarationIndex(String content) {
-        Matcher matcher = CLASS_PATTERN.matcher(content);
-        if (matcher.find()) {
-            return matcher.start();
-        }
-        return -1;
-    }
-
-    private int findLastImportEnd(String content) {
-        int lastEnd = 0;
-        Matcher matcher = IMPORT_PATTERN.matcher(content);
-        while (matcher.find()) {
-            lastEnd = matcher.end();
-        }
-        return lastEnd;
-    }
-
-    private int findAnnotationEnd(String content, int start) {
-        int depth = 0;
-        int i = start;
-        while (i < content.length()) {
-            char c = content.charAt(i);
-            if (c == '(') {
-                depth++;
-            } else if (c == ')') {
-                depth--;
-                if (depth == 0) {
-                    return i + 1;
-                }
-            } else if (c == '\n' && depth == 0) {
-                return i;
-            }
-            i++;
-        }
-        return content.length();
-    }
-
-    private List<ParsedTestMethod> extractTestMethods(String content) {
+    private List<ParsedTestMethod> extractTestMethods(List<TestFileScanner.Method> scannedMethods) {
         List<ParsedTestMethod> methods = new ArrayList<>();
 
-        Matcher methodMatcher = METHOD_PATTERN.matcher(content);
-        while (methodMatcher.find()) {
-            String annotationBlock = methodMatcher.group(1);
-            String methodName = methodMatcher.group(2);
-            int methodStart = methodMatcher.end() - 1;
-
-            List<String> annotations = parseAnnotations(annotationBlock);
+        for (TestFileScanner.Method scanned : scannedMethods) {
+            List<String> annotations = scanned.annotations().stream()
+                .map(TestFileScanner.Annotation::text)
+                .toList();
 
             boolean isTest = annotations.stream()
                 .anyMatch(a -> a.startsWith("@Test") || a.startsWith("@ParameterizedTest"));
@@ -186,14 +90,13 @@ public class TestFileParser {
                 .anyMatch(a -> a.startsWith("@BeforeEach") || a.startsWith("@Before"));
 
             if (isTest || isSetup) {
-                String methodBody = extractMethodBody(content, methodStart);
-                String testedMethodName = inferTestedMethodName(methodName, annotations);
+                String testedMethodName = inferTestedMethodName(scanned.name(), extractDisplayName(scanned));
 
                 ParsedTestMethod testMethod = ParsedTestMethod.builder()
-                    .methodName(methodName)
+                    .methodName(scanned.name())
                     .testedMethodName(testedMethodName)
                     .annotations(annotations)
-                    .testCode(methodBody)
+                    .testCode(scanned.body())
                     .build();
 
                 methods.add(testMethod);
@@ -203,41 +106,15 @@ public class TestFileParser {
         return methods;
     }
 
-    private List<String> parseAnnotations(String annotationBlock) {
-        List<String> annotations = new ArrayList<>();
-        if (annotationBlock == null || annotationBlock.isBlank()) {
-            return annotations;
-        }
-
-        Matcher matcher = ANNOTATION_PATTERN.matcher(annotationBlock);
-        int lastEnd = 0;
-        while (matcher.find()) {
-            int start = matcher.start();
-            int end = findAnnotationEnd(annotationBlock, start);
-            annotations.add(annotationBlock.substring(start, end).trim());
-            lastEnd = end;
-        }
-
-        return annotations;
-    }
-
-    private String extractMethodBody(String content, int startBrace) {
-        int depth = 1;
-        int i = startBrace + 1;
-        while (i < content.length() && depth > 0) {
-            char c = content.charAt(i);
-            if (c == '{') {
-                depth++;
-            } else if (c == '}') {
-                depth--;
-            }
-            i++;
-        }
-        return content.substring(startBrace, i);
+    private String extractDisplayName(TestFileScanner.Method method) {
+        return method.annotations().stream()
+            .filter(a -> a.name().equals("DisplayName") && a.firstString() != null && !a.firstString().isEmpty())
+            .map(TestFileScanner.Annotation::firstString)
+            .findFirst()
+            .orElse(null);
     }
 
-    private String inferTestedMethodName(String testMethodName, List<String> annotations) {
-        String displayName = extractDisplayName(annotations);
+    private String inferTestedMethodName(String testMethodName, String displayName) {
         if (displayName != null) {
             String inferred = inferFromDisplayName(displayName);
             if (inferred != null) {
@@ -248,29 +125,9 @@ public class TestFileParser {
         return inferFromTestMethodName(testMethodName);
     }
 
-    private String extractDisplayName(List<String> annotations) {
-        for (String annotation : annotations) {
-            if (annotation.startsWith("@DisplayName")) {
-                Matcher matcher = Pattern.compile("\"([^\"]+)\"").matcher(annotation);
-                if (matcher.find()) {
-                    return matcher.group(1);
-                }
-            }
-        }
-        return null;
-    }
-
     private String inferFromDisplayName(String displayName) {
-        String[] patterns = {
-            "should (\\w+)",
-            "test (\\w+)",
-            "when (\\w+)",
-            "(\\w+) should",
-            "(\\w+) when"
-        };
-
-        for (String pattern : patterns) {
-            Matcher matcher = Pattern.compile(pattern, Pattern.CASE_INSENSITIVE).matcher(displayName);
+        for (Pattern pattern : DISPLAY_NAME_HINTS) {
+            Matcher matcher = pattern.matcher(displayName);
             if (matcher.find()) {
                 return matcher.group(1).toLowerCase();
             }
@@ -0,0 +1,382 @@
+package com.utagent.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Single-pass lexer over a test source file. Extracts the package, imports,
+ * the test class with its annotations and every annotated method with its body
+ * in one linear traversal. Comments, string literals, text blocks and char
+ * literals are skipped by the lexer, so braces inside them never confuse the
+ * structure, and unparseable files still yield whatever could be recognised.
+ */
+final class TestFileScanner {
+
+    private enum Token { WORD, STRING, SYMBOL, EOF }
+
+    private enum FrameKind { TYPE, METHOD, BLOCK }
+
+    /**
+     * @param text        annotation source, e.g. {@code @DisplayName("adds")}
+     * @param name        simple annotation name
+     * @param firstString value of the first string literal in the arguments, or null
+     */
+    record Annotation(String text, String name, String firstString) {
+    }
+
+    /**
+     * @param body source from the opening to the closing brace of the method body
+     */
+    record Method(String name, List<Annotation> annotations, String body) {
+    }
+
+    /**
+     * @param typeReferences capitalised identifiers used anywhere in the code, candidate
+     *                       simple names of the types the test refers to
+     */
+    record Result(String packageName, String className, List<String> imports,
+                  List<String> classAnnotations, List<Method> methods, Set<String> typeReferences) {
+    }
+
+    private record Frame(FrameKind kind, String name, List<Annotation> annotations, int start) {
+    }
+
+    private final String src;
+    private int pos;
+
+    private Token token;
+    private int tokenStart;
+    private int tokenEnd;
+    private String stringValue;
+
+    private TestFileScanner(String src) {
+        this.src = src;
+    }
+
+    static Result scan(String content) {
+        return new TestFileScanner(content).run();
+    }
+
+    private Result run() {
+        String packageName = "";
+        String className = "";
+        List<String> imports = new ArrayList<>();
+        List<String> classAnnotations = new ArrayList<>();
+        List<Method> methods = new ArrayList<>();
+        Set<String> typeReferences = new LinkedHashSet<>();
+        Deque<Frame> frames = new ArrayDeque<>();
+        Header header = new Header();
+
+        while (next() != Token.EOF) {
+            if (token == Token.WORD && Character.isUpperCase(src.charAt(tokenStart))) {
+                typeReferences.add(word());
+            }
+            Frame top = frames.peek();
+            if (top != null && top.kind() != FrameKind.TYPE) {
+                // Inside a method or block only the brace structure matters
+                if (isSymbol('{')) {
+                    frames.push(new Frame(FrameKind.BLOCK, null, null, tokenStart));
+                } else if (isSymbol('}')) {
+                    Frame closed = frames.pop();
+                    if (closed.kind() == FrameKind.METHOD) {
+                        methods.add(new Method(closed.name(), closed.annotations(),
+                            src.substring(closed.start(), tokenEnd)));
+                    }
+                }
+                continue;
+            }
+
+            if (token == Token.WORD) {
+                String word = word();
+                boolean afterDot = header.lastSymbol == '.';
+                if (header.isEmpty() && frames.isEmpty() && word.equals("package")) {
+                    packageName = qualifiedName(false);
+                    skipTo(';');
+                    continue;
+                } else if (header.isEmpty() && frames.isEmpty() && word.equals("import")) {
+                    String imported = qualifiedName(true);
+                    if (!imported.isEmpty()) {
+                        imports.add(imported);
+                    }
+                    skipTo(';');
+                    continue;
+                } else if (header.expectTypeName) {
+                    header.typeName = word;
+                    header.expectTypeName = false;
+                } else if (!afterDot && header.parenDepth == 0 && isTypeKeyword(word)) {
+                    header.typeKeyword = true;
+                    header.expectTypeName = true;
+                } else if (header.parenDepth == 0) {
+                    header.lastWord = word;
+                }
+                header.tokens++;
+                header.lastSymbol = 0;
+                continue;
+            }
+            if (token != Token.SYMBOL) {
+                header.tokens++;
+                header.lastSymbol = 0;
+                continue;
+            }
+
+            char symbol = src.charAt(tokenStart);
+            switch (symbol) {
+                case '@' -> {
+                    Annotation annotation = annotation();
+                    if (annotation == null) {
+                        // @interface declares an annotation type
+                        header.typeKeyword = true;
+                        header.expectTypeName = true;
+                    } else if (header.parenDepth == 0) {
+                        header.annotations.add(annotation);
+                    }
+                }
+                case '(' -> {
+                    if (header.parenDepth == 0 && !header.typeKeyword && !header.field
+                            && header.methodName == null && header.lastWord != null) {
+                        header.methodName = header.lastWord;
+                    }
+                    header.parenDepth++;
+                }
+                case ')' -> header.parenDepth = Math.max(0, header.parenDepth - 1);
+                case '=' -> {
+                    if (header.parenDepth == 0) {
+                        header.field = true;
+                    }
+                }
+                case ',' -> {
+                    if (header.parenDepth == 0 && !header.field) {
+                        // Enum constants: A("x"), B("y")
+                        header.methodName = null;
+                    }
+                }
+                case ';' -> {
+                    if (header.parenDepth == 0) {
+                        header = new Header();
+                    }
+                }
+                case '{' -> {
+                    if (header.typeKeyword) {
+                        if (className.isEmpty() && isTestClassName(header.typeName)) {
+                            className = header.typeName;
+                            header.annotations.forEach(a -> classAnnotations.add(a.text()));
+                        }
+                        frames.push(new Frame(FrameKind.TYPE, header.typeName, null, tokenStart));
+                        header = new Header();
+                    } else if (header.methodName != null && !header.field) {
+                        frames.push(new Frame(FrameKind.METHOD, header.methodName,
+                            List.copyOf(header.annotations), tokenStart));
+                        header = new Header();
+                    } else {
+                        // Initializer blocks, array initializers and anonymous classes
+                        frames.push(new Frame(FrameKind.BLOCK, null, null, tokenStart));
+                        if (!header.field) {
+                            header = new Header();
+                        }
+                    }
+                    continue;
+                }
+                case '}' -> {
+                    if (!frames.isEmpty()) {
+                        frames.pop();
+                    }
+                    header = new Header();
+                    continue;
+                }
+                default -> {
+                }
+            }
+            header.tokens++;
+            header.lastSymbol = symbol;
+        }
+        return new Result(packageName, className, imports, classAnnotations, methods, typeReferences);
+    }
+
+    /**
+     * Reads an annotation after its '@', including a balanced argument list.
+     *
+     * @return null for {@code @interface}
+     */
+    private Annotation annotation() {
+        int start = tokenStart;
+        String name = qualifiedName(false);
+        if (name.equals("interface")) {
+            return null;
+        }
+        int end = pos;
+        String firstString = null;
+        int saved = pos;
+        if (next() == Token.SYMBOL && isSymbol('(')) {
+            int depth = 1;
+            while (depth > 0 && next() != Token.EOF) {
+                if (token == Token.STRING && firstString == null) {
+                    firstString = stringValue;
+                } else if (isSymbol('(')) {
+                    depth++;
+                } else if (isSymbol(')')) {
+                    depth--;
+                }
+            }
+            end = tokenEnd;
+        } else {
+            pos = saved;
+        }
+        String simpleName = name.substring(name.lastIndexOf('.') + 1);
+        return new Annotation(src.substring(start, end).trim(), simpleName, firstString);
+    }
+
+    /**
+     * Reads a dotted name starting at the next token; {@code static} and a
+     * trailing {@code .*} are handled for imports.
+     */
+    private String qualifiedName(boolean importName) {
+        StringBuilder name = new StringBuilder();
+        while (true) {
+            int saved = pos;
+            Token next = next();
+            if (next == Token.WORD) {
+                String word = word();
+                if (importName && name.isEmpty() && word.equals("static")) {
+                    continue;
+                }
+                name.append(word);
+            } else if (importName && next == Token.SYMBOL && isSymbol('*')) {
+                name.append('*');
+                return name.toString();
+            } else {
+                pos = saved;
+                return name.toString();
+            }
+            saved = pos;
+            if (next() == Token.SYMBOL && isSymbol('.')) {
+                name.append('.');
+            } else {
+                pos = saved;
+                return name.toString();
+            }
+        }
+    }
+
+    private void skipTo(char symbol) {
+        while (next() != Token.EOF) {
+            if (isSymbol(symbol)) {
+                return;
+            }
+        }
+    }
+
+    private Token next() {
+        skipTrivia();
+        tokenStart = pos;
+        stringValue = null;
+        if (pos >= src.length()) {
+            tokenEnd = pos;
+            return token = Token.EOF;
+        }
+        char c = src.charAt(pos);
+        if (Character.isJavaIdentifierPart(c)) {
+            while (pos < src.length() && Character.isJavaIdentifierPart(src.charAt(pos))) {
+                pos++;
+            }
+            tokenEnd = pos;
+            return token = Token.WORD;
+        }
+        if (c == '"') {
+            if (src.startsWith("\"\"\"", pos)) {
+                pos = endOfLiteral(pos + 3, "\"\"\"");
+                stringValue = src.substring(tokenStart + 3, Math.max(tokenStart + 3, pos - 3));
+            } else {
+                pos = endOfLiteral(pos + 1, "\"");
+                stringValue = src.substring(tokenStart + 1, Math.max(tokenStart + 1, pos - 1));
+            }
+            tokenEnd = pos;
+            return token = Token.STRING;
+        }
+        if (c == '\'') {
+            pos = endOfLiteral(pos + 1, "'");
+            tokenEnd = pos;
+            return token = Token.STRING;
+        }
+        pos++;
+        tokenEnd = pos;
+        return token = Token.SYMBOL;
+    }
+
+    /**
+     * @return the offset just after the closing delimiter, or the end of input
+     */
+    private int endOfLiteral(int from, String delimiter) {
+        int i = from;
+        while (i < src.length()) {
+            char c = src.charAt(i);
+            if (c == '\\') {
+                i += 2;
+            } else if (src.startsWith(delimiter, i)) {
+                return i + delimiter.length();
+            } else if (c == '\n' && delimiter.length() == 1) {
+                // Unterminated literal: resynchronise at the end of the line
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return src.length();
+    }
+
+    private void skipTrivia() {
+        while (pos < src.length()) {
+            char c = src.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (src.startsWith("//", pos)) {
+                int end = src.indexOf('\n', pos);
+                pos = end < 0 ? src.length() : end + 1;
+            } else if (src.startsWith("/*", pos)) {
+                int end = src.indexOf("*/", pos + 2);
+                pos = end < 0 ? src.length() : end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private boolean isSymbol(char symbol) {
+        return token == Token.SYMBOL && src.charAt(tokenStart) == symbol;
+    }
+
+    private String word() {
+        return src.substring(tokenStart, tokenEnd);
+    }
+
+    private static boolean isTypeKeyword(String word) {
+        return word.equals("class") || word.equals("interface") || word.equals("enum") || word.equals("record");
+    }
+
+    private static boolean isTestClassName(String name) {
+        return name != null && (name.endsWith("Test") || name.endsWith("Tests"));
+    }
+
+    /**
+     * Declaration header accumulated between two member boundaries of a type body.
+     */
+    private static final class Header {
+        final List<Annotation> annotations = new ArrayList<>();
+        boolean typeKeyword;
+        boolean expectTypeName;
+        String typeName;
+        String lastWord;
+        String methodName;
+        boolean field;
+        int parenDepth;
+        int tokens;
+        char lastSymbol;
+
+        boolean isEmpty() {
+            return tokens == 0;
+        }
+    }
+}
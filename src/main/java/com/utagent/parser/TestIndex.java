@@ -0,0 +1,371 @@
+package com.utagent.parser;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Project-wide index from production classes to the tests that exercise them.
+ * The test source tree is walked once per {@link #refresh()}; only files whose
+ * modification time changed since the persisted index was written are scanned
+ * again. Lookups afterwards are hash-map reads.
+ *
+ * <p>A test is associated with a source class either by naming convention
+ * ({@code FooTest}, {@code FooTests}, {@code TestFoo} in the same package) or
+ * because it refers to the class, resolved through its imports and package.
+ */
+public class TestIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TestIndex.class);
+
+    public static final String DEFAULT_INDEX_FILE = ".utagent/test-index.json";
+
+    private static final Pattern PACKAGE_PATTERN = Pattern.compile("package\\s+([\\w.]+)\\s*;");
+    private static final int SOURCE_HEADER_CHARS = 4096;
+
+    /**
+     * One indexed test source file.
+     *
+     * @param referencedTypes fully qualified names of the production types the test may refer to
+     */
+    public record Entry(String path, long lastModified, String packageName, String className,
+                        List<String> testMethods, Set<String> referencedTypes) {
+
+        public File file() {
+            return new File(path);
+        }
+
+        public String fullyQualifiedName() {
+            return packageName.isEmpty() ? className : packageName + "." + className;
+        }
+    }
+
+    private final File testSourceDir;
+    private final Path indexFile;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Map<String, Entry> entriesByPath = new HashMap<>();
+    private final Map<String, List<Entry>> conventionalTests = new HashMap<>();
+    private final Map<String, List<Entry>> referencingTests = new HashMap<>();
+    private boolean loaded;
+    private boolean dirty;
+
+    /**
+     * @param indexFile where the index is persisted between runs, or null to keep it in memory only
+     */
+    public TestIndex(File testSourceDir, Path indexFile) {
+        this.testSourceDir = testSourceDir;
+        this.indexFile = indexFile;
+    }
+
+    public static TestIndex forProject(File projectRoot, File testSourceDir) {
+        return new TestIndex(testSourceDir, projectRoot.toPath().resolve(DEFAULT_INDEX_FILE));
+    }
+
+    /**
+     * Brings the index up to date with the test source tree: new and modified files
+     * are scanned, deleted files are dropped, and the result is persisted.
+     */
+    public synchronized TestIndex refresh() {
+        boolean firstRefresh = !loaded;
+        if (firstRefresh) {
+            load();
+            loaded = true;
+        }
+
+        Map<String, File> current = new HashMap<>();
+        collectTestSources(testSourceDir, current);
+
+        int scanned = 0;
+        boolean changed = entriesByPath.keySet().retainAll(current.keySet());
+        for (Map.Entry<String, File> file : current.entrySet()) {
+            Entry existing = entriesByPath.get(file.getKey());
+            if (existing == null || existing.lastModified() != file.getValue().lastModified()) {
+                scan(file.getValue()).ifPresent(entry -> entriesByPath.put(entry.path(), entry));
+                scanned++;
+            }
+        }
+
+        if (firstRefresh || changed || scanned > 0) {
+            rebuildLookups();
+        }
+        dirty |= changed || scanned > 0;
+        save();
+        logger.debug("Test index refreshed: {} test files, {} rescanned", entriesByPath.size(), scanned);
+        return this;
+    }
+
+    /**
+     * Re-indexes a single test file, e.g. one the optimizer has just written. Only the
+     * lookups of that file change; the index is persisted on the next {@link #save()}.
+     */
+    public synchronized void update(File testFile) {
+        if (!loaded) {
+            refresh();
+            return;
+        }
+        String path = testFile.getAbsolutePath();
+        Entry previous = entriesByPath.remove(path);
+        if (previous != null) {
+            unindex(previous);
+        }
+        Optional<Entry> entry = testFile.isFile() ? scan(testFile) : Optional.empty();
+        entry.ifPresent(e -> {
+            entriesByPath.put(path, e);
+            index(e);
+        });
+        dirty |= previous != null || entry.isPresent();
+    }
+
+    /**
+     * Writes the index if it changed since it was loaded or last saved.
+     */
+    public synchronized void save() {
+        if (!dirty || indexFile == null) {
+            return;
+        }
+        try {
+            Files.createDirectories(indexFile.getParent());
+            objectMapper.writeValue(indexFile.toFile(), new ArrayList<>(entriesByPath.values()));
+            dirty = false;
+        } catch (IOException e) {
+            logger.warn("Failed to persist test index {}: {}", indexFile, e.getMessage());
+        }
+    }
+
+    /**
+     * @return the conventionally named test of the class in the same package, if any
+     */
+    public synchronized Optional<File> findTestFile(String sourceFqn) {
+        ensureLoaded();
+        List<Entry> tests = conventionalTests.get(sourceFqn);
+        return tests == null || tests.isEmpty() ? Optional.empty() : Optional.of(tests.get(0).file());
+    }
+
+    public Optional<File> findTestFile(File sourceFile) {
+        return sourceFullyQualifiedName(sourceFile).flatMap(this::findTestFile);
+    }
+
+    /**
+     * @return every test of the class: conventionally named tests first, then tests
+     *         that only refer to it
+     */
+    public synchronized List<Entry> testsFor(String sourceFqn) {
+        ensureLoaded();
+        Set<Entry> tests = new LinkedHashSet<>(conventionalTests.getOrDefault(sourceFqn, List.of()));
+        tests.addAll(referencingTests.getOrDefault(sourceFqn, List.of()));
+        return List.copyOf(tests);
+    }
+
+    public List<Entry> testsFor(File sourceFile) {
+        return sourceFullyQualifiedName(sourceFile).map(this::testsFor).orElse(List.of());
+    }
+
+    public synchronized int size() {
+        ensureLoaded();
+        return entriesByPath.size();
+    }
+
+    /**
+     * Derives the fully qualified class name of a source file from its package
+     * declaration, reading only the head of the file.
+     */
+    public static Optional<String> sourceFullyQualifiedName(File sourceFile) {
+        if (sourceFile == null || !sourceFile.isFile() || !sourceFile.getName().endsWith(".java")) {
+            return Optional.empty();
+        }
+        String className = sourceFile.getName().substring(0, sourceFile.getName().length() - 5);
+        try (var reader = Files.newBufferedReader(sourceFile.toPath(), StandardCharsets.UTF_8)) {
+            char[] buffer = new char[SOURCE_HEADER_CHARS];
+            int read = reader.read(buffer);
+            Matcher matcher = PACKAGE_PATTERN.matcher(read > 0 ? new String(buffer, 0, read) : "");
+            return Optional.of(matcher.find() ? matcher.group(1) + "." + className : className);
+        } catch (IOException e) {
+            logger.debug("Failed to read source file for package extraction: {}", sourceFile.getAbsolutePath());
+            return Optional.empty();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            refresh();
+        }
+    }
+
+    private Optional<Entry> scan(File testFile) {
+        String content;
+        try {
+            content = Files.readString(testFile.toPath(), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            logger.debug("Failed to read test file for indexing: {}", testFile.getAbsolutePath());
+            return Optional.empty();
+        }
+
+        TestFileScanner.Result scan = TestFileScanner.scan(content);
+        String fileName = testFile.getName();
+        String className = scan.className().isEmpty()
+            ? fileName.substring(0, fileName.length() - 5)
+            : scan.className();
+        List<String> testMethods = scan.methods().stream()
+            .filter(method -> method.annotations().stream()
+                .anyMatch(a -> a.name().equals("Test") || a.name().equals("ParameterizedTest")))
+            .map(TestFileScanner.Method::name)
+            .toList();
+
+        return Optional.of(new Entry(testFile.getAbsolutePath(), testFile.lastModified(), scan.packageName(),
+            className, testMethods, resolveReferences(scan)));
+    }
+
+    /**
+     * Resolves the capitalised identifiers of a test to fully qualified names: explicit
+     * imports win, otherwise the name may live in the test's package or any wildcard import.
+     */
+    private static Set<String> resolveReferences(TestFileScanner.Result scan) {
+        Map<String, String> explicitImports = new HashMap<>();
+        List<String> wildcardPackages = new ArrayList<>();
+        Set<String> references = new LinkedHashSet<>();
+
+        for (String imported : scan.imports()) {
+            if (imported.endsWith(".*")) {
+                wildcardPackages.add(imported.substring(0, imported.length() - 2));
+                continue;
+            }
+            int lastDot = imported.lastIndexOf('.');
+            String simpleName = imported.substring(lastDot + 1);
+            if (!simpleName.isEmpty() && Character.isUpperCase(simpleName.charAt(0))) {
+                explicitImports.put(simpleName, imported);
+                references.add(imported);
+            } else if (lastDot > 0) {
+                // Static member import: the owning class is referenced
+                references.add(imported.substring(0, lastDot));
+            }
+        }
+
+        for (String name : scan.typeReferences()) {
+            String imported = explicitImports.get(name);
+            if (imported != null) {
+                continue;
+            }
+            references.add(scan.packageName().isEmpty() ? name : scan.packageName() + "." + name);
+            for (String wildcard : wildcardPackages) {
+                references.add(wildcard + "." + name);
+            }
+        }
+        return references;
+    }
+
+    private void rebuildLookups() {
+        conventionalTests.clear();
+        referencingTests.clear();
+        entriesByPath.values().forEach(this::index);
+    }
+
+    private void index(Entry entry) {
+        String target = conventionalTarget(entry);
+        if (target != null) {
+            List<Entry> tests = conventionalTests.computeIfAbsent(target, k -> new ArrayList<>());
+            tests.add(entry);
+            // FooTest before FooTests before TestFoo, matching the order tests were looked up before
+            tests.sort((a, b) -> Integer.compare(conventionRank(a.className()), conventionRank(b.className())));
+        }
+        for (String reference : entry.referencedTypes()) {
+            if (!reference.equals(entry.fullyQualifiedName())) {
+                referencingTests.computeIfAbsent(reference, k -> new ArrayList<>()).add(entry);
+            }
+        }
+    }
+
+    private void unindex(Entry entry) {
+        String target = conventionalTarget(entry);
+        if (target != null) {
+            removeFrom(conventionalTests, target, entry);
+        }
+        for (String reference : entry.referencedTypes()) {
+            removeFrom(referencingTests, reference, entry);
+        }
+    }
+
+    private static void removeFrom(Map<String, List<Entry>> lookup, String key, Entry entry) {
+        List<Entry> tests = lookup.get(key);
+        if (tests != null && tests.remove(entry) && tests.isEmpty()) {
+            lookup.remove(key);
+        }
+    }
+
+    private static String conventionalTarget(Entry entry) {
+        String target = conventionalTarget(entry.className());
+        if (target == null || entry.packageName().isEmpty()) {
+            return target;
+        }
+        return entry.packageName() + "." + target;
+    }
+
+    private static String conventionalTarget(String testClassName) {
+        if (testClassName.endsWith("Tests") && testClassName.length() > 5) {
+            return testClassName.substring(0, testClassName.length() - 5);
+        }
+        if (testClassName.endsWith("Test") && testClassName.length() > 4) {
+            return testClassName.substring(0, testClassName.length() - 4);
+        }
+        if (testClassName.startsWith("Test") && testClassName.length() > 4
+                && Character.isUpperCase(testClassName.charAt(4))) {
+            return testClassName.substring(4);
+        }
+        return null;
+    }
+
+    private static int conventionRank(String testClassName) {
+        if (testClassName.endsWith("Tests")) {
+            return 1;
+        }
+        return testClassName.endsWith("Test") ? 0 : 2;
+    }
+
+    private void collectTestSources(File dir, Map<String, File> files) {
+        if (dir == null || !dir.isDirectory()) {
+            return;
+        }
+        File[] children = dir.listFiles();
+        if (children == null) {
+            return;
+        }
+        for (File child : children) {
+            if (child.isDirectory()) {
+                collectTestSources(child, files);
+            } else if (child.getName().endsWith(".java")) {
+                files.put(child.getAbsolutePath(), child);
+            }
+        }
+    }
+
+    private void load() {
+        if (indexFile == null || !Files.isRegularFile(indexFile)) {
+            return;
+        }
+        try {
+            List<Entry> entries = objectMapper.readValue(indexFile.toFile(), new TypeReference<List<Entry>>() { });
+            for (Entry entry : entries) {
+                entriesByPath.put(entry.path(), entry);
+            }
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable test index {}: {}", indexFile, e.getMessage());
+            entriesByPath.clear();
+        }
+    }
+}
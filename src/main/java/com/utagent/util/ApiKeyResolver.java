@@ -20,7 +20,7 @@ public final class ApiKeyResolver {
             case OPENAI -> "OPENAI_API_KEY";
             case CLAUDE -> "ANTHROPIC_API_KEY";
             case DEEPSEEK -> "DEEPSEEK_API_KEY";
-            case OLLAMA -> null;
+            case OLLAMA, REPLAY -> null;
         };
     }
 
@@ -43,11 +43,11 @@ public final class ApiKeyResolver {
     }
 
     public static boolean isApiKeyRequired(LLMProviderType providerType) {
-        return providerType != LLMProviderType.OLLAMA;
+        return providerType != LLMProviderType.OLLAMA && providerType != LLMProviderType.REPLAY;
     }
 
     public static boolean hasApiKeyInEnv(LLMProviderType providerType) {
-        if (providerType == LLMProviderType.OLLAMA) {
+        if (!isApiKeyRequired(providerType)) {
             return true;
         }
         String apiKey = resolveFromEnv(providerType);
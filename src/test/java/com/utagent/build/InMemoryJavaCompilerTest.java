@@ -0,0 +1,45 @@
+package com.utagent.build;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("InMemoryJavaCompiler Tests")
+class InMemoryJavaCompilerTest {
+
+    @Test
+    @DisplayName("Should compile valid sources and report errors for invalid ones")
+    void shouldCompileInMemory() {
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(List.of());
+        assertTrue(compiler.isAvailable());
+
+        InMemoryJavaCompiler.CompilationResult ok = compiler.compile("demo.Ok",
+            "package demo; class Ok { int one() { return 1; } }");
+        InMemoryJavaCompiler.CompilationResult broken = compiler.compile("demo.Broken",
+            "package demo; class Broken { int one() { return \"1\"; } }");
+
+        assertTrue(ok.success());
+        assertFalse(broken.success());
+        assertFalse(broken.errors().isEmpty());
+        assertTrue(broken.errors().get(0).startsWith("line 1"));
+    }
+
+    @Test
+    @DisplayName("Should resolve classes from the given classpath")
+    void shouldUseClasspath() {
+        String testClasspath = System.getProperty("java.class.path");
+        List<File> classpath = new ArrayList<>();
+        for (String entry : testClasspath.split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        InMemoryJavaCompiler compiler = new InMemoryJavaCompiler(classpath);
+
+        assertTrue(compiler.compile("demo.UsesJunit",
+            "package demo; import org.junit.jupiter.api.Test; class UsesJunit { @Test void t() { } }").success());
+    }
+}
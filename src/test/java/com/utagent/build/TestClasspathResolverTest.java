@@ -0,0 +1,34 @@
+package com.utagent.build;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TestClasspathResolver Tests")
+class TestClasspathResolverTest {
+
+    @Test
+    @DisplayName("Should split the classpath and skip blank entries")
+    void shouldParseClasspath() {
+        String classpath = " /repo/junit.jar" + File.pathSeparator + File.pathSeparator + "/repo/mockito.jar\n";
+
+        List<File> entries = TestClasspathResolver.parse(classpath);
+
+        assertEquals(List.of(new File("/repo/junit.jar"), new File("/repo/mockito.jar")), entries);
+    }
+
+    @Test
+    @DisplayName("Should return an empty classpath when the command writes none")
+    void shouldReturnEmptyWithoutOutput(@TempDir Path tempDir) {
+        List<File> entries = TestClasspathResolver.resolve(tempDir.toFile(),
+            List.of("java", "-version"), tempDir.resolve("classpath.txt"));
+
+        assertTrue(entries.isEmpty());
+    }
+}
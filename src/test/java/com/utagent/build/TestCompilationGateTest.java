@@ -0,0 +1,120 @@
+package com.utagent.build;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TestCompilationGate Tests")
+class TestCompilationGateTest {
+
+    private static final String SOURCE = """
+        package demo;
+
+        public class Counter {
+            private int count;
+
+            public int increment() {
+                return ++count;
+            }
+        }
+        """;
+
+    private static final String TEST = """
+        package demo;
+
+        import org.junit.jupiter.api.Test;
+
+        import static org.junit.jupiter.api.Assertions.*;
+
+        class CounterTest {
+            @Test
+            void shouldIncrement() {
+                assertEquals(1, new Counter().increment());
+            }
+        }
+        """;
+
+    private static TestCompilationGate gate() {
+        List<File> classpath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        return new TestCompilationGate(new InMemoryJavaCompiler(classpath));
+    }
+
+    @Test
+    @DisplayName("Should compile the test together with the class under test")
+    void shouldPassCompilingTest() {
+        TestCompilationGate.Verdict verdict = gate().check("demo.CounterTest", TEST, "demo.Counter", SOURCE);
+
+        assertTrue(verdict.checked());
+        assertTrue(verdict.compiles());
+        assertFalse(verdict.blocksBuild());
+    }
+
+    @Test
+    @DisplayName("Should block the build and keep diagnostics when the test does not compile")
+    void shouldBlockBrokenTest() {
+        TestCompilationGate gate = gate();
+        String broken = TEST.replace("increment()", "decrement()");
+
+        TestCompilationGate.Verdict first = gate.check("demo.CounterTest", broken, "demo.Counter", SOURCE);
+        TestCompilationGate.Verdict second = gate.check("demo.CounterTest", broken, "demo.Counter", SOURCE);
+
+        assertTrue(first.blocksBuild());
+        CompilerDiagnostic diagnostic = first.diagnostics().get(0);
+        assertEquals("demo.CounterTest", diagnostic.unit());
+        assertEquals(10, diagnostic.line());
+        assertEquals("method decrement()", diagnostic.symbol());
+        assertTrue(diagnostic.message().startsWith("cannot find symbol"), diagnostic.message());
+        assertEquals(first, second);
+    }
+
+    @Test
+    @DisplayName("Should not judge the test when the class under test itself does not compile")
+    void shouldSkipWhenClasspathIsIncomplete() {
+        String source = SOURCE.replace("private int count;", "private com.missing.Dependency dependency;\n    private int count;");
+        String broken = TEST.replace("increment()", "decrement()");
+
+        TestCompilationGate.Verdict verdict = gate().check("demo.CounterTest", broken, "demo.Counter", source);
+
+        assertFalse(verdict.checked());
+        assertFalse(verdict.blocksBuild());
+    }
+
+    @Test
+    @DisplayName("Should block the build on an import the test made up")
+    void shouldBlockUnresolvedImport() {
+        String broken = TEST.replace("import org.junit.jupiter.api.Test;\n",
+            "import org.junit.jupiter.api.Test;\nimport com.missing.Fixtures;\n");
+
+        TestCompilationGate.Verdict verdict = gate().check("demo.CounterTest", broken, "demo.Counter", SOURCE);
+
+        assertTrue(verdict.blocksBuild());
+        CompilerDiagnostic diagnostic = verdict.diagnostics().get(0);
+        assertEquals("demo.CounterTest", diagnostic.unit());
+        assertEquals(4, diagnostic.line());
+    }
+
+    @Test
+    @DisplayName("Should not judge the test when the test framework is missing from the classpath")
+    void shouldSkipWhenTestDependenciesAreMissing() {
+        TestCompilationGate gate = new TestCompilationGate(new InMemoryJavaCompiler(List.of()));
+
+        TestCompilationGate.Verdict verdict = gate.check("demo.CounterTest", TEST, "demo.Counter", SOURCE);
+
+        assertFalse(verdict.checked());
+        assertFalse(verdict.blocksBuild());
+    }
+
+    @Test
+    @DisplayName("Should not block anything without a compiler")
+    void shouldPassWithoutCompiler() {
+        assertFalse(new TestCompilationGate(null).check("demo.CounterTest", "broken", null, null).blocksBuild());
+    }
+}
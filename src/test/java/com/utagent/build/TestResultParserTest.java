@@ -0,0 +1,78 @@
+package com.utagent.build;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TestResultParser Tests")
+class TestResultParserTest {
+
+    private static final String REPORT = """
+        <?xml version="1.0" encoding="UTF-8"?>
+        <testsuite name="demo.CounterTest" tests="5" failures="1" errors="1" skipped="1">
+          <testcase name="shouldIncrement" classname="demo.CounterTest" time="0.01"/>
+          <testcase name="shouldReset()" classname="demo.CounterTest" time="0.01">
+            <failure message="expected: &lt;0&gt; but was: &lt;1&gt;" type="org.opentest4j.AssertionFailedError">trace</failure>
+          </testcase>
+          <testcase name="shouldParse(String)[2]" classname="demo.CounterTest" time="0.01">
+            <error type="java.lang.NullPointerException">trace</error>
+          </testcase>
+          <testcase name="shouldSkip" classname="demo.CounterTest" time="0">
+            <skipped/>
+          </testcase>
+          <testcase name="Should count twice" classname="demo.CounterTest" time="0.01"/>
+        </testsuite>
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    @DisplayName("Should read per-method outcomes from a JUnit XML report")
+    void shouldParseOutcomes() throws IOException {
+        Files.writeString(tempDir.resolve("TEST-demo.CounterTest.xml"), REPORT);
+
+        List<TestOutcome> outcomes = new TestResultParser().parse(tempDir.toFile(), "demo.CounterTest");
+
+        assertEquals(5, outcomes.size());
+        assertEquals(new TestOutcome("demo.CounterTest", "shouldIncrement", TestOutcome.Status.PASSED, null),
+            outcomes.get(0));
+        assertEquals(new TestOutcome("demo.CounterTest", "shouldReset", TestOutcome.Status.FAILED,
+            "expected: <0> but was: <1>"), outcomes.get(1));
+        assertEquals("shouldParse", outcomes.get(2).methodName());
+        assertEquals("java.lang.NullPointerException", outcomes.get(2).message());
+        assertTrue(outcomes.get(2).failed());
+        assertEquals(TestOutcome.Status.SKIPPED, outcomes.get(3).status());
+        assertFalse(outcomes.get(3).failed());
+        assertEquals("Should count twice", outcomes.get(4).methodName());
+    }
+
+    @Test
+    @DisplayName("Should include nested classes and ignore other test classes")
+    void shouldSelectReportsOfTestClass() throws IOException {
+        Files.writeString(tempDir.resolve("TEST-demo.CounterTest$Nested.xml"), REPORT);
+        Files.writeString(tempDir.resolve("TEST-demo.CounterTestSupport.xml"), REPORT);
+        TestResultParser parser = new TestResultParser();
+
+        assertEquals(5, parser.parse(tempDir.toFile(), "demo.CounterTest").size());
+
+        parser.deleteResults(tempDir.toFile(), "demo.CounterTest");
+
+        assertTrue(parser.parse(tempDir.toFile(), "demo.CounterTest").isEmpty());
+        assertTrue(tempDir.resolve("TEST-demo.CounterTestSupport.xml").toFile().exists());
+    }
+
+    @Test
+    @DisplayName("Should return no outcomes without reports")
+    void shouldHandleMissingDirectory() {
+        assertTrue(new TestResultParser().parse(new File(tempDir.toFile(), "missing"), "demo.CounterTest").isEmpty());
+    }
+}
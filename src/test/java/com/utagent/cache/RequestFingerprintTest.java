@@ -0,0 +1,113 @@
+package com.utagent.cache;
+
+import com.utagent.config.CacheConfig;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RequestFingerprint Tests")
+class RequestFingerprintTest {
+
+    private static ChatRequest request(String system, String user) {
+        return ChatRequest.builder()
+            .systemPrompt(system)
+            .userMessage(user)
+            .sourceHash("abc123")
+            .templateVersion("1")
+            .build();
+    }
+
+    @Nested
+    @DisplayName("Normalization")
+    class NormalizationTests {
+
+        @Test
+        @DisplayName("Should ignore whitespace differences")
+        void shouldIgnoreWhitespace() {
+            assertEquals(
+                RequestFingerprint.of(request("system", "class Foo {\n    int x;\n}")),
+                RequestFingerprint.of(request("system  ", "class Foo {\r\n\tint x;   \r\n\r\n\r\n}\n")));
+        }
+
+        @Test
+        @DisplayName("Should ignore timestamps in prompts")
+        void shouldIgnoreTimestamps() {
+            assertEquals(
+                RequestFingerprint.of(request("system", "Generated at 2026-10-18T09:15:00Z")),
+                RequestFingerprint.of(request("system", "Generated at 2026-10-19 23:01:59.123+02:00")));
+        }
+
+        @Test
+        @DisplayName("Should keep message boundaries significant")
+        void shouldDelimitFields() {
+            assertNotEquals(
+                RequestFingerprint.of(request("ab", "c")),
+                RequestFingerprint.of(request("a", "bc")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Content addressing")
+    class ContentAddressingTests {
+
+        @Test
+        @DisplayName("Should change with source hash and template version")
+        void shouldIncludeSourceAndTemplate() {
+            ChatRequest base = request("system", "user");
+            ChatRequest otherSource = ChatRequest.builder().systemPrompt("system").userMessage("user")
+                .sourceHash("def456").templateVersion("1").build();
+            ChatRequest otherTemplate = ChatRequest.builder().systemPrompt("system").userMessage("user")
+                .sourceHash("abc123").templateVersion("2").build();
+
+            assertNotEquals(RequestFingerprint.of(base), RequestFingerprint.of(otherSource));
+            assertNotEquals(RequestFingerprint.of(base), RequestFingerprint.of(otherTemplate));
+            assertEquals(RequestFingerprint.of(base), RequestFingerprint.of(base.withStream(true)));
+        }
+
+        @Test
+        @DisplayName("Should separate alternative samples and structured requests of the same prompt")
+        void shouldIncludeSampleIndexAndSchema() {
+            ChatRequest base = request("system", "user");
+
+            assertEquals(RequestFingerprint.of(base), RequestFingerprint.of(base.withSampleIndex(0)));
+            assertNotEquals(RequestFingerprint.of(base), RequestFingerprint.of(base.withSampleIndex(1)));
+            assertNotEquals(RequestFingerprint.of(base.withSampleIndex(1)), RequestFingerprint.of(base.withSampleIndex(2)));
+            assertNotEquals(RequestFingerprint.of(base), RequestFingerprint.of(ChatRequest.builder()
+                .systemPrompt("system").userMessage("user").sourceHash("abc123").templateVersion("1")
+                .responseSchema("{}").build()));
+        }
+
+        @Test
+        @DisplayName("Should combine hashes only when all are known")
+        void shouldCombineHashes() {
+            assertNotNull(RequestFingerprint.combine(List.of("a", "b")));
+            assertNotEquals(RequestFingerprint.combine(List.of("a", "b")), RequestFingerprint.combine(List.of("b", "a")));
+            assertNull(RequestFingerprint.combine(java.util.Arrays.asList("a", null)));
+        }
+
+        @Test
+        @DisplayName("Should keep content-addressed entries past the maximum age")
+        void shouldNotExpireContentAddressedEntries(@TempDir Path tempDir) {
+            LLMResponseCache cache = new LLMResponseCache(CacheConfig.builder()
+                .cacheDirectory(tempDir.toString())
+                .maxAgeMinutes(-1L)
+                .build());
+            ChatRequest addressed = request("system", "user");
+            ChatRequest plain = ChatRequest.builder().systemPrompt("system").userMessage("user").build();
+
+            cache.put(addressed, ChatResponse.success("tests"));
+            cache.put(plain, ChatResponse.success("tests"));
+
+            assertEquals("tests", cache.get(addressed).orElseThrow().content());
+            assertTrue(cache.get(plain).isEmpty());
+        }
+    }
+}
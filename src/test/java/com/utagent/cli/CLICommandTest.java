@@ -83,6 +83,25 @@ class CLICommandTest {
         assertTrue(config.getOutput().verbose());
     }
 
+    @Test
+    @DisplayName("Should bind kebab-case generation keys alongside the hedging section")
+    void shouldLoadKebabCaseGenerationKeys() throws IOException {
+        File configFile = new File(tempDir.toFile(), ".java-ut-agent.yaml");
+        Files.writeString(configFile.toPath(), """
+            generation:
+              max-context-tokens: 1234
+              include-parameterized-tests: true
+            hedging:
+              max-hedges: 3
+            """);
+
+        AgentConfig config = ConfigLoader.loadFromFile(configFile);
+
+        assertEquals(1234, config.getGeneration().getMaxContextTokensOrDefault());
+        assertTrue(config.getGeneration().getIncludeParameterizedTestsOrDefault());
+        assertEquals(3, config.getHedging().maxHedges());
+    }
+
     @Test
     @DisplayName("Should return default config when config file does not exist")
     void shouldReturnDefaultConfigWhenConfigFileDoesNotExist() {
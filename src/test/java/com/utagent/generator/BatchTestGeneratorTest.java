@@ -0,0 +1,155 @@
+package com.utagent.generator;
+
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.MethodInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BatchTestGenerator Tests")
+class BatchTestGeneratorTest {
+
+    private static ClassInfo smallClass(String name) {
+        List<MethodInfo> methods = new ArrayList<>();
+        methods.add(new MethodInfo("getValue", "int"));
+        return new ClassInfo("com.example", name, "com.example." + name,
+            methods, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static String testClass(String name) {
+        return "package com.example;\n\nimport org.junit.jupiter.api.Test;\n\nclass " + name
+            + "Test {\n    @Test\n    void shouldGetValue() {\n    }\n}";
+    }
+
+    private static String section(String fqn, String code) {
+        return "=== BEGIN TEST " + fqn + " ===\n" + code + "\n=== END TEST " + fqn + " ===\n";
+    }
+
+    @Nested
+    @DisplayName("Batching")
+    class BatchingTests {
+
+        @Test
+        @DisplayName("Should generate several small classes with one request")
+        void shouldGenerateSmallClassesWithOneRequest() {
+            ScriptedProvider provider = new ScriptedProvider(request ->
+                section("com.example.Alpha", testClass("Alpha")) + section("com.example.Beta", testClass("Beta")));
+            BatchTestGenerator generator = new BatchTestGenerator(
+                new TestGenerator("key", "openai", null, null, provider, null));
+
+            Map<String, String> results = generator.generate(List.of(smallClass("Alpha"), smallClass("Beta")));
+
+            assertEquals(1, provider.requests.size());
+            assertTrue(results.get("com.example.Alpha").contains("class AlphaTest"));
+            assertTrue(results.get("com.example.Beta").contains("class BetaTest"));
+            assertEquals(2, generator.getBatchedClasses());
+        }
+
+        @Test
+        @DisplayName("Should retry only the classes with invalid output")
+        void shouldRetryOnlyInvalidClasses() {
+            ScriptedProvider provider = new ScriptedProvider(request -> {
+                String prompt = request.messages().get(request.messages().size() - 1).content();
+                if (prompt.contains("Batch Output Format")) {
+                    return section("com.example.Alpha", testClass("Alpha"))
+                        + section("com.example.Beta", "class BetaTest { broken");
+                }
+                return "```java\n" + testClass("Beta") + "\n```";
+            });
+            BatchTestGenerator generator = new BatchTestGenerator(
+                new TestGenerator("key", "openai", null, null, provider, null));
+
+            Map<String, String> results = generator.generate(List.of(smallClass("Alpha"), smallClass("Beta")));
+
+            assertEquals(2, provider.requests.size());
+            assertEquals(1, generator.getIndividualRetries());
+            assertTrue(results.get("com.example.Beta").contains("class BetaTest"));
+        }
+
+        @Test
+        @DisplayName("Should leave invalid classes out of batch-only generation and charge their share")
+        void shouldNotRetryInBatchOnlyGeneration() {
+            ScriptedProvider provider = new ScriptedProvider(request ->
+                section("com.example.Alpha", testClass("Alpha")) + section("com.example.Beta", "class BetaTest { broken"));
+            provider.usage = new TokenUsage(300, 100, 400);
+            BatchTestGenerator generator = new BatchTestGenerator(
+                new TestGenerator("key", "openai", null, null, provider, null));
+
+            Map<String, String> results = generator.generateBatched(List.of(smallClass("Alpha"), smallClass("Beta")));
+
+            assertEquals(1, provider.requests.size());
+            assertTrue(results.containsKey("com.example.Alpha"));
+            assertFalse(results.containsKey("com.example.Beta"));
+            assertEquals(200, generator.getBatchTokens("com.example.Alpha"));
+            assertEquals(200, generator.getBatchTokens("com.example.Beta"));
+        }
+
+        @Test
+        @DisplayName("Should split batches by the class limit")
+        void shouldSplitBatchesByClassLimit() {
+            BatchTestGenerator generator = new BatchTestGenerator(
+                new TestGenerator("key", "openai", null, null, new ScriptedProvider(r -> ""), null),
+                800, 6000, 100_000, 2);
+
+            List<List<ClassInfo>> batches = generator.pack(
+                List.of(smallClass("A"), smallClass("B"), smallClass("C")));
+
+            assertEquals(2, batches.size());
+            assertEquals(2, batches.get(0).size());
+        }
+    }
+
+    private static class ScriptedProvider implements LLMProvider {
+        final List<ChatRequest> requests = new ArrayList<>();
+        TokenUsage usage = TokenUsage.empty();
+        private final Function<ChatRequest, String> script;
+
+        ScriptedProvider(Function<ChatRequest, String> script) {
+            this.script = script;
+        }
+
+        @Override
+        public String name() {
+            return "scripted";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            requests.add(request);
+            return ChatResponse.builder()
+                .content(script.apply(request))
+                .tokenUsage(usage)
+                .success(true)
+                .build();
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.utagent.generator;
+
+import com.utagent.build.InMemoryJavaCompiler;
+import com.utagent.build.TestCompilationGate;
+import com.utagent.generator.llm.ConversationSession;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.parser.JavaCodeParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CandidateTestGenerator Tests")
+class CandidateTestGeneratorTest {
+
+    // TokenUsage is on the test classpath, so candidates can be compiled against the real class
+    private static final String SOURCE = """
+        package com.utagent.llm;
+
+        public class TokenUsage {
+            public TokenUsage add(TokenUsage other) {
+                if (other == null) {
+                    return this;
+                }
+                return this;
+            }
+
+            public double cacheHitRate() {
+                return promptTokens > 0 ? 1.0 : 0.0;
+            }
+
+            public int uncachedPromptTokens() {
+                return promptTokens - cachedPromptTokens;
+            }
+        }
+        """;
+
+    private static final String HEADER = """
+        package com.utagent.llm;
+
+        import org.junit.jupiter.api.Test;
+
+        import static org.junit.jupiter.api.Assertions.*;
+
+        class TokenUsageTest {
+        """;
+
+    private static final String CANDIDATE_A = HEADER + """
+            @Test
+            void shouldAdd() {
+                TokenUsage usage = new TokenUsage(1, 2, 3);
+                assertEquals(6, usage.add(usage).totalTokens());
+            }
+
+            @Test
+            void shouldComputeHitRate() {
+                assertEquals(0.0, TokenUsage.empty().cacheHitRate());
+            }
+        }
+        """;
+
+    private static final String CANDIDATE_B = HEADER + """
+            @Test
+            void shouldAddAgain() {
+                TokenUsage usage = new TokenUsage(1, 2, 3);
+                assertEquals(6, usage.add(usage).totalTokens());
+            }
+
+            @Test
+            void shouldAdd() {
+                assertEquals(1, new TokenUsage(1, 2, 3).uncachedPromptTokens());
+            }
+        }
+        """;
+
+    private static final String CANDIDATE_BROKEN = HEADER + """
+            @Test
+            void shouldEstimateCost() {
+                assertEquals(0.0, TokenUsage.empty().estimatedCost(1.0, 2.0));
+                assertNull(TokenUsage.empty().missing());
+            }
+        }
+        """;
+
+    private final ClassInfo classInfo = new JavaCodeParser().parseCode(SOURCE).orElseThrow();
+
+    private static InMemoryJavaCompiler testClasspathCompiler() {
+        List<File> classpath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        return new InMemoryJavaCompiler(classpath);
+    }
+
+    @Nested
+    @DisplayName("Selection")
+    class SelectionTests {
+
+        @Test
+        @DisplayName("Should merge complementary tests and drop redundant and non-compiling ones")
+        void shouldMergeComplementaryTests() {
+            CandidateTestGenerator generator = new CandidateTestGenerator(new TestGenerator());
+            InMemoryJavaCompiler compiler = testClasspathCompiler();
+
+            String merged = generator.select(classInfo, List.of(CANDIDATE_A, CANDIDATE_B, CANDIDATE_BROKEN),
+                new TestCompilationGate(compiler), null);
+
+            assertTrue(compiler.compile("com.utagent.llm.TokenUsageTest", merged).success(), merged);
+            assertTrue(merged.contains("void shouldAdd()"));
+            assertTrue(merged.contains("void shouldComputeHitRate()"));
+            assertTrue(merged.contains("void shouldAdd_2()"), "name clash should be renamed");
+            assertFalse(merged.contains("shouldAddAgain"), "duplicate body should be skipped");
+            assertFalse(merged.contains("missing()"));
+        }
+
+        @Test
+        @DisplayName("Should not merge tests from a candidate whose setup differs from the base")
+        void shouldSkipCandidatesWithDifferentSetup() {
+            CandidateTestGenerator generator = new CandidateTestGenerator(new TestGenerator());
+            String withSetup = HEADER.replace("import org.junit.jupiter.api.Test;",
+                    "import org.junit.jupiter.api.BeforeEach;\nimport org.junit.jupiter.api.Test;") + """
+                    private TokenUsage usage;
+
+                    @BeforeEach
+                    void setUp() {
+                        usage = new TokenUsage(1, 2, 3);
+                    }
+
+                    @Test
+                    void shouldComputeUncachedTokens() {
+                        assertEquals(1, usage.uncachedPromptTokens());
+                    }
+                }
+                """;
+
+            String merged = generator.select(classInfo, List.of(CANDIDATE_A, withSetup), null, null);
+
+            assertEquals(CANDIDATE_A, merged);
+        }
+
+        @Test
+        @DisplayName("Should copy the helper methods a merged test calls")
+        void shouldCopyHelperMethods() {
+            CandidateTestGenerator generator = new CandidateTestGenerator(new TestGenerator());
+            InMemoryJavaCompiler compiler = testClasspathCompiler();
+            String withHelper = HEADER + """
+                    @Test
+                    void shouldComputeUncachedTokens() {
+                        assertEquals(1, usage().uncachedPromptTokens());
+                    }
+
+                    private TokenUsage usage() {
+                        return new TokenUsage(1, 2, 3);
+                    }
+                }
+                """;
+
+            String merged = generator.select(classInfo, List.of(CANDIDATE_A, withHelper),
+                new TestCompilationGate(compiler), null);
+
+            assertTrue(merged.contains("shouldComputeUncachedTokens"), merged);
+            assertTrue(merged.contains("private TokenUsage usage()"));
+            assertTrue(compiler.compile("com.utagent.llm.TokenUsageTest", merged).success(), merged);
+        }
+
+        @Test
+        @DisplayName("Should return the only usable candidate unchanged")
+        void shouldKeepSingleCandidate() {
+            CandidateTestGenerator generator = new CandidateTestGenerator(new TestGenerator());
+
+            assertEquals(CANDIDATE_A, generator.select(classInfo, List.of(CANDIDATE_A, "not java {"), null, null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Generation")
+    class GenerationTests {
+
+        @Test
+        @DisplayName("Should request one sample per candidate and record the merged class in the session")
+        void shouldRequestDistinctSamples() {
+            SampleProvider provider = new SampleProvider(List.of(CANDIDATE_A, CANDIDATE_B));
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+            CandidateTestGenerator generator = new CandidateTestGenerator(testGenerator);
+            ConversationSession session = testGenerator.openSession(classInfo);
+
+            assertTrue(generator.shouldGenerateCandidates(classInfo, 2));
+            assertFalse(generator.shouldGenerateCandidates(classInfo, 1));
+
+            String merged = generator.generate(classInfo, session, 2, null, null);
+
+            assertEquals(Set.of(0, 1), provider.sampleIndexes);
+            assertTrue(merged.contains("uncachedPromptTokens"));
+            assertTrue(session.hasHistory());
+        }
+    }
+
+    private static class SampleProvider implements LLMProvider {
+        private final List<String> replies;
+        final Set<Integer> sampleIndexes = ConcurrentHashMap.newKeySet();
+
+        SampleProvider(List<String> replies) {
+            this.replies = replies;
+        }
+
+        @Override
+        public String name() {
+            return "samples";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            sampleIndexes.add(request.sampleIndex());
+            return ChatResponse.success("```java\n" + replies.get(request.sampleIndex()) + "```");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.utagent.generator;
+
+import com.utagent.model.AnnotationInfo;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.MethodInfo;
+import com.utagent.model.ParameterInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ClassComplexityScorer Tests")
+class ClassComplexityScorerTest {
+
+    private final ClassComplexityScorer scorer = new ClassComplexityScorer();
+
+    @Test
+    @DisplayName("Should not count getters and setters")
+    void shouldIgnoreTrivialAccessors() {
+        ClassInfo pojo = classInfo("Person", List.of(),
+            method("getName", "return name;", List.of()),
+            method("setName", "this.name = name;", List.of(new ParameterInfo("name", "String"))),
+            method("isActive", "return active;", List.of()));
+
+        assertEquals(0, scorer.score(pojo));
+    }
+
+    @Test
+    @DisplayName("Should weigh branches and framework annotations")
+    void shouldScoreBranchesAndFrameworks() {
+        MethodInfo branchy = method("transfer",
+            "if (amount > 0 && from != null) { for (Account a : accounts) { } } else { throw e; }", List.of());
+        ClassInfo plain = classInfo("TransferService", List.of(), branchy);
+        ClassInfo controller = classInfo("TransferController",
+            List.of(new AnnotationInfo("RestController")), branchy);
+
+        assertEquals(1 + 2 * 3, scorer.score(plain));
+        assertTrue(scorer.score(controller) >= scorer.score(plain) + ClassComplexityScorer.FRAMEWORK_WEIGHT);
+    }
+
+    @Test
+    @DisplayName("Should raise the score of classes that failed before")
+    void shouldRaiseScoreAfterFailure() {
+        ClassInfo pojo = classInfo("Person", List.of(), method("getName", "return name;", List.of()));
+
+        scorer.recordFailure(pojo);
+
+        assertEquals(1, scorer.failureCount(pojo));
+        assertEquals(ClassComplexityScorer.FAILURE_WEIGHT, scorer.score(pojo));
+    }
+
+    private static MethodInfo method(String name, String body, List<ParameterInfo> parameters) {
+        return new MethodInfo(name, "void", parameters, new ArrayList<>(), body, 1, 3, new ArrayList<>(),
+            false, false, false, true, false, false);
+    }
+
+    private static ClassInfo classInfo(String name, List<AnnotationInfo> annotations, MethodInfo... methods) {
+        return new ClassInfo("com.example", name, "com.example." + name,
+            List.of(methods), new ArrayList<>(), annotations, new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+}
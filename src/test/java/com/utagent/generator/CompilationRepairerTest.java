@@ -0,0 +1,244 @@
+package com.utagent.generator;
+
+import com.utagent.build.InMemoryJavaCompiler;
+import com.utagent.build.TestCompilationGate;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.Message;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.parser.JavaCodeParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CompilationRepairer Tests")
+class CompilationRepairerTest {
+
+    private static final String SOURCE = """
+        package demo;
+
+        public class Counter {
+            private int count;
+
+            public int increment() {
+                return ++count;
+            }
+
+            public void reset() {
+                count = 0;
+            }
+        }
+        """;
+
+    private static final String TEST = """
+        package demo;
+
+        import org.junit.jupiter.api.Test;
+
+        import static org.junit.jupiter.api.Assertions.*;
+
+        class CounterTest {
+            @Test
+            void shouldIncrement() {
+                assertEquals(1, new Counter().increment());
+            }
+
+            @Test
+            void shouldReset() {
+                Counter counter = new Counter();
+                counter.increment();
+                counter.reset();
+                assertEquals(0, counter.current());
+            }
+
+            @Test
+            void shouldStartEmpty() {
+                List<Integer> values = List.of();
+                assertTrue(values.isEmpty());
+            }
+        }
+        """;
+
+    private static final String REPAIR = """
+        ```java
+        import java.util.List;
+
+        @Test
+        void shouldReset() {
+            Counter counter = new Counter();
+            counter.reset();
+            assertEquals(1, counter.increment());
+        }
+
+        @Test
+        void shouldStartEmpty() {
+            List<Integer> values = List.of();
+            assertTrue(values.isEmpty());
+        }
+        ```
+        """;
+
+    private final ClassInfo classInfo = new JavaCodeParser().parseCode(SOURCE).orElseThrow();
+
+    private static TestCompilationGate gate() {
+        List<File> classpath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        return new TestCompilationGate(new InMemoryJavaCompiler(classpath));
+    }
+
+    @Nested
+    @DisplayName("Repair")
+    class RepairTests {
+
+        @Test
+        @DisplayName("Should send only the failing methods with their errors and merge the fixes")
+        void shouldRepairFailingMethods() {
+            RepairProvider provider = new RepairProvider(REPAIR);
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+
+            CompilationRepairer.Result result = new CompilationRepairer(testGenerator)
+                .repair(classInfo, null, TEST, SOURCE, gate(), CompilationRepairer.DEFAULT_MAX_ATTEMPTS);
+
+            assertTrue(result.compiles(), result.verdict().diagnostics().toString());
+            assertEquals(1, result.attempts());
+            assertEquals(List.of(), result.dropped());
+            assertTrue(result.testCode().contains("import java.util.List;"));
+            assertTrue(result.testCode().contains("shouldIncrement"));
+
+            String prompt = provider.prompts.get(0);
+            assertTrue(prompt.contains("## shouldReset"));
+            assertTrue(prompt.contains("## shouldStartEmpty"));
+            assertFalse(prompt.contains("shouldIncrement"), "compiling methods are not sent");
+            assertTrue(prompt.contains("line 6: cannot find symbol; symbol: method current()"), prompt);
+            assertTrue(prompt.contains("## Class Under Test: demo.Counter"), "signatures are sent without a conversation");
+        }
+
+        @Test
+        @DisplayName("Should remove a made-up import and repair the methods that used it")
+        void shouldRepairUnresolvedImport() {
+            RepairProvider provider = new RepairProvider(REPAIR);
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+            String broken = TEST.replace("import org.junit.jupiter.api.Test;\n",
+                "import org.junit.jupiter.api.Test;\nimport com.missing.Lists;\n");
+
+            CompilationRepairer.Result result = new CompilationRepairer(testGenerator)
+                .repair(classInfo, null, broken, SOURCE, gate(), CompilationRepairer.DEFAULT_MAX_ATTEMPTS);
+
+            assertTrue(result.compiles(), result.verdict().diagnostics().toString());
+            assertEquals(1, result.attempts());
+            assertFalse(result.testCode().contains("com.missing.Lists"));
+            assertTrue(provider.prompts.get(0).contains("## shouldStartEmpty"));
+        }
+
+        @Test
+        @DisplayName("Should not call the model for a test class that compiles")
+        void shouldLeaveCompilingClassAlone() {
+            RepairProvider provider = new RepairProvider(REPAIR);
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+            String compiling = TEST.substring(0, TEST.indexOf("    @Test\n    void shouldReset")) + "}\n";
+
+            CompilationRepairer.Result result = new CompilationRepairer(testGenerator)
+                .repair(classInfo, null, compiling, SOURCE, gate(), CompilationRepairer.DEFAULT_MAX_ATTEMPTS);
+
+            assertTrue(result.compiles());
+            assertEquals(compiling, result.testCode());
+            assertTrue(provider.prompts.isEmpty());
+        }
+
+        @Test
+        @DisplayName("Should not call the model when an error is outside every method body")
+        void shouldSkipErrorsOutsideMethodBodies() {
+            RepairProvider provider = new RepairProvider(REPAIR);
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+            String broken = TEST.replace("class CounterTest {\n",
+                "class CounterTest {\n    private final Counter shared = new Counter(1);\n\n");
+
+            CompilationRepairer.Result result = new CompilationRepairer(testGenerator)
+                .repair(classInfo, null, broken, SOURCE, gate(), CompilationRepairer.DEFAULT_MAX_ATTEMPTS);
+
+            assertEquals(0, result.attempts());
+            assertTrue(provider.prompts.isEmpty());
+            assertFalse(result.compiles());
+        }
+    }
+
+    @Nested
+    @DisplayName("Dropping")
+    class DroppingTests {
+
+        @Test
+        @DisplayName("Should drop methods that still do not compile and keep the rest of the file")
+        void shouldDropUncompilableMethods() {
+            CompilationRepairer.Result result = new CompilationRepairer(new TestGenerator())
+                .repair(classInfo, null, TEST, SOURCE, gate(), CompilationRepairer.DEFAULT_MAX_ATTEMPTS);
+
+            assertTrue(result.compiles());
+            assertEquals(0, result.attempts());
+            assertEquals(List.of("shouldReset", "shouldStartEmpty"), result.dropped());
+            assertTrue(result.testCode().contains("void shouldIncrement()"));
+            assertFalse(result.testCode().contains("shouldReset"));
+        }
+
+        @Test
+        @DisplayName("Should drop methods the model left out of its reply")
+        void shouldDropMethodsMissingFromReply() {
+            String partial = REPAIR.substring(0, REPAIR.indexOf("@Test\nvoid shouldStartEmpty")) + "```\n";
+            RepairProvider provider = new RepairProvider(partial);
+            TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+
+            CompilationRepairer.Result result = new CompilationRepairer(testGenerator)
+                .repair(classInfo, null, TEST, SOURCE, gate(), 1);
+
+            assertTrue(result.compiles(), result.testCode());
+            assertTrue(result.testCode().contains("void shouldReset()"));
+            assertFalse(result.testCode().contains("shouldStartEmpty"));
+        }
+    }
+
+    private static class RepairProvider implements LLMProvider {
+        private final String reply;
+        final List<String> prompts = new ArrayList<>();
+
+        RepairProvider(String reply) {
+            this.reply = reply;
+        }
+
+        @Override
+        public String name() {
+            return "repair";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            List<Message> messages = request.messages();
+            prompts.add(messages.get(messages.size() - 1).content());
+            return ChatResponse.success(reply);
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
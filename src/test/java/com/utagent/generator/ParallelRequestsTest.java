@@ -0,0 +1,50 @@
+package com.utagent.generator;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ParallelRequests Tests")
+class ParallelRequestsTest {
+
+    @Test
+    @DisplayName("Should keep successful results in submission order and report failures")
+    void shouldCollectSuccessfulResults() {
+        List<Callable<String>> tasks = List.of(
+            () -> "first",
+            () -> { throw new IllegalStateException("boom"); },
+            () -> "third");
+        List<Exception> failures = new ArrayList<>();
+
+        List<String> results = ParallelRequests.invokeAll("test-parallel", 3, tasks, 5, failures::add);
+
+        assertEquals(List.of("first", "third"), results);
+        assertEquals(1, failures.size());
+    }
+
+    @Test
+    @DisplayName("Should wait for one shared deadline rather than one timeout per request")
+    void shouldShareOneDeadline() {
+        List<Callable<String>> tasks = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            tasks.add(() -> {
+                Thread.sleep(10_000);
+                return "late";
+            });
+        }
+        List<Exception> failures = new ArrayList<>();
+
+        long start = System.nanoTime();
+        List<String> results = ParallelRequests.invokeAll("test-parallel", 1, tasks, 1, failures::add);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(results.isEmpty());
+        assertEquals(3, failures.size());
+        assertTrue(elapsedMillis < 3_000, "took " + elapsedMillis + " ms");
+    }
+}
@@ -0,0 +1,181 @@
+package com.utagent.generator;
+
+import com.utagent.config.ParallelConfig;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.FieldInfo;
+import com.utagent.model.MethodInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ShardedTestGenerator Tests")
+class ShardedTestGeneratorTest {
+
+    private static MethodInfo method(String name, String body) {
+        return new MethodInfo(name, "void", new ArrayList<>(), new ArrayList<>(), body,
+            1, 5, new ArrayList<>(), false, false, false, true, false, false);
+    }
+
+    private static FieldInfo field(String name) {
+        return new FieldInfo(name, "Repository", new ArrayList<>(), false, true, true, false, false);
+    }
+
+    private static ClassInfo serviceClass(List<MethodInfo> methods) {
+        return new ClassInfo("com.example", "OrderService", "com.example.OrderService",
+            methods, List.of(field("orderRepository"), field("auditLog")), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static String shardClass(String importLine, String testName) {
+        return "package com.example;\n\n"
+            + "import org.junit.jupiter.api.Test;\n"
+            + "import org.junit.jupiter.api.BeforeEach;\n"
+            + importLine + "\n\n"
+            + "class OrderServiceTest {\n"
+            + "    private OrderService service;\n\n"
+            + "    @BeforeEach\n"
+            + "    void setUp() {\n"
+            + "        service = new OrderService();\n"
+            + "    }\n\n"
+            + "    @Test\n"
+            + "    void " + testName + "() {\n"
+            + "    }\n"
+            + "}\n";
+    }
+
+    private ShardedTestGenerator generatorWith(LLMProvider provider, int maxMethodsPerShard, int threshold) {
+        TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, provider, null);
+        return new ShardedTestGenerator(testGenerator, ParallelConfig.defaults(), maxMethodsPerShard, threshold);
+    }
+
+    @Nested
+    @DisplayName("Grouping")
+    class GroupingTests {
+
+        @Test
+        @DisplayName("Should cluster methods that use the same field")
+        void shouldClusterMethodsBySharedField() {
+            ClassInfo classInfo = serviceClass(List.of(
+                method("create", "{ orderRepository.save(o); }"),
+                method("audit", "{ auditLog.write(); }"),
+                method("find", "{ return orderRepository.find(id); }")));
+
+            List<List<MethodInfo>> groups = generatorWith(new ScriptedProvider(), 2, 0).groupMethods(classInfo);
+
+            assertEquals(2, groups.size());
+            assertEquals(List.of("create", "find"), groups.get(0).stream().map(MethodInfo::name).toList());
+            assertEquals("audit", groups.get(1).get(0).name());
+        }
+
+        @Test
+        @DisplayName("Should split clusters larger than the shard size")
+        void shouldSplitLargeClusters() {
+            List<MethodInfo> methods = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                methods.add(method("op" + i, "{ orderRepository.call(); }"));
+            }
+
+            List<List<MethodInfo>> groups = generatorWith(new ScriptedProvider(), 2, 0)
+                .groupMethods(serviceClass(methods));
+
+            assertEquals(3, groups.size());
+            assertTrue(groups.stream().allMatch(g -> g.size() <= 2));
+        }
+    }
+
+    @Nested
+    @DisplayName("Merging")
+    class MergingTests {
+
+        @Test
+        @DisplayName("Should deduplicate imports, fields and setup statements")
+        void shouldDeduplicateWhenMerging() {
+            String merged = generatorWith(new ScriptedProvider(), 2, 0).merge(List.of(
+                shardClass("import java.util.List;", "shouldCreate"),
+                shardClass("import java.util.Map;", "shouldFind")));
+
+            assertEquals(1, count(merged, "import org.junit.jupiter.api.Test;"));
+            assertTrue(merged.contains("import java.util.Map;"));
+            assertEquals(1, count(merged, "private OrderService service;"));
+            assertEquals(1, count(merged, "service = new OrderService();"));
+            assertTrue(merged.contains("shouldCreate"));
+            assertTrue(merged.contains("shouldFind"));
+        }
+
+        @Test
+        @DisplayName("Should rename colliding test methods")
+        void shouldRenameCollidingTests() {
+            String merged = generatorWith(new ScriptedProvider(), 2, 0).merge(List.of(
+                shardClass("", "shouldWork"), shardClass("", "shouldWork")));
+
+            assertTrue(merged.contains("void shouldWork()"));
+            assertTrue(merged.contains("void shouldWork2()"));
+        }
+
+        private int count(String text, String token) {
+            return text.split(java.util.regex.Pattern.quote(token), -1).length - 1;
+        }
+    }
+
+    @Test
+    @DisplayName("Should generate shards concurrently and merge them into one class")
+    void shouldGenerateShardsAndMerge() {
+        List<MethodInfo> methods = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            methods.add(method("op" + i, "{ }"));
+        }
+        ScriptedProvider provider = new ScriptedProvider();
+        ShardedTestGenerator generator = generatorWith(provider, 2, 4);
+        ClassInfo classInfo = serviceClass(methods);
+
+        assertTrue(generator.shouldShard(classInfo));
+        String merged = generator.generate(classInfo);
+
+        assertEquals(3, provider.calls.get());
+        assertEquals(1, merged.split("class OrderServiceTest", -1).length - 1);
+        assertTrue(merged.contains("shouldRunShard1"));
+        assertTrue(merged.contains("shouldRunShard3"));
+    }
+
+    private static class ScriptedProvider implements LLMProvider {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "scripted";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            int call = calls.incrementAndGet();
+            return ChatResponse.success("```java\n" + shardClass("", "shouldRunShard" + call) + "```");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
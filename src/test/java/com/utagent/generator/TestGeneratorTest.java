@@ -1,11 +1,25 @@
 package com.utagent.generator;
 
+import com.utagent.cache.LLMResponseCache;
+import com.utagent.config.CacheConfig;
+import com.utagent.llm.CachedLLMProvider;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
 import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import com.utagent.parser.JavaCodeParser;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -68,4 +82,90 @@ class TestGeneratorTest {
     void shouldNotBeAIEnabledWithoutApiKey() {
         assertFalse(generator.isAIEnabled());
     }
+
+    @Test
+    @DisplayName("Should take the uncovered methods of the class from the baseline coverage")
+    void shouldReadUncoveredMethodsFromBaseline() {
+        ClassInfo classInfo = new ClassInfo("com.example", "Calculator", "com.example.Calculator");
+        generator.setBaselineCoverage(new CoverageReport(0.5, 0.5, 0.5, List.of(
+            new CoverageInfo("com.example.Calculator", "", 1, 4, 2, 0, 0, 10, 5),
+            new CoverageInfo("com.example.Calculator", "add", 3, 0, 0, 0, 0, 4, 0),
+            new CoverageInfo("com.example.Calculator", "divide", 8, 4, 2, 0, 0, 6, 5),
+            new CoverageInfo("com.example.Other", "divide", 8, 0, 0, 0, 0, 6, 6)), List.of()));
+
+        List<CoverageInfo> uncovered = generator.baselineUncovered(classInfo);
+
+        assertEquals(1, uncovered.size());
+        assertEquals("divide", uncovered.get(0).methodName());
+        generator.setBaselineCoverage(null);
+        assertTrue(generator.baselineUncovered(classInfo).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should count token usage per class")
+    void shouldCountTokensPerClass() {
+        JavaCodeParser parser = new JavaCodeParser();
+        ClassInfo first = parser.parseCode("package demo; public class First { }").orElseThrow();
+        ClassInfo second = parser.parseCode("package demo; public class Second { }").orElseThrow();
+        TestGenerator testGenerator = new TestGenerator("key", "openai", null, null, new UsageProvider(), null);
+
+        testGenerator.executeRequest(testGenerator.requestBuilder(first).userMessage("a").build(), "test");
+        testGenerator.executeRequest(testGenerator.requestBuilder(first).userMessage("b").build(), "test");
+        testGenerator.executeRequest(testGenerator.requestBuilder(second).userMessage("c").build(), "test");
+
+        assertEquals(300, testGenerator.getClassTokens(first));
+        assertEquals(150, testGenerator.getClassTokens(second));
+        assertEquals(450, testGenerator.getTotalTokenUsage().totalTokens());
+    }
+
+    @Test
+    @DisplayName("Should not count cache hits against the class budget")
+    void shouldNotCountCacheHits(@TempDir Path cacheDir) {
+        JavaCodeParser parser = new JavaCodeParser();
+        ClassInfo classInfo = parser.parseCode("package demo; public class First { }").orElseThrow();
+        LLMResponseCache cache = new LLMResponseCache(
+            CacheConfig.builder().cacheDirectory(cacheDir.toString()).build());
+        TestGenerator testGenerator = new TestGenerator("key", "openai", null, null,
+            new CachedLLMProvider(new UsageProvider(), cache), null);
+
+        ChatRequest request = testGenerator.requestBuilder(classInfo).userMessage("a").build();
+        testGenerator.executeRequest(request, "test");
+        ChatResponse hit = testGenerator.executeRequest(request, "test");
+
+        assertTrue(hit.isCached());
+        assertEquals(150, testGenerator.getClassTokens(classInfo));
+        assertEquals(150, testGenerator.getTotalTokenUsage().totalTokens());
+    }
+
+    private static class UsageProvider implements LLMProvider {
+
+        @Override
+        public String name() {
+            return "usage";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            return ChatResponse.builder()
+                .content("ok")
+                .tokenUsage(new TokenUsage(100, 50, 150))
+                .success(true)
+                .build();
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
 }
@@ -0,0 +1,218 @@
+package com.utagent.generator;
+
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.parser.JavaCodeParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TrivialityClassifier Tests")
+class TrivialityClassifierTest {
+
+    private final TrivialityClassifier classifier = new TrivialityClassifier();
+    private final JavaCodeParser parser = new JavaCodeParser();
+
+    private ClassInfo parse(String source) {
+        return parser.parseCode(source).orElseThrow();
+    }
+
+    @Nested
+    @DisplayName("Classification")
+    class ClassificationTests {
+
+        @Test
+        @DisplayName("Should treat records, enums and Lombok DTOs as trivial")
+        void shouldClassifyDataTypesAsTrivial() {
+            assertTrue(classifier.isTrivial(parse("public record Point(int x, int y) { }")));
+            assertTrue(classifier.isTrivial(parse("public enum Level { LOW, HIGH }")));
+            assertTrue(classifier.isTrivial(parse("""
+                import lombok.Data;
+
+                @Data
+                public class OrderDto {
+                    private String id;
+                    private int quantity;
+                }
+                """)));
+        }
+
+        @Test
+        @DisplayName("Should treat classes with only accessors as trivial")
+        void shouldClassifyAccessorClassesAsTrivial() {
+            assertTrue(classifier.isTrivial(parse("""
+                public class Person {
+                    private String name;
+                    public String getName() { return this.name; }
+                    public void setName(String name) { this.name = name; }
+                }
+                """)));
+        }
+
+        @Test
+        @DisplayName("Should keep classes with logic, final fields or framework annotations for the LLM")
+        void shouldRejectNonTrivialClasses() {
+            assertFalse(classifier.isTrivial(parse("""
+                public class Calculator {
+                    public int divide(int a, int b) {
+                        if (b == 0) { throw new ArithmeticException(); }
+                        return a / b;
+                    }
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("""
+                public class Money {
+                    private final long cents;
+                    public Money(long cents) { this.cents = cents; }
+                    public long getCents() { return cents; }
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("""
+                @Service
+                public class UserService {
+                    private String name;
+                    public String getName() { return name; }
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("public interface Repository { void save(); }")));
+        }
+
+        @Test
+        @DisplayName("Should keep classes the template cannot instantiate with new X() for the LLM")
+        void shouldRejectClassesWithoutNoArgConstructor() {
+            assertFalse(classifier.isTrivial(parse("""
+                public class Label {
+                    private String text;
+                    public Label(String text) { this.text = text; }
+                    public String getText() { return text; }
+                    public void setText(String text) { this.text = text; }
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("""
+                import lombok.AllArgsConstructor;
+                import lombok.Data;
+
+                @Data
+                @AllArgsConstructor
+                public class OrderDto {
+                    private String id;
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("""
+                public abstract class Base {
+                    private String id;
+                    public String getId() { return id; }
+                    public void setId(String id) { this.id = id; }
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("""
+                public class Child extends Parent {
+                    private String id;
+                    public String getId() { return id; }
+                    public void setId(String id) { this.id = id; }
+                }
+                """)));
+            assertTrue(classifier.isTrivial(parse("""
+                import lombok.AllArgsConstructor;
+                import lombok.Data;
+                import lombok.NoArgsConstructor;
+
+                @Data
+                @NoArgsConstructor
+                @AllArgsConstructor
+                public class OrderDto {
+                    private String id;
+                }
+                """)));
+        }
+
+        @Test
+        @DisplayName("Should keep classes with fields of types that have no sample value for the LLM")
+        void shouldRejectFieldsWithoutSampleValue() {
+            assertFalse(classifier.isTrivial(parse("""
+                import lombok.Data;
+
+                @Data
+                public class OrderDto {
+                    private Customer customer;
+                }
+                """)));
+            assertFalse(classifier.isTrivial(parse("public record Line(Product product, int quantity) { }")));
+            assertTrue(classifier.isTrivial(parse("""
+                import java.math.BigDecimal;
+                import java.util.List;
+                import lombok.Data;
+
+                @Data
+                public class OrderDto {
+                    private BigDecimal total;
+                    private List<String> tags;
+                }
+                """)));
+        }
+    }
+
+    @Nested
+    @DisplayName("TestGenerator fast path")
+    class GeneratorTests {
+
+        @Test
+        @DisplayName("Should generate template tests without calling the LLM")
+        void shouldSkipLlmForTrivialClasses() {
+            CountingProvider provider = new CountingProvider();
+            TestGenerator generator = new TestGenerator("key", "openai", null, null, provider, null);
+
+            String testCode = generator.generateTestClass(parse("""
+                package com.example;
+                public record Point(int x, int y) { }
+                """));
+            generator.generateTestClass(parse("""
+                package com.example;
+                public class Calculator {
+                    public int twice(int a) { return a > 0 ? a * 2 : 0; }
+                }
+                """));
+
+            assertTrue(testCode.contains("class PointTest"));
+            assertEquals(1, provider.calls.get());
+        }
+    }
+
+    private static class CountingProvider implements LLMProvider {
+        final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public String name() {
+            return "counting";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            calls.incrementAndGet();
+            return ChatResponse.success("```java\nclass CalculatorTest { }\n```");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
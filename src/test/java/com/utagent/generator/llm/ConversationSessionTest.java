@@ -0,0 +1,130 @@
+package com.utagent.generator.llm;
+
+import com.utagent.generator.TestGenerator;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ConversationSession Tests")
+class ConversationSessionTest {
+
+    private static ClassInfo calculatorClass() {
+        return new ClassInfo(
+            "com.example",
+            "Calculator",
+            "com.example.Calculator",
+            new ArrayList<>(),
+            new ArrayList<>(),
+            new ArrayList<>(),
+            new ArrayList<>(),
+            null,
+            new ArrayList<>(),
+            false, false, false, new HashMap<>()
+        );
+    }
+
+    @Nested
+    @DisplayName("Session history")
+    class HistoryTests {
+
+        @Test
+        @DisplayName("Should keep the first exchange only")
+        void shouldKeepFirstExchangeOnly() {
+            ConversationSession session = new ConversationSession(calculatorClass());
+            ChatRequest first = ChatRequest.builder().systemPrompt("system").userMessage("class").build();
+
+            session.recordInitialExchange(first.messages(), "tests v1");
+            session.recordInitialExchange(first.messages(), "tests v2");
+
+            assertEquals(3, session.getHistory().size());
+            assertEquals("tests v1", session.getHistory().get(2).content());
+        }
+
+        @Test
+        @DisplayName("Should mark the end of history as cache breakpoint")
+        void shouldMarkEndOfHistoryAsCacheBreakpoint() {
+            ConversationSession session = new ConversationSession(calculatorClass());
+            ChatRequest first = ChatRequest.builder().systemPrompt("system").userMessage("class").build();
+            session.recordInitialExchange(first.messages(), "tests");
+
+            ChatRequest followUp = session.followUpRequest("delta");
+
+            assertEquals(4, followUp.messages().size());
+            assertTrue(followUp.isCacheBreakpoint(2));
+            assertFalse(followUp.isCacheBreakpoint(3));
+            assertEquals("delta", followUp.messages().get(3).content());
+        }
+    }
+
+    @Nested
+    @DisplayName("TestGenerator follow-up")
+    class FollowUpTests {
+
+        @Test
+        @DisplayName("Should send only the coverage delta on top of the first exchange")
+        void shouldSendCoverageDeltaOnTopOfHistory() {
+            RecordingProvider provider = new RecordingProvider();
+            TestGenerator generator = new TestGenerator("key", "openai", null, null, provider, null);
+            ClassInfo classInfo = calculatorClass();
+            ConversationSession session = generator.openSession(classInfo);
+
+            generator.generateTestClass(classInfo, session);
+            int historySize = session.getHistory().size();
+            generator.generateFollowUpTests(session,
+                List.of(new CoverageInfo("com.example.Calculator", "divide", 12, 2, 1, 10, 4, 3, 2)),
+                0.5, Set.of("shouldAdd"));
+
+            ChatRequest followUp = provider.requests.get(1);
+            assertEquals(historySize + 1, followUp.messages().size());
+            String delta = followUp.messages().get(historySize).content();
+            assertTrue(delta.contains("divide"));
+            assertTrue(delta.contains("shouldAdd"));
+            assertFalse(delta.contains("Test Class Name"));
+            assertEquals(1, session.getFollowUpTurns());
+        }
+    }
+
+    private static class RecordingProvider implements LLMProvider {
+        final List<ChatRequest> requests = new ArrayList<>();
+
+        @Override
+        public String name() {
+            return "recording";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            requests.add(request);
+            return ChatResponse.success("```java\n@Test\nvoid shouldAdd() {}\n```");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
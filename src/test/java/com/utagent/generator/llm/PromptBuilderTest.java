@@ -0,0 +1,121 @@
+package com.utagent.generator.llm;
+
+import com.utagent.llm.TokenEstimator;
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.MethodInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("PromptBuilder Tests")
+class PromptBuilderTest {
+
+    private static MethodInfo method(String name, String body) {
+        return new MethodInfo(name, "int", new ArrayList<>(), new ArrayList<>(), body,
+            1, 10, new ArrayList<>(), false, false, false, true, false, false);
+    }
+
+    private static ClassInfo classWith(List<MethodInfo> methods) {
+        return new ClassInfo("com.example", "Service", "com.example.Service",
+            methods, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static String largeBody(int statements) {
+        StringBuilder body = new StringBuilder("{\n");
+        for (int i = 0; i < statements; i++) {
+            body.append("    if (value > ").append(i).append(") { total += computeSomething(value, ")
+                .append(i).append("); }\n");
+        }
+        return body.append("    return total;\n}").toString();
+    }
+
+    @Nested
+    @DisplayName("Token budget")
+    class TokenBudgetTests {
+
+        @Test
+        @DisplayName("Should include method bodies when they fit")
+        void shouldIncludeBodiesWhenTheyFit() {
+            ClassInfo classInfo = classWith(List.of(method("add", "{\n    return a + b;\n}")));
+
+            String context = new PromptBuilder(2000).buildClassContext(classInfo);
+
+            assertTrue(context.contains("## Method Bodies"));
+            assertTrue(context.contains("return a + b;"));
+        }
+
+        @Test
+        @DisplayName("Should never exceed the configured budget")
+        void shouldNeverExceedBudget() {
+            List<MethodInfo> methods = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                methods.add(method("operation" + i, largeBody(20)));
+            }
+            PromptBuilder builder = new PromptBuilder(800);
+
+            String context = builder.buildClassContext(classWith(methods));
+
+            assertTrue(TokenEstimator.getInstance().estimate(context) <= 800);
+        }
+
+        @Test
+        @DisplayName("Should prefer bodies of methods with uncovered lines")
+        void shouldPreferUncoveredMethods() {
+            ClassInfo classInfo = classWith(List.of(
+                method("complex", largeBody(10)),
+                method("uncovered", largeBody(10))));
+            List<CoverageInfo> uncovered = List.of(
+                new CoverageInfo("com.example.Service", "uncovered", 5, 4, 4, 20, 20, 10, 10));
+            int oneBody = TokenEstimator.getInstance().estimate(largeBody(10));
+
+            String context = new PromptBuilder(oneBody + 150).buildClassContext(classInfo, uncovered);
+
+            assertTrue(context.contains("### uncovered()"));
+            assertFalse(context.contains("### complex()"));
+        }
+
+        @Test
+        @DisplayName("Should summarize signatures that do not fit")
+        void shouldSummarizeOmittedSignatures() {
+            List<MethodInfo> methods = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                methods.add(method("operation" + i, null));
+            }
+
+            String context = new PromptBuilder(300).buildClassContext(classWith(methods));
+
+            assertTrue(context.contains("more methods omitted"));
+        }
+    }
+
+    @Nested
+    @DisplayName("Incremental prompt")
+    class IncrementalPromptTests {
+
+        @Test
+        @DisplayName("Should keep the class out of the cacheable instructions")
+        void shouldSplitInstructionsFromContext() {
+            PromptBuilder builder = new PromptBuilder();
+            ClassInfo classInfo = classWith(List.of(method("add", "{ return a + b; }")));
+
+            String instructions = builder.buildIncrementalTestInstructions();
+            String context = builder.buildIncrementalTestContext(classInfo, Set.of(), null,
+                classInfo.methods(), List.of());
+
+            assertFalse(instructions.contains("com.example.Service"));
+            assertTrue(context.contains("## Class: com.example.Service"));
+            assertTrue(context.contains("add"));
+            assertEquals(instructions + context, builder.buildIncrementalTestPrompt(classInfo, Set.of(), null,
+                classInfo.methods(), List.of()));
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.utagent.generator.llm;
+
+import com.utagent.generator.TestGenerator;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.model.ClassInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StreamingTestMethodExtractor Tests")
+class StreamingTestMethodExtractorTest {
+
+    private static final String RESPONSE = """
+        Here are the tests:
+
+        ```java
+        package com.example;
+
+        import org.junit.jupiter.api.BeforeEach;
+        import org.junit.jupiter.api.Test;
+
+        class CalculatorTest {
+            private static final String BRACES = "{ not a block }";
+            private final Runnable noop = () -> { };
+            private Calculator calculator;
+
+            @BeforeEach
+            void setUp() {
+                calculator = new Calculator();
+            }
+
+            @Test
+            void shouldAdd() {
+                // closing brace in a comment }
+                assertEquals('}', '}');
+            }
+
+            @Test
+            void shouldDivide() {
+                String text = \"""
+                    }}}
+                    \""";
+            }
+        }
+        ```
+        """;
+
+    private static void feedInChunks(StreamingTestMethodExtractor extractor, String text, int size) {
+        for (int i = 0; i < text.length(); i += size) {
+            extractor.accept(text.substring(i, Math.min(text.length(), i + size)));
+        }
+    }
+
+    @Nested
+    @DisplayName("Extraction")
+    class ExtractionTests {
+
+        @Test
+        @DisplayName("Should emit each test method once it is complete")
+        void shouldEmitTestMethodsAsTheyComplete() {
+            List<String> emitted = new ArrayList<>();
+            StreamingTestMethodExtractor extractor = new StreamingTestMethodExtractor(emitted::add);
+
+            int marker = RESPONSE.indexOf("@Test\n    void shouldDivide");
+            feedInChunks(extractor, RESPONSE.substring(0, marker), 7);
+
+            assertEquals(1, emitted.size());
+            assertTrue(emitted.get(0).contains("void shouldAdd()"));
+
+            feedInChunks(extractor, RESPONSE.substring(marker), 7);
+            extractor.finish();
+
+            assertEquals(2, emitted.size());
+            assertTrue(emitted.get(1).contains("void shouldDivide()"));
+            assertTrue(extractor.isClassComplete());
+            assertEquals("CalculatorTest", extractor.getClassName());
+        }
+
+        @Test
+        @DisplayName("Should keep fields and setup methods as support members")
+        void shouldKeepSupportMembers() {
+            StreamingTestMethodExtractor extractor = new StreamingTestMethodExtractor(m -> { });
+            feedInChunks(extractor, RESPONSE, 1);
+            extractor.finish();
+
+            List<String> support = extractor.getSupportMembers();
+            assertEquals(4, support.size());
+            assertTrue(support.get(1).startsWith("private final Runnable noop"));
+            assertTrue(support.get(3).contains("void setUp()"));
+        }
+
+        @Test
+        @DisplayName("Should build a class with only the given test method")
+        void shouldBuildSingleMethodUnit() {
+            List<String> emitted = new ArrayList<>();
+            StreamingTestMethodExtractor extractor = new StreamingTestMethodExtractor(emitted::add);
+            feedInChunks(extractor, RESPONSE, 13);
+            extractor.finish();
+
+            String unit = extractor.buildCompilationUnit(emitted.get(1));
+
+            assertTrue(unit.startsWith("package com.example;"));
+            assertTrue(unit.contains("void setUp()"));
+            assertTrue(unit.contains("void shouldDivide()"));
+            assertFalse(unit.contains("void shouldAdd()"));
+            assertTrue(unit.strip().endsWith("}"));
+        }
+    }
+
+    @Nested
+    @DisplayName("TestGenerator streaming")
+    class GeneratorTests {
+
+        @Test
+        @DisplayName("Should stop forwarding the stream once cancelled")
+        void shouldStopStreamingWhenCancelled() {
+            StreamingProvider provider = new StreamingProvider(RESPONSE);
+            TestGenerator generator = new TestGenerator("key", "openai", null, null, provider, null);
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            List<String> emitted = new ArrayList<>();
+            StreamingTestMethodExtractor extractor = new StreamingTestMethodExtractor(method -> {
+                emitted.add(method);
+                cancelled.set(true);
+            });
+
+            generator.generateTestClassStreaming(calculatorClass(), null, extractor, cancelled);
+
+            assertEquals(1, emitted.size());
+            assertTrue(provider.chunksSkipped > 0);
+        }
+
+        @Test
+        @DisplayName("Should record the full exchange in the session when not cancelled")
+        void shouldRecordSessionWhenComplete() {
+            TestGenerator generator = new TestGenerator("key", "openai", null, null,
+                new StreamingProvider(RESPONSE), null);
+            ConversationSession session = generator.openSession(calculatorClass());
+            List<String> emitted = new ArrayList<>();
+
+            generator.generateTestClassStreaming(calculatorClass(), session,
+                new StreamingTestMethodExtractor(emitted::add), new AtomicBoolean(false));
+
+            assertEquals(2, emitted.size());
+            assertTrue(session.hasHistory());
+        }
+    }
+
+    private static ClassInfo calculatorClass() {
+        return new ClassInfo("com.example", "Calculator", "com.example.Calculator",
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static class StreamingProvider implements LLMProvider {
+        private final String response;
+        int chunksSkipped;
+
+        StreamingProvider(String response) {
+            this.response = response;
+        }
+
+        @Override
+        public String name() {
+            return "streaming";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            return ChatResponse.success(response);
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                               Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+            StringBuilder sent = new StringBuilder();
+            for (int i = 0; i < response.length(); i += 5) {
+                if (cancelled.get()) {
+                    chunksSkipped++;
+                    continue;
+                }
+                String chunk = response.substring(i, Math.min(response.length(), i + 5));
+                sent.append(chunk);
+                chunkConsumer.accept(chunk);
+            }
+            completeConsumer.accept(ChatResponse.success(sent.toString()));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.utagent.generator.llm;
+
+import com.utagent.build.InMemoryJavaCompiler;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StructuredTestClass Tests")
+class StructuredTestClassTest {
+
+    private static final String REPLY = """
+        {
+          "packageName": "com.example",
+          "imports": ["org.junit.jupiter.api.Test", "org.junit.jupiter.api.DisplayName",
+                      "org.junit.jupiter.api.BeforeEach", "static org.junit.jupiter.api.Assertions.*"],
+          "className": "CalculatorTest",
+          "fields": ["private Calculator calculator;"],
+          "setUp": "calculator = new Calculator();",
+          "unknown": {"ignored": [1, 2, 3]},
+          "testMethods": [
+            {"name": "shouldAdd", "displayName": "Should add \\"two\\" numbers",
+             "body": "int result = calculator.add(2, 3);\\nif (result > 0) {\\n    assertEquals(5, result);\\n}"},
+            {"name": "shouldAddNegatives",
+             "annotations": ["@org.junit.jupiter.params.ParameterizedTest",
+                             "@org.junit.jupiter.params.provider.ValueSource(ints = {-1, -2})"],
+             "parameters": "int value",
+             "body": "assertEquals(value * 2, calculator.add(value, value));"},
+            {"name": "missingBody"}
+          ]
+        }
+        """;
+
+    private static final String CALCULATOR = """
+        package com.example;
+
+        public class Calculator {
+            public int add(int a, int b) {
+                return a + b;
+            }
+        }
+        """;
+
+    @Nested
+    @DisplayName("Parsing")
+    class ParsingTests {
+
+        @Test
+        @DisplayName("Should read every part of the reply and skip unknown fields")
+        void shouldParseReply() {
+            StructuredTestClass parsed = StructuredTestClass.parse(REPLY).orElseThrow();
+
+            assertEquals("com.example", parsed.packageName());
+            assertEquals("CalculatorTest", parsed.className());
+            assertEquals(4, parsed.imports().size());
+            assertEquals(List.of("shouldAdd", "shouldAddNegatives"), parsed.testMethodNames());
+            assertEquals("int value", parsed.testMethods().get(1).parameters());
+        }
+
+        @Test
+        @DisplayName("Should accept a fenced reply")
+        void shouldParseFencedReply() {
+            assertTrue(StructuredTestClass.parse("```json\n" + REPLY + "```").isPresent());
+        }
+
+        @Test
+        @DisplayName("Should reject free-form and incomplete replies")
+        void shouldRejectNonStructuredReplies() {
+            assertEquals(Optional.empty(), StructuredTestClass.parse("```java\nclass FooTest { }\n```"));
+            assertEquals(Optional.empty(), StructuredTestClass.parse("Here you go: {\"className\": \"FooTest\"}"));
+            assertEquals(Optional.empty(), StructuredTestClass.parse("{\"className\": \"FooTest\", \"testMethods\": []}"));
+            assertEquals(Optional.empty(), StructuredTestClass.parse("{\"className\": \"FooTest\", "));
+            assertEquals(Optional.empty(), StructuredTestClass.parse(null));
+        }
+    }
+
+    @Nested
+    @DisplayName("Assembly")
+    class AssemblyTests {
+
+        @Test
+        @DisplayName("Should assemble a test class that compiles")
+        void shouldAssembleCompilableTestClass() {
+            String source = StructuredTestClass.parse(REPLY).orElseThrow().toJavaSource();
+
+            List<File> classpath = new ArrayList<>();
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                classpath.add(new File(entry));
+            }
+            InMemoryJavaCompiler.CompilationResult result = new InMemoryJavaCompiler(classpath).compile(Map.of(
+                "com.example.Calculator", CALCULATOR,
+                "com.example.CalculatorTest", source));
+
+            assertTrue(result.success(), () -> result.errors() + "\n" + source);
+            assertTrue(source.contains("@DisplayName(\"Should add \\\"two\\\" numbers\")"));
+            assertTrue(source.contains("            assertEquals(5, result);"));
+        }
+
+        @Test
+        @DisplayName("Should assemble only the test methods for merging")
+        void shouldAssembleMethodsOnly() {
+            String methods = StructuredTestClass.parse(REPLY).orElseThrow().toMethodsSource();
+
+            assertTrue(methods.startsWith("@Test"));
+            assertFalse(methods.contains("class "));
+            assertFalse(methods.contains("setUp"));
+            assertTrue(methods.contains("void shouldAddNegatives(int value)"));
+        }
+
+        @Test
+        @DisplayName("Should add @Test unless an annotation already makes the method a test")
+        void shouldAddTestAnnotationToNonTestAnnotations() {
+            String source = StructuredTestClass.parse("""
+                {"className": "CalculatorTest", "testMethods": [
+                  {"name": "shouldAddQuickly", "annotations": ["@Tag(\\"fast\\")"], "body": "run();"},
+                  {"name": "shouldRepeat", "annotations": ["@RepeatedTest(3)"], "body": "run();"},
+                  {"name": "shouldGenerate", "annotations": ["@org.junit.jupiter.api.TestFactory"], "body": "run();"}
+                ]}
+                """).orElseThrow().toJavaSource();
+
+            assertTrue(source.contains("    @Test\n    @Tag(\"fast\")\n    void shouldAddQuickly()"));
+            assertTrue(source.contains("\n    @RepeatedTest(3)\n    void shouldRepeat()"));
+            assertTrue(source.contains("\n    @org.junit.jupiter.api.TestFactory\n    void shouldGenerate()"));
+            assertEquals(1, source.split("@Test\n", -1).length - 1);
+        }
+    }
+}
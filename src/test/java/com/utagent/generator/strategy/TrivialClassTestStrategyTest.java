@@ -0,0 +1,126 @@
+package com.utagent.generator.strategy;
+
+import com.utagent.build.InMemoryJavaCompiler;
+import com.utagent.model.ClassInfo;
+import com.utagent.parser.JavaCodeParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TrivialClassTestStrategy Tests")
+class TrivialClassTestStrategyTest {
+
+    private final TrivialClassTestStrategy strategy = new TrivialClassTestStrategy();
+    private final JavaCodeParser parser = new JavaCodeParser();
+
+    private String generateAndCompile(String className, String source) {
+        ClassInfo classInfo = parser.parseCode(source).orElseThrow();
+        String testCode = strategy.generateTestClass(classInfo);
+
+        List<File> classpath = new ArrayList<>();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            classpath.add(new File(entry));
+        }
+        InMemoryJavaCompiler.CompilationResult result = new InMemoryJavaCompiler(classpath).compile(Map.of(
+            "com.example." + className, source,
+            "com.example." + className + "Test", testCode));
+        assertTrue(result.success(), () -> result.errors() + "\n" + testCode);
+        return testCode;
+    }
+
+    @Test
+    @DisplayName("Should round-trip every field of a plain data class")
+    void shouldGenerateAccessorTests() {
+        String testCode = generateAndCompile("Person", """
+            package com.example;
+
+            public class Person {
+                private String name;
+                private int age;
+                private boolean active;
+
+                public String getName() { return name; }
+                public void setName(String name) { this.name = name; }
+                public int getAge() { return age; }
+                public void setAge(int age) { this.age = age; }
+                public boolean isActive() { return active; }
+                public Person setActive(boolean active) { this.active = active; return this; }
+            }
+            """);
+
+        assertTrue(testCode.contains("void shouldRoundTripName()"));
+        assertTrue(testCode.contains("void shouldRoundTripAge()"));
+        assertTrue(testCode.contains("void shouldRoundTripActive()"));
+        assertTrue(testCode.contains("@DisplayName(\"Person Tests\")"));
+    }
+
+    @Test
+    @DisplayName("Should use non-null sample values for common JDK reference types")
+    void shouldUseNonNullReferenceSamples() {
+        String testCode = generateAndCompile("Invoice", """
+            package com.example;
+
+            import java.math.BigDecimal;
+            import java.time.LocalDate;
+            import java.util.List;
+
+            public class Invoice {
+                private BigDecimal total;
+                private LocalDate issued;
+                private List<String> lines;
+
+                public BigDecimal getTotal() { return total; }
+                public void setTotal(BigDecimal total) { this.total = total; }
+                public LocalDate getIssued() { return issued; }
+                public void setIssued(LocalDate issued) { this.issued = issued; }
+                public List<String> getLines() { return lines; }
+                public void setLines(List<String> lines) { this.lines = lines; }
+            }
+            """);
+
+        assertFalse(testCode.contains("= null;"));
+        assertTrue(testCode.contains("java.math.BigDecimal.valueOf(42)"));
+        assertTrue(testCode.contains("void shouldRoundTripLines()"));
+    }
+
+    @Test
+    @DisplayName("Should check components and equality of a record")
+    void shouldGenerateRecordTests() {
+        String testCode = generateAndCompile("Point", """
+            package com.example;
+
+            public record Point(int x, int y, String label) {
+            }
+            """);
+
+        assertTrue(testCode.contains("new Point(x, y, label)"));
+        assertTrue(testCode.contains("assertEquals(first, second)"));
+    }
+
+    @Test
+    @DisplayName("Should resolve enum constants and call their getters")
+    void shouldGenerateEnumTests() {
+        String testCode = generateAndCompile("Color", """
+            package com.example;
+
+            public enum Color {
+                RED("r"), GREEN("g");
+
+                private final String code;
+
+                Color(String code) { this.code = code; }
+
+                public String getCode() { return code; }
+            }
+            """);
+
+        assertTrue(testCode.contains("Color.valueOf(constant.name())"));
+        assertTrue(testCode.contains("constant.getCode()"));
+    }
+}
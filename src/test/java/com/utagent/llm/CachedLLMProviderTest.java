@@ -0,0 +1,147 @@
+package com.utagent.llm;
+
+import com.utagent.cache.LLMResponseCache;
+import com.utagent.config.CacheConfig;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("CachedLLMProvider Tests")
+class CachedLLMProviderTest {
+
+    private static final String CONTENT = "line one\nline two\nline three";
+
+    @TempDir
+    Path tempDir;
+
+    private LLMResponseCache cache;
+    private StreamingProvider delegate;
+
+    @BeforeEach
+    void setUp() {
+        cache = new LLMResponseCache(CacheConfig.builder().cacheDirectory(tempDir.toString()).build());
+        delegate = new StreamingProvider();
+    }
+
+    private ChatRequest request() {
+        return ChatRequest.builder().systemPrompt("system").userMessage("generate tests").build();
+    }
+
+    @Nested
+    @DisplayName("Streaming")
+    class StreamingTests {
+
+        @Test
+        @DisplayName("Should tee streamed chunks into the cache and replay them on a hit")
+        void shouldCacheStreamedResponse() {
+            CachedLLMProvider provider = new CachedLLMProvider(delegate, cache);
+            List<String> firstChunks = new ArrayList<>();
+            AtomicReference<ChatResponse> first = new AtomicReference<>();
+            provider.chatStream(request(), firstChunks::add, first::set);
+
+            List<String> replayedChunks = new ArrayList<>();
+            AtomicReference<ChatResponse> replayed = new AtomicReference<>();
+            provider.chatStream(request(), replayedChunks::add, replayed::set);
+
+            assertEquals(1, delegate.calls);
+            assertEquals(CONTENT, String.join("", firstChunks));
+            assertEquals(List.of("line one\n", "line two\n", "line three"), replayedChunks);
+            assertEquals(CONTENT, replayed.get().content());
+            assertTrue(first.get().tokenUsage().totalTokens() > 0, "usage is filled in for streamed responses");
+            assertTrue(replayed.get().isCached());
+            assertEquals(0, replayed.get().tokenUsage().totalTokens(), "a hit spends no tokens");
+        }
+
+        @Test
+        @DisplayName("Should serve a streamed entry to a plain chat call")
+        void shouldShareEntriesWithChat() {
+            CachedLLMProvider provider = new CachedLLMProvider(delegate, cache);
+            provider.chatStream(request(), chunk -> { }, response -> { });
+
+            ChatResponse response = provider.chat(request());
+
+            assertEquals(1, delegate.calls);
+            assertEquals(CONTENT, response.content());
+            assertTrue(response.isCached());
+        }
+
+        @Test
+        @DisplayName("Should replay as a single chunk when configured")
+        void shouldReplayAsSingleChunk() {
+            CachedLLMProvider provider = new CachedLLMProvider(delegate, cache, true);
+            provider.chatStream(request(), chunk -> { }, response -> { });
+
+            List<String> chunks = new ArrayList<>();
+            provider.chatStream(request(), chunks::add, response -> { });
+
+            assertEquals(List.of(CONTENT), chunks);
+        }
+
+        @Test
+        @DisplayName("Should not cache a cancelled stream")
+        void shouldNotCacheCancelledStream() {
+            CachedLLMProvider provider = new CachedLLMProvider(delegate, cache);
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            provider.chatStream(request(), chunk -> cancelled.set(true), response -> { }, cancelled);
+
+            provider.chatStream(request(), chunk -> { }, response -> { });
+
+            assertEquals(2, delegate.calls);
+        }
+    }
+
+    private static class StreamingProvider implements LLMProvider {
+        int calls;
+
+        @Override
+        public String name() {
+            return "streaming";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            calls++;
+            return ChatResponse.success(CONTENT);
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            chatStream(request, chunkConsumer, completeConsumer, new AtomicBoolean(false));
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer,
+                               Consumer<ChatResponse> completeConsumer, AtomicBoolean cancelled) {
+            calls++;
+            StringBuilder sent = new StringBuilder();
+            for (int i = 0; i < CONTENT.length() && !cancelled.get(); i += 4) {
+                String chunk = CONTENT.substring(i, Math.min(CONTENT.length(), i + 4));
+                sent.append(chunk);
+                chunkConsumer.accept(chunk);
+            }
+            // streamed completions report no content or usage of their own here
+            completeConsumer.accept(ChatResponse.builder().content("").success(true).build());
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,302 @@
+package com.utagent.llm;
+
+import com.utagent.config.HedgingConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("HedgingLLMProvider Tests")
+class HedgingLLMProviderTest {
+
+    private HedgingLLMProvider hedgingProvider;
+
+    @AfterEach
+    void tearDown() {
+        if (hedgingProvider != null) {
+            hedgingProvider.shutdown();
+        }
+    }
+
+    private static HedgingConfig fastConfig() {
+        return HedgingConfig.builder()
+            .initialHedgeDelayMs(50L)
+            .minHedgeDelayMs(10L)
+            .failureThreshold(2)
+            .openDurationSeconds(60L)
+            .build();
+    }
+
+    @Nested
+    @DisplayName("Hedging Tests")
+    class HedgingTests {
+
+        @Test
+        @DisplayName("Should return primary response without hedging when primary is fast")
+        void shouldReturnPrimaryResponseWhenFast() {
+            StubProvider primary = new StubProvider("primary", 0, true);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+
+            assertTrue(response.isSuccess());
+            assertEquals("primary", response.content());
+            assertEquals(0, backup.calls.get());
+            assertEquals(0, hedgingProvider.getHedgesSent());
+        }
+
+        @Test
+        @DisplayName("Should send hedge request and cancel the slow primary")
+        void shouldSendHedgeAndCancelSlowPrimary() {
+            StubProvider primary = new StubProvider("primary", 5_000, true);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            long start = System.currentTimeMillis();
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+            long elapsed = System.currentTimeMillis() - start;
+
+            assertTrue(response.isSuccess());
+            assertEquals("backup", response.content());
+            assertTrue(elapsed < 2_000, "hedged call should not wait for slow primary");
+            assertEquals(1, hedgingProvider.getHedgesSent());
+            assertEquals(1, hedgingProvider.getHedgesWon());
+        }
+
+        @Test
+        @DisplayName("Should hedge to the same provider when no backup is configured")
+        void shouldHedgeToSameProvider() {
+            AtomicInteger invocations = new AtomicInteger();
+            LLMProvider flaky = new StubProvider("single", 0, true) {
+                @Override
+                public ChatResponse chat(ChatRequest request) {
+                    if (invocations.incrementAndGet() == 1) {
+                        sleepQuietly(5_000);
+                    }
+                    return ChatResponse.success("second");
+                }
+            };
+            hedgingProvider = new HedgingLLMProvider(List.of(flaky), fastConfig());
+
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+
+            assertTrue(response.isSuccess());
+            assertEquals("second", response.content());
+            assertEquals(2, invocations.get());
+        }
+    }
+
+    @Nested
+    @DisplayName("Failover Tests")
+    class FailoverTests {
+
+        @Test
+        @DisplayName("Should only fail over without hedging when hedging is disabled")
+        void shouldNotHedgeWhenDisabled() {
+            StubProvider primary = new StubProvider("primary", 300, true);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            HedgingConfig disabled = HedgingConfig.builder()
+                .enabled(false)
+                .initialHedgeDelayMs(50L)
+                .minHedgeDelayMs(10L)
+                .build();
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), disabled);
+
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+
+            assertEquals("primary", response.content());
+            assertEquals(0, backup.calls.get());
+            assertEquals(0, hedgingProvider.getHedgesSent());
+        }
+
+        @Test
+        @DisplayName("Should fail over to backup when primary returns an error")
+        void shouldFailOverOnError() {
+            StubProvider primary = new StubProvider("primary", 0, false);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+
+            assertTrue(response.isSuccess());
+            assertEquals("backup", response.content());
+        }
+
+        @Test
+        @DisplayName("Should open circuit after repeated failures and skip the provider")
+        void shouldOpenCircuitAfterRepeatedFailures() {
+            StubProvider primary = new StubProvider("primary", 0, false);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            ChatRequest request = ChatRequest.builder().userMessage("hi").build();
+            hedgingProvider.chat(request);
+            hedgingProvider.chat(request);
+            int primaryCallsBefore = primary.calls.get();
+            ChatResponse response = hedgingProvider.chat(request);
+
+            assertTrue(response.isSuccess());
+            assertEquals(CircuitBreaker.State.OPEN, hedgingProvider.getCircuitState(primary));
+            assertEquals(primaryCallsBefore, primary.calls.get());
+        }
+
+        @Test
+        @DisplayName("Should return error when all providers fail")
+        void shouldReturnErrorWhenAllFail() {
+            StubProvider primary = new StubProvider("primary", 0, false);
+            StubProvider backup = new StubProvider("backup", 0, false);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            ChatResponse response = hedgingProvider.chat(ChatRequest.builder().userMessage("hi").build());
+
+            assertFalse(response.isSuccess());
+            assertTrue(response.errorMessage().contains("backup"));
+        }
+
+        @Test
+        @DisplayName("Should fail over streaming when primary fails before any chunk")
+        void shouldFailOverStreaming() {
+            StubProvider primary = new StubProvider("primary", 0, false);
+            StubProvider backup = new StubProvider("backup", 0, true);
+            hedgingProvider = new HedgingLLMProvider(List.of(primary, backup), fastConfig());
+
+            StringBuilder chunks = new StringBuilder();
+            AtomicBoolean success = new AtomicBoolean(false);
+            hedgingProvider.chatStream(ChatRequest.builder().userMessage("hi").build(),
+                chunks::append, response -> success.set(response.isSuccess()));
+
+            assertTrue(success.get());
+            assertEquals("backup", chunks.toString());
+        }
+    }
+
+    @Nested
+    @DisplayName("CircuitBreaker Tests")
+    class CircuitBreakerTests {
+
+        @Test
+        @DisplayName("Should allow a single probe after open duration elapses")
+        void shouldAllowSingleProbeAfterOpenDuration() {
+            MutableClock clock = new MutableClock();
+            CircuitBreaker breaker = new CircuitBreaker("test", 1, Duration.ofSeconds(10), clock);
+
+            breaker.recordFailure();
+            assertFalse(breaker.tryAcquire());
+
+            clock.advance(Duration.ofSeconds(11));
+            assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+            assertTrue(breaker.tryAcquire());
+            assertFalse(breaker.tryAcquire());
+
+            breaker.recordSuccess();
+            assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+            assertTrue(breaker.tryAcquire());
+        }
+
+        @Test
+        @DisplayName("Should reopen when the probe fails")
+        void shouldReopenWhenProbeFails() {
+            MutableClock clock = new MutableClock();
+            CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(10), clock);
+
+            breaker.recordFailure();
+            breaker.recordFailure();
+            breaker.recordFailure();
+            clock.advance(Duration.ofSeconds(11));
+            assertTrue(breaker.tryAcquire());
+
+            breaker.recordFailure();
+            assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+            assertFalse(breaker.tryAcquire());
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class StubProvider implements LLMProvider {
+        private final String name;
+        private final long delayMs;
+        private final boolean succeed;
+        final AtomicInteger calls = new AtomicInteger();
+
+        StubProvider(String name, long delayMs, boolean succeed) {
+            this.name = name;
+            this.delayMs = delayMs;
+            this.succeed = succeed;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            calls.incrementAndGet();
+            if (delayMs > 0) {
+                sleepQuietly(delayMs);
+            }
+            return succeed ? ChatResponse.success(name) : ChatResponse.error(name + " failed");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            ChatResponse response = chat(request);
+            if (response.isSuccess()) {
+                chunkConsumer.accept(response.content());
+            }
+            completeConsumer.accept(response);
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return true;
+        }
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
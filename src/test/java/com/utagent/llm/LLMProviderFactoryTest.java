@@ -1,9 +1,13 @@
 package com.utagent.llm;
 
+import com.utagent.config.HedgingConfig;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -174,4 +178,37 @@ class LLMProviderFactoryTest {
             assertNotNull(provider);
         }
     }
+
+    @Nested
+    @DisplayName("createComposed tests")
+    class CreateComposedTests {
+
+        @TempDir
+        Path tempDir;
+
+        private LLMConfig ollama(String model) {
+            return LLMConfig.builder().provider("ollama").model(model).build();
+        }
+
+        @Test
+        @DisplayName("Should record around routing and hedging together")
+        void shouldComposeRecordingRoutingAndHedging() {
+            LLMProvider provider = LLMProviderFactory.createComposed(ollama("llama3:70b"), List.of(ollama("qwen")),
+                HedgingConfig.defaults(), ollama("llama3"), ModelRoutingProvider.DEFAULT_COMPLEXITY_THRESHOLD,
+                tempDir.resolve("capture.jsonl"));
+
+            assertInstanceOf(RecordingLLMProvider.class, provider);
+        }
+
+        @Test
+        @DisplayName("Should route and cache without recording")
+        void shouldRouteWithoutRecording() {
+            LLMProvider provider = LLMProviderFactory.createComposed(ollama("llama3:70b"), List.of(ollama("qwen")),
+                null, ollama("llama3"), ModelRoutingProvider.DEFAULT_COMPLEXITY_THRESHOLD, null);
+
+            assertInstanceOf(ModelRoutingProvider.class, provider);
+            assertInstanceOf(CachedLLMProvider.class,
+                LLMProviderFactory.createComposed(ollama("llama3"), List.of(), null, null, 0, null));
+        }
+    }
 }
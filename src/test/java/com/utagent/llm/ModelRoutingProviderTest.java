@@ -0,0 +1,141 @@
+package com.utagent.llm;
+
+import com.utagent.generator.TestGenerator;
+import com.utagent.model.ClassInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ModelRoutingProvider Tests")
+class ModelRoutingProviderTest {
+
+    private static ChatRequest request(Integer complexity) {
+        return ChatRequest.builder().userMessage("Generate tests").complexity(complexity).build();
+    }
+
+    @Nested
+    @DisplayName("Routing")
+    class RoutingTests {
+
+        @Test
+        @DisplayName("Should send simple requests to the fast model and rewrite the model name")
+        void shouldRouteSimpleRequestsToFastModel() {
+            RecordingProvider fast = new RecordingProvider("fast", true);
+            RecordingProvider strong = new RecordingProvider("strong", true);
+            ModelRoutingProvider router = new ModelRoutingProvider(fast, "llama3", strong, "gpt-4o", 10);
+
+            assertEquals("fast", router.chat(request(3)).content());
+            assertEquals("strong", router.chat(request(10)).content());
+            assertEquals("strong", router.chat(request(null)).content());
+
+            assertEquals(List.of("llama3"), fast.models);
+            assertEquals(List.of("gpt-4o", "gpt-4o"), strong.models);
+            assertEquals(1, router.getFastRequestCount());
+            assertEquals(2, router.getStrongRequestCount());
+        }
+
+        @Test
+        @DisplayName("Should escalate to the strong model when the fast model fails")
+        void shouldEscalateOnFastModelFailure() {
+            RecordingProvider fast = new RecordingProvider("fast", false);
+            RecordingProvider strong = new RecordingProvider("strong", true);
+            ModelRoutingProvider router = new ModelRoutingProvider(fast, null, strong, null, 10);
+
+            ChatResponse response = router.chat(request(1));
+
+            assertTrue(response.isSuccess());
+            assertEquals("strong", response.content());
+            assertEquals(1, router.getEscalationCount());
+            assertNull(strong.models.get(0));
+        }
+
+        @Test
+        @DisplayName("Should escalate a failed stream that produced no output")
+        void shouldEscalateFailedStream() {
+            ModelRoutingProvider router = new ModelRoutingProvider(
+                new RecordingProvider("fast", false), null, new RecordingProvider("strong", true), null, 10);
+            List<String> chunks = new ArrayList<>();
+            AtomicReference<ChatResponse> completed = new AtomicReference<>();
+
+            router.chatStream(request(1), chunks::add, completed::set);
+
+            assertEquals(List.of("strong"), chunks);
+            assertTrue(completed.get().isSuccess());
+            assertEquals(1, router.getEscalationCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("TestGenerator integration")
+    class GeneratorTests {
+
+        @Test
+        @DisplayName("Should escalate a class after a recorded generation failure")
+        void shouldEscalateAfterRecordedFailure() {
+            RecordingProvider fast = new RecordingProvider("fast", true);
+            RecordingProvider strong = new RecordingProvider("strong", true);
+            ModelRoutingProvider router = new ModelRoutingProvider(fast, "small", strong, "large", 10);
+            TestGenerator generator = new TestGenerator("key", "openai", null, null, router, null);
+            ClassInfo classInfo = new ClassInfo("com.example", "Point", "com.example.Point",
+                new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+                null, new ArrayList<>(), false, false, false, new HashMap<>());
+
+            generator.generateTestClass(classInfo);
+            generator.recordGenerationFailure(classInfo);
+            generator.generateTestClass(classInfo);
+
+            assertEquals(1, fast.models.size());
+            assertEquals(List.of("large"), strong.models);
+        }
+    }
+
+    private static class RecordingProvider implements LLMProvider {
+        private final String answer;
+        private final boolean succeed;
+        final List<String> models = new CopyOnWriteArrayList<>();
+
+        RecordingProvider(String answer, boolean succeed) {
+            this.answer = answer;
+            this.succeed = succeed;
+        }
+
+        @Override
+        public String name() {
+            return answer;
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            models.add(request.model());
+            return succeed ? ChatResponse.success(answer) : ChatResponse.error(answer + " unavailable");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            ChatResponse response = chat(request);
+            if (response.isSuccess()) {
+                chunkConsumer.accept(response.content());
+            }
+            completeConsumer.accept(response);
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return true;
+        }
+    }
+}
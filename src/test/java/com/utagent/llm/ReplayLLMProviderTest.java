@@ -0,0 +1,247 @@
+package com.utagent.llm;
+
+import com.utagent.generator.TestGenerator;
+import com.utagent.model.ClassInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("ReplayLLMProvider Tests")
+class ReplayLLMProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static ChatRequest request(String prompt) {
+        return ChatRequest.builder().userMessage(prompt).build();
+    }
+
+    @Nested
+    @DisplayName("Record and replay")
+    class RecordAndReplayTests {
+
+        @Test
+        @DisplayName("Should replay recorded responses without calling a live provider")
+        void shouldReplayRecordedResponses() {
+            Path capture = tempDir.resolve("capture.jsonl");
+            ScriptedProvider live = new ScriptedProvider("first answer", "second answer");
+            RecordingLLMProvider recorder = new RecordingLLMProvider(live, capture);
+
+            recorder.chat(request("Generate tests"));
+            recorder.chat(request("Generate tests"));
+            recorder.chat(request("Fix tests"));
+            assertEquals(3, recorder.getRecordedCount());
+
+            ReplayLLMProvider replay = new ReplayLLMProvider(capture, 0);
+
+            assertEquals(2, replay.getRecordedRequestCount());
+            assertEquals("first answer", replay.chat(request("Generate tests")).content());
+            assertEquals("second answer", replay.chat(request("Generate tests")).content());
+            assertEquals("second answer", replay.chat(request("Generate  tests ")).content());
+            assertEquals("second answer", replay.chat(request("Fix tests")).content());
+            assertEquals(new TokenUsage(10, 5, 15), replay.getLastTokenUsage());
+            assertEquals(4, replay.getReplayedCount());
+        }
+
+        @Test
+        @DisplayName("Should fail requests that were never recorded")
+        void shouldFailUnrecordedRequests() {
+            Path capture = tempDir.resolve("capture.jsonl");
+            new RecordingLLMProvider(new ScriptedProvider("answer"), capture).chat(request("known"));
+
+            ReplayLLMProvider replay = new ReplayLLMProvider(capture, 0);
+            ChatResponse response = replay.chat(request("unknown"));
+
+            assertFalse(response.isSuccess());
+            assertTrue(response.errorMessage().startsWith("No recorded response"));
+            assertEquals(1, replay.getMissCount());
+        }
+
+        @Test
+        @DisplayName("Should skip malformed lines and tolerate a missing file")
+        void shouldSkipMalformedLines() throws Exception {
+            Path capture = tempDir.resolve("capture.jsonl");
+            new RecordingLLMProvider(new ScriptedProvider("answer"), capture).chat(request("known"));
+            Files.writeString(capture, "not json\n", java.nio.file.StandardOpenOption.APPEND);
+
+            assertEquals(1, new ReplayLLMProvider(capture, 0).getRecordedRequestCount());
+            assertFalse(new ReplayLLMProvider(tempDir.resolve("missing.jsonl"), 0).isAvailable());
+        }
+
+        @Test
+        @DisplayName("Should not record cancelled streams")
+        void shouldNotRecordCancelledStreams() {
+            Path capture = tempDir.resolve("capture.jsonl");
+            RecordingLLMProvider recorder = new RecordingLLMProvider(new ScriptedProvider("a\nb\n"), capture);
+
+            recorder.chatStream(request("prompt"), chunk -> { }, response -> { }, new AtomicBoolean(true));
+
+            assertEquals(0, recorder.getRecordedCount());
+        }
+    }
+
+    @Nested
+    @DisplayName("Latency and streaming")
+    class LatencyTests {
+
+        @Test
+        @DisplayName("Should wait for the recorded latency scaled by the factor")
+        void shouldScaleRecordedLatency() throws Exception {
+            Path capture = tempDir.resolve("capture.jsonl");
+            writeExchange(capture, "prompt", "line 1\nline 2\n", 400, -1);
+
+            ReplayLLMProvider replay = new ReplayLLMProvider(capture, 0.25);
+            long start = System.nanoTime();
+            ChatResponse response = replay.chat(request("prompt"));
+            long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+            assertTrue(response.isSuccess());
+            assertTrue(elapsedMillis >= 90, "elapsed " + elapsedMillis + "ms");
+        }
+
+        @Test
+        @DisplayName("Should replay streams line by line and honour cancellation")
+        void shouldReplayStreamsLineByLine() throws Exception {
+            Path capture = tempDir.resolve("capture.jsonl");
+            writeExchange(capture, "prompt", "line 1\nline 2\nline 3\n", 30, 10);
+            ReplayLLMProvider replay = new ReplayLLMProvider(capture, 0);
+
+            List<String> chunks = new ArrayList<>();
+            AtomicReference<ChatResponse> completed = new AtomicReference<>();
+            replay.chatStream(request("prompt"), chunks::add, completed::set);
+            assertEquals(List.of("line 1\n", "line 2\n", "line 3\n"), chunks);
+            assertEquals("line 1\nline 2\nline 3\n", completed.get().content());
+
+            List<String> partial = new ArrayList<>();
+            AtomicBoolean cancelled = new AtomicBoolean(false);
+            replay.chatStream(request("prompt"), chunk -> {
+                partial.add(chunk);
+                cancelled.set(true);
+            }, completed::set, cancelled);
+            assertEquals(1, partial.size());
+            assertTrue(completed.get().isSuccess());
+            assertEquals("line 1\n", completed.get().content());
+        }
+
+        private void writeExchange(Path capture, String prompt, String content,
+                                   long latencyMillis, long firstChunkMillis) throws Exception {
+            RecordedExchange exchange = RecordedExchange.of(request(prompt),
+                ChatResponse.success(content), latencyMillis, firstChunkMillis);
+            Files.writeString(capture, new com.fasterxml.jackson.databind.ObjectMapper()
+                .writeValueAsString(exchange) + "\n");
+        }
+    }
+
+    @Nested
+    @DisplayName("Offline generation")
+    class OfflineGenerationTests {
+
+        @Test
+        @DisplayName("Should reproduce a recorded generation run offline")
+        void shouldReproduceRecordedGeneration() {
+            Path capture = tempDir.resolve("capture.jsonl");
+            String testClass = "```java\nclass CalculatorTest {\n    @Test\n    void shouldAdd() { }\n}\n```";
+            ScriptedProvider live = new ScriptedProvider(testClass);
+
+            String recorded = new TestGenerator("key", "openai", null, null,
+                new RecordingLLMProvider(live, capture), null).generateTestClass(calculatorClass());
+
+            ReplayLLMProvider replay = new ReplayLLMProvider(capture, 0);
+            String replayed = new TestGenerator("key", "openai", null, null, replay, null)
+                .generateTestClass(calculatorClass());
+
+            assertEquals(recorded, replayed);
+            assertEquals(0, replay.getMissCount());
+            assertEquals(live.calls.get(), replay.getReplayedCount());
+        }
+
+        @Test
+        @DisplayName("Should request structured output only when the recording did")
+        void shouldFollowRecordedOutputMode() throws Exception {
+            Path capture = tempDir.resolve("capture.jsonl");
+            ChatRequest structured = ChatRequest.builder().userMessage("prompt").responseSchema("{}").build();
+            Files.writeString(capture, new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(
+                RecordedExchange.of(structured, ChatResponse.success("{}"), 0, -1)) + "\n");
+
+            assertTrue(new ReplayLLMProvider(capture, 0).supportsStructuredOutput());
+
+            Files.writeString(capture, new com.fasterxml.jackson.databind.ObjectMapper().writeValueAsString(
+                RecordedExchange.of(request("prompt"), ChatResponse.success("text"), 0, -1)) + "\n");
+            assertFalse(new ReplayLLMProvider(capture, 0).supportsStructuredOutput());
+        }
+
+        @Test
+        @DisplayName("Should create an uncached replay provider from the factory")
+        void shouldCreateReplayProviderFromFactory() {
+            LLMProvider provider = LLMProviderFactory.create(LLMConfig.builder()
+                .provider("replay")
+                .baseUrl(tempDir.resolve("capture.jsonl").toString())
+                .build());
+
+            assertInstanceOf(ReplayLLMProvider.class, provider);
+        }
+    }
+
+    private static ClassInfo calculatorClass() {
+        return new ClassInfo("com.example", "Calculator", "com.example.Calculator",
+            new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static class ScriptedProvider implements LLMProvider {
+        private final String[] answers;
+        final AtomicInteger calls = new AtomicInteger();
+
+        ScriptedProvider(String... answers) {
+            this.answers = answers;
+        }
+
+        private ChatResponse next() {
+            String answer = answers[Math.min(calls.getAndIncrement(), answers.length - 1)];
+            return ChatResponse.builder()
+                .content(answer)
+                .tokenUsage(new TokenUsage(10, 5, 15))
+                .build();
+        }
+
+        @Override
+        public String name() {
+            return "scripted";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            return next();
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            ChatResponse response = next();
+            chunkConsumer.accept(response.content());
+            completeConsumer.accept(response);
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return true;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.utagent.llm;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TokenEstimator Tests")
+class TokenEstimatorTest {
+
+    private final TokenEstimator estimator = TokenEstimator.getInstance();
+
+    @Test
+    @DisplayName("Should return zero for empty text")
+    void shouldReturnZeroForEmptyText() {
+        assertEquals(0, estimator.estimate((String) null));
+        assertEquals(0, estimator.estimate(""));
+    }
+
+    @Test
+    @DisplayName("Should count vocabulary words as single tokens")
+    void shouldCountVocabularyWordsAsSingleTokens() {
+        TokenEstimator withVocab = new TokenEstimator(Set.of("implements"));
+        TokenEstimator withoutVocab = new TokenEstimator(Set.of());
+
+        assertEquals(1, withVocab.estimate("implements"));
+        assertEquals(3, withoutVocab.estimate("implements"));
+    }
+
+    @Test
+    @DisplayName("Should split camelCase identifiers")
+    void shouldSplitCamelCaseIdentifiers() {
+        TokenEstimator withoutVocab = new TokenEstimator(Set.of());
+
+        assertEquals(3, withoutVocab.estimate("getUserName"));
+    }
+
+    @Test
+    @DisplayName("Should estimate Java code in a realistic range")
+    void shouldEstimateJavaCodeInRealisticRange() {
+        String code = "public int add(int a, int b) {\n    return a + b;\n}\n";
+
+        int tokens = estimator.estimate(code);
+
+        assertTrue(tokens >= code.length() / 6 && tokens <= code.length() / 2,
+            "unexpected estimate " + tokens + " for " + code.length() + " chars");
+    }
+
+    @Test
+    @DisplayName("Should add per-message overhead")
+    void shouldAddPerMessageOverhead() {
+        List<Message> messages = List.of(Message.system("hi"), Message.user("hi"));
+
+        assertEquals(2 * estimator.estimate("hi") + 8, estimator.estimate(messages));
+    }
+
+    @Test
+    @DisplayName("Should estimate usage for a streamed exchange")
+    void shouldEstimateUsageForStreamedExchange() {
+        ChatRequest request = ChatRequest.builder().userMessage("Generate tests").build();
+
+        TokenUsage usage = estimator.estimateUsage(request, "@Test void shouldAdd() {}");
+
+        assertEquals(estimator.estimatePromptTokens(request), usage.promptTokens());
+        assertEquals(estimator.estimate("@Test void shouldAdd() {}"), usage.completionTokens());
+        assertEquals(usage.promptTokens() + usage.completionTokens(), usage.totalTokens());
+    }
+}
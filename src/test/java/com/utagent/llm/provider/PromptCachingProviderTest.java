@@ -0,0 +1,113 @@
+package com.utagent.llm.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Prompt Caching Provider Tests")
+class PromptCachingProviderTest {
+
+    @Nested
+    @DisplayName("Claude request body")
+    class ClaudeRequestBodyTests {
+
+        private final ClaudeProvider provider = new ClaudeProvider("test-key");
+
+        @Test
+        @DisplayName("Should add cache_control to cacheable system prompt and stable user block")
+        void shouldAddCacheControlMarkers() {
+            ChatRequest request = ChatRequest.builder()
+                .cacheableSystemPrompt("system")
+                .cacheableUserMessage("stable instructions")
+                .userMessage("class context")
+                .build();
+
+            ObjectNode body = provider.buildRequestBody(request);
+
+            JsonNode system = body.path("system");
+            assertTrue(system.isArray());
+            assertEquals("ephemeral", system.path(0).path("cache_control").path("type").asText());
+
+            JsonNode messages = body.path("messages");
+            assertEquals(1, messages.size(), "consecutive user messages should be merged");
+            JsonNode content = messages.path(0).path("content");
+            assertEquals(2, content.size());
+            assertEquals("ephemeral", content.path(0).path("cache_control").path("type").asText());
+            assertTrue(content.path(1).path("cache_control").isMissingNode());
+            assertEquals("class context", content.path(1).path("text").asText());
+        }
+
+        @Test
+        @DisplayName("Should not add cache_control to plain messages")
+        void shouldNotAddCacheControlToPlainMessages() {
+            ChatRequest request = ChatRequest.builder()
+                .systemPrompt("system")
+                .userMessage("hello")
+                .build();
+
+            ObjectNode body = provider.buildRequestBody(request);
+
+            assertTrue(body.path("system").path(0).path("cache_control").isMissingNode());
+            assertTrue(body.path("messages").path(0).path("content").path(0).path("cache_control").isMissingNode());
+        }
+
+        @Test
+        @DisplayName("Should count cache reads and writes as prompt tokens")
+        void shouldParseCacheUsage() throws Exception {
+            String json = """
+                {"type":"message","model":"claude","stop_reason":"end_turn",
+                 "content":[{"type":"text","text":"ok"}],
+                 "usage":{"input_tokens":100,"cache_creation_input_tokens":0,
+                          "cache_read_input_tokens":900,"output_tokens":50}}
+                """;
+
+            ChatResponse response = provider.parseResponse(json);
+
+            assertEquals(1000, response.tokenUsage().promptTokens());
+            assertEquals(900, response.tokenUsage().cachedPromptTokens());
+            assertEquals(100, response.tokenUsage().uncachedPromptTokens());
+            assertEquals(1050, response.tokenUsage().totalTokens());
+        }
+    }
+
+    @Nested
+    @DisplayName("OpenAI usage")
+    class OpenAIUsageTests {
+
+        @Test
+        @DisplayName("Should record cached tokens from prompt_tokens_details")
+        void shouldRecordCachedTokens() throws Exception {
+            OpenAIProvider provider = new OpenAIProvider("test-key");
+            String json = """
+                {"model":"gpt-4o","choices":[{"message":{"content":"ok"},"finish_reason":"stop"}],
+                 "usage":{"prompt_tokens":2048,"completion_tokens":10,"total_tokens":2058,
+                          "prompt_tokens_details":{"cached_tokens":1920}}}
+                """;
+
+            ChatResponse response = provider.parseResponse(json);
+
+            assertEquals(1920, response.tokenUsage().cachedPromptTokens());
+            assertEquals(1920, provider.getLastTokenUsage().cachedPromptTokens());
+        }
+
+        @Test
+        @DisplayName("Should default cached tokens to zero when details are absent")
+        void shouldDefaultCachedTokensToZero() throws Exception {
+            OpenAIProvider provider = new OpenAIProvider("test-key");
+            String json = """
+                {"choices":[{"message":{"content":"ok"}}],
+                 "usage":{"prompt_tokens":10,"completion_tokens":5,"total_tokens":15}}
+                """;
+
+            ChatResponse response = provider.parseResponse(json);
+
+            assertEquals(0, response.tokenUsage().cachedPromptTokens());
+        }
+    }
+}
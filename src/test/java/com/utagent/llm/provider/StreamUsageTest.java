@@ -0,0 +1,61 @@
+package com.utagent.llm.provider;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.TokenUsage;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Stream Usage Tests")
+class StreamUsageTest {
+
+    @Test
+    @DisplayName("Should request usage in the final OpenAI stream chunk")
+    void shouldRequestStreamUsage() {
+        OpenAIProvider provider = new OpenAIProvider("test-key");
+        ChatRequest request = ChatRequest.builder().userMessage("hi").build();
+
+        ObjectNode streamed = provider.buildRequestBody(request.withStream(true));
+        ObjectNode plain = provider.buildRequestBody(request);
+
+        assertTrue(streamed.path("stream_options").path("include_usage").asBoolean());
+        assertTrue(plain.path("stream_options").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("Should read usage from the final OpenAI stream chunk")
+    void shouldReadOpenAIStreamUsage() {
+        OpenAIProvider provider = new OpenAIProvider("test-key");
+
+        TokenUsage unchanged = provider.extractStreamUsage(
+            "{\"choices\":[{\"delta\":{\"content\":\"x\"}}],\"usage\":null}", TokenUsage.empty());
+        TokenUsage usage = provider.extractStreamUsage(
+            "{\"choices\":[],\"usage\":{\"prompt_tokens\":100,\"completion_tokens\":20,\"total_tokens\":120,"
+                + "\"prompt_tokens_details\":{\"cached_tokens\":64}}}", unchanged);
+
+        assertEquals(0, unchanged.totalTokens());
+        assertEquals(120, usage.totalTokens());
+        assertEquals(64, usage.cachedPromptTokens());
+    }
+
+    @Test
+    @DisplayName("Should combine Claude message_start and message_delta usage")
+    void shouldCombineClaudeStreamUsage() {
+        ClaudeProvider provider = new ClaudeProvider("test-key");
+
+        TokenUsage started = provider.extractStreamUsage(
+            "{\"type\":\"message_start\",\"message\":{\"usage\":{\"input_tokens\":30,"
+                + "\"cache_read_input_tokens\":70,\"output_tokens\":1}}}", TokenUsage.empty());
+        TokenUsage delta = provider.extractStreamUsage(
+            "{\"type\":\"content_block_delta\",\"delta\":{\"text\":\"x\"}}", started);
+        TokenUsage finished = provider.extractStreamUsage(
+            "{\"type\":\"message_delta\",\"usage\":{\"output_tokens\":42}}", delta);
+
+        assertEquals(100, finished.promptTokens());
+        assertEquals(70, finished.cachedPromptTokens());
+        assertEquals(42, finished.completionTokens());
+        assertEquals(142, finished.totalTokens());
+    }
+}
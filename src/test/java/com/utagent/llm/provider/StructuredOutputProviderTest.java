@@ -0,0 +1,122 @@
+package com.utagent.llm.provider;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpServer;
+import com.utagent.generator.llm.StructuredTestClass;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Structured Output Provider Tests")
+class StructuredOutputProviderTest {
+
+    private static ChatRequest structuredRequest() {
+        return ChatRequest.builder()
+            .userMessage("Generate tests")
+            .responseSchema(StructuredTestClass.SCHEMA)
+            .build();
+    }
+
+    @Test
+    @DisplayName("Should request a JSON schema response from OpenAI")
+    void shouldRequestJsonSchemaFromOpenAI() {
+        ObjectNode body = new OpenAIProvider("test-key", null, "gpt-4o-mini").buildRequestBody(structuredRequest());
+
+        JsonNode format = body.path("response_format");
+        assertEquals("json_schema", format.path("type").asText());
+        assertEquals("object", format.path("json_schema").path("schema").path("type").asText());
+    }
+
+    @Test
+    @DisplayName("Should not send a JSON schema to OpenAI models that reject it")
+    void shouldNotSendSchemaToOlderOpenAIModels() {
+        OpenAIProvider provider = new OpenAIProvider("test-key");
+
+        assertFalse(provider.supportsStructuredOutput());
+        assertTrue(provider.buildRequestBody(structuredRequest()).path("response_format").isMissingNode());
+    }
+
+    @Test
+    @DisplayName("Should retry once without the schema when the endpoint rejects it")
+    void shouldRetryWithoutSchemaOnClientError() throws Exception {
+        List<String> bodies = new CopyOnWriteArrayList<>();
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/chat/completions", exchange -> {
+            String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+            bodies.add(body);
+            boolean withSchema = body.contains("response_format");
+            byte[] reply = (withSchema
+                ? "{\"error\": {\"message\": \"response_format json_schema is not supported\"}}"
+                : "{\"choices\": [{\"message\": {\"content\": \"ok\"}, \"finish_reason\": \"stop\"}],"
+                    + " \"usage\": {\"prompt_tokens\": 3, \"completion_tokens\": 1, \"total_tokens\": 4}}")
+                .getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(withSchema ? 400 : 200, reply.length);
+            exchange.getResponseBody().write(reply);
+            exchange.close();
+        });
+        server.start();
+        try {
+            OpenAIProvider provider = new OpenAIProvider("test-key",
+                "http://127.0.0.1:" + server.getAddress().getPort(), "gpt-4o");
+
+            ChatResponse response = provider.chat(structuredRequest());
+
+            assertTrue(response.isSuccess());
+            assertEquals("ok", response.content());
+            assertEquals(2, bodies.size());
+            assertFalse(provider.supportsStructuredOutput());
+            provider.chat(structuredRequest());
+            assertEquals(3, bodies.size());
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    @DisplayName("Should use JSON mode for DeepSeek and a schema format for Ollama")
+    void shouldRequestJsonFromDeepSeekAndOllama() {
+        ObjectNode deepSeek = new DeepSeekProvider("test-key").buildRequestBody(structuredRequest());
+        ObjectNode ollama = new OllamaProvider().buildRequestBody(structuredRequest());
+
+        assertEquals("json_object", deepSeek.path("response_format").path("type").asText());
+        assertTrue(ollama.path("format").path("properties").has("testMethods"));
+    }
+
+    @Test
+    @DisplayName("Should force a tool call for Claude and read its input as the reply")
+    void shouldForceToolCallForClaude() throws Exception {
+        ClaudeProvider provider = new ClaudeProvider("test-key");
+        ObjectNode body = provider.buildRequestBody(structuredRequest());
+
+        assertEquals("tool", body.path("tool_choice").path("type").asText());
+        String toolName = body.path("tool_choice").path("name").asText();
+        assertEquals(toolName, body.path("tools").path(0).path("name").asText());
+
+        ChatResponse response = provider.parseResponse("""
+            {"type": "message", "model": "claude", "stop_reason": "tool_use",
+             "content": [{"type": "tool_use", "name": "%s", "input": {"className": "FooTest"}}],
+             "usage": {"input_tokens": 10, "output_tokens": 5}}
+            """.formatted(toolName));
+        assertEquals("{\"className\":\"FooTest\"}", response.content());
+        assertEquals("{\"class", provider.extractStreamContent(
+            "{\"type\":\"content_block_delta\",\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":\"{\\\"class\"}}"));
+    }
+
+    @Test
+    @DisplayName("Should leave free-form requests unchanged")
+    void shouldLeaveTextRequestsUnchanged() {
+        ChatRequest request = ChatRequest.builder().userMessage("Generate tests").build();
+
+        assertTrue(new OpenAIProvider("test-key").buildRequestBody(request).path("response_format").isMissingNode());
+        assertTrue(new ClaudeProvider("test-key").buildRequestBody(request).path("tools").isMissingNode());
+    }
+}
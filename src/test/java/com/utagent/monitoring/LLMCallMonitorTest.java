@@ -1,5 +1,6 @@
 package com.utagent.monitoring;
 
+import com.utagent.llm.ChatRequest;
 import com.utagent.llm.TokenUsage;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -205,4 +206,25 @@ class LLMCallMonitorTest {
         
         assertNull(monitor.getCurrentCall());
     }
+
+    @Test
+    void testEstimatedPromptTokensWhenProviderReportsNoUsage() {
+        ChatRequest request = ChatRequest.builder().userMessage("Generate tests for Calculator").build();
+        LLMCallMonitor.CallRecord record = monitor.startCall("OpenAI", "gpt-4", "test", request);
+        
+        monitor.endCall(record, TokenUsage.empty(), "response");
+        
+        assertTrue(record.getEstimatedPromptTokens() > 0);
+        assertEquals(record.getEstimatedPromptTokens(), monitor.getTotalPromptTokens());
+    }
+
+    @Test
+    void testReportedUsageWinsOverEstimate() {
+        ChatRequest request = ChatRequest.builder().userMessage("Generate tests for Calculator").build();
+        LLMCallMonitor.CallRecord record = monitor.startCall("OpenAI", "gpt-4", "test", request);
+        
+        monitor.endCall(record, new TokenUsage(100, 50, 150), "response");
+        
+        assertEquals(100, monitor.getTotalPromptTokens());
+    }
 }
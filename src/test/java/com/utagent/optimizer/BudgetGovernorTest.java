@@ -0,0 +1,145 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("BudgetGovernor Tests")
+class BudgetGovernorTest {
+
+    private final File small = new File("/src/com/example/Small.java");
+    private final File large = new File("/src/com/example/Large.java");
+    private final AtomicLong tokens = new AtomicLong(500);
+
+    private BudgetGovernor governor(long tokenBudget, Duration timeBudget) {
+        BudgetGovernor governor = new BudgetGovernor(tokenBudget, timeBudget);
+        governor.start(tokens::get);
+        return governor;
+    }
+
+    private static OptimizationResult result(File file, String className, int lineCount, int lineMissed,
+                                             double... iterationDeltas) {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(file);
+        result.setClassInfo(new ClassInfo("com.example", className, "com.example." + className));
+        result.setSuccess(false);
+        result.setStopReason(StopReason.QUOTA_EXHAUSTED);
+        result.setFinalCoverage(new CoverageReport(0.5, 0.5, 0.5,
+            List.of(new CoverageInfo("com.example." + className, "", 0, 0, 0, 0, 0, lineCount, lineMissed)),
+            List.of()));
+        for (int i = 0; i < iterationDeltas.length; i++) {
+            result.addIterationStats(new IterationStats(i + 1, 0.5, iterationDeltas[i], 1_000, Duration.ofSeconds(1)));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Should give each class a quota proportional to its estimate and keep a reserve")
+    void shouldAllocateQuotasByEstimate() {
+        BudgetGovernor governor = governor(10_000, null);
+        governor.allocate(Map.of(small, 2_000L, large, 8_000L));
+
+        assertNull(governor.checkIteration(small, 1_500));
+        assertEquals(StopReason.QUOTA_EXHAUSTED, governor.checkIteration(small, 1_600));
+        assertNull(governor.checkIteration(large, 6_000));
+        assertEquals(StopReason.QUOTA_EXHAUSTED, governor.checkIteration(large, 6_400));
+    }
+
+    @Test
+    @DisplayName("Should count tokens charged outside the class loop against its quota")
+    void shouldCountChargedTokensAgainstQuota() {
+        BudgetGovernor governor = governor(10_000, null);
+        governor.allocate(Map.of(small, 2_000L, large, 8_000L));
+        governor.charge(small, 1_000);
+
+        assertNull(governor.checkIteration(small, 500));
+        assertEquals(StopReason.QUOTA_EXHAUSTED, governor.checkIteration(small, 600));
+        assertNull(governor.checkIteration(large, 6_000));
+    }
+
+    @Test
+    @DisplayName("Should count only tokens spent after the run started")
+    void shouldMeasureFromBaseline() {
+        BudgetGovernor governor = governor(1_000, null);
+
+        tokens.addAndGet(400);
+
+        assertEquals(400, governor.tokensSpent());
+        assertEquals(600, governor.tokensRemaining());
+        assertFalse(governor.isExhausted());
+    }
+
+    @Test
+    @DisplayName("Should stop admitting classes once the token budget is spent")
+    void shouldStopWhenTokenBudgetExhausted() {
+        BudgetGovernor governor = governor(1_000, null);
+        assertTrue(governor.admit(small));
+
+        tokens.addAndGet(1_000);
+
+        assertFalse(governor.admit(large));
+        assertEquals(StopReason.BUDGET_EXHAUSTED, governor.checkIteration(small, 0));
+        assertEquals(1, governor.getSkippedClasses());
+        OptimizationResult skipped = governor.skipped(large);
+        assertFalse(skipped.isSuccess());
+        assertEquals(StopReason.BUDGET_EXHAUSTED, skipped.getStopReason());
+        assertTrue(governor.getSummary().contains("1 classes skipped"));
+    }
+
+    @Test
+    @DisplayName("Should stop when the time budget is used up")
+    void shouldStopWhenTimeBudgetExhausted() {
+        assertTrue(governor(0, Duration.ZERO).isExhausted());
+        assertFalse(governor(0, Duration.ofHours(3)).isExhausted());
+    }
+
+    @Test
+    @DisplayName("Should reinvest in the classes with the best coverage gain per token first")
+    void shouldRankReinvestmentByMarginalReturn() {
+        BudgetGovernor governor = governor(100_000, null);
+        OptimizationResult slow = result(small, "Small", 100, 40, 0.01);
+        OptimizationResult fast = result(large, "Large", 100, 40, 0.10);
+        OptimizationResult plateaued = result(new File("/src/com/example/Flat.java"), "Flat", 100, 40, 0.2);
+        plateaued.setStopReason(StopReason.PLATEAU);
+
+        List<OptimizationResult> candidates = governor.reinvestmentCandidates(List.of(slow, plateaued, fast));
+
+        assertEquals(List.of(fast, slow), candidates);
+        assertTrue(governor.grant(fast));
+        assertEquals(1, governor.getReinvestedClasses());
+        assertNull(governor.checkIteration(large, 1_500));
+        assertEquals(StopReason.QUOTA_EXHAUSTED, governor.checkIteration(large, 2_000));
+    }
+
+    @Test
+    @DisplayName("Should estimate the gain of classes without iterations from their uncovered lines")
+    void shouldUsePriorForClassesWithoutIterations() {
+        BudgetGovernor governor = governor(100_000, null);
+        governor.allocate(Map.of(small, 1_000L, large, 1_000L));
+
+        double few = governor.expectedLinesPerToken(result(small, "Small", 50, 2));
+        double many = governor.expectedLinesPerToken(result(large, "Large", 500, 200));
+
+        assertTrue(many > few);
+        assertEquals(0.0, governor.expectedLinesPerToken(result(small, "Small", 50, 0)));
+    }
+
+    @Test
+    @DisplayName("Should refuse to grant budget once it is exhausted")
+    void shouldNotGrantWhenExhausted() {
+        BudgetGovernor governor = governor(1_000, null);
+        tokens.addAndGet(1_000);
+
+        assertFalse(governor.grant(result(small, "Small", 100, 40, 0.1)));
+    }
+}
@@ -0,0 +1,108 @@
+package com.utagent.optimizer;
+
+import com.utagent.coverage.CoverageAnalyzer;
+import com.utagent.generator.TestGenerator;
+import com.utagent.llm.ChatRequest;
+import com.utagent.llm.ChatResponse;
+import com.utagent.llm.LLMProvider;
+import com.utagent.llm.TokenUsage;
+import com.utagent.parser.JavaCodeParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("IterativeOptimizer Forecast Tests")
+class IterativeOptimizerForecastTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path sourceDir;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sourceDir = tempDir.resolve("src/main/java/com/example");
+        Files.createDirectories(sourceDir);
+        Files.writeString(sourceDir.resolve("Calculator.java"), """
+            package com.example;
+
+            public class Calculator {
+                public int add(int a, int b) {
+                    return a + b;
+                }
+
+                public int divide(int a, int b) {
+                    if (b == 0) {
+                        throw new IllegalArgumentException("b");
+                    }
+                    return a / b;
+                }
+            }
+            """);
+    }
+
+    private IterativeOptimizer optimizer(TestGenerator generator) {
+        return new IterativeOptimizer(tempDir.toFile(), new JavaCodeParser(), generator,
+            new CoverageAnalyzer(tempDir.toFile()), null);
+    }
+
+    @Test
+    @DisplayName("Should forecast no LLM usage for template generation")
+    void shouldForecastNoLlmUsageWithoutAI() {
+        CostForecast forecast = optimizer(new TestGenerator()).forecastDirectory(sourceDir.toFile());
+
+        assertEquals(1, forecast.classCount());
+        assertEquals(0, forecast.llmCalls());
+        assertEquals(0, forecast.totalTokens());
+        assertTrue(forecast.estimatedDuration().toMillis() > 0);
+    }
+
+    @Test
+    @DisplayName("Should forecast tokens, cost and calls for AI generation")
+    void shouldForecastTokensForAI() {
+        TestGenerator generator = new TestGenerator("key", "openai", null, null, new NoopProvider(), null);
+
+        CostForecast forecast = optimizer(generator).forecastDirectory(sourceDir.toFile());
+
+        assertEquals(1, forecast.classCount());
+        assertEquals(3, forecast.llmCalls());
+        assertTrue(forecast.promptTokens() > forecast.completionTokens());
+        assertTrue(forecast.estimatedCost() > 0);
+        assertTrue(forecast.getSummary().contains("1 classes"));
+    }
+
+    private static class NoopProvider implements LLMProvider {
+        @Override
+        public String name() {
+            return "noop";
+        }
+
+        @Override
+        public ChatResponse chat(ChatRequest request) {
+            return ChatResponse.error("not expected");
+        }
+
+        @Override
+        public void chatStream(ChatRequest request, Consumer<String> chunkConsumer, Consumer<ChatResponse> completeConsumer) {
+            completeConsumer.accept(chat(request));
+        }
+
+        @Override
+        public TokenUsage getLastTokenUsage() {
+            return TokenUsage.empty();
+        }
+
+        @Override
+        public boolean supportsStreaming() {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("RunJournal Tests")
+class RunJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    private File calculator;
+    private File parser;
+    private final ClassInfo calculatorInfo = new ClassInfo("com.example", "Calculator", "com.example.Calculator");
+
+    @BeforeEach
+    void setUp() {
+        calculator = tempDir.resolve("src/main/java/com/example/Calculator.java").toFile();
+        parser = tempDir.resolve("src/main/java/com/example/Parser.java").toFile();
+    }
+
+    private RunJournal journal(boolean resume) {
+        RunJournal journal = RunJournal.forProject(tempDir.toFile());
+        journal.begin(resume);
+        return journal;
+    }
+
+    private static CoverageReport report(double lineCoverage, String className, int lineMissed) {
+        return new CoverageReport(lineCoverage, lineCoverage, lineCoverage,
+            List.of(new CoverageInfo(className, "", 1, 0, 0, 0, 0, 10, lineMissed)), List.of(42));
+    }
+
+    private Path testFile(String name) throws IOException {
+        Path file = tempDir.resolve("src/test/java/com/example/" + name);
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "class " + name.replace(".java", "") + " {}");
+    }
+
+    @Test
+    @DisplayName("Should restore the result of a completed class on resume")
+    void shouldRestoreCompletedResult() throws IOException {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(calculator);
+        result.setClassInfo(calculatorInfo);
+        result.setGeneratedTestFile(testFile("CalculatorTest.java").toFile());
+        result.setSuccess(false);
+        result.setIterations(3);
+        result.setStopReason(StopReason.PLATEAU);
+        result.setAddedTestMethods(List.of("shouldAdd", "shouldDivide"));
+        result.addCoverageReport(0, report(0.4, "com.example.Calculator", 6));
+        result.setFinalCoverage(new CoverageReport(0.7, 0.6, 0.65, List.of(
+            new CoverageInfo("com.example.Calculator", "", 1, 0, 0, 0, 0, 10, 3),
+            new CoverageInfo("com.example.Other", "", 1, 0, 0, 0, 0, 50, 50)), List.of()));
+        result.addIterationStats(new IterationStats(1, 0.7, 0.3, 1_200, Duration.ofSeconds(12)));
+
+        RunJournal journal = journal(false);
+        journal.parsed(calculator);
+        journal.finished(result);
+
+        OptimizationResult restored = journal(true).completedResult(calculator).orElseThrow();
+
+        assertEquals(calculator, restored.getSourceFile());
+        assertFalse(restored.isSuccess());
+        assertEquals(3, restored.getIterations());
+        assertEquals(StopReason.PLATEAU, restored.getStopReason());
+        assertEquals(List.of("shouldAdd", "shouldDivide"), restored.getAddedTestMethods());
+        assertEquals("CalculatorTest.java", restored.getGeneratedTestFile().getName());
+        assertEquals(0.7, restored.getFinalCoverage().overallLineCoverage(), 1e-9);
+        assertEquals(1, restored.getFinalCoverage().classCoverages().size());
+        assertEquals(result.getCoverageImprovement(), restored.getCoverageImprovement(), 1e-9);
+        assertEquals(1_200, restored.getIterationTokens());
+        assertEquals(Duration.ofSeconds(12), restored.getIterationStats().get(0).duration());
+    }
+
+    @Test
+    @DisplayName("Should continue an interrupted class from its last compiling test file")
+    void shouldResumeFromLastGoodTestFile() throws IOException {
+        File testFile = testFile("CalculatorTest.java").toFile();
+        RunJournal journal = journal(false);
+        journal.parsed(calculator);
+        journal.progress(calculator, 0, calculatorInfo, report(0.5, "com.example.Calculator", 5), testFile);
+        journal.progress(calculator, 1, calculatorInfo, new CoverageReport(), testFile("Broken.java").toFile());
+
+        RunJournal resumed = journal(true);
+
+        assertTrue(resumed.completedResult(calculator).isEmpty());
+        assertEquals(Optional.of(testFile), resumed.lastGoodTestFile(calculator));
+        assertTrue(resumed.lastGoodTestFile(parser).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should restore the content of the last compiling test file after later iterations overwrite it")
+    void shouldRestoreSnapshotOfLastGoodTestFile() throws IOException {
+        Path testFile = testFile("CalculatorTest.java");
+        RunJournal journal = journal(false);
+        journal.progress(calculator, 0, calculatorInfo, report(0.5, "com.example.Calculator", 5), testFile.toFile());
+        Files.writeString(testFile, "class CalculatorTest { broken");
+        journal.progress(calculator, 1, calculatorInfo, new CoverageReport(), testFile.toFile());
+
+        Optional<File> restored = journal(true).lastGoodTestFile(calculator);
+
+        assertEquals(Optional.of(testFile.toFile()), restored);
+        assertEquals("class CalculatorTest {}", Files.readString(testFile));
+    }
+
+    @Test
+    @DisplayName("Should retry classes that failed with an exception")
+    void shouldRetryFailedClasses() {
+        RunJournal journal = journal(false);
+        journal.parsed(parser);
+        journal.failed(parser);
+
+        RunJournal resumed = journal(true);
+
+        assertTrue(resumed.completedResult(parser).isEmpty());
+        assertEquals(0, resumed.completedCount());
+    }
+
+    @Test
+    @DisplayName("Should ignore a line truncated by a crash")
+    void shouldSkipTruncatedLine() throws IOException {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(calculator);
+        result.setSuccess(true);
+        RunJournal journal = journal(false);
+        journal.finished(result);
+        Files.writeString(journal.getJournalFile(), "{\"sourceFile\":\"" + parser.getAbsolutePath() + "\",\"sta",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        RunJournal resumed = journal(true);
+
+        assertEquals(1, resumed.completedCount());
+        assertTrue(resumed.completedResult(calculator).orElseThrow().isSuccess());
+    }
+
+    @Test
+    @DisplayName("Should start over when not resuming")
+    void shouldResetWithoutResume() {
+        OptimizationResult result = new OptimizationResult();
+        result.setSourceFile(calculator);
+        journal(false).finished(result);
+
+        assertTrue(journal(false).completedResult(calculator).isEmpty());
+        assertFalse(Files.exists(tempDir.resolve(RunJournal.DEFAULT_JOURNAL_FILE)));
+    }
+}
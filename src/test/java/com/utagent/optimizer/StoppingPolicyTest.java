@@ -0,0 +1,155 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import com.utagent.model.MethodInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("StoppingPolicy Tests")
+class StoppingPolicyTest {
+
+    private final StoppingPolicy policy = new StoppingPolicy();
+
+    private static ClassInfo classInfo(MethodInfo... methods) {
+        return new ClassInfo("com.example", "Calculator", "com.example.Calculator",
+            new ArrayList<>(List.of(methods)), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static MethodInfo method(String name, boolean isPrivate, String body) {
+        return new MethodInfo(name, "int", new ArrayList<>(), new ArrayList<>(), body, 0, 0,
+            new ArrayList<>(), false, isPrivate, false, !isPrivate, false, false);
+    }
+
+    private static CoverageInfo coverage(String methodName, int lineCount, int lineMissed) {
+        return new CoverageInfo("com.example.Calculator", methodName, 0, 0, 0, 0, 0, lineCount, lineMissed);
+    }
+
+    private static CoverageReport report(double lineCoverage, CoverageInfo... infos) {
+        return new CoverageReport(lineCoverage, lineCoverage, lineCoverage, List.of(infos), List.of());
+    }
+
+    private static OptimizationResult history(double... deltas) {
+        OptimizationResult result = new OptimizationResult();
+        double coverage = 0.4;
+        for (int i = 0; i < deltas.length; i++) {
+            coverage += deltas[i];
+            result.addIterationStats(new IterationStats(i + 1, coverage, deltas[i], 1_000, Duration.ofSeconds(30)));
+        }
+        return result;
+    }
+
+    @Test
+    @DisplayName("Should stop when the last iterations added no coverage")
+    void shouldStopOnPlateau() {
+        Optional<StopReason> stop = policy.evaluate(history(0.1, 0.0, 0.001), report(0.5), null, 0.8, 7);
+
+        assertEquals(Optional.of(StopReason.PLATEAU), stop);
+    }
+
+    @Test
+    @DisplayName("Should keep iterating while coverage grows")
+    void shouldContinueWhileGaining() {
+        assertTrue(policy.evaluate(history(0.1, 0.08), report(0.58), null, 0.8, 8).isEmpty());
+        assertTrue(policy.evaluate(history(0.0), report(0.4), null, 0.8, 9).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop when the predicted remaining gain cannot close the gap")
+    void shouldStopOnDiminishingReturns() {
+        Optional<StopReason> stop = policy.evaluate(history(0.2, 0.02), report(0.62), null, 0.8, 8);
+
+        assertEquals(Optional.of(StopReason.DIMINISHING_RETURNS), stop);
+    }
+
+    @Test
+    @DisplayName("Should stop when a gain is too small for the tokens it costs")
+    void shouldStopWhenTooExpensive() {
+        StoppingPolicy costAware = new StoppingPolicy(2, 0.005, 0.05);
+
+        Optional<StopReason> stop = costAware.evaluate(history(0.05, 0.04), report(0.49), null, 0.8, 8);
+
+        assertEquals(Optional.of(StopReason.DIMINISHING_RETURNS), stop);
+    }
+
+    @Test
+    @DisplayName("Should stop when a gain is too small for the time it costs")
+    void shouldStopWhenTooSlow() {
+        OptimizationResult result = new OptimizationResult();
+        result.addIterationStats(new IterationStats(1, 0.45, 0.05, 1_000, Duration.ofMinutes(10)));
+        result.addIterationStats(new IterationStats(2, 0.49, 0.04, 1_000, Duration.ofMinutes(40)));
+
+        assertEquals(Optional.of(StopReason.DIMINISHING_RETURNS),
+            policy.evaluate(result, report(0.49), null, 0.8, 8));
+        assertTrue(new StoppingPolicy(2, 0.005, 0.0, 0.0).evaluate(result, report(0.49), null, 0.8, 8).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should stop when only dead private code is left uncovered")
+    void shouldStopWhenRemainingCodeIsUnreachable() {
+        ClassInfo classInfo = classInfo(
+            method("add", false, "{ return a + b; }"),
+            method("legacy", true, "{ return 0; }"));
+        CoverageReport coverage = report(0.75,
+            coverage("", 8, 2),
+            coverage("add", 6, 0),
+            coverage("legacy", 2, 2));
+
+        Optional<StopReason> stop = policy.evaluate(new OptimizationResult(), coverage, classInfo, 0.8, 10);
+
+        assertEquals(Optional.of(StopReason.UNREACHABLE_CODE), stop);
+    }
+
+    @Test
+    @DisplayName("Should keep iterating when an uncovered private method has a partially covered caller")
+    void shouldContinueWhenPrivateCodeIsReachable() {
+        ClassInfo classInfo = classInfo(
+            method("divide", false, "{ if (b == 0) { return fail(); } return a / b; }"),
+            method("fail", true, "{ throw new IllegalArgumentException(); }"));
+        CoverageReport coverage = report(0.6,
+            coverage("", 5, 2),
+            coverage("divide", 4, 1),
+            coverage("fail", 1, 1));
+
+        assertTrue(policy.evaluate(new OptimizationResult(), coverage, classInfo, 0.8, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep iterating when an uncovered private method has a fully covered caller")
+    void shouldContinueWhenPrivateHelperHasCoveredCaller() {
+        ClassInfo classInfo = classInfo(
+            method("format", false, "{ return cache.computeIfAbsent(key, this::render); }"),
+            method("render", true, "{ return key.length(); }"));
+        CoverageReport coverage = report(0.7,
+            coverage("", 5, 1),
+            coverage("format", 4, 0),
+            coverage("render", 1, 1));
+
+        assertTrue(policy.evaluate(new OptimizationResult(), coverage, classInfo, 0.8, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should never stop early when disabled")
+    void shouldNotStopWhenDisabled() {
+        assertTrue(StoppingPolicy.disabled().evaluate(history(0.0, 0.0, 0.0), report(0.4), null, 0.8, 7).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should prefer the class line coverage over the overall coverage")
+    void shouldUseClassLineCoverage() {
+        CoverageReport coverage = report(0.3, coverage("", 10, 1));
+
+        assertEquals(0.9, StoppingPolicy.lineCoverage(coverage, classInfo()), 1e-9);
+        assertEquals(0.3, StoppingPolicy.lineCoverage(coverage, null), 1e-9);
+    }
+}
@@ -0,0 +1,161 @@
+package com.utagent.optimizer;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TestFileModel Tests")
+class TestFileModelTest {
+
+    private static final String TEST = """
+        package demo;
+
+        import org.junit.jupiter.api.Test;
+
+        import static org.junit.jupiter.api.Assertions.*;
+
+        class CounterTest {
+
+            // hand-written, keep as is
+            @Test
+            void shouldIncrement() {
+                assertEquals(1, new Counter().increment());
+            }
+        }
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private File testFile() {
+        return tempDir.resolve("demo/CounterTest.java").toFile();
+    }
+
+    @Nested
+    @DisplayName("Merging")
+    class MergingTests {
+
+        @Test
+        @DisplayName("Should merge method fragments with their imports and skip duplicates")
+        void shouldMergeFragments() {
+            TestFileModel model = TestFileModel.create(testFile(), TEST);
+
+            List<String> added = model.merge("""
+                import java.util.List;
+                import org.junit.jupiter.api.Test;
+
+                @Test
+                void shouldIncrement() {
+                    assertEquals(1, new Counter().increment());
+                }
+
+                @Test
+                void shouldIncrement() {
+                    assertEquals(2, new Counter().increment() + 1);
+                }
+
+                @Test
+                void shouldStartEmpty() {
+                    assertTrue(List.of().isEmpty());
+                }
+                """);
+
+            assertEquals(List.of("shouldIncrement_2", "shouldStartEmpty"), added);
+            assertEquals(Set.of("shouldIncrement", "shouldIncrement_2", "shouldStartEmpty"), model.testMethodNames());
+            String source = model.source();
+            assertEquals(1, source.split("import org.junit.jupiter.api.Test;", -1).length - 1);
+            assertTrue(source.contains("import java.util.List;"));
+            assertTrue(source.contains("    // hand-written, keep as is\n    @Test\n    void shouldIncrement() {"), source);
+        }
+
+        @Test
+        @DisplayName("Should merge the members of a complete test class")
+        void shouldMergeCompleteClass() {
+            TestFileModel model = TestFileModel.create(testFile(), TEST);
+
+            List<String> added = model.merge("""
+                package demo;
+
+                import org.junit.jupiter.api.BeforeEach;
+                import org.junit.jupiter.api.Test;
+
+                class CounterTest {
+                    private Counter counter;
+
+                    @BeforeEach
+                    void setUp() {
+                        counter = new Counter();
+                    }
+
+                    @Test
+                    void shouldIncrementTwice() {
+                        counter.increment();
+                        assertEquals(2, counter.increment());
+                    }
+                }
+                """);
+
+            assertEquals(List.of("shouldIncrementTwice"), added);
+            assertTrue(model.source().contains("private Counter counter;"));
+            assertTrue(model.source().contains("void setUp()"));
+        }
+
+        @Test
+        @DisplayName("Should fall back to text merging for unparseable files")
+        void shouldMergeUnparseableFileAsText() {
+            TestFileModel model = TestFileModel.create(testFile(), TEST.replace("new Counter()", "new Counter("));
+
+            List<String> added = model.merge("@Test\nvoid shouldReset() {\n}\n");
+
+            assertFalse(model.isParsed());
+            assertEquals(List.of("shouldReset"), added);
+            assertTrue(model.source().endsWith("void shouldReset() {\n}\n\n}\n"));
+        }
+
+        @Test
+        @DisplayName("Should roll back to a snapshot")
+        void shouldRestoreSnapshot() {
+            TestFileModel model = TestFileModel.create(testFile(), TEST);
+            String snapshot = model.snapshot();
+
+            model.merge("@Test\nvoid shouldReset() {\n}\n");
+            model.restore(snapshot);
+
+            assertEquals(TEST, model.source());
+            assertEquals(Set.of("shouldIncrement"), model.testMethodNames());
+        }
+    }
+
+    @Nested
+    @DisplayName("Persistence")
+    class PersistenceTests {
+
+        @Test
+        @DisplayName("Should write only when the content changed")
+        void shouldFlushOnlyWhenDirty() throws IOException {
+            TestFileModel model = TestFileModel.create(testFile(), TEST);
+            model.flush();
+            assertEquals(TEST, Files.readString(testFile().toPath()));
+
+            Files.writeString(testFile().toPath(), "changed elsewhere");
+            model.flush();
+            assertEquals("changed elsewhere", Files.readString(testFile().toPath()));
+
+            Files.writeString(testFile().toPath(), TEST);
+            TestFileModel loaded = TestFileModel.load(testFile());
+            loaded.merge("@Test\nvoid shouldReset() {\n}\n");
+            loaded.flush();
+            assertTrue(Files.readString(testFile().toPath()).contains("void shouldReset()"));
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.utagent.optimizer;
+
+import com.utagent.build.TestOutcome;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("TestQuarantine Tests")
+class TestQuarantineTest {
+
+    private static final String TEST = """
+        package demo;
+
+        import org.junit.jupiter.api.DisplayName;
+        import org.junit.jupiter.api.Test;
+
+        import static org.junit.jupiter.api.Assertions.*;
+
+        class CounterTest {
+
+            @Test
+            void shouldIncrement() {
+                assertEquals(1, new Counter().increment());
+            }
+
+            @Test
+            void shouldReset() {
+                assertEquals(0, new Counter().current());
+            }
+
+            @Test
+            @DisplayName("Should count twice")
+            void shouldCountTwice() {
+                assertEquals(3, new Counter().increment());
+            }
+        }
+        """;
+
+    @TempDir
+    Path tempDir;
+
+    private File writeTest() throws IOException {
+        Path file = tempDir.resolve("CounterTest.java");
+        Files.writeString(file, TEST);
+        return file.toFile();
+    }
+
+    @Test
+    @DisplayName("Should disable failing methods by name or display name and keep the rest untouched")
+    void shouldDisableFailingMethods() throws IOException {
+        File testFile = writeTest();
+
+        List<String> quarantined = new TestQuarantine().quarantine(testFile, List.of(
+            new TestOutcome("demo.CounterTest", "shouldIncrement", TestOutcome.Status.PASSED, null),
+            new TestOutcome("demo.CounterTest", "shouldReset", TestOutcome.Status.FAILED, "expected: <0> but was: <\"1\">"),
+            new TestOutcome("demo.CounterTest", "Should count twice", TestOutcome.Status.ERROR, null)));
+
+        String content = Files.readString(testFile.toPath());
+        assertEquals(List.of("shouldReset", "shouldCountTwice"), quarantined);
+        assertTrue(content.contains("import org.junit.jupiter.api.Disabled;"));
+        assertTrue(content.contains("@Disabled(\"Quarantined: expected: <0> but was: <\\\"1\\\">\")"), content);
+        assertTrue(content.contains("@Disabled(\"Quarantined: error\")"), content);
+        assertTrue(content.contains("    @Test\n    void shouldIncrement() {\n        assertEquals(1, new Counter().increment());"),
+            "passing tests keep their formatting");
+        assertEquals(2, content.split("@Disabled\\(").length - 1);
+    }
+
+    @Test
+    @DisplayName("Should leave the file alone when nothing failed")
+    void shouldIgnorePassingRun() throws IOException {
+        File testFile = writeTest();
+
+        List<String> quarantined = new TestQuarantine().quarantine(testFile, List.of(
+            new TestOutcome("demo.CounterTest", "shouldIncrement", TestOutcome.Status.PASSED, null),
+            new TestOutcome("demo.CounterTest", "unknownMethod", TestOutcome.Status.FAILED, "boom")));
+
+        assertTrue(quarantined.isEmpty());
+        assertEquals(TEST, Files.readString(testFile.toPath()));
+    }
+}
@@ -0,0 +1,130 @@
+package com.utagent.optimizer;
+
+import com.utagent.model.ClassInfo;
+import com.utagent.model.CoverageInfo;
+import com.utagent.model.CoverageReport;
+import com.utagent.model.MethodInfo;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("UncoveredTargetSelector Tests")
+class UncoveredTargetSelectorTest {
+
+    private static ClassInfo classInfo(MethodInfo... methods) {
+        return new ClassInfo("com.example", "Calculator", "com.example.Calculator",
+            new ArrayList<>(List.of(methods)), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(),
+            null, new ArrayList<>(), false, false, false, new HashMap<>());
+    }
+
+    private static MethodInfo method(String name, int lineNumber, String body) {
+        return new MethodInfo(name, "int", new ArrayList<>(), new ArrayList<>(), body, lineNumber, lineNumber,
+            new ArrayList<>(), false, false, false, true, false, false);
+    }
+
+    private static CoverageInfo coverage(String methodName, int lineNumber, int branchMissed,
+                                         int lineCount, int lineMissed) {
+        return new CoverageInfo("com.example.Calculator", methodName, lineNumber, branchMissed * 2, branchMissed,
+            0, 0, lineCount, lineMissed);
+    }
+
+    private static CoverageReport report(CoverageInfo... infos) {
+        return new CoverageReport(0.5, 0.5, 0.5, List.of(infos), List.of());
+    }
+
+    private static List<String> names(List<CoverageInfo> infos) {
+        return infos.stream().map(CoverageInfo::methodName).toList();
+    }
+
+    @Test
+    @DisplayName("Should drop the class-level summary when method entries exist")
+    void shouldDropClassLevelDuplicates() {
+        CoverageReport coverage = report(
+            coverage("", 0, 1, 10, 4),
+            coverage("add", 3, 0, 4, 0),
+            coverage("divide", 8, 1, 6, 4));
+
+        List<CoverageInfo> targets = UncoveredTargetSelector.uncoveredTargets(coverage, classInfo());
+
+        assertEquals(List.of("divide"), names(targets));
+        assertEquals(1, UncoveredTargetSelector.uncoveredTargets(report(coverage("", 0, 0, 10, 4)), classInfo()).size());
+    }
+
+    @Test
+    @DisplayName("Should include methods with only missed branches")
+    void shouldIncludeMissedBranches() {
+        CoverageReport coverage = report(coverage("max", 3, 1, 3, 0));
+
+        assertEquals(List.of("max"), names(new UncoveredTargetSelector().select(coverage, classInfo())));
+    }
+
+    @Test
+    @DisplayName("Should prefer targets with the most missed code per token within the budget")
+    void shouldChooseBestSetWithinBudget() {
+        String longBody = "{ " + "total = total + compute(value, factor, offset); ".repeat(40) + "}";
+        ClassInfo classInfo = classInfo(
+            method("small", 3, "{ return a; }"),
+            method("huge", 10, longBody),
+            method("branchy", 60, "{ if (a > b) { return a; } return b; }"));
+        CoverageReport coverage = report(
+            coverage("small", 3, 0, 2, 1),
+            coverage("huge", 10, 0, 40, 6),
+            coverage("branchy", 60, 2, 3, 2));
+
+        UncoveredTargetSelector selector = new UncoveredTargetSelector(120, 2);
+        List<CoverageInfo> selected = selector.select(coverage, classInfo);
+
+        assertEquals(List.of("small", "branchy"), names(selected));
+        assertEquals(3, new UncoveredTargetSelector(0, 2).select(coverage, classInfo).size());
+    }
+
+    @Test
+    @DisplayName("Should still select the best single target when none fits the budget")
+    void shouldSelectOneTargetWhenBudgetTooSmall() {
+        CoverageReport coverage = report(
+            coverage("add", 3, 0, 4, 1),
+            coverage("divide", 8, 2, 6, 4));
+
+        List<CoverageInfo> selected = new UncoveredTargetSelector(5, 2).select(coverage, classInfo());
+
+        assertEquals(List.of("divide"), names(selected));
+    }
+
+    @Test
+    @DisplayName("Should exclude targets that repeatedly gained nothing")
+    void shouldExcludeRepeatedFailures() {
+        ClassInfo classInfo = classInfo();
+        CoverageInfo add = coverage("add", 3, 0, 4, 2);
+        CoverageInfo divide = coverage("divide", 8, 1, 6, 4);
+        CoverageReport coverage = report(add, divide);
+        UncoveredTargetSelector selector = new UncoveredTargetSelector(0, 2);
+
+        selector.recordOutcome(List.of(add, divide), report(add, coverage("divide", 8, 1, 6, 2)), classInfo);
+        selector.recordOutcome(List.of(add, divide), coverage, classInfo);
+
+        assertTrue(selector.isExcluded(add));
+        assertFalse(selector.isExcluded(divide));
+        assertEquals(List.of("divide"), names(selector.select(coverage, classInfo)));
+
+        selector.recordOutcome(List.of(divide), coverage, classInfo);
+        selector.recordOutcome(List.of(divide), coverage, classInfo);
+        assertTrue(selector.select(coverage, classInfo).isEmpty());
+        assertFalse(UncoveredTargetSelector.uncoveredTargets(coverage, classInfo).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should not count a failed coverage run against the targets")
+    void shouldIgnoreEmptyReports() {
+        CoverageInfo add = coverage("add", 3, 0, 4, 2);
+        UncoveredTargetSelector selector = new UncoveredTargetSelector(0, 1);
+
+        selector.recordOutcome(List.of(add), new CoverageReport(), classInfo());
+
+        assertFalse(selector.isExcluded(add));
+    }
+}
@@ -6,9 +6,11 @@ import com.utagent.model.MethodInfo;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.List;
@@ -491,4 +493,33 @@ class JavaCodeParserTest {
         assertEquals(2, method.parameters().size());
         assertTrue(method.parameters().get(1).isVarArgs());
     }
+
+    @Test
+    @DisplayName("Should record a source hash that ignores trailing whitespace")
+    void shouldRecordSourceHash() {
+        String code = "package com.example;\n\npublic class Counter {\n    int next() { return 1; }\n}\n";
+
+        String hash = parser.parseCode(code).orElseThrow().sourceHash();
+        String reformatted = parser.parseCode(code.replace("\n", "  \r\n")).orElseThrow().sourceHash();
+        String changed = parser.parseCode(code.replace("return 1", "return 2")).orElseThrow().sourceHash();
+
+        assertNotNull(hash);
+        assertEquals(hash, reformatted);
+        assertNotEquals(hash, changed);
+    }
+
+    @Test
+    @DisplayName("Should parse a source file that is not valid UTF-8")
+    void shouldParseNonUtf8File(@TempDir Path tempDir) throws IOException {
+        String code = "package com.example;\n\n// \u8BA1\u6570\u5668\npublic class Counter {\n"
+            + "    String label() { return \"\u8BA1\u6570\"; }\n}\n";
+        File file = tempDir.resolve("Counter.java").toFile();
+        Files.write(file.toPath(), code.getBytes(Charset.forName("GBK")));
+
+        Optional<ClassInfo> result = parser.parseFile(file);
+
+        assertTrue(result.isPresent());
+        assertEquals("Counter", result.get().className());
+        assertEquals(1, result.get().methods().size());
+    }
 }
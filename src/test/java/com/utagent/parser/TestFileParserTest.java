@@ -11,6 +11,7 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -305,4 +306,96 @@ class TestFileParserTest {
         assertTrue(method.hasAnnotation("@Test"));
         assertTrue(method.hasAnnotation("@DisplayName"));
     }
+
+    @Test
+    @DisplayName("Should ignore braces and annotations inside strings and comments")
+    void shouldIgnoreBracesInStringsAndComments() {
+        String content = """
+            package com.example;
+
+            import org.junit.jupiter.api.Test;
+
+            class MyServiceTest {
+                // @Test void commentedOut() {
+                @Test
+                @DisplayName("Should parse { and } in (text)")
+                void shouldParseBraces() {
+                    String json = "{\\"a\\": {}}";
+                    char c = '}';
+                    /* } */
+                }
+
+                @Test
+                void shouldFollowBraces() {
+                    String block = \"""
+                        }}}
+                        \""";
+                }
+            }
+            """;
+
+        ParsedTestFile result = parser.parseContent(content);
+
+        assertEquals(2, result.getTestMethodCount());
+        ParsedTestMethod first = result.testMethods().get(0);
+        assertEquals("shouldParseBraces", first.methodName());
+        assertEquals("@DisplayName(\"Should parse { and } in (text)\")", first.annotations().get(1));
+        assertTrue(first.testCode().endsWith("/* } */\n    }"), first.testCode());
+        assertEquals("shouldFollowBraces", result.testMethods().get(1).methodName());
+    }
+
+    @Test
+    @DisplayName("Should find test methods in nested classes and skip helpers")
+    void shouldParseNestedClasses() {
+        String content = """
+            package com.example;
+
+            @ExtendWith(MockitoExtension.class)
+            class MyServiceTest {
+                private final Runnable task = new Runnable() {
+                    @Override
+                    public void run() {
+                    }
+                };
+
+                private static String helper(String value) {
+                    return value;
+                }
+
+                @Nested
+                class WhenEmpty {
+                    @ParameterizedTest
+                    @ValueSource(strings = {"a", "b"})
+                    void shouldRejectValue(String value) throws Exception {
+                    }
+                }
+            }
+            """;
+
+        ParsedTestFile result = parser.parseContent(content);
+
+        assertEquals("com.example.MyServiceTest", result.fullyQualifiedName());
+        assertEquals(List.of("@ExtendWith(MockitoExtension.class)"), result.classAnnotations());
+        assertEquals(1, result.getTestMethodCount());
+        assertEquals("shouldRejectValue", result.testMethods().get(0).methodName());
+    }
+
+    @Test
+    @DisplayName("Should scan a test class with thousands of lines")
+    void shouldScanLargeTestClass() {
+        StringBuilder content = new StringBuilder("package com.example;\n\nclass LargeTest {\n");
+        for (int i = 0; i < 1000; i++) {
+            content.append("    @Test\n    @DisplayName(\"Should compute ").append(i).append("\")\n")
+                .append("    void shouldCompute").append(i).append("() {\n")
+                .append("        assertEquals(").append(i).append(", compute(").append(i).append("));\n")
+                .append("    }\n\n");
+        }
+        content.append("}\n");
+
+        ParsedTestFile result = assertTimeoutPreemptively(java.time.Duration.ofSeconds(10),
+            () -> parser.parseContent(content.toString()));
+
+        assertEquals(1000, result.getTestMethodCount());
+        assertEquals("shouldCompute999", result.testMethods().get(999).methodName());
+    }
 }
@@ -0,0 +1,133 @@
+package com.utagent.parser;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TestIndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path sourceDir;
+    private Path testDir;
+    private Path indexFile;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        sourceDir = Files.createDirectories(tempDir.resolve("src/main/java/com/example"));
+        testDir = Files.createDirectories(tempDir.resolve("src/test/java/com/example"));
+        indexFile = tempDir.resolve(TestIndex.DEFAULT_INDEX_FILE);
+        Files.writeString(sourceDir.resolve("Calculator.java"), "package com.example;\npublic class Calculator {}");
+    }
+
+    private TestIndex index() {
+        return new TestIndex(tempDir.resolve("src/test/java").toFile(), indexFile);
+    }
+
+    @Test
+    @DisplayName("Should find the conventionally named test of a source class")
+    void shouldFindConventionalTest() throws IOException {
+        Files.writeString(testDir.resolve("CalculatorTest.java"), """
+            package com.example;
+
+            class CalculatorTest {
+                @Test
+                void shouldAdd() {
+                }
+            }
+            """);
+
+        TestIndex index = index();
+        Optional<File> found = index.findTestFile(sourceDir.resolve("Calculator.java").toFile());
+
+        assertTrue(found.isPresent());
+        assertEquals("CalculatorTest.java", found.get().getName());
+        assertEquals(List.of("shouldAdd"), index.testsFor("com.example.Calculator").get(0).testMethods());
+    }
+
+    @Test
+    @DisplayName("Should index tests that refer to the class under another name")
+    void shouldIndexReferencingTests() throws IOException {
+        Path otherDir = Files.createDirectories(tempDir.resolve("src/test/java/com/example/it"));
+        Files.writeString(otherDir.resolve("ArithmeticScenarios.java"), """
+            package com.example.it;
+
+            import com.example.Calculator;
+            import org.junit.jupiter.api.Test;
+
+            class ArithmeticScenarios {
+                @Test
+                void addsThroughTheFacade() {
+                    Calculator calculator = new Calculator();
+                }
+            }
+            """);
+        Files.writeString(testDir.resolve("PricingTest.java"), """
+            package com.example;
+
+            class PricingTest {
+                @Test
+                void usesCalculator() {
+                    var total = new Calculator();
+                }
+            }
+            """);
+
+        List<TestIndex.Entry> tests = index().testsFor("com.example.Calculator");
+
+        assertEquals(2, tests.size());
+        assertTrue(tests.stream().anyMatch(t -> t.className().equals("ArithmeticScenarios")));
+        assertTrue(tests.stream().anyMatch(t -> t.className().equals("PricingTest")));
+        assertTrue(index().findTestFile("com.example.Calculator").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should persist the index and rescan only modified files")
+    void shouldRefreshIncrementallyFromPersistedIndex() throws IOException {
+        Path testFile = testDir.resolve("CalculatorTest.java");
+        Files.writeString(testFile, "package com.example;\nclass CalculatorTest { @Test void a() {} }");
+        index().refresh();
+        assertTrue(Files.exists(indexFile));
+
+        Files.writeString(testFile, "package com.example;\nclass CalculatorTest { @Test void a() {} @Test void b() {} }");
+        assertTrue(testFile.toFile().setLastModified(testFile.toFile().lastModified() + 5_000));
+        Files.writeString(testDir.resolve("CalculatorTests.java"),
+            "package com.example;\nclass CalculatorTests { @Test void c() {} }");
+
+        TestIndex reloaded = index();
+
+        assertEquals(2, reloaded.size());
+        assertEquals("CalculatorTest.java",
+            reloaded.findTestFile("com.example.Calculator").map(File::getName).orElse(null));
+        assertEquals(List.of("a", "b"), reloaded.testsFor("com.example.Calculator").get(0).testMethods());
+    }
+
+    @Test
+    @DisplayName("Should pick up a test file written after the index was built")
+    void shouldUpdateSingleFile() throws IOException {
+        TestIndex index = index().refresh();
+        assertTrue(index.findTestFile("com.example.Calculator").isEmpty());
+
+        Path testFile = testDir.resolve("CalculatorTest.java");
+        Files.writeString(testFile, "package com.example;\nclass CalculatorTest { @Test void a() {} }");
+        index.update(testFile.toFile());
+
+        assertTrue(index.findTestFile("com.example.Calculator").isPresent());
+
+        Files.delete(testFile);
+        index.update(testFile.toFile());
+
+        assertTrue(index.findTestFile("com.example.Calculator").isEmpty());
+    }
+}
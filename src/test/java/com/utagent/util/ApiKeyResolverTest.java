@@ -197,6 +197,12 @@ class ApiKeyResolverTest {
         void shouldReturnFalseForOllama() {
             assertFalse(ApiKeyResolver.isApiKeyRequired(LLMProviderType.OLLAMA));
         }
+
+        @Test
+        @DisplayName("Should return false for Replay")
+        void shouldReturnFalseForReplay() {
+            assertFalse(ApiKeyResolver.isApiKeyRequired(LLMProviderType.REPLAY));
+        }
     }
 
     @Nested